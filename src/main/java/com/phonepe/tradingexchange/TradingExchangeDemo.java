@@ -4,6 +4,7 @@ import com.phonepe.tradingexchange.model.OrderSide;
 import com.phonepe.tradingexchange.service.TradingService;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 
 public class TradingExchangeDemo {
     public static void main(String[] args) {
@@ -37,6 +38,8 @@ public class TradingExchangeDemo {
         );
         System.out.println("xyz placed sell order: " + sellOrder1);
         
+        // Queries are served from the read model, which trails the engine slightly
+        tradingService.awaitReadModel(Duration.ofSeconds(1));
         System.out.println("\nMarket data:");
         System.out.println(tradingService.getMarketData("AAPL"));
         
@@ -44,6 +47,7 @@ public class TradingExchangeDemo {
         System.out.println("\nModifying buy order to match sell order...");
         tradingService.modifyOrder(buyOrder.getOrderId(), new BigDecimal("151.00"), null);
         
+        tradingService.awaitReadModel(Duration.ofSeconds(1));
         System.out.println("\nMarket data after modification:");
         System.out.println(tradingService.getMarketData("AAPL"));
         
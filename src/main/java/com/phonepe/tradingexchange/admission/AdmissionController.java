@@ -0,0 +1,138 @@
+package com.phonepe.tradingexchange.admission;
+
+import com.phonepe.tradingexchange.exception.SystemBusyException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control in front of the matching engine. Commands in flight are counted per
+ * symbol and overall; once a symbol passes its high watermark new orders for it are rejected
+ * with {@link SystemBusyException} until it drains to the low watermark, instead of piling
+ * more threads onto its order locks. Cancels travel in their own lane and keep being admitted
+ * well past the order watermarks.
+ * <p>
+ * Every admitted command must be matched by a call to {@link #exit} once it leaves the engine.
+ */
+public class AdmissionController {
+    private final ConcurrentHashMap<String, SymbolLoad> symbols = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder ordersRejected = new LongAdder();
+    private final LongAdder cancelsRejected = new LongAdder();
+    private volatile AdmissionPolicy policy = AdmissionPolicy.unlimited();
+
+    private static AdmissionController INSTANCE;
+
+    public AdmissionController() {}
+
+    public static AdmissionController getInstance() {
+        if (INSTANCE == null) {
+            synchronized (AdmissionController.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new AdmissionController();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Resets the admission controller - primarily for testing.
+     */
+    public static void reset() {
+        INSTANCE = null;
+    }
+
+    public AdmissionPolicy getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(AdmissionPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Admits a command into the engine.
+     *
+     * @param symbol Symbol the command is for, or null if not known yet; such commands only
+     *               count towards the overall limits
+     * @throws SystemBusyException If the command is shed; nothing needs to be released then
+     */
+    public void enter(String symbol, AdmissionLane lane) throws SystemBusyException {
+        AdmissionPolicy current = policy;
+        SymbolLoad load = symbol == null ? null : load(symbol);
+        // Counted first and rolled back on rejection, so racing commands cannot overshoot
+        int symbolDepth = load == null ? 0 : load.inFlight.incrementAndGet();
+        int depth = inFlight.incrementAndGet();
+        if (lane == AdmissionLane.CANCEL) {
+            if (current.getMaxCancelsInFlight() > 0 && depth > current.getMaxCancelsInFlight()) {
+                leave(load);
+                cancelsRejected.increment();
+                throw new SystemBusyException("System busy, cancel rejected");
+            }
+            return;
+        }
+        if (load != null && current.getSymbolHighWatermark() > 0 && symbolDepth > current.getSymbolHighWatermark()) {
+            load.shedding = true;
+        }
+        if ((load != null && load.shedding) || (current.getMaxInFlight() > 0 && depth > current.getMaxInFlight())) {
+            leave(load);
+            ordersRejected.increment();
+            throw new SystemBusyException("System busy, order rejected" + (symbol == null ? "" : " for " + symbol));
+        }
+    }
+
+    /**
+     * Releases a command admitted by {@link #enter}.
+     */
+    public void exit(String symbol) {
+        leave(symbol == null ? null : symbols.get(symbol));
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getInFlight(String symbol) {
+        SymbolLoad load = symbols.get(symbol);
+        return load == null ? 0 : load.inFlight.get();
+    }
+
+    public boolean isShedding(String symbol) {
+        SymbolLoad load = symbols.get(symbol);
+        return load != null && load.shedding;
+    }
+
+    public long getOrdersRejected() {
+        return ordersRejected.sum();
+    }
+
+    public long getCancelsRejected() {
+        return cancelsRejected.sum();
+    }
+
+    private void leave(SymbolLoad load) {
+        inFlight.decrementAndGet();
+        if (load != null) {
+            int depth = load.inFlight.decrementAndGet();
+            if (load.shedding && depth <= lowWatermark(policy)) {
+                load.shedding = false;
+            }
+        }
+    }
+
+    private static int lowWatermark(AdmissionPolicy policy) {
+        return policy.getSymbolLowWatermark() > 0 ? policy.getSymbolLowWatermark() : policy.getSymbolHighWatermark() / 2;
+    }
+
+    private SymbolLoad load(String symbol) {
+        SymbolLoad load = symbols.get(symbol);
+        return load != null ? load : symbols.computeIfAbsent(symbol, s -> new SymbolLoad());
+    }
+
+    private static final class SymbolLoad {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile boolean shedding;
+    }
+}
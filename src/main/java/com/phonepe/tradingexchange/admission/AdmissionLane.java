@@ -0,0 +1,8 @@
+package com.phonepe.tradingexchange.admission;
+
+public enum AdmissionLane {
+    // New and modified orders: shed first when the engine falls behind
+    ORDER,
+    // Cancels: reduce load and risk, so they are admitted well past the order watermarks
+    CANCEL
+}
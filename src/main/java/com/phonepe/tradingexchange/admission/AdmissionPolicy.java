@@ -0,0 +1,25 @@
+package com.phonepe.tradingexchange.admission;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Watermarks on commands in flight in the engine. Zero means no limit; a zero low watermark
+ * defaults to half the high watermark.
+ */
+@Data
+@Builder(toBuilder = true)
+public class AdmissionPolicy {
+    // Orders for a symbol are shed once this many commands for it are in flight...
+    private final int symbolHighWatermark;
+    // ...and admitted again once the symbol has drained down to this many
+    private final int symbolLowWatermark;
+    // Orders are shed while this many commands are in flight across all symbols
+    private final int maxInFlight;
+    // Cancels are only shed past this many commands in flight across all symbols
+    private final int maxCancelsInFlight;
+
+    public static AdmissionPolicy unlimited() {
+        return AdmissionPolicy.builder().build();
+    }
+}
@@ -0,0 +1,193 @@
+package com.phonepe.tradingexchange.archive;
+
+import com.phonepe.tradingexchange.exception.TradingException;
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.util.IdUtils;
+import com.phonepe.tradingexchange.util.TimeUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Memory-mapped reader for archives produced by {@link TradeArchiveWriter}.
+ * <p>
+ * Only the header is read eagerly. A column is decoded sequentially through a window of at
+ * most {@link #WINDOW_BYTES} mapped at a time, moved along as the scan advances, so an
+ * analytics pass over one column (e.g. summing quantities) never maps or decodes the others
+ * and columns are not limited to the 2 GB a single mapping can cover.
+ */
+public class TradeArchiveReader implements Closeable {
+    static final long WINDOW_BYTES = 64L << 20;
+
+    private static final TradeColumn[] COLUMNS = TradeColumn.values();
+
+    private final FileChannel channel;
+    private final long windowBytes;
+    private final long rowCount;
+    private final int decimalScale;
+    private final long[] offsets = new long[COLUMNS.length + 1];
+    private final long[] lengths = new long[COLUMNS.length + 1];
+    private String[] dictionary;
+
+    private TradeArchiveReader(FileChannel channel, long windowBytes) throws IOException {
+        this.channel = channel;
+        this.windowBytes = windowBytes;
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, TradeArchiveWriter.HEADER_BYTES);
+        if (header.getInt() != TradeArchiveWriter.MAGIC) {
+            throw new TradingException("Not a trade archive");
+        }
+        int version = header.getInt();
+        if (version != TradeArchiveWriter.VERSION) {
+            throw new TradingException("Unsupported trade archive version: " + version);
+        }
+        this.rowCount = header.getLong();
+        this.decimalScale = header.getInt();
+        int columnCount = header.getInt();
+        if (columnCount != COLUMNS.length) {
+            throw new TradingException("Unexpected column count: " + columnCount);
+        }
+        for (int i = 0; i <= COLUMNS.length; i++) {
+            offsets[i] = header.getLong();
+            lengths[i] = header.getLong();
+        }
+    }
+
+    public static TradeArchiveReader open(Path file) throws IOException {
+        return open(file, WINDOW_BYTES);
+    }
+
+    static TradeArchiveReader open(Path file, long windowBytes) throws IOException {
+        if (windowBytes < VarInts.MAX_BYTES) {
+            throw new IllegalArgumentException("Window must hold at least one value: " + windowBytes);
+        }
+        return new TradeArchiveReader(FileChannel.open(file, StandardOpenOption.READ), windowBytes);
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Decodes one column, passing every row's value to the consumer. Delta columns are
+     * resolved to absolute values; dictionary columns yield codes for {@link #decodeString},
+     * and scaled columns yield longs for {@link #toDecimal}.
+     */
+    public void scan(TradeColumn column, LongConsumer consumer) throws IOException {
+        ColumnWindow data = new ColumnWindow(column.ordinal());
+        boolean delta = column.getEncoding() == TradeColumn.Encoding.DELTA;
+        long value = 0;
+        for (long row = 0; row < rowCount; row++) {
+            long decoded = VarInts.readSigned(data.next());
+            value = delta ? value + decoded : decoded;
+            consumer.accept(value);
+        }
+    }
+
+    public long[] readColumn(TradeColumn column) throws IOException {
+        if (rowCount > Integer.MAX_VALUE) {
+            throw new TradingException("Column too large to materialize; use scan instead");
+        }
+        long[] values = new long[(int) rowCount];
+        int[] index = {0};
+        scan(column, value -> values[index[0]++] = value);
+        return values;
+    }
+
+    public BigDecimal toDecimal(long scaled) {
+        BigDecimal value = BigDecimal.valueOf(scaled, decimalScale).stripTrailingZeros();
+        return value.scale() < 0 ? value.setScale(0) : value;
+    }
+
+    public String decodeString(long code) throws IOException {
+        return code == 0 ? null : dictionary()[(int) code - 1];
+    }
+
+    /**
+     * Reconstructs every trade in the archive. Intended for small archives and tests; analytics
+     * should scan the columns they need.
+     */
+    public List<Trade> readTrades() throws IOException {
+        long[] tradeSequences = readColumn(TradeColumn.TRADE_SEQUENCE);
+        long[] buyOrders = readColumn(TradeColumn.BUY_ORDER_SEQUENCE);
+        long[] sellOrders = readColumn(TradeColumn.SELL_ORDER_SEQUENCE);
+        long[] symbols = readColumn(TradeColumn.SYMBOL);
+        long[] buyUsers = readColumn(TradeColumn.BUY_USER);
+        long[] sellUsers = readColumn(TradeColumn.SELL_USER);
+        long[] prices = readColumn(TradeColumn.PRICE);
+        long[] quantities = readColumn(TradeColumn.QUANTITY);
+        long[] executedAt = readColumn(TradeColumn.EXECUTED_AT);
+
+        List<Trade> trades = new ArrayList<>(tradeSequences.length);
+        for (int row = 0; row < tradeSequences.length; row++) {
+            trades.add(Trade.builder()
+                    .tradeId(IdUtils.tradeId(tradeSequences[row]))
+                    .buyOrderId(IdUtils.orderId(buyOrders[row]))
+                    .sellOrderId(IdUtils.orderId(sellOrders[row]))
+                    .symbol(decodeString(symbols[row]))
+                    .buyUserId(decodeString(buyUsers[row]))
+                    .sellUserId(decodeString(sellUsers[row]))
+                    .price(toDecimal(prices[row]))
+                    .quantity(toDecimal(quantities[row]))
+                    .executedAt(TimeUtils.fromEpochNanos(executedAt[row]))
+                    .build());
+        }
+        return trades;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Sequential view of one column through a sliding mapped window. The window is moved
+     * forward whenever fewer bytes remain in it than the longest varint, so a value never
+     * straddles two windows.
+     */
+    private final class ColumnWindow {
+        private final long end;
+        private long windowStart;
+        private ByteBuffer window;
+
+        ColumnWindow(int index) {
+            this.windowStart = offsets[index];
+            this.end = offsets[index] + lengths[index];
+        }
+
+        /**
+         * @return The window, positioned at the next value
+         */
+        ByteBuffer next() throws IOException {
+            if (window == null || (window.remaining() < VarInts.MAX_BYTES && windowStart + window.limit() < end)) {
+                long position = window == null ? windowStart : windowStart + window.position();
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowBytes, end - position));
+                windowStart = position;
+            }
+            return window;
+        }
+    }
+
+    private String[] dictionary() throws IOException {
+        if (dictionary == null) {
+            int index = COLUMNS.length;
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, offsets[index], lengths[index]);
+            String[] values = new String[(int) VarInts.readUnsigned(data)];
+            for (int i = 0; i < values.length; i++) {
+                byte[] bytes = new byte[(int) VarInts.readUnsigned(data)];
+                data.get(bytes);
+                values[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            dictionary = values;
+        }
+        return dictionary;
+    }
+}
@@ -0,0 +1,247 @@
+package com.phonepe.tradingexchange.archive;
+
+import com.phonepe.tradingexchange.common.Constants;
+import com.phonepe.tradingexchange.exception.TradingException;
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.repository.TradeRepository;
+import com.phonepe.tradingexchange.util.IdUtils;
+import com.phonepe.tradingexchange.util.StringDictionary;
+import com.phonepe.tradingexchange.util.TimeUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.TreeSet;
+
+/**
+ * Rolls trades into a columnar binary archive for end-of-day processing.
+ * <p>
+ * Each {@link TradeColumn} is written as its own contiguous block of zig-zag varints:
+ * IDs, prices and timestamps are delta-encoded against the previous row, symbols and user IDs
+ * are dictionary-encoded and decimals are stored as longs scaled by {@link #DECIMAL_SCALE}.
+ * The file layout is
+ * <pre>
+ *   magic, version, row count, decimal scale, column count
+ *   (offset, length) for every column, then for the dictionary
+ *   column blocks in {@link TradeColumn} order
+ *   dictionary: count, then (length, UTF-8 bytes) per entry
+ * </pre>
+ * so {@link TradeArchiveReader} can map and decode one column without touching the others.
+ * Appending trades in sequence order gives the best compression.
+ * <p>
+ * Columns are streamed to spill files as trades are appended and concatenated into the
+ * archive by {@link #writeTo}, so neither the heap nor a single buffer bounds the archive's
+ * size. The spill files are deleted once the archive is written or the writer is closed.
+ */
+public class TradeArchiveWriter implements Closeable {
+    public static final int DECIMAL_SCALE = Constants.MAX_PRICE_PRECISION;
+
+    static final int MAGIC = 0x54524441;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4 + (TradeColumn.values().length + 1) * 16;
+
+    private static final TradeColumn[] COLUMNS = TradeColumn.values();
+
+    private final Path spillDirectory;
+    private final Path[] spillFiles = new Path[COLUMNS.length];
+    private final OutputStream[] columns = new OutputStream[COLUMNS.length];
+    private final long[] previous = new long[COLUMNS.length];
+    private final StringDictionary dictionary = new StringDictionary();
+    private long rowCount;
+    private boolean closed;
+
+    public TradeArchiveWriter() {
+        this(Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * @param spillDirectory Directory for the column spill files, ideally on the archive's
+     *                       file system
+     */
+    public TradeArchiveWriter(Path spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Archives every trade currently held by the repository, streaming each symbol's trade log
+     * in turn, symbols in name order, without copying or sorting the trades.
+     *
+     * @return Size of the archive in bytes
+     */
+    public static long archive(TradeRepository tradeRepository, Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        try (TradeArchiveWriter writer = new TradeArchiveWriter(directory)) {
+            for (String symbol : new TreeSet<>(tradeRepository.getSymbols())) {
+                tradeRepository.getTradeLog(symbol).ifPresent(log -> log.between(null, null).forEach(writer::append));
+            }
+            return writer.writeTo(file);
+        }
+    }
+
+    public void append(Trade trade) {
+        // Encode everything up front so a rejected trade leaves no partial row behind
+        long tradeSequence = sequence(IdUtils.tradeSequence(trade.getTradeId()), trade.getTradeId());
+        long buyOrderSequence = sequence(IdUtils.orderSequence(trade.getBuyOrderId()), trade.getBuyOrderId());
+        long sellOrderSequence = sequence(IdUtils.orderSequence(trade.getSellOrderId()), trade.getSellOrderId());
+        long price = scaled(trade.getPrice());
+        long quantity = scaled(trade.getQuantity());
+
+        if (closed) {
+            throw new TradingException("Trade archive writer is closed");
+        }
+        put(TradeColumn.TRADE_SEQUENCE, tradeSequence);
+        put(TradeColumn.BUY_ORDER_SEQUENCE, buyOrderSequence);
+        put(TradeColumn.SELL_ORDER_SEQUENCE, sellOrderSequence);
+        put(TradeColumn.SYMBOL, code(trade.getSymbol()));
+        put(TradeColumn.BUY_USER, code(trade.getBuyUserId()));
+        put(TradeColumn.SELL_USER, code(trade.getSellUserId()));
+        put(TradeColumn.PRICE, price);
+        put(TradeColumn.QUANTITY, quantity);
+        put(TradeColumn.EXECUTED_AT, TimeUtils.toEpochNanos(trade.getExecutedAt()));
+        rowCount++;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Writes the archive to a file, replacing any existing file, and closes the writer.
+     *
+     * @return Size of the archive in bytes
+     */
+    public long writeTo(Path file) throws IOException {
+        if (closed) {
+            throw new TradingException("Trade archive writer is closed");
+        }
+        try {
+            long[] sizes = new long[COLUMNS.length];
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (columns[i] != null) {
+                    columns[i].close();
+                    sizes[i] = Files.size(spillFiles[i]);
+                }
+            }
+            byte[] dictionaryBytes = encodeDictionary();
+            try (OutputStream fileOut = Files.newOutputStream(file);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(rowCount);
+                out.writeInt(DECIMAL_SCALE);
+                out.writeInt(COLUMNS.length);
+
+                long offset = HEADER_BYTES;
+                for (long size : sizes) {
+                    out.writeLong(offset);
+                    out.writeLong(size);
+                    offset += size;
+                }
+                out.writeLong(offset);
+                out.writeLong(dictionaryBytes.length);
+
+                for (Path spillFile : spillFiles) {
+                    if (spillFile != null) {
+                        Files.copy(spillFile, out);
+                    }
+                }
+                out.write(dictionaryBytes);
+                return offset + dictionaryBytes.length;
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Deletes the spill files; the archive can no longer be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        IOException failure = null;
+        for (int i = 0; i < COLUMNS.length; i++) {
+            try {
+                if (columns[i] != null) {
+                    columns[i].close();
+                }
+                if (spillFiles[i] != null) {
+                    Files.deleteIfExists(spillFiles[i]);
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void put(TradeColumn column, long value) {
+        int index = column.ordinal();
+        long encoded = value;
+        if (column.getEncoding() == TradeColumn.Encoding.DELTA) {
+            encoded = value - previous[index];
+            previous[index] = value;
+        }
+        try {
+            VarInts.writeSigned(column(index), encoded);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill trade archive column " + column, e);
+        }
+    }
+
+    private OutputStream column(int index) throws IOException {
+        if (columns[index] == null) {
+            String prefix = "trades-" + COLUMNS[index].name().toLowerCase() + "-";
+            spillFiles[index] = Files.createTempFile(spillDirectory, prefix, ".col");
+            columns[index] = new BufferedOutputStream(Files.newOutputStream(spillFiles[index]), 1 << 16);
+        }
+        return columns[index];
+    }
+
+    // Code 0 is reserved for null so that optional fields cost one byte
+    private long code(String value) {
+        return value == null ? 0 : dictionary.encode(value) + 1L;
+    }
+
+    private static long sequence(long sequence, String id) {
+        if (sequence <= 0) {
+            throw new TradingException("Cannot archive non-sequential identifier: " + id);
+        }
+        return sequence;
+    }
+
+    private static long scaled(BigDecimal value) {
+        try {
+            return value.setScale(DECIMAL_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new TradingException("Cannot archive decimal value: " + value, e);
+        }
+    }
+
+    private byte[] encodeDictionary() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int size = dictionary.size();
+        VarInts.writeUnsigned(out, size);
+        for (int code = 0; code < size; code++) {
+            byte[] bytes = dictionary.decode(code).getBytes(StandardCharsets.UTF_8);
+            VarInts.writeUnsigned(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        return out.toByteArray();
+    }
+}
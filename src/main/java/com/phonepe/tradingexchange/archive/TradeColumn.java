@@ -0,0 +1,35 @@
+package com.phonepe.tradingexchange.archive;
+
+/**
+ * Columns of a trade archive and how each is encoded. Every column is a sequence of zig-zag
+ * varints; delta columns store the difference to the previous row, dictionary columns store
+ * codes into the archive's string dictionary and scaled columns store decimals multiplied by
+ * {@link TradeArchiveWriter#DECIMAL_SCALE}.
+ */
+public enum TradeColumn {
+    TRADE_SEQUENCE(Encoding.DELTA),
+    BUY_ORDER_SEQUENCE(Encoding.DELTA),
+    SELL_ORDER_SEQUENCE(Encoding.DELTA),
+    SYMBOL(Encoding.DICTIONARY),
+    BUY_USER(Encoding.DICTIONARY),
+    SELL_USER(Encoding.DICTIONARY),
+    PRICE(Encoding.DELTA),
+    QUANTITY(Encoding.PLAIN),
+    EXECUTED_AT(Encoding.DELTA);
+
+    enum Encoding {
+        PLAIN,
+        DELTA,
+        DICTIONARY
+    }
+
+    private final Encoding encoding;
+
+    TradeColumn(Encoding encoding) {
+        this.encoding = encoding;
+    }
+
+    Encoding getEncoding() {
+        return encoding;
+    }
+}
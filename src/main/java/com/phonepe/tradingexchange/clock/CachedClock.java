@@ -0,0 +1,59 @@
+package com.phonepe.tradingexchange.clock;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coarse wall clock that reads the system time on a background tick and serves the cached
+ * value. {@link #now()} is a single volatile read, so stamping orders and trades costs nothing
+ * on the matching path; the trade-off is that timestamps are only accurate to the tick
+ * interval. Timestamps are for display and audit only: order priority is decided by arrival
+ * sequence, never by time. The cached time never moves backwards, even if the system clock
+ * does.
+ */
+public class CachedClock implements EngineClock, AutoCloseable {
+    public static final long DEFAULT_RESOLUTION_MILLIS = 1;
+
+    private static final CachedClock SHARED = new CachedClock(DEFAULT_RESOLUTION_MILLIS);
+
+    private final ScheduledExecutorService ticker;
+    private volatile LocalDateTime now = LocalDateTime.now();
+
+    public CachedClock(long resolutionMillis) {
+        if (resolutionMillis <= 0) {
+            throw new IllegalArgumentException("Resolution must be positive");
+        }
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cached-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, resolutionMillis, resolutionMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the process-wide clock used by the default engine and order factories.
+     */
+    public static CachedClock shared() {
+        return SHARED;
+    }
+
+    @Override
+    public LocalDateTime now() {
+        return now;
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    private void tick() {
+        LocalDateTime current = LocalDateTime.now();
+        if (current.isAfter(now)) {
+            now = current;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.phonepe.tradingexchange.clock;
+
+import java.time.LocalDateTime;
+
+/**
+ * Source of time for the matching engine. Injecting the clock instead of calling
+ * {@link LocalDateTime#now()} lets the engine run against simulated time, e.g. during replay.
+ */
+public interface EngineClock {
+
+    LocalDateTime now();
+
+    /**
+     * Exact system time, read on every call.
+     */
+    static EngineClock system() {
+        return LocalDateTime::now;
+    }
+
+    /**
+     * Shared coarse system time, refreshed in the background.
+     *
+     * @see CachedClock
+     */
+    static EngineClock coarse() {
+        return CachedClock.shared();
+    }
+}
@@ -0,0 +1,24 @@
+package com.phonepe.tradingexchange.clock;
+
+import java.time.LocalDateTime;
+
+/**
+ * Clock whose time only moves when it is set explicitly. Used to drive the engine with the
+ * timestamps recorded in a command journal.
+ */
+public class SimulatedClock implements EngineClock {
+    private volatile LocalDateTime now;
+
+    public SimulatedClock(LocalDateTime start) {
+        this.now = start;
+    }
+
+    @Override
+    public LocalDateTime now() {
+        return now;
+    }
+
+    public void setTime(LocalDateTime time) {
+        this.now = time;
+    }
+}
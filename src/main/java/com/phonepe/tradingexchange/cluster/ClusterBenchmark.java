@@ -0,0 +1,116 @@
+package com.phonepe.tradingexchange.cluster;
+
+import com.phonepe.tradingexchange.model.OrderSide;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static com.phonepe.tradingexchange.loadtest.LoadGenerator.parseArgs;
+
+/**
+ * Compares order throughput of a single engine process with a partitioned deployment. Both
+ * run as child processes behind an {@link OrderRouter}, so the only difference is how many
+ * engines the symbols are spread over; symbols are assigned to partitions round robin.
+ * Client threads place crossing limit orders on random symbols as fast as they are answered.
+ * <p>
+ * Run with e.g. {@code --partitions=4 --symbols=64 --users=100 --orders=400000 --clients=16
+ * --output=cluster.json}. Each partition gets {@code --heap} (default 1g) of heap.
+ */
+public class ClusterBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        int partitions = Integer.parseInt(options.getOrDefault("partitions", "4"));
+        int symbols = Integer.parseInt(options.getOrDefault("symbols", "64"));
+        int users = Integer.parseInt(options.getOrDefault("users", "100"));
+        int orders = Integer.parseInt(options.getOrDefault("orders", "400000"));
+        int clients = Integer.parseInt(options.getOrDefault("clients", "16"));
+        List<String> jvmArgs = Collections.singletonList("-Xmx" + options.getOrDefault("heap", "1g"));
+
+        StringBuilder json = new StringBuilder("{\n");
+        json.append(String.format(Locale.ROOT,
+                "  \"orders\": %d,%n  \"symbols\": %d,%n  \"users\": %d,%n  \"clients\": %d,%n",
+                orders, symbols, users, clients));
+        json.append("  \"results\": [\n");
+        double baseline = 0;
+        List<Integer> counts = partitions > 1 ? List.of(1, partitions) : List.of(1);
+        for (int i = 0; i < counts.size(); i++) {
+            int count = counts.get(i);
+            double seconds = run(roundRobin(count, symbols), jvmArgs, symbols, users, orders, clients);
+            baseline = count == 1 ? seconds : baseline;
+            json.append(String.format(Locale.ROOT,
+                    "    {\"partitions\": %d, \"seconds\": %.3f, \"ordersPerSecond\": %.0f, \"speedup\": %.2f}",
+                    count, seconds, orders / seconds, baseline / seconds));
+            json.append(i + 1 < counts.size() ? ",\n" : "\n");
+        }
+        json.append("  ]\n}\n");
+        if (options.containsKey("output")) {
+            Files.write(Paths.get(options.get("output")), json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        System.out.print(json);
+        System.exit(0);
+    }
+
+    static PartitionMap roundRobin(int partitions, int symbols) {
+        Map<String, Integer> assignments = new HashMap<>();
+        for (int i = 0; i < symbols; i++) {
+            assignments.put(symbol(i), i % partitions);
+        }
+        return new PartitionMap(partitions, assignments);
+    }
+
+    /**
+     * @return Seconds taken to place the measured orders, after a warm-up of a tenth as many
+     */
+    private static double run(PartitionMap partitionMap, List<String> jvmArgs, int symbols, int users,
+                              int orders, int clients) throws IOException, InterruptedException {
+        List<PartitionProcess> processes = PartitionProcess.startAll(partitionMap, jvmArgs);
+        try (OrderRouter router = new OrderRouter(partitionMap, PartitionProcess.addresses(processes))) {
+            List<String> userIds = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                userIds.add(router.registerUser("bench" + i, "bench" + i + "@example.com").getUserId());
+            }
+            place(router, userIds, symbols, orders / 10, clients, 1);
+            long started = System.nanoTime();
+            place(router, userIds, symbols, orders, clients, 2);
+            return (System.nanoTime() - started) / 1e9;
+        } finally {
+            processes.forEach(PartitionProcess::close);
+        }
+    }
+
+    private static void place(OrderRouter router, List<String> userIds, int symbols, int orders, int clients,
+                              long seed) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int share = orders / clients + (c < orders % clients ? 1 : 0);
+            SplittableRandom random = new SplittableRandom(seed * 1_000 + c);
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < share; i++) {
+                    OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+                    router.placeOrder(userIds.get(random.nextInt(userIds.size())), symbol(random.nextInt(symbols)),
+                            side, BigDecimal.valueOf(95 + random.nextInt(11)), BigDecimal.valueOf(1 + random.nextInt(100)));
+                }
+            }, "bench-client-" + c);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static String symbol(int index) {
+        return "SYM" + index;
+    }
+}
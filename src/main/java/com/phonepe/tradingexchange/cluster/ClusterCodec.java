@@ -0,0 +1,137 @@
+package com.phonepe.tradingexchange.cluster;
+
+import com.phonepe.tradingexchange.exception.OrderException;
+import com.phonepe.tradingexchange.exception.PriceBandException;
+import com.phonepe.tradingexchange.exception.RiskLimitException;
+import com.phonepe.tradingexchange.exception.SystemBusyException;
+import com.phonepe.tradingexchange.exception.ThrottledException;
+import com.phonepe.tradingexchange.exception.TradingException;
+import com.phonepe.tradingexchange.journal.CommandCodec;
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.model.User;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Frames of the router-partition protocol. A request is its id, a {@link ClusterOp} and the
+ * op's arguments; a response is the request id, a status and the result. Partitions also push
+ * their trades on every connection as {@link #TRADE} frames with request id 0. Orders and
+ * decimals are encoded as in the command journal.
+ */
+final class ClusterCodec {
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+    static final byte TRADE = 2;
+
+    private static final ClusterOp[] OPS = ClusterOp.values();
+
+    // Exception types that survive the trip back to the router, most specific first
+    private static final byte TRADING_ERROR = 0;
+    private static final byte ORDER_ERROR = 1;
+    private static final byte RISK_LIMIT_ERROR = 2;
+    private static final byte THROTTLED_ERROR = 3;
+    private static final byte SYSTEM_BUSY_ERROR = 4;
+    private static final byte PRICE_BAND_ERROR = 5;
+
+    private ClusterCodec() {}
+
+    static void writeHeader(DataOutput out, long requestId, ClusterOp op) throws IOException {
+        out.writeLong(requestId);
+        out.writeByte(op.ordinal());
+    }
+
+    static ClusterOp readOp(DataInput in) throws IOException {
+        return OPS[in.readByte()];
+    }
+
+    static void writeUser(DataOutput out, User user) throws IOException {
+        out.writeUTF(user.getUserId());
+        out.writeUTF(user.getName());
+        out.writeUTF(user.getEmail());
+    }
+
+    static User readUser(DataInput in) throws IOException {
+        return User.builder()
+                .userId(in.readUTF())
+                .name(in.readUTF())
+                .email(in.readUTF())
+                .build();
+    }
+
+    static void writeTrade(DataOutput out, Trade trade) throws IOException {
+        out.writeUTF(trade.getTradeId());
+        out.writeUTF(trade.getBuyOrderId());
+        out.writeUTF(trade.getSellOrderId());
+        out.writeUTF(trade.getBuyUserId());
+        out.writeUTF(trade.getSellUserId());
+        out.writeUTF(trade.getSymbol());
+        CommandCodec.writeDecimal(out, trade.getPrice());
+        CommandCodec.writeDecimal(out, trade.getQuantity());
+        CommandCodec.writeTime(out, trade.getExecutedAt());
+    }
+
+    static Trade readTrade(DataInput in) throws IOException {
+        return Trade.builder()
+                .tradeId(in.readUTF())
+                .buyOrderId(in.readUTF())
+                .sellOrderId(in.readUTF())
+                .buyUserId(in.readUTF())
+                .sellUserId(in.readUTF())
+                .symbol(in.readUTF())
+                .price(CommandCodec.readDecimal(in))
+                .quantity(CommandCodec.readDecimal(in))
+                .executedAt(CommandCodec.readTime(in))
+                .build();
+    }
+
+    static void writeNullableUTF(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readNullableUTF(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static void writeError(DataOutput out, TradingException error) throws IOException {
+        byte kind;
+        if (error instanceof PriceBandException) {
+            kind = PRICE_BAND_ERROR;
+        } else if (error instanceof SystemBusyException) {
+            kind = SYSTEM_BUSY_ERROR;
+        } else if (error instanceof ThrottledException) {
+            kind = THROTTLED_ERROR;
+        } else if (error instanceof RiskLimitException) {
+            kind = RISK_LIMIT_ERROR;
+        } else if (error instanceof OrderException) {
+            kind = ORDER_ERROR;
+        } else {
+            kind = TRADING_ERROR;
+        }
+        out.writeByte(kind);
+        writeNullableUTF(out, error.getMessage());
+    }
+
+    static TradingException readError(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        String message = readNullableUTF(in);
+        switch (kind) {
+            case ORDER_ERROR:
+                return new OrderException(message);
+            case RISK_LIMIT_ERROR:
+                return new RiskLimitException(message);
+            case THROTTLED_ERROR:
+                return new ThrottledException(message);
+            case SYSTEM_BUSY_ERROR:
+                return new SystemBusyException(message);
+            case PRICE_BAND_ERROR:
+                return new PriceBandException(message);
+            default:
+                return new TradingException(message);
+        }
+    }
+}
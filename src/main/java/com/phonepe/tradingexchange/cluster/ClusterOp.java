@@ -0,0 +1,15 @@
+package com.phonepe.tradingexchange.cluster;
+
+/**
+ * Requests a router sends to a partition.
+ */
+enum ClusterOp {
+    REGISTER_USER,
+    PLACE_ORDER,
+    CANCEL_ORDER,
+    MODIFY_ORDER,
+    USER_ORDERS,
+    USER_TRADES,
+    SYMBOL_TRADES,
+    MARKET_DATA
+}
@@ -0,0 +1,375 @@
+package com.phonepe.tradingexchange.cluster;
+
+import com.phonepe.tradingexchange.common.Constants;
+import com.phonepe.tradingexchange.engine.TradeListener;
+import com.phonepe.tradingexchange.exception.ClusterException;
+import com.phonepe.tradingexchange.exception.OrderException;
+import com.phonepe.tradingexchange.exception.TradingException;
+import com.phonepe.tradingexchange.journal.CommandCodec;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.SelfTradePrevention;
+import com.phonepe.tradingexchange.model.TimeInForce;
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.model.User;
+import com.phonepe.tradingexchange.util.ValidationUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Front end of a partitioned deployment, offering the {@link com.phonepe.tradingexchange.service.TradingService}
+ * operations over a set of {@link PartitionServer} processes. Commands for a symbol go to the
+ * partition the {@link PartitionMap} assigns it to; cancels and modifications find their
+ * partition from the order id. Queries that span partitions, such as a user's orders, are
+ * sent to every partition at once and the results merged.
+ * <p>
+ * Each partition is reached over one connection, which many threads can share: requests
+ * carry an id and their responses are matched up as they arrive. Trades pushed by the
+ * partitions are delivered to the router's trade listeners on the connection's reader
+ * thread, before the response of the command that caused them.
+ */
+public class OrderRouter implements Closeable {
+    private final PartitionMap partitionMap;
+    private final List<PartitionConnection> partitions = new ArrayList<>();
+    private final List<TradeListener> tradeListeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong requestIds = new AtomicLong();
+    private final Duration timeout;
+
+    /**
+     * Connects to every partition.
+     *
+     * @param addresses Partition addresses, indexed by partition number
+     */
+    public OrderRouter(PartitionMap partitionMap, List<InetSocketAddress> addresses) throws IOException {
+        this(partitionMap, addresses, Constants.CLUSTER_REQUEST_TIMEOUT);
+    }
+
+    public OrderRouter(PartitionMap partitionMap, List<InetSocketAddress> addresses, Duration timeout)
+            throws IOException {
+        if (addresses.size() != partitionMap.getPartitionCount()) {
+            throw new IllegalArgumentException("Expected " + partitionMap.getPartitionCount()
+                    + " partition addresses but got " + addresses.size());
+        }
+        this.partitionMap = partitionMap;
+        this.timeout = timeout;
+        try {
+            for (int partition = 0; partition < addresses.size(); partition++) {
+                partitions.add(new PartitionConnection(partition, addresses.get(partition)));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public PartitionMap getPartitionMap() {
+        return partitionMap;
+    }
+
+    public void addTradeListener(TradeListener listener) {
+        tradeListeners.add(listener);
+    }
+
+    public void removeTradeListener(TradeListener listener) {
+        tradeListeners.remove(listener);
+    }
+
+    /**
+     * Registers a user with every partition, so they can trade any symbol.
+     */
+    public User registerUser(String name, String email) throws TradingException {
+        ValidationUtils.validateUserDetails(name, email);
+        User user = User.createUser(name, email);
+        List<CompletableFuture<Object>> results = new ArrayList<>();
+        for (PartitionConnection partition : partitions) {
+            results.add(partition.send(ClusterOp.REGISTER_USER, out -> ClusterCodec.writeUser(out, user)));
+        }
+        for (CompletableFuture<Object> result : results) {
+            await(result);
+        }
+        return user;
+    }
+
+    public Order placeOrder(String userId, String symbol, OrderSide side,
+                            BigDecimal price, BigDecimal quantity) throws OrderException {
+        return placeOrder(userId, symbol, side, price, quantity, TimeInForce.GTC, SelfTradePrevention.NONE);
+    }
+
+    public Order placeOrder(String userId, String symbol, OrderSide side, BigDecimal price,
+                            BigDecimal quantity, TimeInForce timeInForce) throws OrderException {
+        return placeOrder(userId, symbol, side, price, quantity, timeInForce, SelfTradePrevention.NONE);
+    }
+
+    /**
+     * Places an order on the partition that owns its symbol.
+     *
+     * @return The order as the partition left it, e.g. filled or resting
+     */
+    public Order placeOrder(String userId, String symbol, OrderSide side, BigDecimal price, BigDecimal quantity,
+                            TimeInForce timeInForce, SelfTradePrevention selfTradePrevention) throws OrderException {
+        ValidationUtils.validateSymbol(symbol);
+        if (userId == null || side == null || timeInForce == null) {
+            throw new OrderException("User, side and time in force are required");
+        }
+        ValidationUtils.validateSelfTradePrevention(selfTradePrevention);
+        PartitionConnection partition = partitions.get(partitionMap.partitionOf(symbol));
+        return (Order) await(partition.send(ClusterOp.PLACE_ORDER, out -> {
+            out.writeUTF(userId);
+            out.writeUTF(symbol);
+            out.writeByte(side.ordinal());
+            CommandCodec.writeDecimal(out, price);
+            CommandCodec.writeDecimal(out, quantity);
+            out.writeByte(timeInForce.ordinal());
+            out.writeByte(selfTradePrevention.ordinal());
+        }));
+    }
+
+    public void cancelOrder(String orderId) throws OrderException {
+        await(partitionOfOrder(orderId).send(ClusterOp.CANCEL_ORDER, out -> out.writeUTF(orderId)));
+    }
+
+    public void modifyOrder(String orderId, BigDecimal newPrice, BigDecimal newQuantity) throws OrderException {
+        await(partitionOfOrder(orderId).send(ClusterOp.MODIFY_ORDER, out -> {
+            out.writeUTF(orderId);
+            CommandCodec.writeDecimal(out, newPrice);
+            CommandCodec.writeDecimal(out, newQuantity);
+        }));
+    }
+
+    /**
+     * Returns a user's orders across all partitions, oldest first.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Order> getUserOrders(String userId) throws TradingException {
+        List<Order> orders = new ArrayList<>();
+        for (Object result : scatter(ClusterOp.USER_ORDERS, userId)) {
+            orders.addAll((List<Order>) result);
+        }
+        orders.sort(Comparator.comparing(Order::getCreatedAt));
+        return orders;
+    }
+
+    /**
+     * Returns the trades a user took part in across all partitions, oldest first.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Trade> getUserTrades(String userId) throws TradingException {
+        List<Trade> trades = new ArrayList<>();
+        for (Object result : scatter(ClusterOp.USER_TRADES, userId)) {
+            trades.addAll((List<Trade>) result);
+        }
+        trades.sort(Comparator.comparing(Trade::getExecutedAt));
+        return trades;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Trade> getSymbolTrades(String symbol) throws TradingException {
+        ValidationUtils.validateSymbol(symbol);
+        PartitionConnection partition = partitions.get(partitionMap.partitionOf(symbol));
+        return (List<Trade>) await(partition.send(ClusterOp.SYMBOL_TRADES, out -> out.writeUTF(symbol)));
+    }
+
+    public String getMarketData(String symbol) throws TradingException {
+        ValidationUtils.validateSymbol(symbol);
+        PartitionConnection partition = partitions.get(partitionMap.partitionOf(symbol));
+        return (String) await(partition.send(ClusterOp.MARKET_DATA, out -> out.writeUTF(symbol)));
+    }
+
+    @Override
+    public void close() {
+        for (PartitionConnection partition : partitions) {
+            partition.close();
+        }
+    }
+
+    private PartitionConnection partitionOfOrder(String orderId) throws OrderException {
+        int partition = partitionMap.partitionOfOrder(orderId);
+        if (partition < 0) {
+            throw new OrderException(Constants.ERROR_ORDER_NOT_FOUND);
+        }
+        return partitions.get(partition);
+    }
+
+    // Sends the query to every partition before waiting on any of them
+    private List<Object> scatter(ClusterOp op, String key) {
+        List<CompletableFuture<Object>> pending = new ArrayList<>();
+        for (PartitionConnection partition : partitions) {
+            pending.add(partition.send(op, out -> out.writeUTF(key)));
+        }
+        List<Object> results = new ArrayList<>();
+        for (CompletableFuture<Object> result : pending) {
+            results.add(await(result));
+        }
+        return results;
+    }
+
+    private Object await(CompletableFuture<Object> result) {
+        try {
+            return result.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TradingException) {
+                throw (TradingException) e.getCause();
+            }
+            throw new ClusterException("Partition request failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            result.cancel(false);
+            throw new ClusterException("Partition did not respond within " + timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClusterException("Interrupted waiting for partition", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Arguments {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Connection to one partition: requests are written by the calling threads, responses and
+     * pushed trades are read by a dedicated thread.
+     */
+    private final class PartitionConnection {
+        private final int partition;
+        private final Socket socket;
+        private final DataOutputStream out;
+        private final ConcurrentHashMap<Long, Pending> pending = new ConcurrentHashMap<>();
+        private volatile boolean closed;
+
+        PartitionConnection(int partition, InetSocketAddress address) throws IOException {
+            this.partition = partition;
+            this.socket = new Socket(address.getAddress(), address.getPort());
+            socket.setTcpNoDelay(true);
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            Thread reader = new Thread(this::read, "router-partition-" + partition);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        CompletableFuture<Object> send(ClusterOp op, Arguments arguments) {
+            long requestId = requestIds.incrementAndGet();
+            Pending request = new Pending(op);
+            pending.put(requestId, request);
+            if (closed) {
+                pending.remove(requestId);
+                request.future.completeExceptionally(unavailable(null));
+                return request.future;
+            }
+            try {
+                synchronized (out) {
+                    ClusterCodec.writeHeader(out, requestId, op);
+                    arguments.write(out);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                pending.remove(requestId);
+                request.future.completeExceptionally(unavailable(e));
+                close();
+            }
+            return request.future;
+        }
+
+        private void read() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                while (true) {
+                    long requestId = in.readLong();
+                    byte status = in.readByte();
+                    if (status == ClusterCodec.TRADE) {
+                        Trade trade = ClusterCodec.readTrade(in);
+                        for (TradeListener listener : tradeListeners) {
+                            listener.onTrade(trade);
+                        }
+                        continue;
+                    }
+                    Pending request = pending.remove(requestId);
+                    if (request == null) {
+                        throw new IOException("Response to unknown request " + requestId);
+                    }
+                    if (status == ClusterCodec.ERROR) {
+                        request.future.completeExceptionally(ClusterCodec.readError(in));
+                    } else {
+                        request.future.complete(readResult(in, request.op));
+                    }
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private Object readResult(DataInputStream in, ClusterOp op) throws IOException {
+            switch (op) {
+                case PLACE_ORDER:
+                    return CommandCodec.readOrder(in);
+                case USER_ORDERS: {
+                    int count = in.readInt();
+                    List<Order> orders = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        orders.add(CommandCodec.readOrder(in));
+                    }
+                    return orders;
+                }
+                case USER_TRADES:
+                case SYMBOL_TRADES: {
+                    int count = in.readInt();
+                    List<Trade> trades = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        trades.add(ClusterCodec.readTrade(in));
+                    }
+                    return trades;
+                }
+                case MARKET_DATA:
+                    return in.readUTF();
+                default:
+                    return null;
+            }
+        }
+
+        void close() {
+            closed = true;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+            for (Long requestId : pending.keySet()) {
+                Pending request = pending.remove(requestId);
+                if (request != null) {
+                    request.future.completeExceptionally(unavailable(null));
+                }
+            }
+        }
+
+        private ClusterException unavailable(IOException cause) {
+            return new ClusterException("Partition " + partition + " is unavailable", cause);
+        }
+    }
+
+    private static final class Pending {
+        final ClusterOp op;
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        Pending(ClusterOp op) {
+            this.op = op;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.phonepe.tradingexchange.cluster;
+
+import com.phonepe.tradingexchange.common.Constants;
+import com.phonepe.tradingexchange.util.IdUtils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Assigns symbols to the engine partitions of a partitioned deployment. Symbols can be pinned
+ * to a partition, e.g. to keep the busiest names apart; the rest are spread by hash.
+ * <p>
+ * Orders are routed back to their partition by id: each partition numbers its orders from
+ * its own block of {@link Constants#PARTITION_ID_BLOCK} sequences.
+ */
+public class PartitionMap {
+    private final int partitionCount;
+    private final Map<String, Integer> assignments;
+
+    /**
+     * @param assignments Symbols pinned to a partition; others are assigned by hash
+     */
+    public PartitionMap(int partitionCount, Map<String, Integer> assignments) {
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("Partition count must be positive");
+        }
+        assignments.forEach((symbol, partition) -> {
+            if (partition < 0 || partition >= partitionCount) {
+                throw new IllegalArgumentException("Symbol " + symbol + " assigned to unknown partition " + partition);
+            }
+        });
+        this.partitionCount = partitionCount;
+        this.assignments = Collections.unmodifiableMap(new HashMap<>(assignments));
+    }
+
+    public static PartitionMap hashed(int partitionCount) {
+        return new PartitionMap(partitionCount, Collections.emptyMap());
+    }
+
+    /**
+     * Reads a partition map from properties: {@code partitions=<count>} plus one
+     * {@code symbol.<SYMBOL>=<partition>} entry per pinned symbol.
+     */
+    public static PartitionMap fromProperties(Properties properties) {
+        String count = properties.getProperty("partitions");
+        if (count == null) {
+            throw new IllegalArgumentException("Partition map must set 'partitions'");
+        }
+        Map<String, Integer> assignments = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith("symbol.")) {
+                assignments.put(key.substring("symbol.".length()), Integer.parseInt(properties.getProperty(key).trim()));
+            }
+        }
+        return new PartitionMap(Integer.parseInt(count.trim()), assignments);
+    }
+
+    public static PartitionMap load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    public Map<String, Integer> getAssignments() {
+        return assignments;
+    }
+
+    public int partitionOf(String symbol) {
+        Integer partition = assignments.get(symbol);
+        return partition != null ? partition : Math.floorMod(symbol.hashCode(), partitionCount);
+    }
+
+    /**
+     * @return The partition that created the order, or -1 if the id is not one of ours
+     */
+    public int partitionOfOrder(String orderId) {
+        long sequence = IdUtils.orderSequence(orderId);
+        if (sequence <= 0) {
+            return -1;
+        }
+        long partition = (sequence - 1) / Constants.PARTITION_ID_BLOCK;
+        return partition < partitionCount ? (int) partition : -1;
+    }
+
+    /**
+     * @return The last sequence before a partition's block of order and trade ids
+     */
+    public static long idBlockStart(int partition) {
+        return partition * Constants.PARTITION_ID_BLOCK;
+    }
+}
@@ -0,0 +1,125 @@
+package com.phonepe.tradingexchange.cluster;
+
+import com.phonepe.tradingexchange.exception.ClusterException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link PartitionServer} running in a child JVM on this machine, started from the current
+ * classpath. Used to run a partitioned deployment locally, e.g. in integration tests and the
+ * cluster benchmark.
+ */
+public class PartitionProcess implements Closeable {
+    private final int partition;
+    private final Process process;
+    private final InetSocketAddress address;
+
+    private PartitionProcess(int partition, Process process, int port) {
+        this.partition = partition;
+        this.process = process;
+        this.address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * Starts a partition process and waits until it is listening.
+     *
+     * @param jvmArgs Extra JVM options, e.g. heap size
+     */
+    public static PartitionProcess start(int partition, List<String> jvmArgs) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(PartitionServer.class.getName());
+        command.add("--partition=" + partition);
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        if (line == null || !line.startsWith("partition=" + partition + " port=")) {
+            process.destroyForcibly();
+            throw new ClusterException("Partition " + partition + " failed to start: " + line);
+        }
+        int port = Integer.parseInt(line.substring(line.indexOf("port=") + "port=".length()));
+        // Keep draining its output so the child never blocks on a full pipe
+        Thread drain = new Thread(() -> {
+            try {
+                while (reader.readLine() != null) {
+                    // Discard
+                }
+            } catch (IOException e) {
+                // Process exited
+            }
+        }, "partition-" + partition + "-output");
+        drain.setDaemon(true);
+        drain.start();
+        return new PartitionProcess(partition, process, port);
+    }
+
+    /**
+     * Starts one process per partition of the map.
+     */
+    public static List<PartitionProcess> startAll(PartitionMap partitionMap, List<String> jvmArgs) throws IOException {
+        List<PartitionProcess> processes = new ArrayList<>();
+        try {
+            for (int partition = 0; partition < partitionMap.getPartitionCount(); partition++) {
+                processes.add(start(partition, jvmArgs));
+            }
+        } catch (IOException | RuntimeException e) {
+            processes.forEach(PartitionProcess::close);
+            throw e;
+        }
+        return processes;
+    }
+
+    public static List<InetSocketAddress> addresses(List<PartitionProcess> processes) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (PartitionProcess process : processes) {
+            addresses.add(process.getAddress());
+        }
+        return addresses;
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /**
+     * Stops the partition by closing its input, and kills it if it does not exit promptly.
+     */
+    @Override
+    public void close() {
+        try {
+            process.getOutputStream().close();
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (IOException e) {
+            process.destroyForcibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package com.phonepe.tradingexchange.cluster;
+
+import com.phonepe.tradingexchange.common.Constants;
+import com.phonepe.tradingexchange.config.AppConfig;
+import com.phonepe.tradingexchange.engine.MatchingEngine;
+import com.phonepe.tradingexchange.engine.TradeListener;
+import com.phonepe.tradingexchange.exception.TradingException;
+import com.phonepe.tradingexchange.journal.CommandCodec;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.SelfTradePrevention;
+import com.phonepe.tradingexchange.model.TimeInForce;
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.model.User;
+import com.phonepe.tradingexchange.service.TradingService;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.phonepe.tradingexchange.loadtest.LoadGenerator.parseArgs;
+
+/**
+ * One engine process of a partitioned deployment: serves the {@link OrderRouter}'s requests
+ * for the symbols its partition owns through a local {@link TradingService}, and pushes every
+ * trade it executes to each connected router.
+ * <p>
+ * Commands run concurrently on a fixed set of lanes, each a single thread, chosen by the
+ * symbol they trade: commands for one symbol execute in arrival order, across every
+ * connection, while other symbols proceed in parallel. Queries wait for the read model
+ * first, so they reflect every command completed before them. They run on their own pool, so a
+ * query stuck behind a lagging read model never holds up the commands queued after it.
+ * Responses carry their request id and may leave out of request order. A connection's trades
+ * and responses share one outbound queue, so a router sees the trades of a command before the
+ * command's response.
+ */
+public class PartitionServer implements TradeListener, Closeable {
+    private static final OrderSide[] SIDES = OrderSide.values();
+    private static final TimeInForce[] TIMES_IN_FORCE = TimeInForce.values();
+    private static final SelfTradePrevention[] SELF_TRADE_PREVENTIONS = SelfTradePrevention.values();
+
+    private final int partition;
+    private final TradingService service;
+    private final MatchingEngine engine;
+    private final ServerSocket server;
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private final ExecutorService[] lanes = new ExecutorService[Constants.PARTITION_COMMAND_LANES];
+    private final ExecutorService queries;
+
+    /**
+     * Starts serving on a loopback port. New order and trade ids are taken from the
+     * partition's own block, so ids never clash across partitions.
+     *
+     * @param port Port to listen on, or 0 for any free port
+     */
+    public PartitionServer(int partition, int port, TradingService service, MatchingEngine engine)
+            throws IOException {
+        this.partition = partition;
+        this.service = service;
+        this.engine = engine;
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = newExecutor(1, "partition-" + partition + "-lane-" + i);
+        }
+        this.queries = newExecutor(Constants.PARTITION_QUERY_THREADS, "partition-" + partition + "-query");
+        Order.reserveSequencesThrough(PartitionMap.idBlockStart(partition));
+        Trade.reserveSequencesThrough(PartitionMap.idBlockStart(partition));
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        engine.addTradeListener(this);
+        Thread acceptor = new Thread(this::accept, "partition-" + partition + "-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    @Override
+    public void onTrade(Trade trade) {
+        if (connections.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeLong(0);
+            out.writeByte(ClusterCodec.TRADE);
+            ClusterCodec.writeTrade(out, trade);
+        } catch (IOException e) {
+            throw new TradingException("Failed to encode trade: " + e.getMessage(), e);
+        }
+        byte[] frame = bytes.toByteArray();
+        for (Connection connection : connections) {
+            connection.queue.add(frame);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        engine.removeTradeListener(this);
+        server.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        for (ExecutorService lane : lanes) {
+            lane.shutdownNow();
+        }
+        queries.shutdownNow();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                connection.start();
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    System.err.println("Error accepting router: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads one request in full, including its arguments, so the next one can be read while
+     * it executes. Commands are keyed by the symbol they trade; queries have no key.
+     */
+    private Request readRequest(DataInputStream in) throws IOException {
+        long requestId = in.readLong();
+        ClusterOp op = ClusterCodec.readOp(in);
+        switch (op) {
+            case REGISTER_USER: {
+                User user = ClusterCodec.readUser(in);
+                return new Request(requestId, op, user.getUserId(), out -> {
+                    service.registerUser(user);
+                    out.writeByte(ClusterCodec.OK);
+                });
+            }
+            case PLACE_ORDER: {
+                String userId = in.readUTF();
+                String symbol = in.readUTF();
+                OrderSide side = SIDES[in.readByte()];
+                BigDecimal price = CommandCodec.readDecimal(in);
+                BigDecimal quantity = CommandCodec.readDecimal(in);
+                TimeInForce timeInForce = TIMES_IN_FORCE[in.readByte()];
+                SelfTradePrevention selfTradePrevention = SELF_TRADE_PREVENTIONS[in.readByte()];
+                return new Request(requestId, op, symbol, out -> {
+                    Order order = service.placeOrder(userId, symbol, side, price, quantity, timeInForce,
+                            selfTradePrevention);
+                    out.writeByte(ClusterCodec.OK);
+                    CommandCodec.writeOrder(out, order);
+                });
+            }
+            case CANCEL_ORDER: {
+                String orderId = in.readUTF();
+                return new Request(requestId, op, laneKey(orderId), out -> {
+                    service.cancelOrder(orderId);
+                    out.writeByte(ClusterCodec.OK);
+                });
+            }
+            case MODIFY_ORDER: {
+                String orderId = in.readUTF();
+                BigDecimal price = CommandCodec.readDecimal(in);
+                BigDecimal quantity = CommandCodec.readDecimal(in);
+                return new Request(requestId, op, laneKey(orderId), out -> {
+                    service.modifyOrder(orderId, price, quantity);
+                    out.writeByte(ClusterCodec.OK);
+                });
+            }
+            case USER_ORDERS: {
+                String userId = in.readUTF();
+                return new Request(requestId, op, null, out -> {
+                    service.awaitReadModel(Constants.CLUSTER_REQUEST_TIMEOUT);
+                    List<Order> orders = service.getUserOrders(userId);
+                    out.writeByte(ClusterCodec.OK);
+                    out.writeInt(orders.size());
+                    for (Order order : orders) {
+                        CommandCodec.writeOrder(out, order);
+                    }
+                });
+            }
+            case USER_TRADES:
+            case SYMBOL_TRADES: {
+                String key = in.readUTF();
+                return new Request(requestId, op, null, out -> {
+                    service.awaitReadModel(Constants.CLUSTER_REQUEST_TIMEOUT);
+                    List<Trade> trades = op == ClusterOp.USER_TRADES
+                            ? service.getUserTrades(key) : service.getSymbolTrades(key);
+                    out.writeByte(ClusterCodec.OK);
+                    out.writeInt(trades.size());
+                    for (Trade trade : trades) {
+                        ClusterCodec.writeTrade(out, trade);
+                    }
+                });
+            }
+            case MARKET_DATA: {
+                String symbol = in.readUTF();
+                return new Request(requestId, op, null, out -> {
+                    service.awaitReadModel(Constants.CLUSTER_REQUEST_TIMEOUT);
+                    String marketData = service.getMarketData(symbol);
+                    out.writeByte(ClusterCodec.OK);
+                    out.writeUTF(marketData);
+                });
+            }
+            default:
+                throw new IOException("Unsupported operation " + op);
+        }
+    }
+
+    // A cancel or modify runs in its order's symbol lane; an unknown order fails in any lane
+    private String laneKey(String orderId) {
+        return service.getOrderSymbol(orderId).orElse(orderId == null ? "" : orderId);
+    }
+
+    private ExecutorService executor(Request request) {
+        if (request.laneKey == null) {
+            return queries;
+        }
+        return lanes[Math.floorMod(request.laneKey.hashCode(), lanes.length)];
+    }
+
+    private byte[] execute(Request request) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeLong(request.requestId);
+            try {
+                request.action.execute(out);
+            } catch (TradingException e) {
+                bytes.reset();
+                out.writeLong(request.requestId);
+                out.writeByte(ClusterCodec.ERROR);
+                ClusterCodec.writeError(out, e);
+            } catch (RuntimeException e) {
+                bytes.reset();
+                out.writeLong(request.requestId);
+                out.writeByte(ClusterCodec.ERROR);
+                ClusterCodec.writeError(out, new TradingException(request.op + " failed: " + e.getMessage(), e));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ExecutorService newExecutor(int threads, String name) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Writes a request's response into the buffer it is given.
+     */
+    private interface Action {
+        void execute(DataOutputStream out) throws IOException;
+    }
+
+    private static final class Request {
+        private final long requestId;
+        private final ClusterOp op;
+        // Symbol (or user, for registrations) whose commands run in order; null for queries
+        private final String laneKey;
+        private final Action action;
+
+        private Request(long requestId, ClusterOp op, String laneKey, Action action) {
+            this.requestId = requestId;
+            this.op = op;
+            this.laneKey = laneKey;
+            this.action = action;
+        }
+    }
+
+    /**
+     * One connected router: the connection's thread reads its requests and hands them to the
+     * server's lanes, and a writer drains responses and pushed trades onto the socket.
+     */
+    private final class Connection {
+        private final Socket socket;
+        private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+        private Thread writer;
+
+        Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        void start() {
+            String name = "partition-" + partition + "-" + socket.getPort();
+            Thread reader = new Thread(this::read, name);
+            writer = new Thread(this::write, name + "-write");
+            reader.setDaemon(true);
+            writer.setDaemon(true);
+            reader.start();
+            writer.start();
+        }
+
+        private void read() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                while (true) {
+                    Request request = readRequest(in);
+                    executor(request).execute(() -> queue.add(PartitionServer.this.execute(request)));
+                }
+            } catch (IOException | RejectedExecutionException e) {
+                close();
+            }
+        }
+
+        private void write() {
+            try {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                while (true) {
+                    out.write(queue.take());
+                    byte[] next;
+                    while ((next = queue.poll()) != null) {
+                        out.write(next);
+                    }
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                close();
+            }
+        }
+
+        void close() {
+            connections.remove(this);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+            if (writer != null) {
+                writer.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Runs one partition in its own process until its standard input is closed, e.g. by the
+     * parent process exiting. Prints {@code partition=<n> port=<port>} once it is listening.
+     * <p>
+     * Options: --partition (default 0), --port (default 0, any free port)
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        AppConfig.getInstance().initialize();
+        PartitionServer server = new PartitionServer(Integer.parseInt(options.getOrDefault("partition", "0")),
+                Integer.parseInt(options.getOrDefault("port", "0")), TradingService.getInstance(),
+                MatchingEngine.getInstance());
+        System.out.println("partition=" + server.getPartition() + " port=" + server.getPort());
+        System.out.flush();
+        while (System.in.read() >= 0) {
+            // Keep serving until the parent closes our input
+        }
+        server.close();
+        System.exit(0);
+    }
+}
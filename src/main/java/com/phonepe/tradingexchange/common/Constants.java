@@ -12,10 +12,32 @@ public final class Constants {
     // Timeouts and intervals
     public static final Duration ORDER_DEFAULT_EXPIRY = Duration.ofMinutes(5);
     public static final Duration ORDER_EXPIRY_CHECK_INTERVAL = Duration.ofSeconds(10);
+    public static final Duration LATENCY_SNAPSHOT_INTERVAL = Duration.ofSeconds(5);
+    public static final Duration CLUSTER_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    // Single-threaded lanes a partition runs commands on, one symbol always in the same lane,
+    // and the threads its queries run on apart from them
+    public static final int PARTITION_COMMAND_LANES = Math.max(2, Runtime.getRuntime().availableProcessors());
+    public static final int PARTITION_QUERY_THREADS = 4;
     
     // Trading constants
     public static final int MAX_PRICE_PRECISION = 8;
     public static final int MAX_QUANTITY_PRECISION = 8;
+    // Decimal places kept by the risk engine's fixed-point counters; exposure is rounded up
+    public static final int RISK_SCALE = 4;
+    // Decimal places of the position service's fixed-point cost basis and P&L
+    public static final int PNL_SCALE = 4;
+    
+    // Query limits
+    public static final int MAX_PAGE_SIZE = 1000;
+    // Events the read model may fall behind by before the engine waits for its projector
+    public static final int READ_MODEL_QUEUE_CAPACITY = 1 << 16;
+    
+    // Identifier prefixes
+    public static final String ORDER_ID_PREFIX = "ORD-";
+    public static final String TRADE_ID_PREFIX = "TRD-";
+    // Order and trade sequences handed to each partition of a partitioned deployment; partition
+    // p numbers its ids from p * PARTITION_ID_BLOCK + 1, so an order id names its partition
+    public static final long PARTITION_ID_BLOCK = 1L << 40;
     
     // Error messages
     public static final String ERROR_INVALID_SYMBOL = "Symbol cannot be null or empty";
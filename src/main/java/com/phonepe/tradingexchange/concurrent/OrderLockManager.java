@@ -1,6 +1,7 @@
 package com.phonepe.tradingexchange.concurrent;
 
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -9,6 +10,8 @@ import java.util.concurrent.locks.ReentrantLock;
  */
 public class OrderLockManager {
     private final ConcurrentHashMap<String, ReentrantLock> orderLocks = new ConcurrentHashMap<>();
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contentions = new LongAdder();
     
     private static OrderLockManager INSTANCE;
     
@@ -24,6 +27,15 @@ public class OrderLockManager {
         }
         return INSTANCE;
     }
+
+    /**
+     * Creates a lock manager that shares no locks with the singleton, for isolated engines:
+     * two engines holding the same order IDs, e.g. a primary and a standby replica in one
+     * process, must not block each other.
+     */
+    public static OrderLockManager newInstance() {
+        return new OrderLockManager();
+    }
     
     /**
      * Gets or creates the lock for an order ID.
@@ -48,11 +60,11 @@ public class OrderLockManager {
         
         // Acquire locks in a consistent order to prevent deadlock
         if (firstOrderId.compareTo(secondOrderId) < 0) {
-            firstLock.lock();
-            secondLock.lock();
+            lock(firstLock);
+            lock(secondLock);
         } else {
-            secondLock.lock();
-            firstLock.lock();
+            lock(secondLock);
+            lock(firstLock);
         }
         
         return new ReentrantLock[] { firstLock, secondLock };
@@ -79,9 +91,31 @@ public class OrderLockManager {
      */
     public ReentrantLock acquireLock(String orderId) {
         ReentrantLock lock = getOrderLock(orderId);
-        lock.lock();
+        lock(lock);
         return lock;
     }
+
+    /**
+     * @return Number of locks acquired since start-up
+     */
+    public long getAcquisitionCount() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * @return Number of acquisitions that found the lock held by another thread and had to wait
+     */
+    public long getContentionCount() {
+        return contentions.sum();
+    }
+
+    private void lock(ReentrantLock lock) {
+        acquisitions.increment();
+        if (!lock.tryLock()) {
+            contentions.increment();
+            lock.lock();
+        }
+    }
     
     /**
      * Clears all locks - should only be used for testing/cleanup.
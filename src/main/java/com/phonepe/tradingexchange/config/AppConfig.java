@@ -1,10 +1,18 @@
 package com.phonepe.tradingexchange.config;
 
+import com.phonepe.tradingexchange.admission.AdmissionController;
 import com.phonepe.tradingexchange.common.Constants;
 import com.phonepe.tradingexchange.engine.MatchingEngine;
 import com.phonepe.tradingexchange.market.MarketDataManager;
+import com.phonepe.tradingexchange.metrics.EngineMetrics;
+import com.phonepe.tradingexchange.metrics.LatencyRecorder;
+import com.phonepe.tradingexchange.position.PositionService;
+import com.phonepe.tradingexchange.readmodel.ReadModel;
 import com.phonepe.tradingexchange.repository.OrderRepository;
 import com.phonepe.tradingexchange.repository.TradeRepository;
+import com.phonepe.tradingexchange.risk.PreTradeRiskEngine;
+import com.phonepe.tradingexchange.risk.PriceBandGuard;
+import com.phonepe.tradingexchange.throttle.MessageThrottle;
 
 /**
  * Central configuration class for the trading exchange application.
@@ -38,10 +46,20 @@ public class AppConfig {
         
         // Set up the matching engine with repositories
         matchingEngine.setRepositories(orderRepository, tradeRepository);
+
+        // Follow the engine's events from the start so positions and queries are complete
+        PositionService.getInstance();
+        ReadModel.getInstance();
         
         // Start periodic checks for stop-loss and take-profit orders
         long checkIntervalMs = Constants.ORDER_EXPIRY_CHECK_INTERVAL.toMillis();
         marketDataManager.startPeriodicChecks(checkIntervalMs);
+
+        // Publish per-stage latencies over JMX, rolled into a fresh interval every few seconds
+        LatencyRecorder latencyRecorder = matchingEngine.getLatencyRecorder();
+        latencyRecorder.registerMBean();
+        latencyRecorder.startIntervalSnapshots(Constants.LATENCY_SNAPSHOT_INTERVAL);
+        matchingEngine.getMetrics().registerMBean();
     }
     
     /**
@@ -53,5 +71,13 @@ public class AppConfig {
         TradeRepository.reset();
         MatchingEngine.reset();
         MarketDataManager.reset();
+        LatencyRecorder.reset();
+        EngineMetrics.reset();
+        MessageThrottle.reset();
+        AdmissionController.reset();
+        PriceBandGuard.reset();
+        PreTradeRiskEngine.reset();
+        PositionService.reset();
+        ReadModel.reset();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.phonepe.tradingexchange.engine;
+
+import com.phonepe.tradingexchange.model.Trade;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Outcome of uncrossing one symbol's call auction. The clearing price, volume and surplus
+ * are null when the book was not crossed.
+ */
+@Data
+@Builder
+public class AuctionResult {
+    private final String symbol;
+    private final BigDecimal clearingPrice;
+    private final BigDecimal volume;
+    // Cumulative demand minus cumulative supply at the clearing price
+    private final BigDecimal surplus;
+    private final List<Trade> trades;
+}
@@ -0,0 +1,90 @@
+package com.phonepe.tradingexchange.engine;
+
+import com.phonepe.tradingexchange.model.OrderSide;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The single price at which a call auction uncrosses a book.
+ * <p>
+ * Cumulative demand (bids at or above a price) and supply (asks at or below it) are built
+ * from the price levels' total quantities, iceberg reserves included, since the uncross keeps
+ * taking replenished slices. The candidate level price with the most executable volume wins.
+ * Ties go to the smallest surplus, then follow market pressure: the higher price while buyers
+ * are left over, the lower one otherwise.
+ */
+@Data
+public class ClearingPrice {
+    private final BigDecimal price;
+    private final BigDecimal volume;
+    // Cumulative demand minus cumulative supply at the price
+    private final BigDecimal surplus;
+
+    /**
+     * @return The clearing price of the book, or null if the book is not crossed
+     */
+    public static ClearingPrice compute(OrderBook orderBook) {
+        List<PriceLevel> bids = new ArrayList<>(orderBook.getLevels(OrderSide.BUY));
+        List<PriceLevel> asks = new ArrayList<>(orderBook.getLevels(OrderSide.SELL));
+        if (bids.isEmpty() || asks.isEmpty()
+                || bids.get(0).getPrice().compareTo(asks.get(0).getPrice()) < 0) {
+            return null;
+        }
+        // Walk both curves from the lowest price up
+        Collections.reverse(bids);
+
+        BigDecimal demand = BigDecimal.ZERO;
+        for (PriceLevel bid : bids) {
+            demand = demand.add(bid.getTotalQuantity());
+        }
+        BigDecimal supply = BigDecimal.ZERO;
+        int bidIndex = 0;
+        int askIndex = 0;
+        ClearingPrice best = null;
+        while (bidIndex < bids.size() || askIndex < asks.size()) {
+            BigDecimal price = nextPrice(bids, bidIndex, asks, askIndex);
+            while (askIndex < asks.size() && asks.get(askIndex).getPrice().compareTo(price) <= 0) {
+                supply = supply.add(asks.get(askIndex++).getTotalQuantity());
+            }
+            // Every bid still counted is at or above this price
+            ClearingPrice candidate = new ClearingPrice(price, demand.min(supply), demand.subtract(supply));
+            if (candidate.volume.signum() > 0 && candidate.isBetterThan(best)) {
+                best = candidate;
+            }
+            while (bidIndex < bids.size() && bids.get(bidIndex).getPrice().compareTo(price) <= 0) {
+                demand = demand.subtract(bids.get(bidIndex++).getTotalQuantity());
+            }
+        }
+        return best;
+    }
+
+    private boolean isBetterThan(ClearingPrice other) {
+        if (other == null) {
+            return true;
+        }
+        int byVolume = volume.compareTo(other.volume);
+        if (byVolume != 0) {
+            return byVolume > 0;
+        }
+        int bySurplus = surplus.abs().compareTo(other.surplus.abs());
+        if (bySurplus != 0) {
+            return bySurplus < 0;
+        }
+        // Candidates arrive in ascending price order, so only move up under buying pressure
+        return surplus.signum() > 0;
+    }
+
+    private static BigDecimal nextPrice(List<PriceLevel> bids, int bidIndex, List<PriceLevel> asks, int askIndex) {
+        if (bidIndex >= bids.size()) {
+            return asks.get(askIndex).getPrice();
+        }
+        if (askIndex >= asks.size()) {
+            return bids.get(bidIndex).getPrice();
+        }
+        return bids.get(bidIndex).getPrice().min(asks.get(askIndex).getPrice());
+    }
+}
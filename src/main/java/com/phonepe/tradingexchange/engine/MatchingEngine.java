@@ -1,153 +1,781 @@
 package com.phonepe.tradingexchange.engine;
 
+import com.phonepe.tradingexchange.clock.EngineClock;
 import com.phonepe.tradingexchange.concurrent.OrderLockManager;
 import com.phonepe.tradingexchange.exception.OrderException;
+import com.phonepe.tradingexchange.journal.Command;
+import com.phonepe.tradingexchange.journal.CommandSink;
+import com.phonepe.tradingexchange.journal.CommandType;
+import com.phonepe.tradingexchange.jfr.OrderAcceptedEvent;
+import com.phonepe.tradingexchange.jfr.OrderCancelledEvent;
+import com.phonepe.tradingexchange.jfr.OrderMatchedEvent;
+import com.phonepe.tradingexchange.jfr.StopTriggeredEvent;
+import com.phonepe.tradingexchange.jfr.TradeCreatedEvent;
+import com.phonepe.tradingexchange.metrics.EngineMetrics;
+import com.phonepe.tradingexchange.metrics.LatencyRecorder;
+import com.phonepe.tradingexchange.metrics.LatencyStage;
 import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.OrderType;
+import com.phonepe.tradingexchange.model.SelfTradePrevention;
+import com.phonepe.tradingexchange.model.TimeInForce;
 import com.phonepe.tradingexchange.model.Trade;
 import com.phonepe.tradingexchange.repository.OrderRepository;
 import com.phonepe.tradingexchange.repository.TradeRepository;
+import com.phonepe.tradingexchange.risk.PreTradeRiskEngine;
+import com.phonepe.tradingexchange.risk.PriceBandGuard;
+import com.phonepe.tradingexchange.util.IdUtils;
 import com.phonepe.tradingexchange.util.ValidationUtils;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class MatchingEngine {
+    private static final ReentrantLock[] NO_LOCKS = new ReentrantLock[0];
+
     private final ConcurrentHashMap<String, IOrderBook> orderBooks = new ConcurrentHashMap<>();
     private OrderRepository orderRepository;
     private TradeRepository tradeRepository;
-    private final OrderLockManager lockManager = OrderLockManager.getInstance();
-    
+    private final OrderLockManager lockManager;
+    private final EngineClock clock;
+    private final AtomicLong tradeSequence;
+    private final List<TradeListener> tradeListeners = new CopyOnWriteArrayList<>();
+    private final List<OrderListener> orderListeners = new CopyOnWriteArrayList<>();
+    private final List<TopOfBookListener> topOfBookListeners = new CopyOnWriteArrayList<>();
+    private final Set<String> auctionSymbols = ConcurrentHashMap.newKeySet();
+    private final LatencyRecorder latencies;
+    private final EngineMetrics metrics;
+    private final PreTradeRiskEngine risk;
+    private final PriceBandGuard priceBands;
+    private volatile CommandSink journal;
+
     private static MatchingEngine INSTANCE;
-    
-    private MatchingEngine() {}
-    
+
+    private MatchingEngine(EngineClock clock, OrderLockManager lockManager, AtomicLong tradeSequence,
+                           LatencyRecorder latencies, EngineMetrics metrics, PreTradeRiskEngine risk,
+                           PriceBandGuard priceBands) {
+        this.clock = clock;
+        this.lockManager = lockManager;
+        this.tradeSequence = tradeSequence;
+        this.latencies = latencies;
+        this.metrics = metrics;
+        this.risk = risk;
+        this.priceBands = priceBands;
+    }
+
     public static MatchingEngine getInstance() {
         if (INSTANCE == null) {
             synchronized (MatchingEngine.class) {
                 if (INSTANCE == null) {
-                    INSTANCE = new MatchingEngine();
+                    INSTANCE = new MatchingEngine(EngineClock.coarse(), OrderLockManager.getInstance(), null,
+                            LatencyRecorder.getInstance(), EngineMetrics.getInstance(), PreTradeRiskEngine.getInstance(),
+                            PriceBandGuard.getInstance());
                 }
             }
         }
         return INSTANCE;
     }
 
+    /**
+     * Creates an engine that shares no state with the singleton, including its trade ID
+     * sequence, so the same commands always produce the same trade IDs. When
+     * {@code singleThreaded} is set the engine takes no order locks, so it must only ever be
+     * driven from one thread; this is how journal replay runs as fast as possible.
+     *
+     * @param clock Clock used to timestamp commands
+     * @param singleThreaded Whether to skip order locking
+     */
+    public static MatchingEngine newIsolatedInstance(EngineClock clock, boolean singleThreaded) {
+        OrderLockManager lockManager = singleThreaded ? null : OrderLockManager.newInstance();
+        return new MatchingEngine(clock, lockManager, new AtomicLong(), new LatencyRecorder(),
+                new EngineMetrics(lockManager), new PreTradeRiskEngine(), new PriceBandGuard());
+    }
+
     public static void reset() {
         INSTANCE = null;
     }
-    
+
     public void setRepositories(OrderRepository orderRepository, TradeRepository tradeRepository) {
         this.orderRepository = orderRepository;
         this.tradeRepository = tradeRepository;
+        if (orderRepository != null) {
+            metrics.registerGauge("orders.hot", orderRepository::hotCount);
+            metrics.registerGauge("orders.cold", orderRepository::coldCount);
+        }
+        if (tradeRepository != null) {
+            metrics.registerGauge("trades.stored", tradeRepository::count);
+        }
+    }
+
+    /**
+     * Records every command applied by this engine, in application order, so the session can
+     * be replayed. Commands for the same symbol must not be issued concurrently for the
+     * journal order to match the order in which they took effect.
+     *
+     * @param journal Sink for applied commands, or null to stop journaling
+     */
+    public void setJournal(CommandSink journal) {
+        this.journal = journal;
+    }
+
+    public void addTradeListener(TradeListener listener) {
+        tradeListeners.add(listener);
+    }
+
+    public void removeTradeListener(TradeListener listener) {
+        tradeListeners.remove(listener);
+    }
+
+    public void addOrderListener(OrderListener listener) {
+        orderListeners.add(listener);
+    }
+
+    public void removeOrderListener(OrderListener listener) {
+        orderListeners.remove(listener);
+    }
+
+    public void addTopOfBookListener(TopOfBookListener listener) {
+        topOfBookListeners.add(listener);
+    }
+
+    public void removeTopOfBookListener(TopOfBookListener listener) {
+        topOfBookListeners.remove(listener);
+    }
+
+    public EngineClock getClock() {
+        return clock;
     }
-    
+
+    public LatencyRecorder getLatencyRecorder() {
+        return latencies;
+    }
+
+    public EngineMetrics getMetrics() {
+        return metrics;
+    }
+
+    public PreTradeRiskEngine getRiskEngine() {
+        return risk;
+    }
+
+    public PriceBandGuard getPriceBands() {
+        return priceBands;
+    }
+
+    public void placeOrder(Order order) throws OrderException {
+        if (order == null) {
+            throw new OrderException("Order cannot be null");
+        }
+        long start = latencies.start();
+        ValidationUtils.validatePrice(order.getPrice());
+        ValidationUtils.validateQuantity(order.getQuantity());
+        ValidationUtils.validateTimeInForce(order);
+        ValidationUtils.validateSelfTradePrevention(order.getSelfTradePrevention());
+        if (order.getTimeInForce() != TimeInForce.GTC && auctionSymbols.contains(order.getSymbol())) {
+            throw new OrderException("Immediate orders are not accepted during an auction");
+        }
+        if (order.getOrderType() == OrderType.ICEBERG) {
+            ValidationUtils.validateDisplayQuantity(order.getDisplayQuantity(), order.getQuantity());
+        }
+        checkPriceBands(order, order.getPrice());
+        latencies.record(order.getSymbol(), CommandType.PLACE_ORDER, LatencyStage.VALIDATION, start);
+        addOrder(order);
+    }
+
     public void addOrder(Order order) throws OrderException {
-        IOrderBook orderBook = orderBooks.computeIfAbsent(
-            order.getSymbol(), 
-            symbol -> new OrderBook(symbol)
-        );
-        
-        orderRepository.save(order);
-        orderBook.addOrder(order);
-        matchOrders(orderBook);
-    }
-    
+        OrderAcceptedEvent event = new OrderAcceptedEvent();
+        event.begin();
+        // Checked before journaling so rejected orders never reach the journal
+        long start = latencies.start();
+        risk.reserve(order);
+        latencies.record(order.getSymbol(), CommandType.PLACE_ORDER, LatencyStage.RISK_CHECK, start);
+        LocalDateTime now;
+        try {
+            now = record(Command.placeOrder(order, clock.now()));
+        } catch (RuntimeException e) {
+            // The order was never applied, e.g. it missed its replication quorum
+            risk.release(order);
+            throw e;
+        }
+        String symbol = order.getSymbol();
+        start = latencies.start();
+        OrderBook orderBook = (OrderBook) orderBooks.computeIfAbsent(symbol, this::newOrderBook);
+        latencies.record(symbol, CommandType.PLACE_ORDER, LatencyStage.BOOK_LOOKUP, start);
+
+        boolean rests = order.getTimeInForce() == TimeInForce.GTC;
+        long eventStart = event.isEnabled() ? System.nanoTime() : 0;
+        if (rests) {
+            start = latencies.start();
+            orderRepository.save(order);
+            latencies.record(symbol, CommandType.PLACE_ORDER, LatencyStage.REPOSITORY_SAVE, start);
+            publish(order);
+        }
+        long saved = event.isEnabled() ? System.nanoTime() : 0;
+
+        metrics.orderPlaced();
+        int fills = match(orderBook, order, now, CommandType.PLACE_ORDER);
+        if (!rests) {
+            // IOC and FOK orders are final once matched, so they are stored once and go
+            // straight to the cold tier, never seen by the expiry scan
+            start = latencies.start();
+            orderRepository.save(order);
+            latencies.record(symbol, CommandType.PLACE_ORDER, LatencyStage.REPOSITORY_SAVE, start);
+            publish(order);
+        }
+        publishTopOfBook(orderBook);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.describe(order, orderBook.getTotalOrders());
+            event.saveNanos = saved - eventStart;
+            event.matchNanos = System.nanoTime() - saved;
+            event.fills = fills;
+            event.commit();
+        }
+    }
+
     public void removeOrder(Order order) {
         IOrderBook orderBook = orderBooks.get(order.getSymbol());
         if (orderBook != null) {
             orderBook.removeOrder(order);
+            publishTopOfBook(orderBook);
         }
     }
-    
-    private void matchOrders(IOrderBook orderBook) {
-        while (orderBook.hasMatchingOrders()) {
+
+    /**
+     * Applies an external market price to a symbol, moving any stop-loss or take-profit
+     * orders it triggers into the book. Only a price that triggers something is journaled, so
+     * periodic re-checks don't grow the journal while nothing happens.
+     *
+     * @return The orders that were triggered, empty if none
+     */
+    public List<Order> onMarketPrice(String symbol, BigDecimal price) {
+        long start = latencies.start();
+        IOrderBook orderBook = orderBooks.get(symbol);
+        latencies.record(symbol, CommandType.MARKET_PRICE, LatencyStage.BOOK_LOOKUP, start);
+        if (orderBook instanceof OrderBook && ((OrderBook) orderBook).triggers(price)) {
+            record(Command.marketPrice(symbol, price, clock.now()));
+            List<Order> triggered = ((OrderBook) orderBook).checkStopLossAndTakeProfit(price);
+            if (!triggered.isEmpty()) {
+                publishTopOfBook(orderBook);
+            }
+            return triggered;
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Matches an order against the book and rests whatever is left of it. The order sweeps
+     * the opposite side level by level; any crossing left behind by stop-loss and take-profit
+     * orders triggered along the way is matched afterwards. Immediate-or-cancel and
+     * fill-or-kill orders never rest: their remainder is cancelled instead, and a fill-or-kill
+     * order that cannot fill completely is cancelled before touching any resting order.
+     *
+     * @return Number of trades created
+     */
+    private int match(OrderBook orderBook, Order aggressor, LocalDateTime now, CommandType command) {
+        String symbol = orderBook.getSymbol();
+        long loopStart = latencies.start();
+        long levels = 0;
+        int fills = 0;
+        // During a call auction orders only rest; they execute when the auction uncrosses
+        boolean auction = auctionSymbols.contains(symbol);
+        if (!auction && sweeps(aggressor) && (aggressor.getTimeInForce() != TimeInForce.FOK
+                || orderBook.canFill(aggressor))) {
+            long start = latencies.start();
+            ReentrantLock lock = lock(aggressor.getOrderId());
+            latencies.record(symbol, command, LatencyStage.LOCK_ACQUISITION, start);
+            try {
+                PriceLevel level;
+                while (aggressor.isActive() && (level = crossingLevel(orderBook, aggressor)) != null) {
+                    levels++;
+                    fills += sweepLevel(orderBook, aggressor, level, now, command);
+                }
+            } finally {
+                unlock(lock);
+            }
+        }
+        if (aggressor.isActive()) {
+            if (aggressor.getTimeInForce() == TimeInForce.GTC) {
+                orderBook.addOrder(aggressor);
+            } else {
+                aggressor.cancel(now);
+                risk.release(aggressor);
+            }
+        }
+
+        // Triggered orders rest without matching, so let the best bid sweep the asks until
+        // the book is no longer crossed
+        while (!auction && orderBook.hasMatchingOrders()) {
             Order buyOrder = orderBook.getNextBuyOrder();
-            Order sellOrder = orderBook.getNextSellOrder();
-            
-            if (buyOrder == null || sellOrder == null) break;
-            
-            // Get locks for both orders
-            ReentrantLock[] locks = lockManager.acquireOrderLocks(buyOrder.getOrderId(), sellOrder.getOrderId());
-            
+            orderBook.removeOrder(buyOrder);
+            ReentrantLock lock = lock(buyOrder.getOrderId());
             try {
-                // Recheck if orders are still valid after acquiring locks
-                if (!buyOrder.isActive() || !sellOrder.isActive()) {
-                    continue;
+                PriceLevel level;
+                while (buyOrder.isActive() && (level = crossingLevel(orderBook, buyOrder)) != null) {
+                    levels++;
+                    fills += sweepLevel(orderBook, buyOrder, level, now, command);
                 }
+                if (buyOrder.isActive()) {
+                    orderBook.rest(buyOrder);
+                }
+            } finally {
+                unlock(lock);
+            }
+        }
+        latencies.record(symbol, command, LatencyStage.MATCH_LOOP, loopStart);
+        metrics.matchLoopCompleted(levels);
+        return fills;
+    }
 
-                // Check if stop-loss or take-profit orders are triggered
-                BigDecimal currentPrice = sellOrder.getPrice();
-                if (buyOrder.isStopLossTriggered(currentPrice) || buyOrder.isTakeProfitTriggered(currentPrice) ||
-                    sellOrder.isStopLossTriggered(currentPrice) || sellOrder.isTakeProfitTriggered(currentPrice)) {
+    /**
+     * Rejects prices outside the symbol's bands, and halts the symbol into a call auction when
+     * the order could move its price past the circuit breaker. Runs before the command is
+     * journaled; a halt is journaled as the auction start ahead of it.
+     */
+    private void checkPriceBands(Order order, BigDecimal price) {
+        String symbol = order.getSymbol();
+        BigDecimal bestOpposite = null;
+        IOrderBook orderBook = orderBooks.get(symbol);
+        if (orderBook instanceof OrderBook && sweeps(order) && !auctionSymbols.contains(symbol)) {
+            PriceLevel best = ((OrderBook) orderBook).getBestLevel(
+                    order.getSide() == OrderSide.BUY ? OrderSide.SELL : OrderSide.BUY);
+            bestOpposite = best == null ? null : best.getPrice();
+        }
+        if (priceBands.check(symbol, order.getSide(), price, bestOpposite, clock.now())) {
+            startAuction(symbol);
+            metrics.circuitBreakerTripped();
+        }
+    }
+
+    private static boolean sweeps(Order order) {
+        // Untriggered stop-loss and take-profit orders wait for their trigger instead
+        return order.getOrderType() == OrderType.MARKET || order.getOrderType() == OrderType.ICEBERG;
+    }
+
+    /**
+     * @return The best opposite level if the aggressor's price reaches it, otherwise null
+     */
+    private static PriceLevel crossingLevel(OrderBook orderBook, Order aggressor) {
+        if (aggressor.getSide() == OrderSide.BUY) {
+            PriceLevel best = orderBook.getBestLevel(OrderSide.SELL);
+            return best != null && aggressor.getPrice().compareTo(best.getPrice()) >= 0 ? best : null;
+        }
+        PriceLevel best = orderBook.getBestLevel(OrderSide.BUY);
+        return best != null && aggressor.getPrice().compareTo(best.getPrice()) <= 0 ? best : null;
+    }
+
+    /**
+     * Fills the aggressor against one price level, consuming its FIFO queue in a single pass.
+     * Trades and order updates for the level are persisted as one batch afterwards, and the
+     * level's aggregate quantity and the aggressor are each updated once. Resting orders of
+     * the aggressor's own user are handled by the aggressor's self-trade prevention mode
+     * instead of being traded against.
+     *
+     * @return Number of trades created
+     */
+    private int sweepLevel(OrderBook orderBook, Order aggressor, PriceLevel level, LocalDateTime now,
+                           CommandType command) {
+        String symbol = orderBook.getSymbol();
+        boolean buying = aggressor.getSide() == OrderSide.BUY;
+        OrderSide restingSide = buying ? OrderSide.SELL : OrderSide.BUY;
+        // Trades execute at the sell order's price
+        BigDecimal executionPrice = buying ? level.getPrice() : aggressor.getPrice();
+
+        // Check for any stop-loss or take-profit orders that should be triggered
+        StopTriggeredEvent stopEvent = new StopTriggeredEvent();
+        stopEvent.begin();
+        List<Order> triggered = orderBook.checkStopLossAndTakeProfit(executionPrice);
+        stopEvent.end();
+        if (!triggered.isEmpty() && stopEvent.shouldCommit()) {
+            stopEvent.describe(symbol, executionPrice, triggered, orderBook.getTotalOrders());
+            stopEvent.commit();
+        }
+
+        OrderMatchedEvent matchedEvent = new OrderMatchedEvent();
+        matchedEvent.begin();
+        long lockNanos = 0;
+
+        SelfTradePrevention prevention = aggressor.getSelfTradePrevention();
+        BigDecimal remaining = aggressor.getQuantity();
+        BigDecimal filled = BigDecimal.ZERO;
+        BigDecimal decremented = BigDecimal.ZERO;
+        boolean cancelAggressor = false;
+        int ordersFilled = 0;
+        List<Trade> trades = new ArrayList<>();
+        List<Order> restingOrders = new ArrayList<>();
+        Order resting;
+        while (remaining.signum() > 0 && (resting = level.peek()) != null) {
+            long lockStart = matchedEvent.isEnabled() ? System.nanoTime() : 0;
+            ReentrantLock lock = lock(resting.getOrderId());
+            if (matchedEvent.isEnabled()) {
+                lockNanos += System.nanoTime() - lockStart;
+            }
+            try {
+                // Drop orders that went stale while resting so the sweep always makes progress
+                if (!resting.isActive()) {
+                    orderBook.removeOrder(resting);
                     continue;
                 }
-                
-                // Check for any stop-loss or take-profit orders that should be triggered
-                ((OrderBook) orderBook).checkStopLossAndTakeProfit(currentPrice);
-                
-                BigDecimal executionPrice = sellOrder.getPrice();
-                BigDecimal executionQuantity = buyOrder.getQuantity().min(sellOrder.getQuantity());
-                
-                Trade trade = Trade.createTrade(buyOrder, sellOrder, executionPrice, executionQuantity);
-                tradeRepository.addTrade(trade);
-                
-                processOrderExecution(buyOrder, sellOrder, executionQuantity, orderBook);
+                // The owner travels with the book entry, so this costs no lookup
+                if (prevention != SelfTradePrevention.NONE && resting.getUserId().equals(aggressor.getUserId())) {
+                    int comparison = resting.getQuantity().compareTo(remaining);
+                    boolean decrement = prevention == SelfTradePrevention.DECREMENT;
+                    boolean cancelResting = prevention == SelfTradePrevention.CANCEL_OLDEST
+                            || prevention == SelfTradePrevention.CANCEL_BOTH || (decrement && comparison <= 0);
+                    cancelAggressor = prevention == SelfTradePrevention.CANCEL_NEWEST
+                            || prevention == SelfTradePrevention.CANCEL_BOTH || (decrement && comparison >= 0);
+                    if (cancelResting) {
+                        if (decrement && !cancelAggressor) {
+                            remaining = remaining.subtract(resting.getQuantity());
+                            decremented = decremented.add(resting.getQuantity());
+                        }
+                        orderBook.removeOrder(resting);
+                        resting.cancel(now);
+                        risk.release(resting);
+                    } else if (decrement) {
+                        orderBook.decrement(level, resting, remaining, now);
+                        risk.reduce(resting, BigDecimal.ZERO, remaining);
+                    }
+                    restingOrders.add(resting);
+                    if (cancelAggressor) {
+                        break;
+                    }
+                    continue;
+                }
+                BigDecimal quantity = remaining.min(resting.getVisibleQuantity());
+                Order buyOrder = buying ? aggressor : resting;
+                Order sellOrder = buying ? resting : aggressor;
+                trades.add(Trade.createTrade(nextTradeId(), buyOrder, sellOrder, executionPrice, quantity, now));
+
+                resting.fill(quantity, now);
+                risk.onFill(resting, quantity);
+                if (resting.getQuantity().signum() == 0) {
+                    level.poll();
+                    ordersFilled++;
+                } else if (resting.getVisibleQuantity().signum() == 0) {
+                    // Iceberg slice used up: show the next one from the reserve at the back of the level
+                    orderBook.replenish(level, resting);
+                }
+                restingOrders.add(resting);
+                remaining = remaining.subtract(quantity);
+                filled = filled.add(quantity);
             } finally {
-                lockManager.releaseLocks(locks);
+                unlock(lock);
             }
         }
+        orderBook.levelConsumed(restingSide, level, ordersFilled, filled);
+        if (restingOrders.isEmpty()) {
+            return 0;
+        }
+        if (!trades.isEmpty()) {
+            priceBands.onTrade(symbol, executionPrice, now);
+        }
+        if (!trades.isEmpty() || decremented.signum() > 0) {
+            aggressor.updateQuantity(remaining, now);
+            risk.reduce(aggressor, filled, decremented);
+        }
+        if (cancelAggressor) {
+            aggressor.cancel(now);
+            risk.release(aggressor);
+        }
+
+        long start = latencies.start();
+        for (Trade trade : trades) {
+            TradeCreatedEvent tradeEvent = new TradeCreatedEvent();
+            tradeEvent.begin();
+            tradeRepository.addTrade(trade);
+            tradeEvent.end();
+            if (tradeEvent.shouldCommit()) {
+                tradeEvent.tradeId = trade.getTradeId();
+                tradeEvent.buyOrderId = trade.getBuyOrderId();
+                tradeEvent.sellOrderId = trade.getSellOrderId();
+                tradeEvent.symbol = symbol;
+                tradeEvent.price = executionPrice.doubleValue();
+                tradeEvent.quantity = trade.getQuantity().doubleValue();
+                tradeEvent.commit();
+            }
+            metrics.tradeCreated();
+        }
+        latencies.record(symbol, command, LatencyStage.TRADE_PERSISTENCE, start);
+
+        long updateStart = matchedEvent.isEnabled() ? System.nanoTime() : 0;
+        start = latencies.start();
+        for (Order order : restingOrders) {
+            orderRepository.updateOrder(order);
+        }
+        if (aggressor.getTimeInForce() == TimeInForce.GTC) {
+            orderRepository.updateOrder(aggressor);
+        }
+        latencies.record(symbol, command, LatencyStage.ORDER_UPDATE, start);
+
+        for (Order order : restingOrders) {
+            publish(order);
+        }
+        if (aggressor.getTimeInForce() == TimeInForce.GTC) {
+            publish(aggressor);
+        }
+        for (Trade trade : trades) {
+            publish(trade);
+        }
+
+        matchedEvent.end();
+        if (matchedEvent.shouldCommit()) {
+            Order lastResting = restingOrders.get(restingOrders.size() - 1);
+            matchedEvent.buyOrderId = buying ? aggressor.getOrderId() : lastResting.getOrderId();
+            matchedEvent.sellOrderId = buying ? lastResting.getOrderId() : aggressor.getOrderId();
+            matchedEvent.symbol = symbol;
+            matchedEvent.price = level.getPrice().doubleValue();
+            matchedEvent.quantity = filled.doubleValue();
+            matchedEvent.fills = trades.size();
+            matchedEvent.bookDepth = orderBook.getTotalOrders();
+            matchedEvent.lockNanos = lockNanos;
+            matchedEvent.updateNanos = System.nanoTime() - updateStart;
+            matchedEvent.commit();
+        }
+        return trades.size();
     }
-    
-    private void processOrderExecution(Order buyOrder, Order sellOrder, BigDecimal executionQuantity, IOrderBook orderBook) {
-        BigDecimal newBuyQuantity = buyOrder.getQuantity().subtract(executionQuantity);
-        BigDecimal newSellQuantity = sellOrder.getQuantity().subtract(executionQuantity);
-        
-        updateOrder(buyOrder, newBuyQuantity, orderBook);
-        updateOrder(sellOrder, newSellQuantity, orderBook);
+
+    /**
+     * Switches a symbol to call-auction mode: new and modified orders rest in the book without
+     * matching until the auction is uncrossed. Immediate-or-cancel and fill-or-kill orders are
+     * rejected while the auction is open.
+     */
+    public void startAuction(String symbol) throws OrderException {
+        ValidationUtils.validateSymbol(symbol);
+        record(Command.auction(CommandType.AUCTION_START, symbol, clock.now()));
+        auctionSymbols.add(symbol);
     }
-    
-    private void updateOrder(Order order, BigDecimal newQuantity, IOrderBook orderBook) {
-        order.updateQuantity(newQuantity);
-        if (newQuantity.compareTo(BigDecimal.ZERO) == 0) {
-            orderBook.removeOrder(order);
+
+    public boolean isInAuction(String symbol) {
+        return auctionSymbols.contains(symbol);
+    }
+
+    /**
+     * Uncrosses a symbol's auction: all crossing orders execute at the single clearing price.
+     * The symbol stays in auction mode, so this can be called periodically.
+     */
+    public AuctionResult uncross(String symbol) throws OrderException {
+        requireAuction(symbol);
+        LocalDateTime now = record(Command.auction(CommandType.AUCTION_UNCROSS, symbol, clock.now()));
+        return settleAuction(runAuction(symbol, now, CommandType.AUCTION_UNCROSS));
+    }
+
+    /**
+     * Uncrosses a symbol's auction one last time and returns it to continuous matching.
+     */
+    public AuctionResult endAuction(String symbol) throws OrderException {
+        requireAuction(symbol);
+        LocalDateTime now = record(Command.auction(CommandType.AUCTION_END, symbol, clock.now()));
+        AuctionResult result = settleAuction(runAuction(symbol, now, CommandType.AUCTION_END));
+        auctionSymbols.remove(symbol);
+        return result;
+    }
+
+    public Map<String, AuctionResult> uncrossAll(Collection<String> symbols) throws OrderException {
+        return uncrossAll(symbols, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Uncrosses several symbols' auctions together. The books are uncrossed in parallel on the
+     * pool; the resulting trades are then numbered, stored and published one symbol at a time
+     * in symbol order, so trade IDs are the same as when the journal is replayed sequentially.
+     * Books must not be modified by other threads while this runs.
+     *
+     * @return Results by symbol, in symbol order
+     */
+    public Map<String, AuctionResult> uncrossAll(Collection<String> symbols, ForkJoinPool pool) throws OrderException {
+        List<String> sorted = new ArrayList<>(new TreeSet<>(symbols));
+        sorted.forEach(this::requireAuction);
+        List<ForkJoinTask<PendingAuction>> tasks = new ArrayList<>(sorted.size());
+        for (String symbol : sorted) {
+            LocalDateTime now = record(Command.auction(CommandType.AUCTION_UNCROSS, symbol, clock.now()));
+            tasks.add(ForkJoinTask.adapt(() -> runAuction(symbol, now, CommandType.AUCTION_UNCROSS)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+        Map<String, AuctionResult> results = new LinkedHashMap<>();
+        for (ForkJoinTask<PendingAuction> task : tasks) {
+            AuctionResult result = settleAuction(task.join());
+            results.put(result.getSymbol(), result);
+        }
+        return results;
+    }
+
+    private void requireAuction(String symbol) {
+        if (!auctionSymbols.contains(symbol)) {
+            throw new OrderException("Symbol is not in an auction: " + symbol);
+        }
+    }
+
+    /**
+     * Executes the auction against the book in one pass, walking bids and asks in priority
+     * order and filling them at the clearing price until its volume is reached. Only the book
+     * and the orders are touched, so different symbols can run concurrently.
+     */
+    private PendingAuction runAuction(String symbol, LocalDateTime now, CommandType command) {
+        long start = latencies.start();
+        OrderBook orderBook = (OrderBook) orderBooks.get(symbol);
+        ClearingPrice clearing = orderBook == null ? null : ClearingPrice.compute(orderBook);
+        PendingAuction auction = new PendingAuction(symbol, now, clearing);
+        if (clearing == null) {
+            return auction;
+        }
+        BigDecimal price = clearing.getPrice();
+        BigDecimal remaining = clearing.getVolume();
+        LevelCursor buys = new LevelCursor(orderBook, OrderSide.BUY, price);
+        LevelCursor sells = new LevelCursor(orderBook, OrderSide.SELL, price);
+        while (remaining.signum() > 0 && buys.level != null && sells.level != null) {
+            Order buyOrder = buys.level.peek();
+            Order sellOrder = sells.level.peek();
+            ReentrantLock[] locks = lockBoth(buyOrder.getOrderId(), sellOrder.getOrderId());
+            try {
+                if (!buyOrder.isActive() || !sellOrder.isActive()) {
+                    // Drop stale orders so the pass always makes progress
+                    if (!buyOrder.isActive()) {
+                        buys.drop(buyOrder);
+                    }
+                    if (!sellOrder.isActive()) {
+                        sells.drop(sellOrder);
+                    }
+                    continue;
+                }
+                BigDecimal quantity = remaining.min(buyOrder.getVisibleQuantity()).min(sellOrder.getVisibleQuantity());
+                auction.fills.add(new AuctionFill(buyOrder, sellOrder, quantity));
+                auction.touched.add(buyOrder);
+                auction.touched.add(sellOrder);
+                buys.fill(buyOrder, quantity, now);
+                sells.fill(sellOrder, quantity, now);
+                risk.onFill(buyOrder, quantity);
+                risk.onFill(sellOrder, quantity);
+                remaining = remaining.subtract(quantity);
+            } finally {
+                unlock(locks);
+            }
         }
-        orderRepository.updateOrder(order);
+        buys.finish();
+        sells.finish();
+        latencies.record(symbol, command, LatencyStage.MATCH_LOOP, start);
+        return auction;
     }
-    
+
+    private AuctionResult settleAuction(PendingAuction auction) {
+        ClearingPrice clearing = auction.clearing;
+        List<Trade> trades = new ArrayList<>(auction.fills.size());
+        long start = latencies.start();
+        for (AuctionFill fill : auction.fills) {
+            Trade trade = Trade.createTrade(nextTradeId(), fill.buyOrder, fill.sellOrder, clearing.getPrice(),
+                    fill.quantity, auction.now);
+            tradeRepository.addTrade(trade);
+            metrics.tradeCreated();
+            trades.add(trade);
+        }
+        latencies.record(auction.symbol, CommandType.AUCTION_UNCROSS, LatencyStage.TRADE_PERSISTENCE, start);
+        if (!trades.isEmpty()) {
+            priceBands.onTrade(auction.symbol, clearing.getPrice(), auction.now);
+        }
+
+        start = latencies.start();
+        for (Order order : auction.touched) {
+            orderRepository.updateOrder(order);
+        }
+        latencies.record(auction.symbol, CommandType.AUCTION_UNCROSS, LatencyStage.ORDER_UPDATE, start);
+        for (Order order : auction.touched) {
+            publish(order);
+        }
+        for (Trade trade : trades) {
+            publish(trade);
+        }
+        publishTopOfBook(orderBooks.get(auction.symbol));
+        return AuctionResult.builder()
+                .symbol(auction.symbol)
+                .clearingPrice(clearing == null ? null : clearing.getPrice())
+                .volume(clearing == null ? null : clearing.getVolume())
+                .surplus(clearing == null ? null : clearing.getSurplus())
+                .trades(trades)
+                .build();
+    }
+
     public void cancelOrder(String orderId) throws OrderException {
+        OrderCancelledEvent event = new OrderCancelledEvent();
+        event.begin();
         Order order = orderRepository.findById(orderId)
             .orElseThrow(() -> new OrderException("Order not found"));
-        
+
         if (!order.isActive()) {
             throw new OrderException("Cannot cancel inactive order");
         }
-        
-        ReentrantLock lock = lockManager.acquireLock(orderId);
+
+        long lockStart = event.isEnabled() ? System.nanoTime() : 0;
+        long start = latencies.start();
+        ReentrantLock lock = lock(orderId);
+        latencies.record(order.getSymbol(), CommandType.CANCEL_ORDER, LatencyStage.LOCK_ACQUISITION, start);
+        long locked = event.isEnabled() ? System.nanoTime() : 0;
         try {
             // Recheck if order is still active after acquiring lock
             if (!order.isActive()) {
                 throw new OrderException("Cannot cancel inactive order");
             }
-            
-            order.cancel();
+            // Journaled only once the cancel is certain to apply, while no other command can
+            // change the order
+            LocalDateTime now = record(Command.cancelOrder(orderId, clock.now()));
+
+            start = latencies.start();
+            order.cancel(now);
+            risk.release(order);
             orderRepository.updateOrder(order);
-            
+            metrics.orderCancelled();
+            latencies.record(order.getSymbol(), CommandType.CANCEL_ORDER, LatencyStage.ORDER_UPDATE, start);
+
             IOrderBook orderBook = orderBooks.get(order.getSymbol());
             if (orderBook != null) {
                 orderBook.removeOrder(order);
             }
+            publish(order);
+            publishTopOfBook(orderBook);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.describe(order, orderBook == null ? 0 : orderBook.getTotalOrders());
+                event.lockNanos = locked - lockStart;
+                event.commit();
+            }
         } finally {
-            lockManager.releaseLocks(lock);
+            unlock(lock);
         }
     }
-    
+
     public IOrderBook getOrderBook(String symbol) {
         return orderBooks.get(symbol);
     }
 
+    /**
+     * @return Symbols that have an order book, live view
+     */
+    public Set<String> getSymbols() {
+        return Collections.unmodifiableSet(orderBooks.keySet());
+    }
+
     public void modifyOrder(String orderId, BigDecimal newPrice, BigDecimal newQuantity) throws OrderException {
+        long start = latencies.start();
         ValidationUtils.validateModifyOrderParameters(orderId, newPrice, newQuantity);
+        // The symbol is only known once the order is found, so hold on to the duration
+        long validationNanos = latencies.elapsedSince(start);
 
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new OrderException("Order not found"));
@@ -155,34 +783,217 @@ public class MatchingEngine {
         if (!order.isActive()) {
             throw new OrderException("Cannot modify inactive order");
         }
+        String symbol = order.getSymbol();
+        latencies.recordElapsed(symbol, CommandType.MODIFY_ORDER, LatencyStage.VALIDATION, validationNanos);
 
-        ReentrantLock lock = lockManager.acquireLock(orderId);
+        start = latencies.start();
+        ReentrantLock lock = lock(orderId);
+        latencies.record(symbol, CommandType.MODIFY_ORDER, LatencyStage.LOCK_ACQUISITION, start);
         try {
             // Recheck if order is still active after acquiring lock
             if (!order.isActive()) {
                 throw new OrderException("Cannot modify inactive order");
             }
 
-            IOrderBook orderBook = orderBooks.get(order.getSymbol());
+            OrderBook orderBook = (OrderBook) orderBooks.get(order.getSymbol());
             if (orderBook == null) {
                 throw new OrderException("Order book not found for symbol: " + order.getSymbol());
             }
 
+            BigDecimal oldPrice = order.getPrice();
+            BigDecimal oldQuantity = order.getQuantity();
+            // Added exposure is reserved up front like a new order's, so concurrent modifies of
+            // the user's other orders can't overshoot a limit together
+            start = latencies.start();
+            risk.reserveReplacement(order, newPrice, newQuantity);
+            latencies.record(symbol, CommandType.MODIFY_ORDER, LatencyStage.RISK_CHECK, start);
+            LocalDateTime now;
+            try {
+                if (newPrice != null) {
+                    checkPriceBands(order, newPrice);
+                }
+                // Journaled only once the modify is certain to apply, like a cancel, so a
+                // cancel that wins the lock is never replayed after it
+                now = record(Command.modifyOrder(orderId, newPrice, newQuantity, clock.now()));
+            } catch (RuntimeException e) {
+                risk.releaseReplacement(order, newPrice, newQuantity);
+                throw e;
+            }
+
             orderBook.removeOrder(order);
 
             if (newPrice != null) {
-                order.updatePrice(newPrice);
+                order.updatePrice(newPrice, now);
             }
             if (newQuantity != null) {
-                order.updateQuantity(newQuantity);
+                order.updateQuantity(newQuantity, now);
             }
+            risk.replace(order, oldPrice, oldQuantity);
 
+            start = latencies.start();
             orderRepository.updateOrder(order);
-            orderBook.addOrder(order);
+            latencies.record(symbol, CommandType.MODIFY_ORDER, LatencyStage.ORDER_UPDATE, start);
+            metrics.orderModified();
+            publish(order);
 
-            matchOrders(orderBook);
+            match(orderBook, order, now, CommandType.MODIFY_ORDER);
+            publishTopOfBook(orderBook);
         } finally {
-            lockManager.releaseLocks(lock);
+            unlock(lock);
+        }
+    }
+
+    private IOrderBook newOrderBook(String symbol) {
+        OrderBook orderBook = new OrderBook(symbol);
+        String prefix = "book." + symbol + ".";
+        metrics.registerGauge(prefix + "buy", orderBook::getBuyDepth);
+        metrics.registerGauge(prefix + "sell", orderBook::getSellDepth);
+        metrics.registerGauge(prefix + "stopLoss", orderBook::getStopLossDepth);
+        metrics.registerGauge(prefix + "takeProfit", orderBook::getTakeProfitDepth);
+        metrics.registerGauge(prefix + "total", orderBook::getTotalOrders);
+        return orderBook;
+    }
+
+    private LocalDateTime record(Command command) {
+        CommandSink sink = journal;
+        if (sink != null) {
+            sink.append(command);
+        }
+        return command.getTimestamp();
+    }
+
+    private String nextTradeId() {
+        return tradeSequence == null ? Trade.nextTradeId() : IdUtils.tradeId(tradeSequence.incrementAndGet());
+    }
+
+    private void publish(Trade trade) {
+        for (TradeListener listener : tradeListeners) {
+            listener.onTrade(trade);
+        }
+    }
+
+    private void publish(Order order) {
+        for (OrderListener listener : orderListeners) {
+            listener.onOrder(order);
+        }
+    }
+
+    private void publishTopOfBook(IOrderBook orderBook) {
+        if (orderBook == null || topOfBookListeners.isEmpty()) {
+            return;
+        }
+        BigDecimal bestBid = orderBook.getBestBid();
+        BigDecimal bestAsk = orderBook.getBestAsk();
+        for (TopOfBookListener listener : topOfBookListeners) {
+            listener.onTopOfBook(orderBook.getSymbol(), bestBid, bestAsk);
+        }
+    }
+
+    private ReentrantLock lock(String orderId) {
+        return lockManager == null ? null : lockManager.acquireLock(orderId);
+    }
+
+    private ReentrantLock[] lockBoth(String firstOrderId, String secondOrderId) {
+        return lockManager == null ? NO_LOCKS : lockManager.acquireOrderLocks(firstOrderId, secondOrderId);
+    }
+
+    private void unlock(ReentrantLock... locks) {
+        if (lockManager != null) {
+            lockManager.releaseLocks(locks);
+        }
+    }
+
+    /**
+     * Auction fills waiting to be turned into trades; IDs are only assigned when settled.
+     */
+    private static final class PendingAuction {
+        private final String symbol;
+        private final LocalDateTime now;
+        private final ClearingPrice clearing;
+        private final List<AuctionFill> fills = new ArrayList<>();
+        // Orders compare by value and change as they fill, so track them by identity
+        private final Set<Order> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private PendingAuction(String symbol, LocalDateTime now, ClearingPrice clearing) {
+            this.symbol = symbol;
+            this.now = now;
+            this.clearing = clearing;
+        }
+    }
+
+    private static final class AuctionFill {
+        private final Order buyOrder;
+        private final Order sellOrder;
+        private final BigDecimal quantity;
+
+        private AuctionFill(Order buyOrder, Order sellOrder, BigDecimal quantity) {
+            this.buyOrder = buyOrder;
+            this.sellOrder = sellOrder;
+            this.quantity = quantity;
+        }
+    }
+
+    /**
+     * Walks one side's levels that cross the clearing price, settling each level's aggregate
+     * once when the walk moves past it.
+     */
+    private static final class LevelCursor {
+        private final OrderBook orderBook;
+        private final OrderSide side;
+        private final BigDecimal clearingPrice;
+        private PriceLevel level;
+        private BigDecimal filled = BigDecimal.ZERO;
+        private int ordersFilled;
+
+        private LevelCursor(OrderBook orderBook, OrderSide side, BigDecimal clearingPrice) {
+            this.orderBook = orderBook;
+            this.side = side;
+            this.clearingPrice = clearingPrice;
+            this.level = nextLevel();
+        }
+
+        private void fill(Order order, BigDecimal quantity, LocalDateTime now) {
+            order.fill(quantity, now);
+            filled = filled.add(quantity);
+            if (order.getQuantity().signum() == 0) {
+                level.poll();
+                ordersFilled++;
+            } else if (order.getVisibleQuantity().signum() == 0) {
+                orderBook.replenish(level, order);
+            }
+            advanceIfEmpty();
+        }
+
+        private void drop(Order order) {
+            // Counted as consumed so the level aggregates stay in step
+            level.poll();
+            level.reduce(order.getVisibleQuantity(), order.getQuantity());
+            ordersFilled++;
+            advanceIfEmpty();
+        }
+
+        private void advanceIfEmpty() {
+            if (level.isEmpty()) {
+                finish();
+                level = nextLevel();
+            }
+        }
+
+        private void finish() {
+            if (level != null) {
+                orderBook.levelConsumed(side, level, ordersFilled, filled);
+                filled = BigDecimal.ZERO;
+                ordersFilled = 0;
+            }
+        }
+
+        private PriceLevel nextLevel() {
+            PriceLevel best = orderBook.getBestLevel(side);
+            if (best == null) {
+                return null;
+            }
+            int comparison = best.getPrice().compareTo(clearingPrice);
+            return (side == OrderSide.BUY ? comparison >= 0 : comparison <= 0) ? best : null;
         }
     }
-} 
\ No newline at end of file
+}
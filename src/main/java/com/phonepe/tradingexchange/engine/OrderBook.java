@@ -3,44 +3,47 @@ package com.phonepe.tradingexchange.engine;
 import com.phonepe.tradingexchange.exception.OrderException;
 import com.phonepe.tradingexchange.model.Order;
 import com.phonepe.tradingexchange.model.OrderSide;
-import com.phonepe.tradingexchange.model.OrderType;
+import com.phonepe.tradingexchange.model.SelfTradePrevention;
 import com.phonepe.tradingexchange.util.ValidationUtils;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Price-time priority book for one symbol. Each side is a sorted map of {@link PriceLevel}s,
+ * so the best price is found in O(log n) and an aggressive order can consume a whole level
+ * at a time; untriggered stop-loss and take-profit orders wait in their own queues.
+ */
 public class OrderBook implements IOrderBook {
     private final String symbol;
-    private final PriorityQueue<Order> buyOrders;
-    private final PriorityQueue<Order> sellOrders;
+    private final TreeMap<BigDecimal, PriceLevel> buyLevels = new TreeMap<>(Comparator.reverseOrder());
+    private final TreeMap<BigDecimal, PriceLevel> sellLevels = new TreeMap<>();
     private final PriorityQueue<Order> stopLossOrders;
     private final PriorityQueue<Order> takeProfitOrders;
+    private int buyDepth;
+    private int sellDepth;
+
+    // Strictly increasing per book, so time priority is exact regardless of clock resolution
+    private final AtomicLong arrivalSequence = new AtomicLong();
     
     public OrderBook(String symbol) {
         ValidationUtils.validateSymbol(symbol);
         
         this.symbol = symbol;
 
-        this.buyOrders = new PriorityQueue<>((order1, order2) -> {
-            int priceComparison = order2.getPrice().compareTo(order1.getPrice());
-            if (priceComparison == 0) {
-                return order1.getCreatedAt().compareTo(order2.getCreatedAt());
-            }
-            return priceComparison;
-        });
-        
-        this.sellOrders = new PriorityQueue<>((order1, order2) -> {
-            int priceComparison = order1.getPrice().compareTo(order2.getPrice());
-            if (priceComparison == 0) {
-                return order1.getCreatedAt().compareTo(order2.getCreatedAt());
-            }
-            return priceComparison;
-        });
-
         this.stopLossOrders = new PriorityQueue<>((order1, order2) -> {
             int priceComparison = order1.getStopLossPrice().compareTo(order2.getStopLossPrice());
             if (priceComparison == 0) {
-                return order1.getCreatedAt().compareTo(order2.getCreatedAt());
+                return Long.compare(order1.getArrivalSequence(), order2.getArrivalSequence());
             }
             return priceComparison;
         });
@@ -48,7 +51,7 @@ public class OrderBook implements IOrderBook {
         this.takeProfitOrders = new PriorityQueue<>((order1, order2) -> {
             int priceComparison = order1.getTakeProfitPrice().compareTo(order2.getTakeProfitPrice());
             if (priceComparison == 0) {
-                return order1.getCreatedAt().compareTo(order2.getCreatedAt());
+                return Long.compare(order1.getArrivalSequence(), order2.getArrivalSequence());
             }
             return priceComparison;
         });
@@ -57,14 +60,15 @@ public class OrderBook implements IOrderBook {
     @Override
     public void addOrder(Order order) {
         ValidationUtils.validateOrderSymbol(order, symbol);
+        if (order.getArrivalSequence() == 0) {
+            // Orders re-entering the book (modified or triggered) keep their original priority
+            order.setArrivalSequence(arrivalSequence.incrementAndGet());
+        }
         
         switch (order.getOrderType()) {
             case MARKET:
-                if (order.getSide() == OrderSide.BUY) {
-                    buyOrders.add(order);
-                } else {
-                    sellOrders.add(order);
-                }
+            case ICEBERG:
+                rest(order);
                 break;
             case STOP_LOSS:
                 stopLossOrders.add(order);
@@ -81,57 +85,61 @@ public class OrderBook implements IOrderBook {
             throw new OrderException("Order cannot be null");
         }
         
+        // Triggered stop-loss and take-profit orders live in the buy and sell levels
         switch (order.getOrderType()) {
             case MARKET:
-                if (order.getSide() == OrderSide.BUY) {
-                    buyOrders.remove(order);
-                } else {
-                    sellOrders.remove(order);
-                }
+            case ICEBERG:
+                removeFromLevel(order);
                 break;
             case STOP_LOSS:
-                stopLossOrders.remove(order);
+                if (!stopLossOrders.remove(order)) {
+                    removeFromLevel(order);
+                }
                 break;
             case TAKE_PROFIT:
-                takeProfitOrders.remove(order);
+                if (!takeProfitOrders.remove(order)) {
+                    removeFromLevel(order);
+                }
                 break;
         }
     }
     
     @Override
     public BigDecimal getBestBid() {
-        Order bestBuy = buyOrders.peek();
-        return bestBuy != null ? bestBuy.getPrice() : BigDecimal.ZERO;
+        Map.Entry<BigDecimal, PriceLevel> best = buyLevels.firstEntry();
+        return best != null ? best.getKey() : BigDecimal.ZERO;
     }
     
     @Override
     public BigDecimal getBestAsk() {
-        Order bestSell = sellOrders.peek();
-        return bestSell != null ? bestSell.getPrice() : BigDecimal.ZERO;
+        Map.Entry<BigDecimal, PriceLevel> best = sellLevels.firstEntry();
+        return best != null ? best.getKey() : BigDecimal.ZERO;
     }
     
     @Override
     public Order getNextBuyOrder() {
-        return buyOrders.peek();
+        PriceLevel best = getBestLevel(OrderSide.BUY);
+        return best != null ? best.peek() : null;
     }
     
     @Override
     public Order getNextSellOrder() {
-        return sellOrders.peek();
+        PriceLevel best = getBestLevel(OrderSide.SELL);
+        return best != null ? best.peek() : null;
     }
     
     @Override
     public boolean hasMatchingOrders() {
-        Order bestBuy = buyOrders.peek();
-        Order bestSell = sellOrders.peek();
+        Map.Entry<BigDecimal, PriceLevel> bestBuy = buyLevels.firstEntry();
+        Map.Entry<BigDecimal, PriceLevel> bestSell = sellLevels.firstEntry();
         
         return bestBuy != null && bestSell != null && 
-                bestBuy.getPrice().compareTo(bestSell.getPrice()) >= 0;
+                bestBuy.getKey().compareTo(bestSell.getKey()) >= 0;
     }
     
     @Override
     public int getTotalOrders() {
-        return buyOrders.size() + sellOrders.size() + 
+        return buyDepth + sellDepth + 
                stopLossOrders.size() + takeProfitOrders.size();
     }
     
@@ -140,17 +148,177 @@ public class OrderBook implements IOrderBook {
         return symbol;
     }
 
-    public void checkStopLossAndTakeProfit(BigDecimal currentPrice) {
+    public int getBuyDepth() {
+        return buyDepth;
+    }
+
+    public int getSellDepth() {
+        return sellDepth;
+    }
+
+    public int getStopLossDepth() {
+        return stopLossOrders.size();
+    }
+
+    public int getTakeProfitDepth() {
+        return takeProfitOrders.size();
+    }
+
+    /**
+     * @return The best price level on the given side, or null if that side is empty
+     */
+    public PriceLevel getBestLevel(OrderSide side) {
+        Map.Entry<BigDecimal, PriceLevel> best = levels(side).firstEntry();
+        return best != null ? best.getValue() : null;
+    }
+
+    /**
+     * @return Read-only view of the price levels on one side, best price first
+     */
+    public Collection<PriceLevel> getLevels(OrderSide side) {
+        return Collections.unmodifiableCollection(levels(side).values());
+    }
+
+    /**
+     * Checks whether the opposite side holds enough quantity at prices the order accepts to
+     * fill it completely. Only aggregated level quantities are read, no individual orders;
+     * iceberg reserves count because a sweep keeps taking their replenished slices.
+     *
+     * @param side Side of the incoming order
+     * @param limitPrice Worst price the incoming order accepts
+     * @param quantity Quantity to fill
+     */
+    public boolean canFill(OrderSide side, BigDecimal limitPrice, BigDecimal quantity) {
+        BigDecimal available = BigDecimal.ZERO;
+        boolean buying = side == OrderSide.BUY;
+        for (PriceLevel level : levels(buying ? OrderSide.SELL : OrderSide.BUY).values()) {
+            int comparison = limitPrice.compareTo(level.getPrice());
+            if (buying ? comparison < 0 : comparison > 0) {
+                return false;
+            }
+            available = available.add(level.getTotalQuantity());
+            if (available.compareTo(quantity) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether an incoming order could fill completely right now, taking its
+     * self-trade prevention into account: the owner's resting orders are skipped when they
+     * would be cancelled, and otherwise end the walk because the order would stop there.
+     * Without self-trade prevention only aggregated level quantities are read.
+     */
+    public boolean canFill(Order order) {
+        SelfTradePrevention prevention = order.getSelfTradePrevention();
+        if (prevention == SelfTradePrevention.NONE) {
+            return canFill(order.getSide(), order.getPrice(), order.getQuantity());
+        }
+        BigDecimal available = BigDecimal.ZERO;
+        boolean buying = order.getSide() == OrderSide.BUY;
+        for (PriceLevel level : levels(buying ? OrderSide.SELL : OrderSide.BUY).values()) {
+            int comparison = order.getPrice().compareTo(level.getPrice());
+            if (buying ? comparison < 0 : comparison > 0) {
+                return false;
+            }
+            BigDecimal visible = BigDecimal.ZERO;
+            BigDecimal total = BigDecimal.ZERO;
+            boolean blocked = false;
+            for (Order resting : level.orders()) {
+                if (!resting.getUserId().equals(order.getUserId())) {
+                    visible = visible.add(resting.getVisibleQuantity());
+                    total = total.add(resting.getQuantity());
+                } else if (prevention != SelfTradePrevention.CANCEL_OLDEST) {
+                    blocked = true;
+                    break;
+                }
+            }
+            // Iceberg reserves come back at the back of the level, so a walk that stops at the
+            // owner's order only reaches the slices shown ahead of it
+            available = available.add(blocked ? visible : total);
+            if (available.compareTo(order.getQuantity()) >= 0) {
+                return true;
+            }
+            if (blocked) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reduces a resting order in place without trading, keeping its time priority. Used by
+     * self-trade prevention; the order must stay open.
+     */
+    public void decrement(PriceLevel level, Order order, BigDecimal quantity, LocalDateTime at) {
+        BigDecimal visible = order.getVisibleQuantity();
+        order.updateQuantity(order.getQuantity().subtract(quantity), at);
+        level.reduce(visible.subtract(order.getVisibleQuantity()), quantity);
+    }
+
+    /**
+     * Settles a level after a sweep has filled orders from its front: the filled quantity is
+     * taken off the aggregate once, and the level is dropped when nothing is left resting.
+     *
+     * @param side Side of the book the level belongs to
+     * @param level The level that was swept
+     * @param ordersFilled Number of orders polled off the level because they were fully filled
+     * @param quantityFilled Total quantity filled at the level
+     */
+    public void levelConsumed(OrderSide side, PriceLevel level, int ordersFilled, BigDecimal quantityFilled) {
+        level.reduce(quantityFilled, quantityFilled);
+        adjustDepth(side, -ordersFilled);
+        if (level.isEmpty()) {
+            levels(side).remove(level.getPrice(), level);
+        }
+    }
+
+    /**
+     * Shows the next slice of an iceberg order whose displayed slice was just filled at the
+     * front of the level, moving it to the back of the level with a new arrival sequence.
+     */
+    public void replenish(PriceLevel level, Order order) {
+        order.replenish();
+        order.setArrivalSequence(arrivalSequence.incrementAndGet());
+        level.requeue(order);
+    }
+
+    /**
+     * Rests an order on its side of the book regardless of its type. Used for orders that
+     * already have a place in the time priority, such as triggered stops after a sweep.
+     */
+    void rest(Order order) {
+        levels(order.getSide())
+                .computeIfAbsent(order.getPrice(), PriceLevel::new)
+                .add(order);
+        adjustDepth(order.getSide(), 1);
+    }
+
+    /**
+     * @return Whether the price triggers any stop-loss or take-profit order
+     */
+    public boolean triggers(BigDecimal currentPrice) {
+        Order stopLoss = stopLossOrders.peek();
+        Order takeProfit = takeProfitOrders.peek();
+        return (stopLoss != null && stopLoss.isStopLossTriggered(currentPrice))
+                || (takeProfit != null && takeProfit.isTakeProfitTriggered(currentPrice));
+    }
+
+    /**
+     * Moves stop-loss and take-profit orders triggered by the price into the book.
+     *
+     * @return The triggered orders, empty if none
+     */
+    public List<Order> checkStopLossAndTakeProfit(BigDecimal currentPrice) {
+        List<Order> triggered = Collections.emptyList();
         // Check stop-loss orders
         while (!stopLossOrders.isEmpty()) {
             Order order = stopLossOrders.peek();
             if (order.isStopLossTriggered(currentPrice)) {
                 stopLossOrders.poll();
-                if (order.getSide() == OrderSide.BUY) {
-                    buyOrders.add(order);
-                } else {
-                    sellOrders.add(order);
-                }
+                triggered = addTriggered(triggered, order);
+                rest(order);
             } else {
                 break;
             }
@@ -161,14 +329,42 @@ public class OrderBook implements IOrderBook {
             Order order = takeProfitOrders.peek();
             if (order.isTakeProfitTriggered(currentPrice)) {
                 takeProfitOrders.poll();
-                if (order.getSide() == OrderSide.BUY) {
-                    buyOrders.add(order);
-                } else {
-                    sellOrders.add(order);
-                }
+                triggered = addTriggered(triggered, order);
+                rest(order);
             } else {
                 break;
             }
         }
+        return triggered;
+    }
+
+    private void removeFromLevel(Order order) {
+        TreeMap<BigDecimal, PriceLevel> levels = levels(order.getSide());
+        PriceLevel level = levels.get(order.getPrice());
+        if (level != null && level.remove(order)) {
+            adjustDepth(order.getSide(), -1);
+            if (level.isEmpty()) {
+                levels.remove(level.getPrice());
+            }
+        }
+    }
+
+    private TreeMap<BigDecimal, PriceLevel> levels(OrderSide side) {
+        return side == OrderSide.BUY ? buyLevels : sellLevels;
+    }
+
+    private void adjustDepth(OrderSide side, int delta) {
+        if (side == OrderSide.BUY) {
+            buyDepth += delta;
+        } else {
+            sellDepth += delta;
+        }
+    }
+
+    // The common case triggers nothing, so only allocate once an order fires
+    private static List<Order> addTriggered(List<Order> triggered, Order order) {
+        List<Order> result = triggered.isEmpty() ? new ArrayList<>() : triggered;
+        result.add(order);
+        return result;
     }
-} 
\ No newline at end of file
+}
@@ -1,12 +1,16 @@
 package com.phonepe.tradingexchange.engine;
 
 import com.phonepe.tradingexchange.exception.OrderException;
+import com.phonepe.tradingexchange.jfr.OrderExpiredEvent;
 import com.phonepe.tradingexchange.model.Order;
 import com.phonepe.tradingexchange.repository.OrderRepository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 public class OrderExpiryManager {
     private final MatchingEngine matchingEngine;
@@ -41,11 +45,16 @@ public class OrderExpiryManager {
     }
     
     private void checkExpiredOrders() {
+        long start = System.nanoTime();
         try {
-            orderRepository.findAll().stream()
+            // Expiry is judged on engine time so cancellations line up with the journal
+            LocalDateTime now = matchingEngine.getClock().now();
+            List<Order> expired = orderRepository.findOpenOrders().stream()
                 .filter(Order::isActive)
-                .filter(Order::isExpired)
-                .forEach(this::cancelExpiredOrder);
+                .filter(order -> order.isExpired(now))
+                .collect(Collectors.toList());
+            expired.forEach(this::cancelExpiredOrder);
+            matchingEngine.getMetrics().expiryTickCompleted(System.nanoTime() - start, expired.size());
         } catch (Exception e) {
             // Log error but don't stop the scheduler
             System.err.println("Error checking expired orders: " + e.getMessage());
@@ -53,8 +62,16 @@ public class OrderExpiryManager {
     }
     
     private void cancelExpiredOrder(Order order) {
+        OrderExpiredEvent event = new OrderExpiredEvent();
+        event.begin();
         try {
             matchingEngine.cancelOrder(order.getOrderId());
+            event.end();
+            if (event.shouldCommit()) {
+                IOrderBook orderBook = matchingEngine.getOrderBook(order.getSymbol());
+                event.describe(order, orderBook == null ? 0 : orderBook.getTotalOrders());
+                event.commit();
+            }
         } catch (OrderException e) {
             System.err.println("Error cancelling expired order " + order.getOrderId() + ": " + e.getMessage());
         }
@@ -0,0 +1,13 @@
+package com.phonepe.tradingexchange.engine;
+
+import com.phonepe.tradingexchange.model.Order;
+
+/**
+ * Callback for order state changes made by the {@link MatchingEngine}, invoked on the matching
+ * thread right after the order is saved or updated. The order is the engine's own instance and
+ * keeps changing, so listeners that hand it to another thread must copy it first.
+ */
+public interface OrderListener {
+
+    void onOrder(Order order);
+}
@@ -0,0 +1,129 @@
+package com.phonepe.tradingexchange.engine;
+
+import com.phonepe.tradingexchange.model.Order;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * All resting orders on one side of the book at a single price, in arrival order, together
+ * with two aggregates: the visible quantity (only the displayed slice of iceberg orders counts)
+ * and the total quantity including iceberg reserves. Depth views read the first; checks of what
+ * a sweep could actually fill read the second, since a sweep keeps taking replenished slices.
+ *
+ * <p>The aggregates are kept in step by the book: orders added or removed through the book
+ * adjust them immediately, while fills taken during a sweep are subtracted once for the whole
+ * level via {@link OrderBook#levelConsumed}.
+ */
+public class PriceLevel {
+    private final BigDecimal price;
+    private final ArrayDeque<Order> orders = new ArrayDeque<>();
+    private BigDecimal quantity = BigDecimal.ZERO;
+    private BigDecimal totalQuantity = BigDecimal.ZERO;
+
+    PriceLevel(BigDecimal price) {
+        this.price = price;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * @return Quantity resting at the level including the hidden reserve of iceberg orders
+     */
+    public BigDecimal getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public int size() {
+        return orders.size();
+    }
+
+    public boolean isEmpty() {
+        return orders.isEmpty();
+    }
+
+    /**
+     * @return The order at the front of the queue, or null if the level is empty
+     */
+    public Order peek() {
+        return orders.peekFirst();
+    }
+
+    void add(Order order) {
+        enqueue(order);
+        quantity = quantity.add(order.getVisibleQuantity());
+        totalQuantity = totalQuantity.add(order.getQuantity());
+    }
+
+    /**
+     * Moves the front order to its place further back after it has shown a new iceberg slice.
+     * Only the new slice is added to the visible aggregate; the order's total is already counted.
+     */
+    void requeue(Order order) {
+        orders.pollFirst();
+        enqueue(order);
+        quantity = quantity.add(order.getVisibleQuantity());
+    }
+
+    private void enqueue(Order order) {
+        Order last = orders.peekLast();
+        if (last == null || last.getArrivalSequence() <= order.getArrivalSequence()) {
+            orders.addLast(order);
+        } else {
+            // Re-entering orders keep their original priority; rare enough to rebuild the queue
+            List<Order> queued = new ArrayList<>(orders);
+            orders.clear();
+            boolean inserted = false;
+            for (Order queuedOrder : queued) {
+                if (!inserted && order.getArrivalSequence() < queuedOrder.getArrivalSequence()) {
+                    orders.addLast(order);
+                    inserted = true;
+                }
+                orders.addLast(queuedOrder);
+            }
+        }
+    }
+
+    boolean remove(Order order) {
+        // Orders are mutable and compare by value, so match on identity
+        Iterator<Order> iterator = orders.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() == order) {
+                iterator.remove();
+                quantity = quantity.subtract(order.getVisibleQuantity());
+                totalQuantity = totalQuantity.subtract(order.getQuantity());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops the front order once it has been completely filled or gone stale. Its quantity is
+     * accounted for by {@link #reduce}.
+     */
+    Order poll() {
+        return orders.pollFirst();
+    }
+
+    void reduce(BigDecimal visible, BigDecimal total) {
+        quantity = quantity.subtract(visible);
+        totalQuantity = totalQuantity.subtract(total);
+    }
+
+    /**
+     * @return The queued orders in priority order; must not be modified
+     */
+    public Iterable<Order> orders() {
+        return orders;
+    }
+}
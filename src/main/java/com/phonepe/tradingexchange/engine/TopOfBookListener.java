@@ -0,0 +1,16 @@
+package com.phonepe.tradingexchange.engine;
+
+import java.math.BigDecimal;
+
+/**
+ * Callback for the best prices of a symbol's book, invoked by the {@link MatchingEngine} on the
+ * matching thread after every command that may have changed the book.
+ */
+public interface TopOfBookListener {
+
+    /**
+     * @param bestBid Best bid, or zero if there is none
+     * @param bestAsk Best ask, or zero if there is none
+     */
+    void onTopOfBook(String symbol, BigDecimal bestBid, BigDecimal bestAsk);
+}
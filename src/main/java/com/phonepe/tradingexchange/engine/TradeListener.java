@@ -0,0 +1,12 @@
+package com.phonepe.tradingexchange.engine;
+
+import com.phonepe.tradingexchange.model.Trade;
+
+/**
+ * Callback for trades created by the {@link MatchingEngine}, invoked on the matching thread
+ * right after the trade is persisted.
+ */
+public interface TradeListener {
+
+    void onTrade(Trade trade);
+}
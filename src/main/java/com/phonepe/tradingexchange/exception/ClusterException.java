@@ -0,0 +1,14 @@
+package com.phonepe.tradingexchange.exception;
+
+/**
+ * Thrown when a command cannot be routed to, or answered by, the partition that owns it.
+ */
+public class ClusterException extends TradingException {
+    public ClusterException(String message) {
+        super(message);
+    }
+
+    public ClusterException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
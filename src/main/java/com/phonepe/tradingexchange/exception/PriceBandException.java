@@ -0,0 +1,10 @@
+package com.phonepe.tradingexchange.exception;
+
+/**
+ * Thrown when an order's price falls outside its symbol's price bands.
+ */
+public class PriceBandException extends OrderException {
+    public PriceBandException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.phonepe.tradingexchange.exception;
+
+/**
+ * Thrown when a command cannot be replicated as the replication policy requires, or when a
+ * fenced primary is asked to take commands.
+ */
+public class ReplicationException extends TradingException {
+    public ReplicationException(String message) {
+        super(message);
+    }
+
+    public ReplicationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
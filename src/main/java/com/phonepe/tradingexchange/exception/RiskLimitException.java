@@ -0,0 +1,10 @@
+package com.phonepe.tradingexchange.exception;
+
+/**
+ * Thrown when an order would take a user past one of their pre-trade risk limits.
+ */
+public class RiskLimitException extends OrderException {
+    public RiskLimitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.phonepe.tradingexchange.exception;
+
+/**
+ * Thrown when a command is shed because the engine is too far behind to take it on; the
+ * caller may retry later.
+ */
+public class SystemBusyException extends OrderException {
+    public SystemBusyException(String message) {
+        super(message);
+    }
+}
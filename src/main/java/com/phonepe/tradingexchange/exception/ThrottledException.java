@@ -0,0 +1,10 @@
+package com.phonepe.tradingexchange.exception;
+
+/**
+ * Thrown when a message is rejected because its user or symbol is over its message rate.
+ */
+public class ThrottledException extends OrderException {
+    public ThrottledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,32 @@
+package com.phonepe.tradingexchange.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Spans {@code MatchingEngine.addOrder}, from journaling to the end of the match loop.
+ */
+@Name("com.phonepe.tradingexchange.OrderAccepted")
+@Label("Order Accepted")
+@Description("Order placed into the book, including any matching it triggered")
+@Category({"Trading Exchange", "Orders"})
+@StackTrace(false)
+@Threshold(TradingEvents.DEFAULT_THRESHOLD)
+public class OrderAcceptedEvent extends OrderEvent {
+
+    @Label("Repository Save")
+    @Timespan(Timespan.NANOSECONDS)
+    public long saveNanos;
+
+    @Label("Match Loop")
+    @Timespan(Timespan.NANOSECONDS)
+    public long matchNanos;
+
+    @Label("Fills")
+    public int fills;
+}
@@ -0,0 +1,25 @@
+package com.phonepe.tradingexchange.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Spans {@code MatchingEngine.cancelOrder} for an order that was cancelled.
+ */
+@Name("com.phonepe.tradingexchange.OrderCancelled")
+@Label("Order Cancelled")
+@Description("Open order cancelled and removed from its book")
+@Category({"Trading Exchange", "Orders"})
+@StackTrace(false)
+@Threshold(TradingEvents.DEFAULT_THRESHOLD)
+public class OrderCancelledEvent extends OrderEvent {
+
+    @Label("Lock Acquisition")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lockNanos;
+}
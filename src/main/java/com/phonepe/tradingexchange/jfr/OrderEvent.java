@@ -0,0 +1,38 @@
+package com.phonepe.tradingexchange.jfr;
+
+import com.phonepe.tradingexchange.model.Order;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Fields shared by the events that concern a single order.
+ */
+public abstract class OrderEvent extends Event {
+
+    @Label("Order ID")
+    public String orderId;
+
+    @Label("Symbol")
+    public String symbol;
+
+    @Label("Side")
+    public String side;
+
+    @Label("Quantity")
+    public double quantity;
+
+    @Label("Book Depth")
+    public int bookDepth;
+
+    /**
+     * Copies the order's identity and the book depth into the event. Only call this once
+     * {@link #shouldCommit()} has returned true, so disabled or fast events cost nothing.
+     */
+    public void describe(Order order, int depth) {
+        orderId = order.getOrderId();
+        symbol = order.getSymbol();
+        side = order.getSide() == null ? null : order.getSide().name();
+        quantity = order.getQuantity() == null ? 0 : order.getQuantity().doubleValue();
+        bookDepth = depth;
+    }
+}
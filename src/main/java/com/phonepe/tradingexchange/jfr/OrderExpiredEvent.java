@@ -0,0 +1,20 @@
+package com.phonepe.tradingexchange.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Spans the expiry sweep's cancellation of one expired order.
+ */
+@Name("com.phonepe.tradingexchange.OrderExpired")
+@Label("Order Expired")
+@Description("Order cancelled by the expiry sweep")
+@Category({"Trading Exchange", "Orders"})
+@StackTrace(false)
+@Threshold(TradingEvents.DEFAULT_THRESHOLD)
+public class OrderExpiredEvent extends OrderEvent {
+}
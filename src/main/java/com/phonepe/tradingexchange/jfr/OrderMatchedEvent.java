@@ -0,0 +1,53 @@
+package com.phonepe.tradingexchange.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Spans one price level swept by an aggressive order: filling the level's resting orders in
+ * arrival order, persisting the resulting trades and updating the orders involved. The order
+ * IDs are the aggressor and the last resting order it filled.
+ */
+@Name("com.phonepe.tradingexchange.OrderMatched")
+@Label("Order Matched")
+@Description("Aggressive order swept one price level of the book")
+@Category({"Trading Exchange", "Matching"})
+@StackTrace(false)
+@Threshold(TradingEvents.DEFAULT_THRESHOLD)
+public class OrderMatchedEvent extends Event {
+
+    @Label("Buy Order ID")
+    public String buyOrderId;
+
+    @Label("Sell Order ID")
+    public String sellOrderId;
+
+    @Label("Symbol")
+    public String symbol;
+
+    @Label("Price")
+    public double price;
+
+    @Label("Quantity")
+    public double quantity;
+
+    @Label("Fills")
+    public int fills;
+
+    @Label("Book Depth")
+    public int bookDepth;
+
+    @Label("Lock Acquisition")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lockNanos;
+
+    @Label("Order Update")
+    @Timespan(Timespan.NANOSECONDS)
+    public long updateNanos;
+}
@@ -0,0 +1,55 @@
+package com.phonepe.tradingexchange.jfr;
+
+import com.phonepe.tradingexchange.model.Order;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Spans applying one price to a book's stop orders, for prices that triggered at least one
+ * stop-loss or take-profit order. The price is either a market data update or the execution
+ * price of a level swept during matching.
+ */
+@Name("com.phonepe.tradingexchange.StopTriggered")
+@Label("Stop Triggered")
+@Description("Market or execution price moved stop-loss or take-profit orders into the book")
+@Category({"Trading Exchange", "Orders"})
+@StackTrace(false)
+@Threshold(TradingEvents.DEFAULT_THRESHOLD)
+public class StopTriggeredEvent extends Event {
+
+    @Label("Symbol")
+    public String symbol;
+
+    @Label("Market Price")
+    public double price;
+
+    @Label("Triggered Orders")
+    public int triggered;
+
+    @Label("Order IDs")
+    public String orderIds;
+
+    @Label("Book Depth")
+    public int bookDepth;
+
+    /**
+     * Copies the price and the triggered orders into the event. Only call this once
+     * {@link #shouldCommit()} has returned true, so disabled or fast events cost nothing.
+     */
+    public void describe(String symbol, BigDecimal price, List<Order> triggered, int depth) {
+        this.symbol = symbol;
+        this.price = price.doubleValue();
+        this.triggered = triggered.size();
+        orderIds = triggered.stream().map(Order::getOrderId).collect(Collectors.joining(","));
+        bookDepth = depth;
+    }
+}
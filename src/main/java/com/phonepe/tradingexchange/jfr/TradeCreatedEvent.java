@@ -0,0 +1,39 @@
+package com.phonepe.tradingexchange.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Spans creating and persisting one trade.
+ */
+@Name("com.phonepe.tradingexchange.TradeCreated")
+@Label("Trade Created")
+@Description("Trade created and stored in the trade repository")
+@Category({"Trading Exchange", "Matching"})
+@StackTrace(false)
+@Threshold(TradingEvents.DEFAULT_THRESHOLD)
+public class TradeCreatedEvent extends Event {
+
+    @Label("Trade ID")
+    public String tradeId;
+
+    @Label("Buy Order ID")
+    public String buyOrderId;
+
+    @Label("Sell Order ID")
+    public String sellOrderId;
+
+    @Label("Symbol")
+    public String symbol;
+
+    @Label("Price")
+    public double price;
+
+    @Label("Quantity")
+    public double quantity;
+}
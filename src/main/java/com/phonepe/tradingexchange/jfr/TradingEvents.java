@@ -0,0 +1,18 @@
+package com.phonepe.tradingexchange.jfr;
+
+/**
+ * Flight Recorder events for the order lifecycle.
+ * <p>
+ * Every event is a duration event with a default {@link jdk.jfr.Threshold} of
+ * {@value #DEFAULT_THRESHOLD}, so an always-on recording only keeps slow operations. Lower
+ * the threshold for a single event in a custom {@code .jfc} settings file, e.g.
+ * {@code <setting name="threshold">0 ms</setting>} under
+ * {@code com.phonepe.tradingexchange.OrderAccepted}, to trace every order during an
+ * investigation. Call sites populate fields only after {@code shouldCommit()} returns true,
+ * so events that are disabled or under the threshold cost a clock read and nothing else.
+ */
+public final class TradingEvents {
+    public static final String DEFAULT_THRESHOLD = "1 ms";
+
+    private TradingEvents() {}
+}
@@ -0,0 +1,74 @@
+package com.phonepe.tradingexchange.journal;
+
+import com.phonepe.tradingexchange.model.Order;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A single engine input as recorded in the command journal. The timestamp is the engine time
+ * at which the command was applied; replaying it at the same time reproduces every timestamp
+ * the engine derived from it.
+ * <p>
+ * Which fields are set depends on the type: {@code order} for PLACE_ORDER, {@code orderId}
+ * for CANCEL_ORDER, {@code orderId} plus new {@code price}/{@code quantity} for MODIFY_ORDER,
+ * {@code symbol} plus {@code price} for MARKET_PRICE and {@code symbol} for the auction commands.
+ */
+@Data
+@Builder(toBuilder = true)
+public class Command {
+    private final long sequence;
+    private final CommandType type;
+    private final LocalDateTime timestamp;
+    private final Order order;
+    private final String orderId;
+    private final String symbol;
+    private final BigDecimal price;
+    private final BigDecimal quantity;
+
+    public static Command placeOrder(Order order, LocalDateTime timestamp) {
+        return Command.builder()
+                .type(CommandType.PLACE_ORDER)
+                .timestamp(timestamp)
+                .order(order.toBuilder().build())
+                .build();
+    }
+
+    public static Command cancelOrder(String orderId, LocalDateTime timestamp) {
+        return Command.builder()
+                .type(CommandType.CANCEL_ORDER)
+                .timestamp(timestamp)
+                .orderId(orderId)
+                .build();
+    }
+
+    public static Command modifyOrder(String orderId, BigDecimal newPrice, BigDecimal newQuantity,
+                                      LocalDateTime timestamp) {
+        return Command.builder()
+                .type(CommandType.MODIFY_ORDER)
+                .timestamp(timestamp)
+                .orderId(orderId)
+                .price(newPrice)
+                .quantity(newQuantity)
+                .build();
+    }
+
+    public static Command marketPrice(String symbol, BigDecimal price, LocalDateTime timestamp) {
+        return Command.builder()
+                .type(CommandType.MARKET_PRICE)
+                .timestamp(timestamp)
+                .symbol(symbol)
+                .price(price)
+                .build();
+    }
+
+    public static Command auction(CommandType type, String symbol, LocalDateTime timestamp) {
+        return Command.builder()
+                .type(type)
+                .timestamp(timestamp)
+                .symbol(symbol)
+                .build();
+    }
+}
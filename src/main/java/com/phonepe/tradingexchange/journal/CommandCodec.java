@@ -0,0 +1,172 @@
+package com.phonepe.tradingexchange.journal;
+
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.OrderStatus;
+import com.phonepe.tradingexchange.model.OrderType;
+import com.phonepe.tradingexchange.model.SelfTradePrevention;
+import com.phonepe.tradingexchange.model.TimeInForce;
+import com.phonepe.tradingexchange.util.TimeUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+
+/**
+ * Binary encoding of {@link Command}s, shared by the on-disk journal and journal replication.
+ * The order, decimal and time encodings are also used by the partitioned deployment's protocol.
+ * Decimals are encoded exactly (scale plus unscaled bytes) so a decoded command is equal to
+ * the one that was written.
+ */
+public final class CommandCodec {
+    private static final CommandType[] COMMAND_TYPES = CommandType.values();
+    private static final OrderSide[] SIDES = OrderSide.values();
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final TimeInForce[] TIMES_IN_FORCE = TimeInForce.values();
+    private static final SelfTradePrevention[] SELF_TRADE_PREVENTIONS = SelfTradePrevention.values();
+
+    private CommandCodec() {}
+
+    public static void write(DataOutput out, Command command) throws IOException {
+        out.writeLong(command.getSequence());
+        out.writeByte(command.getType().ordinal());
+        writeTime(out, command.getTimestamp());
+        switch (command.getType()) {
+            case PLACE_ORDER:
+                writeOrder(out, command.getOrder());
+                break;
+            case CANCEL_ORDER:
+                out.writeUTF(command.getOrderId());
+                break;
+            case MODIFY_ORDER:
+                out.writeUTF(command.getOrderId());
+                writeDecimal(out, command.getPrice());
+                writeDecimal(out, command.getQuantity());
+                break;
+            case MARKET_PRICE:
+                out.writeUTF(command.getSymbol());
+                writeDecimal(out, command.getPrice());
+                break;
+            case AUCTION_START:
+            case AUCTION_UNCROSS:
+            case AUCTION_END:
+                out.writeUTF(command.getSymbol());
+                break;
+        }
+    }
+
+    public static Command read(DataInput in) throws IOException {
+        Command.CommandBuilder builder = Command.builder()
+                .sequence(in.readLong())
+                .type(COMMAND_TYPES[in.readByte()])
+                .timestamp(readTime(in));
+        Command partial = builder.build();
+        switch (partial.getType()) {
+            case PLACE_ORDER:
+                builder.order(readOrder(in));
+                break;
+            case CANCEL_ORDER:
+                builder.orderId(in.readUTF());
+                break;
+            case MODIFY_ORDER:
+                builder.orderId(in.readUTF())
+                        .price(readDecimal(in))
+                        .quantity(readDecimal(in));
+                break;
+            case MARKET_PRICE:
+                builder.symbol(in.readUTF())
+                        .price(readDecimal(in));
+                break;
+            case AUCTION_START:
+            case AUCTION_UNCROSS:
+            case AUCTION_END:
+                builder.symbol(in.readUTF());
+                break;
+        }
+        return builder.build();
+    }
+
+    public static void writeOrder(DataOutput out, Order order) throws IOException {
+        out.writeUTF(order.getOrderId());
+        out.writeUTF(order.getUserId());
+        out.writeUTF(order.getSymbol());
+        writeEnum(out, order.getSide());
+        writeEnum(out, order.getStatus());
+        writeEnum(out, order.getOrderType());
+        writeDecimal(out, order.getPrice());
+        writeDecimal(out, order.getQuantity());
+        writeDecimal(out, order.getStopLossPrice());
+        writeDecimal(out, order.getTakeProfitPrice());
+        writeTime(out, order.getCreatedAt());
+        writeTime(out, order.getUpdatedAt());
+        writeTime(out, order.getExpiryTime());
+        writeEnum(out, order.getTimeInForce());
+        writeDecimal(out, order.getDisplayQuantity());
+        writeEnum(out, order.getSelfTradePrevention());
+    }
+
+    public static Order readOrder(DataInput in) throws IOException {
+        return Order.builder()
+                .orderId(in.readUTF())
+                .userId(in.readUTF())
+                .symbol(in.readUTF())
+                .side(readEnum(in, SIDES))
+                .status(readEnum(in, STATUSES))
+                .orderType(readEnum(in, ORDER_TYPES))
+                .price(readDecimal(in))
+                .quantity(readDecimal(in))
+                .stopLossPrice(readDecimal(in))
+                .takeProfitPrice(readDecimal(in))
+                .createdAt(readTime(in))
+                .updatedAt(readTime(in))
+                .expiryTime(readTime(in))
+                .timeInForce(readEnum(in, TIMES_IN_FORCE))
+                .displayQuantity(readDecimal(in))
+                .selfTradePrevention(readEnum(in, SELF_TRADE_PREVENTIONS))
+                .build();
+    }
+
+    private static void writeEnum(DataOutput out, Enum<?> value) throws IOException {
+        out.writeByte(value == null ? -1 : value.ordinal());
+    }
+
+    private static <E> E readEnum(DataInput in, E[] values) throws IOException {
+        byte ordinal = in.readByte();
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    public static void writeDecimal(DataOutput out, BigDecimal value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            byte[] unscaled = value.unscaledValue().toByteArray();
+            out.writeInt(value.scale());
+            out.writeShort(unscaled.length);
+            out.write(unscaled);
+        }
+    }
+
+    public static BigDecimal readDecimal(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int scale = in.readInt();
+        byte[] unscaled = new byte[in.readShort()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    public static void writeTime(DataOutput out, LocalDateTime time) throws IOException {
+        out.writeBoolean(time != null);
+        if (time != null) {
+            out.writeLong(TimeUtils.toEpochNanos(time));
+        }
+    }
+
+    public static LocalDateTime readTime(DataInput in) throws IOException {
+        return in.readBoolean() ? TimeUtils.fromEpochNanos(in.readLong()) : null;
+    }
+}
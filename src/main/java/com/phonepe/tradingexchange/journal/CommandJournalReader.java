@@ -0,0 +1,61 @@
+package com.phonepe.tradingexchange.journal;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a journal written by {@link CommandJournalWriter}, one command at a time.
+ */
+public class CommandJournalReader implements Closeable {
+    private final DataInputStream in;
+
+    private CommandJournalReader(DataInputStream in) {
+        this.in = in;
+    }
+
+    public static CommandJournalReader open(Path file) throws IOException {
+        return new CommandJournalReader(new DataInputStream(new BufferedInputStream(Files.newInputStream(file))));
+    }
+
+    public static List<Command> readAll(Path file) throws IOException {
+        List<Command> commands = new ArrayList<>();
+        try (CommandJournalReader reader = open(file)) {
+            Command command;
+            while ((command = reader.next()) != null) {
+                commands.add(command);
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * Reads the next command.
+     *
+     * @return The command, or null at the end of the journal
+     */
+    public Command next() throws IOException {
+        in.mark(1);
+        if (in.read() < 0) {
+            return null;
+        }
+        in.reset();
+        try {
+            return CommandCodec.read(in);
+        } catch (EOFException e) {
+            // A torn final record (e.g. after a crash) ends the journal
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,49 @@
+package com.phonepe.tradingexchange.journal;
+
+import com.phonepe.tradingexchange.exception.TradingException;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends commands to a journal file, assigning each one the next sequence number.
+ * Appends are serialized, so the file order is the order in which commands were recorded.
+ */
+public class CommandJournalWriter implements CommandSink, Closeable {
+    private final DataOutputStream out;
+    private long lastSequence;
+
+    private CommandJournalWriter(DataOutputStream out) {
+        this.out = out;
+    }
+
+    public static CommandJournalWriter open(Path file) throws IOException {
+        return new CommandJournalWriter(new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))));
+    }
+
+    @Override
+    public synchronized Command append(Command command) {
+        Command sequenced = command.toBuilder().sequence(++lastSequence).build();
+        try {
+            CommandCodec.write(out, sequenced);
+        } catch (IOException e) {
+            throw new TradingException("Failed to write command journal: " + e.getMessage(), e);
+        }
+        return sequenced;
+    }
+
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
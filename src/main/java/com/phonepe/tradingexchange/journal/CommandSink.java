@@ -0,0 +1,15 @@
+package com.phonepe.tradingexchange.journal;
+
+/**
+ * Receives the commands applied by a matching engine, in application order.
+ */
+public interface CommandSink {
+
+    /**
+     * Records a command and assigns its journal sequence.
+     *
+     * @param command Command without a sequence
+     * @return The command as recorded, carrying its sequence
+     */
+    Command append(Command command);
+}
@@ -0,0 +1,11 @@
+package com.phonepe.tradingexchange.journal;
+
+public enum CommandType {
+    PLACE_ORDER,
+    CANCEL_ORDER,
+    MODIFY_ORDER,
+    MARKET_PRICE,
+    AUCTION_START,
+    AUCTION_UNCROSS,
+    AUCTION_END
+}
@@ -0,0 +1,361 @@
+package com.phonepe.tradingexchange.loadtest;
+
+import com.phonepe.tradingexchange.exception.OrderException;
+import com.phonepe.tradingexchange.metrics.HistogramSnapshot;
+import com.phonepe.tradingexchange.metrics.LatencyHistogram;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.service.TradingService;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for {@link TradingService}.
+ * <p>
+ * Each worker thread issues operations on a fixed schedule derived from the target rate, so
+ * a slow response delays the following operations instead of silently lowering the offered
+ * load. Latency is measured from the time an operation was scheduled to start, which
+ * corrects for coordinated omission; the uncorrected service time is reported alongside.
+ * <p>
+ * An order book expects one writer at a time, so symbols are sharded across workers and each
+ * worker's rate is its symbols' share of the Zipf popularity, which keeps the global symbol
+ * mix intact.
+ * <p>
+ * Run with e.g. {@code --rate=20000 --threads=4 --duration=30 --output=run.json}; see
+ * {@link #parseArgs} for every option.
+ */
+public class LoadGenerator {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99, 100};
+    private static final int MAX_LIVE_ORDERS = 10_000;
+
+    private final TradingService tradingService;
+    private final LoadProfile profile;
+    private final LatencyHistogram corrected = new LatencyHistogram();
+    private final LatencyHistogram uncorrected = new LatencyHistogram();
+    private final Map<Operation, LongAdder> operationCounts = new LinkedHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final List<String> userIds = new ArrayList<>();
+
+    enum Operation { LIMIT, STOP_LOSS, TAKE_PROFIT, CANCEL, MODIFY }
+
+    public LoadGenerator(TradingService tradingService, LoadProfile profile) {
+        this.tradingService = tradingService;
+        this.profile = profile;
+        for (Operation operation : Operation.values()) {
+            operationCounts.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        LoadProfile profile = profileFrom(options);
+        LoadTestReport report = new LoadGenerator(TradingService.getInstance(), profile).run();
+        String json = report.toJson();
+        if (options.containsKey("output")) {
+            Files.write(Paths.get(options.get("output")), json.getBytes(StandardCharsets.UTF_8));
+        }
+        System.out.print(json);
+        System.exit(0);
+    }
+
+    public LoadTestReport run() throws InterruptedException {
+        for (int i = 0; i < profile.getUserCount(); i++) {
+            userIds.add(tradingService.registerUser("load" + i, "load" + i + "@example.com").getUserId());
+        }
+
+        ZipfDistribution popularity = new ZipfDistribution(profile.getSymbolCount(), profile.getZipfExponent());
+        int threads = Math.min(profile.getThreads(), profile.getSymbolCount());
+        long startedAt = System.currentTimeMillis();
+        long start = System.nanoTime() + Duration.ofMillis(100).toNanos();
+        long measureFrom = start + profile.getWarmup().toNanos();
+        long end = measureFrom + profile.getDuration().toNanos();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Worker worker = new Worker(t, threads, popularity, start, measureFrom, end);
+            Thread thread = new Thread(worker, "load-" + t);
+            workers.add(thread);
+            thread.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double measuredSeconds = (System.nanoTime() - measureFrom) / 1e9;
+        return report(startedAt, measuredSeconds);
+    }
+
+    private LoadTestReport report(long startedAt, double measuredSeconds) {
+        HistogramSnapshot correctedSnapshot = corrected.snapshot();
+        long operations = correctedSnapshot.getCount();
+        Map<String, Long> counts = new LinkedHashMap<>();
+        operationCounts.forEach((operation, count) -> counts.put(operation.name(), count.sum()));
+        return LoadTestReport.builder()
+                .profile(profile)
+                .startedAtEpochMillis(startedAt)
+                .measuredSeconds(measuredSeconds)
+                .operations(operations)
+                .rejected(rejected.sum())
+                .errors(errors.sum())
+                .operationCounts(counts)
+                .throughputPerSecond(operations / measuredSeconds)
+                .allocatedBytesPerOperation(operations == 0 || allocatedBytes.get() < 0
+                        ? -1 : (double) allocatedBytes.get() / operations)
+                .correctedLatencyNanos(percentiles(correctedSnapshot))
+                .uncorrectedLatencyNanos(percentiles(uncorrected.snapshot()))
+                .build();
+    }
+
+    private static Map<String, Long> percentiles(HistogramSnapshot snapshot) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            String label = percentile == 100 ? "max" : "p" + (percentile == Math.rint(percentile)
+                    ? String.valueOf((long) percentile) : String.valueOf(percentile));
+            result.put(label, percentile == 100 ? snapshot.getMaxNanos() : snapshot.getPercentileNanos(percentile));
+        }
+        return result;
+    }
+
+    private class Worker implements Runnable {
+        private final Random random;
+        private final String[] symbols;
+        private final double[] cdf;
+        private final long intervalNanos;
+        private final long start;
+        private final long measureFrom;
+        private final long end;
+        private final List<String> liveOrders = new ArrayList<>();
+
+        Worker(int index, int workers, ZipfDistribution popularity, long start, long measureFrom, long end) {
+            this.random = new Random(profile.getSeed() + index);
+            List<String> owned = new ArrayList<>();
+            List<Double> weights = new ArrayList<>();
+            double share = 0;
+            for (int rank = index; rank < popularity.size(); rank += workers) {
+                owned.add("SYM" + rank);
+                weights.add(popularity.probability(rank));
+                share += popularity.probability(rank);
+            }
+            this.symbols = owned.toArray(new String[0]);
+            this.cdf = new double[symbols.length];
+            double cumulative = 0;
+            for (int i = 0; i < cdf.length; i++) {
+                cumulative += weights.get(i) / share;
+                cdf[i] = cumulative;
+            }
+            cdf[cdf.length - 1] = 1.0;
+            this.intervalNanos = Math.max(1, (long) (1e9 / (profile.getTargetRatePerSecond() * share)));
+            this.start = start;
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            long allocationStart = -1;
+            for (long i = 0; ; i++) {
+                long intended = start + i * intervalNanos;
+                if (intended >= end) {
+                    break;
+                }
+                waitUntil(intended);
+                boolean measured = intended >= measureFrom;
+                if (measured && allocationStart < 0) {
+                    allocationStart = threadAllocatedBytes();
+                }
+
+                long issued = System.nanoTime();
+                Operation operation = execute();
+                long completed = System.nanoTime();
+
+                if (measured) {
+                    corrected.record(completed - intended);
+                    uncorrected.record(completed - issued);
+                    operationCounts.get(operation).increment();
+                }
+            }
+            long allocationEnd = threadAllocatedBytes();
+            if (allocationStart < 0 || allocationEnd < 0) {
+                allocatedBytes.set(-1);
+            } else {
+                long allocated = allocationEnd - allocationStart;
+                allocatedBytes.getAndUpdate(total -> total < 0 ? total : total + allocated);
+            }
+        }
+
+        private Operation execute() {
+            Operation operation = nextOperation();
+            String symbol = symbols[sampleSymbol()];
+            try {
+                switch (operation) {
+                    case CANCEL:
+                        tradingService.cancelOrder(takeLiveOrder());
+                        break;
+                    case MODIFY:
+                        tradingService.modifyOrder(liveOrders.get(random.nextInt(liveOrders.size())),
+                                randomPrice(), null);
+                        break;
+                    default:
+                        OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+                        BigDecimal quantity = BigDecimal.valueOf(1 + random.nextInt(profile.getMaxQuantity()));
+                        Order order = place(operation, symbol, side, quantity);
+                        if (order.isActive()) {
+                            trackLiveOrder(order.getOrderId());
+                        }
+                }
+            } catch (OrderException e) {
+                // Expected when a cancel or modify targets an order that has since filled
+                rejected.increment();
+            } catch (RuntimeException e) {
+                errors.increment();
+            }
+            return operation;
+        }
+
+        private Operation nextOperation() {
+            double draw = random.nextDouble();
+            if (!liveOrders.isEmpty()) {
+                if (draw < profile.getCancelRatio()) {
+                    return Operation.CANCEL;
+                }
+                if (draw < profile.getCancelRatio() + profile.getModifyRatio()) {
+                    return Operation.MODIFY;
+                }
+            }
+            draw -= profile.getCancelRatio() + profile.getModifyRatio();
+            if (draw >= 0 && draw < profile.getStopLossRatio()) {
+                return Operation.STOP_LOSS;
+            }
+            if (draw >= 0 && draw < profile.getStopLossRatio() + profile.getTakeProfitRatio()) {
+                return Operation.TAKE_PROFIT;
+            }
+            return Operation.LIMIT;
+        }
+
+        private Order place(Operation operation, String symbol, OrderSide side, BigDecimal quantity) {
+            switch (operation) {
+                case STOP_LOSS:
+                    return tradingService.placeStopLossOrder(randomUser(), symbol, side, randomPrice(), quantity,
+                            randomPrice());
+                case TAKE_PROFIT:
+                    return tradingService.placeTakeProfitOrder(randomUser(), symbol, side, randomPrice(), quantity,
+                            randomPrice());
+                default:
+                    return tradingService.placeOrder(randomUser(), symbol, side, randomPrice(), quantity);
+            }
+        }
+
+        private int sampleSymbol() {
+            int index = Arrays.binarySearch(cdf, random.nextDouble());
+            return index >= 0 ? index : -index - 1;
+        }
+
+        private BigDecimal randomPrice() {
+            long ticks = Math.round(random.nextGaussian() * profile.getPriceDeviationTicks());
+            BigDecimal price = profile.getMidPrice().add(profile.getTickSize().multiply(BigDecimal.valueOf(ticks)));
+            return price.signum() > 0 ? price : profile.getTickSize();
+        }
+
+        private String randomUser() {
+            return userIds.get(random.nextInt(userIds.size()));
+        }
+
+        private void trackLiveOrder(String orderId) {
+            if (liveOrders.size() >= MAX_LIVE_ORDERS) {
+                takeLiveOrder();
+            }
+            liveOrders.add(orderId);
+        }
+
+        private String takeLiveOrder() {
+            int index = random.nextInt(liveOrders.size());
+            String orderId = liveOrders.get(index);
+            liveOrders.set(index, liveOrders.get(liveOrders.size() - 1));
+            liveOrders.remove(liveOrders.size() - 1);
+            return orderId;
+        }
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            // Park for long gaps, spin for the last stretch to keep the schedule tight
+            if (remaining > 100_000) {
+                LockSupport.parkNanos(remaining - 50_000);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private static long threadAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Parses {@code --name=value} options: symbols, zipf, mid, deviation, cancel, modify,
+     * stops, takeProfits, users, threads, rate, warmup and duration (seconds), seed and output.
+     */
+    public static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            int split = arg.indexOf('=');
+            options.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+        return options;
+    }
+
+    static LoadProfile profileFrom(Map<String, String> options) {
+        LoadProfile defaults = LoadProfile.builder().build();
+        return LoadProfile.builder()
+                .symbolCount(intOption(options, "symbols", defaults.getSymbolCount()))
+                .zipfExponent(doubleOption(options, "zipf", defaults.getZipfExponent()))
+                .midPrice(new BigDecimal(options.getOrDefault("mid", defaults.getMidPrice().toPlainString())))
+                .priceDeviationTicks(doubleOption(options, "deviation", defaults.getPriceDeviationTicks()))
+                .cancelRatio(doubleOption(options, "cancel", defaults.getCancelRatio()))
+                .modifyRatio(doubleOption(options, "modify", defaults.getModifyRatio()))
+                .stopLossRatio(doubleOption(options, "stops", defaults.getStopLossRatio()))
+                .takeProfitRatio(doubleOption(options, "takeProfits", defaults.getTakeProfitRatio()))
+                .userCount(intOption(options, "users", defaults.getUserCount()))
+                .threads(intOption(options, "threads", defaults.getThreads()))
+                .targetRatePerSecond(Long.parseLong(options.getOrDefault("rate",
+                        String.valueOf(defaults.getTargetRatePerSecond()))))
+                .warmup(Duration.ofSeconds(intOption(options, "warmup", (int) defaults.getWarmup().getSeconds())))
+                .duration(Duration.ofSeconds(intOption(options, "duration", (int) defaults.getDuration().getSeconds())))
+                .seed(Long.parseLong(options.getOrDefault("seed", String.valueOf(defaults.getSeed()))))
+                .build();
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    private static double doubleOption(Map<String, String> options, String name, double defaultValue) {
+        return options.containsKey(name) ? Double.parseDouble(options.get(name)) : defaultValue;
+    }
+}
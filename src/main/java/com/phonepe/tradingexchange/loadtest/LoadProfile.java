@@ -0,0 +1,51 @@
+package com.phonepe.tradingexchange.loadtest;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Shape of the synthetic order flow driven by {@link LoadGenerator}. Ratios are fractions of
+ * all operations; whatever is left after cancels, modifies, stops and take-profits is plain
+ * limit orders.
+ */
+@Data
+@Builder(toBuilder = true)
+public class LoadProfile {
+    @Builder.Default
+    private final int symbolCount = 50;
+    // Exponent of the Zipf distribution of symbol popularity; 0 is uniform
+    @Builder.Default
+    private final double zipfExponent = 1.1;
+    @Builder.Default
+    private final BigDecimal midPrice = new BigDecimal("100.00");
+    // Standard deviation of limit prices around mid, in ticks
+    @Builder.Default
+    private final double priceDeviationTicks = 10;
+    @Builder.Default
+    private final BigDecimal tickSize = new BigDecimal("0.01");
+    @Builder.Default
+    private final int maxQuantity = 100;
+    @Builder.Default
+    private final double cancelRatio = 0.2;
+    @Builder.Default
+    private final double modifyRatio = 0.1;
+    @Builder.Default
+    private final double stopLossRatio = 0.02;
+    @Builder.Default
+    private final double takeProfitRatio = 0.02;
+    @Builder.Default
+    private final int userCount = 100;
+    @Builder.Default
+    private final int threads = 4;
+    @Builder.Default
+    private final long targetRatePerSecond = 50_000;
+    @Builder.Default
+    private final Duration warmup = Duration.ofSeconds(5);
+    @Builder.Default
+    private final Duration duration = Duration.ofSeconds(30);
+    @Builder.Default
+    private final long seed = 42;
+}
@@ -0,0 +1,83 @@
+package com.phonepe.tradingexchange.loadtest;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Result of a {@link LoadGenerator} run. {@link #toJson()} gives a flat, stable JSON document
+ * so runs can be stored and compared over time.
+ */
+@Data
+@Builder
+public class LoadTestReport {
+    private final LoadProfile profile;
+    private final long startedAtEpochMillis;
+    private final double measuredSeconds;
+    private final long operations;
+    private final long rejected;
+    private final long errors;
+    private final Map<String, Long> operationCounts;
+    private final double throughputPerSecond;
+    private final double allocatedBytesPerOperation;
+    // Percentile label (e.g. "p99.9") to latency in nanos
+    private final Map<String, Long> correctedLatencyNanos;
+    private final Map<String, Long> uncorrectedLatencyNanos;
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\n");
+        field(json, "startedAtEpochMillis", startedAtEpochMillis);
+        json.append("  \"profile\": {\n");
+        field(json, "    ", "symbolCount", profile.getSymbolCount(), true);
+        field(json, "    ", "zipfExponent", profile.getZipfExponent(), true);
+        field(json, "    ", "midPrice", profile.getMidPrice(), true);
+        field(json, "    ", "priceDeviationTicks", profile.getPriceDeviationTicks(), true);
+        field(json, "    ", "cancelRatio", profile.getCancelRatio(), true);
+        field(json, "    ", "modifyRatio", profile.getModifyRatio(), true);
+        field(json, "    ", "stopLossRatio", profile.getStopLossRatio(), true);
+        field(json, "    ", "takeProfitRatio", profile.getTakeProfitRatio(), true);
+        field(json, "    ", "threads", profile.getThreads(), true);
+        field(json, "    ", "targetRatePerSecond", profile.getTargetRatePerSecond(), true);
+        field(json, "    ", "durationSeconds", profile.getDuration().getSeconds(), true);
+        field(json, "    ", "seed", profile.getSeed(), false);
+        json.append("  },\n");
+        field(json, "measuredSeconds", measuredSeconds);
+        field(json, "operations", operations);
+        field(json, "rejected", rejected);
+        field(json, "errors", errors);
+        field(json, "throughputPerSecond", throughputPerSecond);
+        field(json, "allocatedBytesPerOperation", allocatedBytesPerOperation);
+        map(json, "operationCounts", operationCounts, true);
+        map(json, "correctedLatencyNanos", correctedLatencyNanos, true);
+        map(json, "uncorrectedLatencyNanos", uncorrectedLatencyNanos, false);
+        return json.append("}\n").toString();
+    }
+
+    private static void field(StringBuilder json, String name, Object value) {
+        field(json, "  ", name, value, true);
+    }
+
+    private static void field(StringBuilder json, String indent, String name, Object value, boolean more) {
+        json.append(indent).append('"').append(name).append("\": ").append(format(value))
+                .append(more ? ",\n" : "\n");
+    }
+
+    private static void map(StringBuilder json, String name, Map<String, Long> values, boolean more) {
+        json.append("  \"").append(name).append("\": {");
+        String separator = "\n";
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            json.append(separator).append("    \"").append(entry.getKey()).append("\": ").append(entry.getValue());
+            separator = ",\n";
+        }
+        json.append(values.isEmpty() ? "}" : "\n  }").append(more ? ",\n" : "\n");
+    }
+
+    private static String format(Object value) {
+        if (value instanceof Double) {
+            return String.format(Locale.ROOT, "%.3f", (Double) value);
+        }
+        return String.valueOf(value);
+    }
+}
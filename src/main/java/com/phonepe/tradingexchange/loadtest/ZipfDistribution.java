@@ -0,0 +1,46 @@
+package com.phonepe.tradingexchange.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Zipf distribution over ranks {@code 0..n-1}: rank {@code k} has weight
+ * {@code 1 / (k + 1)^exponent}. Sampling is a binary search over the precomputed CDF.
+ */
+public class ZipfDistribution {
+    private final double[] weights;
+    private final double[] cdf;
+
+    public ZipfDistribution(int n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Zipf distribution needs at least one rank");
+        }
+        weights = new double[n];
+        cdf = new double[n];
+        double total = 0;
+        for (int k = 0; k < n; k++) {
+            weights[k] = 1 / Math.pow(k + 1, exponent);
+            total += weights[k];
+        }
+        double cumulative = 0;
+        for (int k = 0; k < n; k++) {
+            weights[k] /= total;
+            cumulative += weights[k];
+            cdf[k] = cumulative;
+        }
+        cdf[n - 1] = 1.0;
+    }
+
+    public int sample(Random random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return index >= 0 ? index : -index - 1;
+    }
+
+    public double probability(int rank) {
+        return weights[rank];
+    }
+
+    public int size() {
+        return weights.length;
+    }
+}
@@ -2,9 +2,11 @@ package com.phonepe.tradingexchange.market;
 
 import com.phonepe.tradingexchange.engine.IOrderBook;
 import com.phonepe.tradingexchange.engine.MatchingEngine;
-import com.phonepe.tradingexchange.engine.OrderBook;
+import com.phonepe.tradingexchange.jfr.StopTriggeredEvent;
+import com.phonepe.tradingexchange.model.Order;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
@@ -43,12 +45,19 @@ public class MarketDataManager {
     public void updatePrice(String symbol, BigDecimal price) {
         lastPrices.put(symbol, price);
         
-        // Get the order book for this symbol and check stop-loss/take-profit orders
-        MatchingEngine engine = MatchingEngine.getInstance();
-        IOrderBook orderBook = engine.getOrderBook(symbol);
-        
-        if (orderBook instanceof OrderBook) {
-            ((OrderBook) orderBook).checkStopLossAndTakeProfit(price);
+        // Route through the engine so the price is journaled along with the orders it triggers
+        applyPrice(MatchingEngine.getInstance(), symbol, price);
+    }
+    
+    private static void applyPrice(MatchingEngine engine, String symbol, BigDecimal price) {
+        StopTriggeredEvent event = new StopTriggeredEvent();
+        event.begin();
+        List<Order> triggered = engine.onMarketPrice(symbol, price);
+        event.end();
+        if (!triggered.isEmpty() && event.shouldCommit()) {
+            IOrderBook orderBook = engine.getOrderBook(symbol);
+            event.describe(symbol, price, triggered, orderBook == null ? 0 : orderBook.getTotalOrders());
+            event.commit();
         }
     }
     
@@ -78,9 +87,11 @@ public class MarketDataManager {
             
             // For each symbol with a known price, check stop-loss/take-profit orders
             lastPrices.forEach((symbol, price) -> {
-                IOrderBook orderBook = engine.getOrderBook(symbol);
-                if (orderBook instanceof OrderBook) {
-                    ((OrderBook) orderBook).checkStopLossAndTakeProfit(price);
+                try {
+                    applyPrice(engine, symbol, price);
+                } catch (RuntimeException e) {
+                    // An exception would cancel every later check
+                    System.err.println("Error checking stop orders for " + symbol + ": " + e.getMessage());
                 }
             });
         }, 0, intervalMs, TimeUnit.MILLISECONDS);
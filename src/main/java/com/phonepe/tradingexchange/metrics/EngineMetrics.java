@@ -0,0 +1,235 @@
+package com.phonepe.tradingexchange.metrics;
+
+import com.phonepe.tradingexchange.concurrent.OrderLockManager;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Health metrics for the matching engine: order and trade counters and rates, cancel ratio,
+ * match loop iterations per command, lock contention, expiry sweep timings and GC activity,
+ * plus named gauges for sizes such as book depth and repository counts.
+ * <p>
+ * Counters are {@link LongAdder}s so the hot path never contends on them. Gauges are
+ * suppliers evaluated only when a snapshot or the MBean is read. Read everything at once with
+ * {@link #snapshot()}, or over JMX after {@link #registerMBean()}.
+ */
+public class EngineMetrics implements EngineMetricsMXBean {
+    public static final String OBJECT_NAME = "com.phonepe.tradingexchange:type=EngineMetrics";
+
+    private final RateMeter ordersPlaced = new RateMeter();
+    private final RateMeter trades = new RateMeter();
+    private final LongAdder ordersModified = new LongAdder();
+    private final LongAdder ordersCancelled = new LongAdder();
+    private final LongAdder ordersExpired = new LongAdder();
+    private final LongAdder matchCommands = new LongAdder();
+    private final LongAdder matchIterations = new LongAdder();
+    private final LongAdder expiryTicks = new LongAdder();
+    private final LongAdder expiryTickNanos = new LongAdder();
+    private final AtomicLong expiryTickMaxNanos = new AtomicLong();
+    private final LongAdder circuitBreakerTrips = new LongAdder();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final OrderLockManager lockManager;
+
+    private static EngineMetrics INSTANCE;
+
+    /**
+     * Creates a standalone registry, e.g. for an isolated engine. Most callers want
+     * {@link #getInstance()}.
+     *
+     * @param lockManager The engine's order locks, or null if it takes none
+     */
+    public EngineMetrics(OrderLockManager lockManager) {
+        this.lockManager = lockManager;
+    }
+
+    public static EngineMetrics getInstance() {
+        if (INSTANCE == null) {
+            synchronized (EngineMetrics.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new EngineMetrics(OrderLockManager.getInstance());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Resets the registry - primarily for testing.
+     */
+    public static void reset() {
+        INSTANCE = null;
+    }
+
+    public void orderPlaced() {
+        ordersPlaced.mark();
+    }
+
+    public void orderModified() {
+        ordersModified.increment();
+    }
+
+    public void orderCancelled() {
+        ordersCancelled.increment();
+    }
+
+    public void tradeCreated() {
+        trades.mark();
+    }
+
+    public void circuitBreakerTripped() {
+        circuitBreakerTrips.increment();
+    }
+
+    /**
+     * Records how many price levels one command's match swept, including zero.
+     */
+    public void matchLoopCompleted(long iterations) {
+        matchCommands.increment();
+        matchIterations.add(iterations);
+    }
+
+    public void expiryTickCompleted(long durationNanos, int expired) {
+        expiryTicks.increment();
+        expiryTickNanos.add(durationNanos);
+        ordersExpired.add(expired);
+        expiryTickMaxNanos.accumulateAndGet(durationNanos, Math::max);
+    }
+
+    /**
+     * Registers (or replaces) a gauge evaluated on every read.
+     */
+    public void registerGauge(String name, LongSupplier gauge) {
+        gauges.put(name, gauge);
+    }
+
+    public void removeGauge(String name) {
+        gauges.remove(name);
+    }
+
+    public EngineMetricsSnapshot snapshot() {
+        long gcCount = 0;
+        long gcTime = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(0, collector.getCollectionCount());
+            gcTime += Math.max(0, collector.getCollectionTime());
+        }
+        return EngineMetricsSnapshot.builder()
+                .takenAt(LocalDateTime.now())
+                .ordersPlaced(getOrdersPlaced())
+                .ordersModified(ordersModified.sum())
+                .ordersCancelled(getOrdersCancelled())
+                .ordersExpired(ordersExpired.sum())
+                .tradesCreated(getTradesCreated())
+                .ordersPerSecond(getOrdersPerSecond())
+                .tradesPerSecond(getTradesPerSecond())
+                .cancelRatio(getCancelRatio())
+                .matchIterationsPerCommand(getMatchIterationsPerCommand())
+                .lockAcquisitions(getLockAcquisitions())
+                .lockContentions(getLockContentions())
+                .expiryTicks(expiryTicks.sum())
+                .expiryTickMeanNanos(getExpiryTickMeanNanos())
+                .expiryTickMaxNanos(getExpiryTickMaxNanos())
+                .circuitBreakerTrips(getCircuitBreakerTrips())
+                .gcCount(gcCount)
+                .gcTimeMillis(gcTime)
+                .heapUsedBytes(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed())
+                .gauges(getGauges())
+                .build();
+    }
+
+    /**
+     * Registers this registry with the platform MBean server under {@link #OBJECT_NAME}.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register engine metrics MBean", e);
+        }
+    }
+
+    @Override
+    public long getOrdersPlaced() {
+        return ordersPlaced.getCount();
+    }
+
+    @Override
+    public long getOrdersCancelled() {
+        return ordersCancelled.sum();
+    }
+
+    @Override
+    public long getTradesCreated() {
+        return trades.getCount();
+    }
+
+    @Override
+    public double getOrdersPerSecond() {
+        return ordersPlaced.getRatePerSecond();
+    }
+
+    @Override
+    public double getTradesPerSecond() {
+        return trades.getRatePerSecond();
+    }
+
+    @Override
+    public double getCancelRatio() {
+        long placed = getOrdersPlaced();
+        return placed == 0 ? 0 : (double) getOrdersCancelled() / placed;
+    }
+
+    @Override
+    public double getMatchIterationsPerCommand() {
+        long commands = matchCommands.sum();
+        return commands == 0 ? 0 : (double) matchIterations.sum() / commands;
+    }
+
+    @Override
+    public long getLockAcquisitions() {
+        return lockManager == null ? 0 : lockManager.getAcquisitionCount();
+    }
+
+    @Override
+    public long getLockContentions() {
+        return lockManager == null ? 0 : lockManager.getContentionCount();
+    }
+
+    @Override
+    public double getExpiryTickMeanNanos() {
+        long ticks = expiryTicks.sum();
+        return ticks == 0 ? 0 : (double) expiryTickNanos.sum() / ticks;
+    }
+
+    @Override
+    public long getExpiryTickMaxNanos() {
+        return expiryTickMaxNanos.get();
+    }
+
+    @Override
+    public long getCircuitBreakerTrips() {
+        return circuitBreakerTrips.sum();
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        Map<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        return values;
+    }
+}
@@ -0,0 +1,35 @@
+package com.phonepe.tradingexchange.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link EngineMetrics}.
+ */
+public interface EngineMetricsMXBean {
+
+    long getOrdersPlaced();
+
+    long getOrdersCancelled();
+
+    long getTradesCreated();
+
+    double getOrdersPerSecond();
+
+    double getTradesPerSecond();
+
+    double getCancelRatio();
+
+    double getMatchIterationsPerCommand();
+
+    long getLockAcquisitions();
+
+    long getLockContentions();
+
+    double getExpiryTickMeanNanos();
+
+    long getExpiryTickMaxNanos();
+
+    long getCircuitBreakerTrips();
+
+    Map<String, Long> getGauges();
+}
@@ -0,0 +1,36 @@
+package com.phonepe.tradingexchange.metrics;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Point-in-time copy of {@link EngineMetrics}. Counters are cumulative since start-up; rates
+ * are per second over the meter's latest sampling window.
+ */
+@Data
+@Builder
+public class EngineMetricsSnapshot {
+    private final LocalDateTime takenAt;
+    private final long ordersPlaced;
+    private final long ordersModified;
+    private final long ordersCancelled;
+    private final long ordersExpired;
+    private final long tradesCreated;
+    private final double ordersPerSecond;
+    private final double tradesPerSecond;
+    private final double cancelRatio;
+    private final double matchIterationsPerCommand;
+    private final long lockAcquisitions;
+    private final long lockContentions;
+    private final long expiryTicks;
+    private final double expiryTickMeanNanos;
+    private final long expiryTickMaxNanos;
+    private final long circuitBreakerTrips;
+    private final long gcCount;
+    private final long gcTimeMillis;
+    private final long heapUsedBytes;
+    private final Map<String, Long> gauges;
+}
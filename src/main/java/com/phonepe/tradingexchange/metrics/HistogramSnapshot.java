@@ -0,0 +1,60 @@
+package com.phonepe.tradingexchange.metrics;
+
+/**
+ * Immutable copy of a {@link LatencyHistogram}'s buckets. Percentiles are reported as the
+ * lower bound of the bucket containing the requested rank.
+ */
+public class HistogramSnapshot {
+    static final HistogramSnapshot EMPTY = new HistogramSnapshot(new long[LatencyHistogram.BUCKET_COUNT], 0, 0, 0);
+
+    private final long[] counts;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    HistogramSnapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+        this.counts = counts;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public double getMeanNanos() {
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 100
+     * @return Latency at the percentile in nanos, or 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.bucketLowerBound(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    HistogramSnapshot minus(HistogramSnapshot previous) {
+        long[] difference = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            difference[i] = counts[i] - previous.counts[i];
+        }
+        return new HistogramSnapshot(difference, count - previous.count, totalNanos - previous.totalNanos, maxNanos);
+    }
+}
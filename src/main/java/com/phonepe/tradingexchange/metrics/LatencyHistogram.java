@@ -0,0 +1,79 @@
+package com.phonepe.tradingexchange.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear latency histogram in the style of HdrHistogram.
+ * <p>
+ * Values below {@code 2 * SUB_BUCKETS} get exact buckets; above that, every power of two is
+ * split into {@link #SUB_BUCKETS} linear sub-buckets, so any recorded value is within about
+ * 3% of its bucket's lower bound. Recording is one bucket index computation and one atomic
+ * increment, plus a CAS on the maximum only when it grows. Values beyond
+ * {@link #MAX_TRACKABLE_NANOS} are clamped into the last bucket.
+ */
+public class LatencyHistogram {
+    public static final long MAX_TRACKABLE_NANOS = 1L << 40;
+
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKET_COUNT = bucketIndex(MAX_TRACKABLE_NANOS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    // Only touched by the thread taking interval snapshots
+    private HistogramSnapshot lastSnapshot = HistogramSnapshot.EMPTY;
+
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_TRACKABLE_NANOS));
+        counts.incrementAndGet(bucketIndex(value));
+        totalNanos.addAndGet(value);
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Returns everything recorded since the histogram was created. Concurrent recordings may
+     * be partially reflected, which is acceptable for monitoring.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new HistogramSnapshot(copy, count, totalNanos.get(), maxNanos.get());
+    }
+
+    /**
+     * Returns what was recorded since the previous call. Intended for a single reporting
+     * thread; the interval maximum is the cumulative maximum.
+     */
+    public synchronized HistogramSnapshot intervalSnapshot() {
+        HistogramSnapshot current = snapshot();
+        HistogramSnapshot interval = current.minus(lastSnapshot);
+        lastSnapshot = current;
+        return interval;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    static long bucketLowerBound(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (index - shift * SUB_BUCKETS) << shift;
+    }
+}
@@ -0,0 +1,22 @@
+package com.phonepe.tradingexchange.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link LatencyRecorder}. Keys of the percentile maps are
+ * {@code symbol/command/stage}.
+ */
+public interface LatencyMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    String getCumulativeReport();
+
+    String getIntervalReport();
+
+    Map<String, Long> getIntervalP99Nanos();
+
+    Map<String, Long> getIntervalCounts();
+}
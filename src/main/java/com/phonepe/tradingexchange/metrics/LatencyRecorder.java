@@ -0,0 +1,243 @@
+package com.phonepe.tradingexchange.metrics;
+
+import com.phonepe.tradingexchange.journal.CommandType;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-symbol, per-command, per-stage latency histograms for the matching engine.
+ * <p>
+ * Call sites bracket a stage with {@link #start()} and {@link #record}. When the recorder is
+ * disabled {@code start()} returns 0 without reading the clock and {@code record} returns
+ * immediately, so instrumentation can stay in place. When enabled, a recording costs two
+ * {@link System#nanoTime()} reads, a map lookup and an atomic increment.
+ * <p>
+ * {@link #startIntervalSnapshots(Duration)} rolls interval snapshots on a background thread;
+ * the latest interval and the cumulative totals are exposed over JMX and as plain text.
+ */
+public class LatencyRecorder implements LatencyMXBean {
+    public static final String OBJECT_NAME = "com.phonepe.tradingexchange:type=Latency";
+
+    private static final CommandType[] COMMANDS = CommandType.values();
+    private static final LatencyStage[] STAGES = LatencyStage.values();
+
+    // Per symbol, one slot per (command, stage) pair, filled on first use: most commands only
+    // pass through a few of the stages
+    private final ConcurrentHashMap<String, AtomicReferenceArray<LatencyHistogram>> histograms =
+            new ConcurrentHashMap<>();
+    private volatile Map<String, HistogramSnapshot> lastInterval = Collections.emptyMap();
+    private volatile boolean enabled = true;
+    private ScheduledExecutorService scheduler;
+
+    private static LatencyRecorder INSTANCE;
+
+    /**
+     * Creates a standalone recorder, e.g. for an isolated engine. Most callers want
+     * {@link #getInstance()}.
+     */
+    public LatencyRecorder() {}
+
+    public static LatencyRecorder getInstance() {
+        if (INSTANCE == null) {
+            synchronized (LatencyRecorder.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new LatencyRecorder();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Resets the recorder - primarily for testing.
+     */
+    public static void reset() {
+        if (INSTANCE != null) {
+            INSTANCE.stopIntervalSnapshots();
+        }
+        INSTANCE = null;
+    }
+
+    /**
+     * @return Start timestamp to pass to {@link #record}, or 0 if recording is disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void record(String symbol, CommandType command, LatencyStage stage, long startNanos) {
+        if (startNanos == 0 || symbol == null) {
+            return;
+        }
+        histogram(symbol, command, stage).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return Nanos elapsed since {@code startNanos}, or -1 if recording is disabled
+     */
+    public long elapsedSince(long startNanos) {
+        return startNanos == 0 ? -1 : System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Records a duration measured with {@link #elapsedSince}, for stages whose symbol is only
+     * known after they complete.
+     */
+    public void recordElapsed(String symbol, CommandType command, LatencyStage stage, long elapsedNanos) {
+        if (elapsedNanos < 0 || symbol == null) {
+            return;
+        }
+        histogram(symbol, command, stage).record(elapsedNanos);
+    }
+
+    public LatencyHistogram histogram(String symbol, CommandType command, LatencyStage stage) {
+        AtomicReferenceArray<LatencyHistogram> bySymbol = histograms.get(symbol);
+        if (bySymbol == null) {
+            bySymbol = histograms.computeIfAbsent(symbol,
+                    s -> new AtomicReferenceArray<>(COMMANDS.length * STAGES.length));
+        }
+        int slot = command.ordinal() * STAGES.length + stage.ordinal();
+        LatencyHistogram histogram = bySymbol.get(slot);
+        if (histogram == null) {
+            bySymbol.compareAndSet(slot, null, new LatencyHistogram());
+            histogram = bySymbol.get(slot);
+        }
+        return histogram;
+    }
+
+    public synchronized void startIntervalSnapshots(Duration interval) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "latency-snapshots");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleAtFixedRate(this::rollInterval, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopIntervalSnapshots() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Closes the current interval, making it visible through {@link #getIntervalReport()}.
+     */
+    public void rollInterval() {
+        Map<String, HistogramSnapshot> interval = new TreeMap<>();
+        forEachHistogram((key, histogram) -> {
+            HistogramSnapshot snapshot = histogram.intervalSnapshot();
+            if (snapshot.getCount() > 0) {
+                interval.put(key, snapshot);
+            }
+        });
+        lastInterval = interval;
+    }
+
+    public Map<String, HistogramSnapshot> cumulativeSnapshots() {
+        Map<String, HistogramSnapshot> cumulative = new TreeMap<>();
+        forEachHistogram((key, histogram) -> {
+            HistogramSnapshot snapshot = histogram.snapshot();
+            if (snapshot.getCount() > 0) {
+                cumulative.put(key, snapshot);
+            }
+        });
+        return cumulative;
+    }
+
+    public Map<String, HistogramSnapshot> intervalSnapshots() {
+        return lastInterval;
+    }
+
+    /**
+     * Registers this recorder with the platform MBean server under {@link #OBJECT_NAME}.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register latency MBean", e);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public String getCumulativeReport() {
+        return format(cumulativeSnapshots());
+    }
+
+    @Override
+    public String getIntervalReport() {
+        return format(lastInterval);
+    }
+
+    @Override
+    public Map<String, Long> getIntervalP99Nanos() {
+        Map<String, Long> result = new TreeMap<>();
+        lastInterval.forEach((key, snapshot) -> result.put(key, snapshot.getPercentileNanos(99)));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getIntervalCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        lastInterval.forEach((key, snapshot) -> result.put(key, snapshot.getCount()));
+        return result;
+    }
+
+    static String format(Map<String, HistogramSnapshot> snapshots) {
+        StringBuilder report = new StringBuilder(String.format("%-48s %10s %10s %10s %10s %10s %12s%n",
+                "symbol/command/stage", "count", "mean(ns)", "p50(ns)", "p99(ns)", "p99.9(ns)", "max(ns)"));
+        snapshots.forEach((key, snapshot) -> report.append(String.format("%-48s %10d %10.0f %10d %10d %10d %12d%n",
+                key, snapshot.getCount(), snapshot.getMeanNanos(), snapshot.getPercentileNanos(50),
+                snapshot.getPercentileNanos(99), snapshot.getPercentileNanos(99.9), snapshot.getMaxNanos())));
+        return report.toString();
+    }
+
+    private void forEachHistogram(HistogramVisitor visitor) {
+        histograms.forEach((symbol, bySymbol) -> {
+            for (CommandType command : COMMANDS) {
+                for (LatencyStage stage : STAGES) {
+                    LatencyHistogram histogram = bySymbol.get(command.ordinal() * STAGES.length + stage.ordinal());
+                    if (histogram != null) {
+                        visitor.visit(symbol + "/" + command + "/" + stage, histogram);
+                    }
+                }
+            }
+        });
+    }
+
+    private interface HistogramVisitor {
+        void visit(String key, LatencyHistogram histogram);
+    }
+}
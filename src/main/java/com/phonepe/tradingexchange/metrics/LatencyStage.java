@@ -0,0 +1,18 @@
+package com.phonepe.tradingexchange.metrics;
+
+/**
+ * Stages of a command's path through the matching engine. Stages may nest: MATCH_LOOP
+ * includes the lock acquisition, trade persistence and order updates done while matching,
+ * and TOTAL is the full {@code TradingService.placeOrder} call.
+ */
+public enum LatencyStage {
+    VALIDATION,
+    RISK_CHECK,
+    REPOSITORY_SAVE,
+    BOOK_LOOKUP,
+    LOCK_ACQUISITION,
+    MATCH_LOOP,
+    TRADE_PERSISTENCE,
+    ORDER_UPDATE,
+    TOTAL
+}
@@ -0,0 +1,41 @@
+package com.phonepe.tradingexchange.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Event counter that also reports a per-second rate. Marking is a {@link LongAdder}
+ * increment; the rate is computed on read over the time since the previous sample and cached
+ * for at least {@link #MIN_SAMPLE_NANOS}, so frequent readers see a stable value.
+ */
+public class RateMeter {
+    static final long MIN_SAMPLE_NANOS = 1_000_000_000L;
+
+    private final LongAdder count = new LongAdder();
+    private long lastSampleNanos = System.nanoTime();
+    private long lastSampleCount;
+    private double rate;
+
+    public void mark() {
+        count.increment();
+    }
+
+    public void mark(long events) {
+        count.add(events);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public synchronized double getRatePerSecond() {
+        long now = System.nanoTime();
+        long elapsed = now - lastSampleNanos;
+        if (elapsed >= MIN_SAMPLE_NANOS) {
+            long current = count.sum();
+            rate = (current - lastSampleCount) * 1e9 / elapsed;
+            lastSampleCount = current;
+            lastSampleNanos = now;
+        }
+        return rate;
+    }
+}
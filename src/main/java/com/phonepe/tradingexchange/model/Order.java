@@ -1,14 +1,18 @@
 package com.phonepe.tradingexchange.model;
 
+import com.phonepe.tradingexchange.clock.EngineClock;
+import com.phonepe.tradingexchange.common.Constants;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.concurrent.atomic.AtomicLong;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class Order {
     private final String orderId;
     private final String userId;
@@ -23,15 +27,51 @@ public class Order {
     private OrderType orderType;
     private BigDecimal stopLossPrice;
     private BigDecimal takeProfitPrice;
+    @Builder.Default
+    private TimeInForce timeInForce = TimeInForce.GTC;
+    @Builder.Default
+    private SelfTradePrevention selfTradePrevention = SelfTradePrevention.NONE;
+    // Iceberg orders only: size of each slice shown in the book
+    private BigDecimal displayQuantity;
+
+    // Iceberg orders only: what is left of the slice currently shown; book state, like the
+    // arrival sequence, and derived from the display quantity when not set
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private BigDecimal visibleQuantity;
+
+    // Assigned by the order book on first entry; breaks price ties in arrival order
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private long arrivalSequence;
+
+    // Bumped after every change to the order's state, so copies handed to other threads can be
+    // put back in order: a copy taken after reading the version is at least that new
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile long version;
 
     // ABC - O1, [O2 , O3], O4, O5
     private static final AtomicLong ORDER_SEQUENCE = new AtomicLong(1);
     
+    /**
+     * Makes sure order IDs created from now on are above the given sequence, e.g. when this
+     * process takes over orders created by another one.
+     */
+    public static void reserveSequencesThrough(long sequence) {
+        ORDER_SEQUENCE.accumulateAndGet(sequence + 1, Math::max);
+    }
+
     public static Order createOrder(String userId, String symbol, OrderSide side, 
                                   BigDecimal price, BigDecimal quantity) {
-        LocalDateTime now = LocalDateTime.now();
+        return createOrder(userId, symbol, side, price, quantity, TimeInForce.GTC);
+    }
+
+    public static Order createOrder(String userId, String symbol, OrderSide side,
+                                  BigDecimal price, BigDecimal quantity, TimeInForce timeInForce) {
+        LocalDateTime now = EngineClock.coarse().now();
         return Order.builder()
-                .orderId("ORD-" + ORDER_SEQUENCE.getAndIncrement())
+                .orderId(Constants.ORDER_ID_PREFIX + ORDER_SEQUENCE.getAndIncrement())
                 .userId(userId)
                 .symbol(symbol)
                 .side(side)
@@ -42,15 +82,16 @@ public class Order {
                 .updatedAt(now)
                 .expiryTime(now.plusMinutes(5))
                 .orderType(OrderType.MARKET)
+                .timeInForce(timeInForce)
                 .build();
     }
     
     public static Order createStopLossOrder(String userId, String symbol, OrderSide side,
                                           BigDecimal price, BigDecimal quantity,
                                           BigDecimal stopLossPrice) {
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = EngineClock.coarse().now();
         return Order.builder()
-                .orderId("ORD-" + ORDER_SEQUENCE.getAndIncrement())
+                .orderId(Constants.ORDER_ID_PREFIX + ORDER_SEQUENCE.getAndIncrement())
                 .userId(userId)
                 .symbol(symbol)
                 .side(side)
@@ -68,9 +109,9 @@ public class Order {
     public static Order createTakeProfitOrder(String userId, String symbol, OrderSide side,
                                             BigDecimal price, BigDecimal quantity,
                                             BigDecimal takeProfitPrice) {
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = EngineClock.coarse().now();
         return Order.builder()
-                .orderId("ORD-" + ORDER_SEQUENCE.getAndIncrement())
+                .orderId(Constants.ORDER_ID_PREFIX + ORDER_SEQUENCE.getAndIncrement())
                 .userId(userId)
                 .symbol(symbol)
                 .side(side)
@@ -85,22 +126,95 @@ public class Order {
                 .build();
     }
     
+    public static Order createIcebergOrder(String userId, String symbol, OrderSide side,
+                                         BigDecimal price, BigDecimal quantity,
+                                         BigDecimal displayQuantity) {
+        LocalDateTime now = EngineClock.coarse().now();
+        return Order.builder()
+                .orderId(Constants.ORDER_ID_PREFIX + ORDER_SEQUENCE.getAndIncrement())
+                .userId(userId)
+                .symbol(symbol)
+                .side(side)
+                .price(price)
+                .quantity(quantity)
+                .status(OrderStatus.OPEN)
+                .createdAt(now)
+                .updatedAt(now)
+                .expiryTime(now.plusMinutes(5))
+                .orderType(OrderType.ICEBERG)
+                .displayQuantity(displayQuantity)
+                .visibleQuantity(displayQuantity.min(quantity))
+                .build();
+    }
+
+    /**
+     * @return Quantity shown in the book: the current slice for iceberg orders, otherwise
+     *         the whole remaining quantity
+     */
+    public BigDecimal getVisibleQuantity() {
+        if (orderType != OrderType.ICEBERG) {
+            return quantity;
+        }
+        return visibleQuantity != null ? visibleQuantity : displayQuantity.min(quantity);
+    }
+
+    /**
+     * Executes part of the order, taking the quantity out of the visible slice for icebergs.
+     */
+    public void fill(BigDecimal filledQuantity, LocalDateTime at) {
+        if (orderType == OrderType.ICEBERG) {
+            this.visibleQuantity = getVisibleQuantity().subtract(filledQuantity);
+        }
+        updateQuantityOnly(quantity.subtract(filledQuantity), at);
+    }
+
+    /**
+     * Shows the next slice of an iceberg order once the current one has been filled.
+     */
+    public void replenish() {
+        this.visibleQuantity = displayQuantity.min(quantity);
+        version++;
+    }
+
     public void updateQuantity(BigDecimal newQuantity) {
+        updateQuantity(newQuantity, LocalDateTime.now());
+    }
+    
+    public void updateQuantity(BigDecimal newQuantity, LocalDateTime at) {
+        updateQuantityOnly(newQuantity, at);
+        if (orderType == OrderType.ICEBERG) {
+            // A new total starts a fresh slice
+            replenish();
+        }
+    }
+
+    private void updateQuantityOnly(BigDecimal newQuantity, LocalDateTime at) {
         this.quantity = newQuantity;
-        this.updatedAt = LocalDateTime.now();
+        this.updatedAt = at;
         if (newQuantity.compareTo(BigDecimal.ZERO) == 0) {
             this.status = OrderStatus.EXECUTED;
         }
+        version++;
     }
     
     public void updatePrice(BigDecimal newPrice) {
+        updatePrice(newPrice, LocalDateTime.now());
+    }
+    
+    public void updatePrice(BigDecimal newPrice, LocalDateTime at) {
         this.price = newPrice;
-        this.updatedAt = LocalDateTime.now();
+        this.updatedAt = at;
+        version++;
     }
     
     public void cancel() {
+        cancel(LocalDateTime.now());
+    }
+    
+    public void cancel(LocalDateTime at) {
         this.status = OrderStatus.CANCELLED;
-        this.updatedAt = LocalDateTime.now();
+        this.updatedAt = at;
+        version++;
     }
     
     public boolean isActive() {
@@ -108,7 +222,11 @@ public class Order {
     }
     
     public boolean isExpired() {
-        return LocalDateTime.now().isAfter(expiryTime);
+        return isExpired(LocalDateTime.now());
+    }
+    
+    public boolean isExpired(LocalDateTime now) {
+        return now.isAfter(expiryTime);
     }
 
     public boolean isStopLossTriggered(BigDecimal currentPrice) {
@@ -3,5 +3,6 @@ package com.phonepe.tradingexchange.model;
 public enum OrderType {
     MARKET,
     STOP_LOSS,
-    TAKE_PROFIT
+    TAKE_PROFIT,
+    ICEBERG
 } 
\ No newline at end of file
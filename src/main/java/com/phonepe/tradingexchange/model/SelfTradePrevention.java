@@ -0,0 +1,18 @@
+package com.phonepe.tradingexchange.model;
+
+/**
+ * What happens when an incoming order would trade against a resting order of the same user.
+ * The incoming order's mode applies.
+ */
+public enum SelfTradePrevention {
+    // Self-trades are allowed
+    NONE,
+    // The incoming order's remainder is cancelled; the resting order is untouched
+    CANCEL_NEWEST,
+    // The resting order is cancelled and the incoming order carries on matching
+    CANCEL_OLDEST,
+    // Both orders are cancelled
+    CANCEL_BOTH,
+    // The smaller order is cancelled and the larger reduced by its quantity, with no trade
+    DECREMENT
+}
@@ -0,0 +1,10 @@
+package com.phonepe.tradingexchange.model;
+
+public enum TimeInForce {
+    // Good till cancelled: whatever does not match rests in the book until it expires
+    GTC,
+    // Immediate or cancel: matches what it can on arrival, the rest is cancelled
+    IOC,
+    // Fill or kill: matches in full on arrival or is cancelled without trading
+    FOK
+}
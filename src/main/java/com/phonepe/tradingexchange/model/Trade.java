@@ -1,5 +1,7 @@
 package com.phonepe.tradingexchange.model;
 
+import com.phonepe.tradingexchange.clock.EngineClock;
+import com.phonepe.tradingexchange.common.Constants;
 import lombok.Builder;
 import lombok.Data;
 
@@ -13,33 +15,48 @@ public class Trade {
     private final String tradeId;
     private final String buyOrderId;
     private final String sellOrderId;
+    private final String buyUserId;
+    private final String sellUserId;
     private final String symbol;
     private final BigDecimal price;
     private final BigDecimal quantity;
     private final LocalDateTime executedAt;
     
     private static final AtomicLong TRADE_SEQUENCE = new AtomicLong(1);
+
+    /**
+     * Makes sure trade IDs created from now on are above the given sequence.
+     */
+    public static void reserveSequencesThrough(long sequence) {
+        TRADE_SEQUENCE.accumulateAndGet(sequence + 1, Math::max);
+    }
     
     public static Trade createTrade(Order buyOrder, Order sellOrder, BigDecimal executedPrice, 
                                     BigDecimal executedQuantity) {
+        return createTrade(nextTradeId(), buyOrder, sellOrder, executedPrice, executedQuantity,
+                EngineClock.coarse().now());
+    }
+    
+    public static Trade createTrade(String tradeId, Order buyOrder, Order sellOrder, BigDecimal executedPrice,
+                                    BigDecimal executedQuantity, LocalDateTime executedAt) {
         if (buyOrder.getSide() != OrderSide.BUY || sellOrder.getSide() != OrderSide.SELL) {
             throw new IllegalArgumentException("Invalid order sides for trade execution");
         }
         
-        String tradeId = generateTradeId();
-        
         return Trade.builder()
                 .tradeId(tradeId)
                 .buyOrderId(buyOrder.getOrderId())
                 .sellOrderId(sellOrder.getOrderId())
+                .buyUserId(buyOrder.getUserId())
+                .sellUserId(sellOrder.getUserId())
                 .symbol(buyOrder.getSymbol())
                 .price(executedPrice)
                 .quantity(executedQuantity)
-                .executedAt(LocalDateTime.now())
+                .executedAt(executedAt)
                 .build();
     }
     
-    private static String generateTradeId() {
-        return "TRD-" + TRADE_SEQUENCE.getAndIncrement();
+    public static String nextTradeId() {
+        return Constants.TRADE_ID_PREFIX + TRADE_SEQUENCE.getAndIncrement();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.phonepe.tradingexchange.position;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Point-in-time view of one user's position in a symbol.
+ */
+@Data
+@Builder
+public class Position {
+    private final String userId;
+    private final String symbol;
+    // Net filled quantity, positive when long
+    private final BigDecimal quantity;
+    // Average price of the open quantity, null when flat
+    private final BigDecimal averagePrice;
+    private final BigDecimal realizedPnl;
+    // Price the open quantity was marked at: best bid for longs, best ask for shorts; null if
+    // flat or that side of the book is empty
+    private final BigDecimal markPrice;
+    // Null when there is no mark price
+    private final BigDecimal unrealizedPnl;
+}
@@ -0,0 +1,52 @@
+package com.phonepe.tradingexchange.position;
+
+import java.math.BigInteger;
+
+/**
+ * One user's position in one symbol, in fixed point: quantity in units of the maximum
+ * quantity precision, cost basis and realized P&L in units of the P&L scale. Guarded by its
+ * own monitor; a given account is only ever updated by its symbol's trades.
+ */
+final class PositionAccount {
+    // Signed net quantity
+    long quantity;
+    // Signed cost of the open quantity at the prices it was opened at
+    long costBasis;
+    long realizedPnl;
+
+    /**
+     * Applies one fill at average cost: fills in the direction of the position add to it at
+     * their price, fills against it realize P&L on the closed part at the average price, and
+     * any excess opens a new position at the fill price.
+     *
+     * @param quantity Signed filled quantity, positive for buys
+     * @param notional Signed fill value, price times quantity
+     */
+    synchronized void apply(long quantity, long notional) {
+        if (this.quantity == 0 || (this.quantity > 0) == (quantity > 0)) {
+            this.quantity += quantity;
+            this.costBasis += notional;
+            return;
+        }
+        if (Math.abs(quantity) <= Math.abs(this.quantity)) {
+            long closedCost = proportion(costBasis, -quantity, this.quantity);
+            // Selling out of a long realizes proceeds minus cost, buying back a short the reverse
+            realizedPnl += -notional - closedCost;
+            costBasis -= closedCost;
+            this.quantity += quantity;
+            return;
+        }
+        long closingNotional = proportion(notional, -this.quantity, quantity);
+        realizedPnl += -closingNotional - costBasis;
+        costBasis = notional - closingNotional;
+        this.quantity += quantity;
+    }
+
+    // value * numerator / denominator without overflowing the intermediate product
+    private static long proportion(long value, long numerator, long denominator) {
+        return BigInteger.valueOf(value)
+                .multiply(BigInteger.valueOf(numerator))
+                .divide(BigInteger.valueOf(denominator))
+                .longValueExact();
+    }
+}
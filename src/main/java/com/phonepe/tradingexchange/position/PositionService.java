@@ -0,0 +1,148 @@
+package com.phonepe.tradingexchange.position;
+
+import com.phonepe.tradingexchange.common.Constants;
+import com.phonepe.tradingexchange.engine.MatchingEngine;
+import com.phonepe.tradingexchange.engine.TradeListener;
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.readmodel.ReadModel;
+import com.phonepe.tradingexchange.readmodel.TopOfBook;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Positions and P&L per user and symbol, maintained incrementally from the engine's trade
+ * stream at average cost, so a position query is a map lookup instead of a scan of the user's
+ * trades and orders. Unrealized P&L is only computed when asked for, by marking the open
+ * quantity against the top of book last projected by the {@link ReadModel}; the engine's own
+ * book is only safe to read on the matching path.
+ */
+public class PositionService implements TradeListener {
+    private final MatchingEngine engine;
+    private final ReadModel readModel;
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, PositionAccount>> accounts =
+            new ConcurrentHashMap<>();
+
+    private static PositionService INSTANCE;
+
+    /**
+     * Creates a service fed by the engine's trades from now on, marking positions against the
+     * read model's prices.
+     */
+    public PositionService(MatchingEngine engine, ReadModel readModel) {
+        this.engine = engine;
+        this.readModel = readModel;
+        engine.addTradeListener(this);
+    }
+
+    public static PositionService getInstance() {
+        if (INSTANCE == null) {
+            synchronized (PositionService.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new PositionService(MatchingEngine.getInstance(), ReadModel.getInstance());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Resets the service - primarily for testing.
+     */
+    public static void reset() {
+        INSTANCE = null;
+    }
+
+    /**
+     * Stops following the engine's trades.
+     */
+    public void close() {
+        engine.removeTradeListener(this);
+    }
+
+    @Override
+    public void onTrade(Trade trade) {
+        long quantity = trade.getQuantity().movePointRight(Constants.MAX_QUANTITY_PRECISION)
+                .setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+        long notional = trade.getPrice().multiply(trade.getQuantity()).movePointRight(Constants.PNL_SCALE)
+                .setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+        account(trade.getBuyUserId(), trade.getSymbol()).apply(quantity, notional);
+        account(trade.getSellUserId(), trade.getSymbol()).apply(-quantity, -notional);
+    }
+
+    /**
+     * @return The user's position in the symbol, flat if they never traded it
+     */
+    public Position getPosition(String userId, String symbol) {
+        Map<String, PositionAccount> bySymbol = accounts.get(userId);
+        PositionAccount account = bySymbol == null ? null : bySymbol.get(symbol);
+        return account == null ? position(userId, symbol, 0, 0, 0) : position(userId, symbol, account);
+    }
+
+    /**
+     * @return The user's positions in every symbol they traded, including closed ones
+     */
+    public List<Position> getPositions(String userId) {
+        Map<String, PositionAccount> bySymbol = accounts.get(userId);
+        List<Position> positions = new ArrayList<>();
+        if (bySymbol != null) {
+            bySymbol.forEach((symbol, account) -> positions.add(position(userId, symbol, account)));
+        }
+        return positions;
+    }
+
+    private Position position(String userId, String symbol, PositionAccount account) {
+        long quantity;
+        long costBasis;
+        long realizedPnl;
+        synchronized (account) {
+            quantity = account.quantity;
+            costBasis = account.costBasis;
+            realizedPnl = account.realizedPnl;
+        }
+        return position(userId, symbol, quantity, costBasis, realizedPnl);
+    }
+
+    private Position position(String userId, String symbol, long quantityUnits, long costUnits, long realizedUnits) {
+        BigDecimal quantity = BigDecimal.valueOf(quantityUnits, Constants.MAX_QUANTITY_PRECISION).stripTrailingZeros();
+        BigDecimal cost = BigDecimal.valueOf(costUnits, Constants.PNL_SCALE);
+        Position.PositionBuilder position = Position.builder()
+                .userId(userId)
+                .symbol(symbol)
+                .quantity(quantity)
+                .realizedPnl(BigDecimal.valueOf(realizedUnits, Constants.PNL_SCALE));
+        if (quantityUnits == 0) {
+            return position.build();
+        }
+        position.averagePrice(cost.divide(quantity, Constants.MAX_PRICE_PRECISION, RoundingMode.HALF_EVEN));
+        BigDecimal mark = markPrice(symbol, quantityUnits > 0);
+        if (mark != null) {
+            position.markPrice(mark)
+                    .unrealizedPnl(mark.multiply(quantity).subtract(cost).setScale(Constants.PNL_SCALE, RoundingMode.HALF_EVEN));
+        }
+        return position.build();
+    }
+
+    // Longs would sell into the best bid, shorts buy back at the best ask
+    private BigDecimal markPrice(String symbol, boolean isLong) {
+        TopOfBook top = readModel.getTopOfBook(symbol);
+        if (top == null) {
+            return null;
+        }
+        BigDecimal best = isLong ? top.getBestBid() : top.getBestAsk();
+        return best == null || best.signum() == 0 ? null : best;
+    }
+
+    private PositionAccount account(String userId, String symbol) {
+        ConcurrentHashMap<String, PositionAccount> bySymbol = accounts.get(userId);
+        if (bySymbol == null) {
+            bySymbol = accounts.computeIfAbsent(userId, id -> new ConcurrentHashMap<>());
+        }
+        PositionAccount account = bySymbol.get(symbol);
+        return account != null ? account : bySymbol.computeIfAbsent(symbol, s -> new PositionAccount());
+    }
+}
@@ -0,0 +1,337 @@
+package com.phonepe.tradingexchange.readmodel;
+
+import com.phonepe.tradingexchange.common.Constants;
+import com.phonepe.tradingexchange.engine.MatchingEngine;
+import com.phonepe.tradingexchange.engine.OrderListener;
+import com.phonepe.tradingexchange.engine.TopOfBookListener;
+import com.phonepe.tradingexchange.engine.TradeListener;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.repository.OrderRepository;
+import com.phonepe.tradingexchange.repository.Page;
+import com.phonepe.tradingexchange.repository.SequenceIndex;
+import com.phonepe.tradingexchange.repository.TradeLog;
+import com.phonepe.tradingexchange.util.IdUtils;
+import com.phonepe.tradingexchange.util.TimeUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Query side of the exchange, kept apart from the state the engine matches on.
+ * <p>
+ * The engine's order, trade and top-of-book events are queued as they happen, with orders
+ * copied on the matching thread, and a single projector thread applies them to views built
+ * for the queries: open orders, a time-indexed trade log per symbol, orders and trades indexed
+ * by user in sequence order and the latest best prices. Queries only ever read these views, so
+ * they never contend with matching and can be scaled separately.
+ * <p>
+ * Memory tracks open interest plus compact indexes. An order's snapshot is dropped once it
+ * reaches a terminal status; from then on it is read back from the order repository's
+ * read-only cold tier, which the engine fills before publishing the final snapshot. Each trade
+ * is held once, by its symbol's log, and referenced from flat per-user arrays. The event queue
+ * is bounded: when the projector falls that far behind, the engine waits for it instead of the
+ * backlog growing without limit.
+ * <p>
+ * The views are eventually consistent: a query may miss the last few commands until the
+ * projector catches up; {@link #awaitProjected} waits for everything published so far.
+ */
+public class ReadModel implements OrderListener, TradeListener, TopOfBookListener, AutoCloseable {
+    private final MatchingEngine engine;
+    private final OrderRepository orderRepository;
+    private final BlockingQueue<Runnable> events = new ArrayBlockingQueue<>(Constants.READ_MODEL_QUEUE_CAPACITY);
+    private final AtomicLong published = new AtomicLong();
+    private volatile long projected;
+    private final Thread projector;
+
+    // Open orders only, plus terminal ones the repository never archives
+    private final ConcurrentHashMap<String, Order> orders = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, SequenceIndex> userOrders = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, UserTradeIndex> userTrades = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TradeLog> tradeLogs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TopOfBook> topOfBook = new ConcurrentHashMap<>();
+
+    private static ReadModel INSTANCE;
+
+    /**
+     * Creates a read model that follows the engine's events from now on, reading finished
+     * orders back from the cold tier of the repository the engine saves to.
+     */
+    public ReadModel(MatchingEngine engine, OrderRepository orderRepository) {
+        this.engine = engine;
+        this.orderRepository = orderRepository;
+        this.projector = new Thread(this::project, "read-model-projector");
+        projector.setDaemon(true);
+        projector.start();
+        engine.addOrderListener(this);
+        engine.addTradeListener(this);
+        engine.addTopOfBookListener(this);
+    }
+
+    public static ReadModel getInstance() {
+        if (INSTANCE == null) {
+            synchronized (ReadModel.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ReadModel(MatchingEngine.getInstance(), OrderRepository.getInstance());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Resets the read model - primarily for testing.
+     */
+    public static void reset() {
+        if (INSTANCE != null) {
+            INSTANCE.close();
+        }
+        INSTANCE = null;
+    }
+
+    @Override
+    public void onOrder(Order order) {
+        // Snapshots can be published after the order's lock is released and so arrive out of
+        // order; the version read before copying lets the projector drop the older ones
+        long version = order.getVersion();
+        Order snapshot = order.toBuilder().version(version).build();
+        publish(() -> applyOrder(snapshot));
+    }
+
+    @Override
+    public void onTrade(Trade trade) {
+        publish(() -> applyTrade(trade));
+    }
+
+    @Override
+    public void onTopOfBook(String symbol, BigDecimal bestBid, BigDecimal bestAsk) {
+        TopOfBook top = TopOfBook.builder().symbol(symbol).bestBid(bestBid).bestAsk(bestAsk).build();
+        publish(() -> topOfBook.put(symbol, top));
+    }
+
+    /**
+     * Waits until every event published before the call has been projected, so a caller sees
+     * the effects of its own completed commands.
+     *
+     * @return Whether the views caught up before the timeout
+     */
+    public boolean awaitProjected(Duration timeout) {
+        long target = published.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (projected < target) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(50_000);
+        }
+        return true;
+    }
+
+    /**
+     * @return The last projected state of an order; a snapshot that must not be modified
+     */
+    public Optional<Order> findOrder(String orderId) {
+        Order order = orders.get(orderId);
+        return order != null ? Optional.of(order) : orderRepository.findArchived(orderId);
+    }
+
+    /**
+     * @return The user's orders in placement order
+     */
+    public List<Order> findOrdersByUser(String userId) {
+        SequenceIndex index = userOrders.get(userId);
+        if (index == null) {
+            return new ArrayList<>();
+        }
+        return index.after(0, Long.MIN_VALUE).mapToObj(this::order).filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns a page of a user's orders in placement order.
+     *
+     * @param afterCursor Cursor from the previous page, or 0 to start from the first order
+     * @param from Inclusive lower bound on creation time, or null
+     * @param to Exclusive upper bound on creation time, or null
+     */
+    public Page<Order> findOrdersByUser(String userId, long afterCursor, int limit,
+                                        LocalDateTime from, LocalDateTime to) {
+        SequenceIndex index = userOrders.get(userId);
+        if (index == null) {
+            return new Page<>(Collections.emptyList(), afterCursor, false);
+        }
+        return Page.collect(index.after(afterCursor, from == null ? Long.MIN_VALUE : TimeUtils.toEpochNanos(from))
+                        .mapToObj(this::order)
+                        .iterator(),
+                order -> IdUtils.orderSequence(order.getOrderId()), Order::getCreatedAt, from, to, limit, afterCursor);
+    }
+
+    public List<Trade> findTradesByUser(String userId) {
+        UserTradeIndex index = userTrades.get(userId);
+        return index == null ? new ArrayList<>() : new ArrayList<>(index.all());
+    }
+
+    /**
+     * Returns a page of the trades a user took part in, on either side, in execution order.
+     */
+    public Page<Trade> findTradesByUser(String userId, long afterCursor, int limit,
+                                        LocalDateTime from, LocalDateTime to) {
+        UserTradeIndex index = userTrades.get(userId);
+        if (index == null) {
+            return new Page<>(Collections.emptyList(), afterCursor, false);
+        }
+        return Page.collect(index.after(afterCursor, from), ReadModel::sequence, Trade::getExecutedAt,
+                from, to, limit, afterCursor);
+    }
+
+    public List<Trade> findTradesBySymbol(String symbol) {
+        return findTradesBySymbol(symbol, null, null);
+    }
+
+    public Page<Trade> findTradesBySymbol(String symbol, long afterCursor, int limit,
+                                          LocalDateTime from, LocalDateTime to) {
+        TradeLog tradeLog = tradeLogs.get(symbol);
+        if (tradeLog == null) {
+            return new Page<>(Collections.emptyList(), afterCursor, false);
+        }
+        return Page.collect(tradeLog.after(afterCursor, from), ReadModel::sequence, Trade::getExecutedAt,
+                from, to, limit, afterCursor);
+    }
+
+    /**
+     * Returns a symbol's trades executed in {@code [from, to)}; either bound may be null.
+     */
+    public List<Trade> findTradesBySymbol(String symbol, LocalDateTime from, LocalDateTime to) {
+        TradeLog tradeLog = tradeLogs.get(symbol);
+        return tradeLog == null ? new ArrayList<>() : tradeLog.between(from, to).collect(Collectors.toList());
+    }
+
+    /**
+     * @return Number of order snapshots held, i.e. orders that were open when last projected
+     */
+    public int openOrderCount() {
+        return orders.size();
+    }
+
+    /**
+     * @return The symbol's best prices, or null if its book has never been published
+     */
+    public TopOfBook getTopOfBook(String symbol) {
+        return topOfBook.get(symbol);
+    }
+
+    /**
+     * Stops following the engine; the views keep what was projected so far.
+     */
+    @Override
+    public void close() {
+        engine.removeOrderListener(this);
+        engine.removeTradeListener(this);
+        engine.removeTopOfBookListener(this);
+        projector.interrupt();
+    }
+
+    private void publish(Runnable event) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (events.offer(event, 10, TimeUnit.MILLISECONDS)) {
+                        published.incrementAndGet();
+                        return;
+                    }
+                    if (!projector.isAlive()) {
+                        // Closed: nothing will drain the queue any more
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    // The event must not be lost, so keep waiting and restore the flag after
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void project() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Runnable event;
+            try {
+                event = events.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                event.run();
+            } catch (RuntimeException e) {
+                // A bad event must not stop the projection
+                System.err.println("Error projecting event: " + e.getMessage());
+            }
+            projected++;
+        }
+    }
+
+    private void applyOrder(Order order) {
+        String orderId = order.getOrderId();
+        long sequence = IdUtils.orderSequence(orderId);
+        if (sequence <= 0) {
+            orders.put(orderId, order);
+            return;
+        }
+        SequenceIndex index = userOrders.computeIfAbsent(order.getUserId(), id -> new SequenceIndex());
+        Order current = orders.get(orderId);
+        if (OrderRepository.isArchivable(order)) {
+            orders.remove(orderId);
+        } else if (current != null ? current.getVersion() <= order.getVersion() : !index.contains(sequence)) {
+            orders.put(orderId, order);
+        } else {
+            // Older than the snapshot held, or than the final one of an order already finished
+            return;
+        }
+        LocalDateTime createdAt = order.getCreatedAt();
+        index.add(sequence, createdAt == null ? Long.MIN_VALUE : TimeUtils.toEpochNanos(createdAt));
+    }
+
+    private void applyTrade(Trade trade) {
+        tradeLogs.computeIfAbsent(trade.getSymbol(), symbol -> new TradeLog()).append(trade);
+        if (sequence(trade) > 0) {
+            index(trade.getBuyUserId(), trade);
+            if (trade.getSellUserId() != null && !trade.getSellUserId().equals(trade.getBuyUserId())) {
+                index(trade.getSellUserId(), trade);
+            }
+        }
+    }
+
+    private void index(String userId, Trade trade) {
+        if (userId != null) {
+            userTrades.computeIfAbsent(userId, id -> new UserTradeIndex()).add(trade);
+        }
+    }
+
+    // Open orders from the projected snapshots, finished ones from the cold tier
+    private Order order(long sequence) {
+        String orderId = IdUtils.orderId(sequence);
+        Order order = orders.get(orderId);
+        return order != null ? order : orderRepository.findArchived(orderId).orElse(null);
+    }
+
+    private static long sequence(Trade trade) {
+        return IdUtils.tradeSequence(trade.getTradeId());
+    }
+}
@@ -0,0 +1,18 @@
+package com.phonepe.tradingexchange.readmodel;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Best prices of a symbol's book as last published by the engine.
+ */
+@Data
+@Builder
+public class TopOfBook {
+    private final String symbol;
+    // Zero when that side of the book is empty
+    private final BigDecimal bestBid;
+    private final BigDecimal bestAsk;
+}
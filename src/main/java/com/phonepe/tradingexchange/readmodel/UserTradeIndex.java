@@ -0,0 +1,126 @@
+package com.phonepe.tradingexchange.readmodel;
+
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.util.IdUtils;
+import com.phonepe.tradingexchange.util.TimeUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * One user's trades in sequence order, held in flat arrays rather than a skip list with a
+ * boxed key and a node per trade. The trades themselves are shared with the symbol's log.
+ * <p>
+ * Written only by the projector. Trades of different symbols can be projected out of
+ * sequence order; such a trade is inserted into a fresh copy of the arrays, so a reader
+ * iterating a snapshot never sees entries move. Timestamps are kept non-decreasing for the
+ * seek, like the repository's {@code SequenceIndex}.
+ */
+final class UserTradeIndex {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private long[] sequences = new long[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private Trade[] trades = new Trade[INITIAL_CAPACITY];
+    private int size;
+
+    synchronized void add(Trade trade) {
+        long sequence = IdUtils.tradeSequence(trade.getTradeId());
+        long timestamp = TimeUtils.toEpochNanos(trade.getExecutedAt());
+        if (size == 0 || sequences[size - 1] < sequence) {
+            if (size == sequences.length) {
+                sequences = Arrays.copyOf(sequences, size * 2);
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                trades = Arrays.copyOf(trades, size * 2);
+            }
+            sequences[size] = sequence;
+            timestamps[size] = size == 0 ? timestamp : Math.max(timestamp, timestamps[size - 1]);
+            trades[size] = trade;
+            size++;
+            return;
+        }
+        int position = Arrays.binarySearch(sequences, 0, size, sequence);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        timestamp = Math.min(position == 0 ? timestamp : Math.max(timestamp, timestamps[position - 1]),
+                timestamps[position]);
+        int capacity = Math.max(sequences.length, size + 1);
+        long[] newSequences = new long[capacity];
+        long[] newTimestamps = new long[capacity];
+        Trade[] newTrades = new Trade[capacity];
+        System.arraycopy(sequences, 0, newSequences, 0, position);
+        System.arraycopy(timestamps, 0, newTimestamps, 0, position);
+        System.arraycopy(trades, 0, newTrades, 0, position);
+        newSequences[position] = sequence;
+        newTimestamps[position] = timestamp;
+        newTrades[position] = trade;
+        System.arraycopy(sequences, position, newSequences, position + 1, size - position);
+        System.arraycopy(timestamps, position, newTimestamps, position + 1, size - position);
+        System.arraycopy(trades, position, newTrades, position + 1, size - position);
+        sequences = newSequences;
+        timestamps = newTimestamps;
+        trades = newTrades;
+        size++;
+    }
+
+    synchronized List<Trade> all() {
+        return Arrays.asList(Arrays.copyOf(trades, size));
+    }
+
+    /**
+     * Iterates the trades after a cursor, skipping straight to the first trade indexed at or
+     * after a time.
+     *
+     * @param afterSequence Exclusive lower bound on the trade sequence
+     * @param from Inclusive lower bound on execution time, or null
+     */
+    Iterator<Trade> after(long afterSequence, LocalDateTime from) {
+        long[] snapshotSequences;
+        long[] snapshotTimestamps;
+        Trade[] snapshotTrades;
+        int snapshotSize;
+        synchronized (this) {
+            snapshotSequences = sequences;
+            snapshotTimestamps = timestamps;
+            snapshotTrades = trades;
+            snapshotSize = size;
+        }
+        int start = upperBound(snapshotSequences, snapshotSize, afterSequence);
+        if (from != null) {
+            start = Math.max(start, lowerBound(snapshotTimestamps, snapshotSize, TimeUtils.toEpochNanos(from)));
+        }
+        return Arrays.asList(snapshotTrades).subList(start, snapshotSize).iterator();
+    }
+
+    private static int lowerBound(long[] values, int length, long key) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(long[] values, int length, long key) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,213 @@
+package com.phonepe.tradingexchange.replay;
+
+import com.phonepe.tradingexchange.clock.SimulatedClock;
+import com.phonepe.tradingexchange.engine.IOrderBook;
+import com.phonepe.tradingexchange.engine.MatchingEngine;
+import com.phonepe.tradingexchange.engine.OrderBook;
+import com.phonepe.tradingexchange.engine.PriceLevel;
+import com.phonepe.tradingexchange.exception.OrderException;
+import com.phonepe.tradingexchange.exception.TradingException;
+import com.phonepe.tradingexchange.journal.Command;
+import com.phonepe.tradingexchange.journal.CommandJournalReader;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.repository.OrderRepository;
+import com.phonepe.tradingexchange.repository.TradeRepository;
+import com.phonepe.tradingexchange.util.TimeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Rebuilds engine state from a command journal on a fresh, single-threaded engine.
+ * <p>
+ * Every command is applied at the engine time it was recorded with, using a
+ * {@link SimulatedClock}, and the engine takes no order locks. Trades are captured in
+ * creation order and serialized field by field into a canonical byte stream, whose SHA-256
+ * digest identifies the run: replaying the same journal always yields the same digest.
+ */
+public class ReplayEngine {
+    private final SimulatedClock clock;
+    private final MatchingEngine engine;
+    private final OrderRepository orderRepository = OrderRepository.newInstance();
+    private final TradeRepository tradeRepository = TradeRepository.newInstance();
+    private final List<Trade> trades = new ArrayList<>();
+    private final ByteArrayOutputStream tradeBytes = new ByteArrayOutputStream();
+    private final DataOutputStream tradeStream = new DataOutputStream(tradeBytes);
+    private long applied;
+    private long rejected;
+
+    public ReplayEngine() {
+        this(new SimulatedClock(null), true);
+    }
+
+    /**
+     * Creates a replay engine on the given clock. An engine that takes order locks can later be
+     * handed to concurrent callers, e.g. once a standby replica takes over as primary.
+     *
+     * @param singleThreaded Whether the engine skips order locking
+     */
+    public ReplayEngine(SimulatedClock clock, boolean singleThreaded) {
+        this.clock = clock;
+        this.engine = MatchingEngine.newIsolatedInstance(clock, singleThreaded);
+        engine.setRepositories(orderRepository, tradeRepository);
+        engine.addTradeListener(this::capture);
+    }
+
+    public static ReplayResult replay(Path journal) throws IOException {
+        ReplayEngine replayEngine = new ReplayEngine();
+        try (CommandJournalReader reader = CommandJournalReader.open(journal)) {
+            Command command;
+            while ((command = reader.next()) != null) {
+                replayEngine.apply(command);
+            }
+        }
+        return replayEngine.result();
+    }
+
+    public static ReplayResult replay(List<Command> commands) {
+        ReplayEngine replayEngine = new ReplayEngine();
+        commands.forEach(replayEngine::apply);
+        return replayEngine.result();
+    }
+
+    /**
+     * Applies one command. Commands the live engine rejected are rejected again here and
+     * counted rather than aborting the replay.
+     */
+    public void apply(Command command) {
+        clock.setTime(command.getTimestamp());
+        try {
+            switch (command.getType()) {
+                case PLACE_ORDER:
+                    // The engine mutates orders in place, so never hand it the journaled instance
+                    engine.addOrder(command.getOrder().toBuilder().build());
+                    break;
+                case CANCEL_ORDER:
+                    engine.cancelOrder(command.getOrderId());
+                    break;
+                case MODIFY_ORDER:
+                    engine.modifyOrder(command.getOrderId(), command.getPrice(), command.getQuantity());
+                    break;
+                case MARKET_PRICE:
+                    engine.onMarketPrice(command.getSymbol(), command.getPrice());
+                    break;
+                case AUCTION_START:
+                    engine.startAuction(command.getSymbol());
+                    break;
+                case AUCTION_UNCROSS:
+                    engine.uncross(command.getSymbol());
+                    break;
+                case AUCTION_END:
+                    engine.endAuction(command.getSymbol());
+                    break;
+            }
+            applied++;
+        } catch (OrderException e) {
+            rejected++;
+        }
+    }
+
+    public MatchingEngine getEngine() {
+        return engine;
+    }
+
+    public OrderRepository getOrderRepository() {
+        return orderRepository;
+    }
+
+    public TradeRepository getTradeRepository() {
+        return tradeRepository;
+    }
+
+    public ReplayResult result() {
+        byte[] bytes = tradeBytes.toByteArray();
+        return new ReplayResult(new ArrayList<>(trades), bytes, sha256(bytes), applied, rejected);
+    }
+
+    /**
+     * @return Digest of a trade stream in the same canonical form as {@link ReplayResult#getDigest()}
+     */
+    public static String tradeDigest(List<Trade> trades) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Trade trade : trades) {
+            writeTrade(out, trade);
+        }
+        return sha256(bytes.toByteArray());
+    }
+
+    /**
+     * Digest of every book's resting orders, level by level in priority order, so two engines
+     * can be checked for identical state.
+     */
+    public static String bookDigest(MatchingEngine engine) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            for (String symbol : new TreeSet<>(engine.getSymbols())) {
+                IOrderBook orderBook = engine.getOrderBook(symbol);
+                if (!(orderBook instanceof OrderBook)) {
+                    continue;
+                }
+                out.writeUTF(symbol);
+                for (OrderSide side : OrderSide.values()) {
+                    for (PriceLevel level : ((OrderBook) orderBook).getLevels(side)) {
+                        out.writeUTF(level.getPrice().toPlainString());
+                        for (Order order : level.orders()) {
+                            out.writeUTF(order.getOrderId());
+                            out.writeUTF(order.getQuantity().toPlainString());
+                            out.writeUTF(order.getVisibleQuantity().toPlainString());
+                        }
+                    }
+                    out.writeUTF(side.name());
+                }
+                out.writeInt(((OrderBook) orderBook).getStopLossDepth());
+                out.writeInt(((OrderBook) orderBook).getTakeProfitDepth());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sha256(bytes.toByteArray());
+    }
+
+    private void capture(Trade trade) {
+        trades.add(trade);
+        writeTrade(tradeStream, trade);
+    }
+
+    private static void writeTrade(DataOutputStream out, Trade trade) {
+        try {
+            out.writeUTF(trade.getTradeId());
+            out.writeUTF(trade.getBuyOrderId());
+            out.writeUTF(trade.getSellOrderId());
+            out.writeUTF(trade.getSymbol());
+            out.writeUTF(trade.getPrice().toPlainString());
+            out.writeUTF(trade.getQuantity().toPlainString());
+            out.writeLong(TimeUtils.toEpochNanos(trade.getExecutedAt()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new TradingException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.phonepe.tradingexchange.replay;
+
+import com.phonepe.tradingexchange.model.Trade;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Outcome of replaying a command journal. Two replays of the same journal produce identical
+ * {@link #getTradeStream()} bytes, so {@link #getDigest()} can be compared across runs and
+ * machines.
+ */
+@Data
+public class ReplayResult {
+    private final List<Trade> trades;
+    private final byte[] tradeStream;
+    private final String digest;
+    private final long commandsApplied;
+    private final long commandsRejected;
+}
@@ -0,0 +1,11 @@
+package com.phonepe.tradingexchange.replication;
+
+/**
+ * When a primary considers a command replicated.
+ */
+public enum ReplicationMode {
+    // Commands are streamed to the standbys without waiting for them
+    ASYNC,
+    // A command only completes once enough standbys have acknowledged applying it
+    QUORUM
+}
@@ -0,0 +1,34 @@
+package com.phonepe.tradingexchange.replication;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * How a {@link ReplicationPrimary} waits for its standbys.
+ */
+@Data
+@Builder(toBuilder = true)
+public class ReplicationPolicy {
+    @Builder.Default
+    private final ReplicationMode mode = ReplicationMode.ASYNC;
+    // Standby acknowledgements each command needs in QUORUM mode
+    @Builder.Default
+    private final int quorum = 1;
+    // How long a command may wait for its quorum before the primary fences itself
+    @Builder.Default
+    private final Duration ackTimeout = Duration.ofSeconds(1);
+    // Most recent commands the primary keeps to bring joining standbys up to date; a standby
+    // further behind is refused and must start from a fresh copy
+    @Builder.Default
+    private final int historyLimit = 1 << 20;
+
+    public static ReplicationPolicy async() {
+        return ReplicationPolicy.builder().build();
+    }
+
+    public static ReplicationPolicy quorum(int standbys) {
+        return ReplicationPolicy.builder().mode(ReplicationMode.QUORUM).quorum(standbys).build();
+    }
+}
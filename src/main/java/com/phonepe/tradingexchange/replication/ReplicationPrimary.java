@@ -0,0 +1,318 @@
+package com.phonepe.tradingexchange.replication;
+
+import com.phonepe.tradingexchange.exception.ReplicationException;
+import com.phonepe.tradingexchange.journal.Command;
+import com.phonepe.tradingexchange.journal.CommandCodec;
+import com.phonepe.tradingexchange.journal.CommandSink;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primary side of journal replication. Set as a {@link com.phonepe.tradingexchange.engine.MatchingEngine}'s
+ * journal, it sequences every command like {@link com.phonepe.tradingexchange.journal.CommandJournalWriter}
+ * and streams it over TCP to each connected {@link ReplicationStandby}, which applies the
+ * commands in the same order and acknowledges the sequences it has applied.
+ * <p>
+ * Wire protocol: a standby opens with the last sequence it applied (0 when empty); the primary
+ * replies with every command after it, then the live stream, each encoded with
+ * {@link CommandCodec}; the standby answers with the sequences it has applied as plain longs.
+ * Each standby gets its own sender thread and queue, so a slow standby never blocks matching
+ * in {@link ReplicationMode#ASYNC} mode.
+ * <p>
+ * In {@link ReplicationMode#QUORUM} mode a command completes only once enough standbys have
+ * acknowledged it. Commands are journaled before they are applied, so a command that misses
+ * its quorum is rejected on the primary, but it may already have reached a standby. The
+ * primary therefore fences itself and rejects every later command, leaving the standby with
+ * the most complete state to take over (see {@link ReplicationStandby#promote()}).
+ * <p>
+ * The most recent encoded commands, up to {@link ReplicationPolicy#getHistoryLimit()}, are
+ * kept in memory to bring joining standbys up to date. A standby that has fallen further
+ * behind is disconnected straight away.
+ */
+public class ReplicationPrimary implements CommandSink, Closeable {
+    private final ReplicationPolicy policy;
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private final ArrayDeque<byte[]> log = new ArrayDeque<>();
+    private final List<Follower> followers = new CopyOnWriteArrayList<>();
+    private final Object acks = new Object();
+    private long lastSequence;
+    private volatile boolean fenced;
+
+    /**
+     * Starts accepting standbys on a loopback port.
+     *
+     * @param port Port to listen on, or 0 for any free port
+     */
+    public ReplicationPrimary(int port, ReplicationPolicy policy) throws IOException {
+        this(port, policy, Collections.emptyList());
+    }
+
+    /**
+     * Starts accepting standbys, continuing the sequence of commands already applied, e.g. by
+     * a promoted standby.
+     *
+     * @param history Commands already applied, in sequence order starting at 1
+     */
+    public ReplicationPrimary(int port, ReplicationPolicy policy, List<Command> history) throws IOException {
+        this.policy = policy;
+        for (Command command : history) {
+            if (command.getSequence() != lastSequence + 1) {
+                throw new IllegalArgumentException("History is not contiguous at sequence " + command.getSequence());
+            }
+            lastSequence = command.getSequence();
+            // Only the tail of the history is kept
+            if (lastSequence > history.size() - policy.getHistoryLimit()) {
+                log.add(encode(command));
+            }
+        }
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.acceptor = new Thread(this::accept, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    @Override
+    public Command append(Command command) {
+        Command sequenced;
+        synchronized (this) {
+            if (fenced) {
+                throw new ReplicationException("Primary is fenced and no longer accepts commands");
+            }
+            sequenced = command.toBuilder().sequence(++lastSequence).build();
+            byte[] frame = encode(sequenced);
+            log.add(frame);
+            if (log.size() > policy.getHistoryLimit()) {
+                log.poll();
+            }
+            for (Follower follower : followers) {
+                follower.queue.add(frame);
+            }
+        }
+        if (policy.getMode() == ReplicationMode.QUORUM) {
+            awaitQuorum(sequenced.getSequence());
+        }
+        return sequenced;
+    }
+
+    /**
+     * Waits until at least the given number of standbys are connected.
+     *
+     * @return Whether they connected before the timeout
+     */
+    public boolean awaitStandbys(int count, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (acks) {
+            while (followers.size() < count) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(acks, remaining);
+            }
+        }
+        return true;
+    }
+
+    public int getStandbyCount() {
+        return followers.size();
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public boolean isFenced() {
+        return fenced;
+    }
+
+    /**
+     * Stops taking commands, e.g. ahead of a planned failover, and disconnects the standbys.
+     */
+    @Override
+    public void close() throws IOException {
+        fenced = true;
+        server.close();
+        for (Follower follower : followers) {
+            follower.close();
+        }
+    }
+
+    private void awaitQuorum(long sequence) {
+        long deadline = System.nanoTime() + policy.getAckTimeout().toNanos();
+        synchronized (acks) {
+            while (acknowledged(sequence) < policy.getQuorum()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    fenced = true;
+                    throw new ReplicationException("Command " + sequence + " was not acknowledged by "
+                            + policy.getQuorum() + " standby(s); primary fenced");
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(acks, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    fenced = true;
+                    throw new ReplicationException("Interrupted waiting for standby acknowledgements", e);
+                }
+            }
+        }
+    }
+
+    private int acknowledged(long sequence) {
+        int count = 0;
+        for (Follower follower : followers) {
+            if (follower.acknowledged >= sequence) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                long applied = in.readLong();
+                Follower follower = new Follower(socket, in, applied);
+                synchronized (this) {
+                    if (fenced || applied > lastSequence) {
+                        // A standby ahead of the primary has diverged from it
+                        follower.close();
+                        continue;
+                    }
+                    long firstSequence = lastSequence - log.size() + 1;
+                    if (applied + 1 < firstSequence) {
+                        System.err.println("Error accepting standby: it applied up to sequence " + applied
+                                + " but history starts at " + firstSequence);
+                        follower.close();
+                        continue;
+                    }
+                    long sequence = firstSequence;
+                    for (byte[] frame : log) {
+                        if (sequence++ > applied) {
+                            follower.queue.add(frame);
+                        }
+                    }
+                    followers.add(follower);
+                }
+                follower.start();
+                synchronized (acks) {
+                    acks.notifyAll();
+                }
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    System.err.println("Error accepting standby: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static byte[] encode(Command command) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try {
+            CommandCodec.write(new DataOutputStream(bytes), command);
+        } catch (IOException e) {
+            throw new ReplicationException("Failed to encode command: " + e.getMessage(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * One connected standby: a sender draining its queue onto the socket and a receiver
+     * reading its acknowledgements.
+     */
+    private final class Follower {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+        private volatile long acknowledged;
+        private Thread sender;
+        private Thread receiver;
+
+        Follower(Socket socket, DataInputStream in, long acknowledged) {
+            this.socket = socket;
+            this.in = in;
+            this.acknowledged = acknowledged;
+        }
+
+        void start() {
+            String name = "replication-" + socket.getPort();
+            sender = new Thread(this::send, name + "-send");
+            receiver = new Thread(this::receive, name + "-ack");
+            sender.setDaemon(true);
+            receiver.setDaemon(true);
+            sender.start();
+            receiver.start();
+        }
+
+        private void send() {
+            try {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                while (true) {
+                    out.write(queue.take());
+                    // Flush once the backlog is written
+                    byte[] next;
+                    while ((next = queue.poll()) != null) {
+                        out.write(next);
+                    }
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                disconnect();
+            }
+        }
+
+        private void receive() {
+            try {
+                while (true) {
+                    acknowledged = in.readLong();
+                    synchronized (acks) {
+                        acks.notifyAll();
+                    }
+                }
+            } catch (IOException e) {
+                disconnect();
+            }
+        }
+
+        private void disconnect() {
+            followers.remove(this);
+            close();
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+            if (sender != null) {
+                sender.interrupt();
+            }
+        }
+    }
+}
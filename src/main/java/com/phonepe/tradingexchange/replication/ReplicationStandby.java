@@ -0,0 +1,235 @@
+package com.phonepe.tradingexchange.replication;
+
+import com.phonepe.tradingexchange.clock.EngineClock;
+import com.phonepe.tradingexchange.engine.MatchingEngine;
+import com.phonepe.tradingexchange.exception.ReplicationException;
+import com.phonepe.tradingexchange.journal.Command;
+import com.phonepe.tradingexchange.journal.CommandCodec;
+import com.phonepe.tradingexchange.journal.CommandType;
+import com.phonepe.tradingexchange.loadtest.LoadGenerator;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.replay.ReplayEngine;
+import com.phonepe.tradingexchange.util.IdUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot standby fed by a {@link ReplicationPrimary}. Replicated commands are applied in
+ * sequence through the standby's own engine via a {@link ReplayEngine}, at the times the
+ * primary recorded them, so its books and trades stay identical to the primary's. Applied
+ * sequences are acknowledged whenever the standby has caught up with what it has received.
+ * <p>
+ * Failover: fence the old primary (it fences itself when a quorum wait times out), call
+ * {@link #promote()} and put the returned engine behind a new {@link ReplicationPrimary}
+ * created from {@link #getCommands()}, so further standbys can follow it:
+ * <pre>
+ * MatchingEngine engine = standby.promote();
+ * engine.setJournal(new ReplicationPrimary(port, policy, standby.getCommands()));
+ * </pre>
+ */
+public class ReplicationStandby implements Closeable {
+    private final StandbyClock clock = new StandbyClock();
+    private final ReplayEngine replayEngine = new ReplayEngine(clock, false);
+    private final List<Command> commands = new ArrayList<>();
+    private final Socket socket;
+    private final Thread receiver;
+    private long lastApplied;
+    private long maxOrderSequence;
+    private boolean promoted;
+    private boolean closed;
+    private volatile RuntimeException failure;
+
+    /**
+     * Connects to a primary and starts applying its command stream.
+     */
+    public ReplicationStandby(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        this.receiver = new Thread(this::receive, "replication-standby");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    /**
+     * Waits until the given sequence has been applied.
+     *
+     * @return Whether it was applied before the timeout; false as well if the stream ended first
+     */
+    public synchronized boolean awaitSequence(long sequence, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (lastApplied < sequence && receiver.isAlive()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return lastApplied >= sequence;
+    }
+
+    /**
+     * Waits until the primary ends the stream or the connection drops.
+     */
+    public void awaitDisconnect() throws InterruptedException {
+        receiver.join();
+    }
+
+    public synchronized long getLastApplied() {
+        return lastApplied;
+    }
+
+    /**
+     * @return The replicated commands applied so far, in sequence order
+     */
+    public synchronized List<Command> getCommands() {
+        return Collections.unmodifiableList(new ArrayList<>(commands));
+    }
+
+    /**
+     * @return The standby's replay engine; its engine must only be read until promotion
+     */
+    public ReplayEngine getReplayEngine() {
+        return replayEngine;
+    }
+
+    /**
+     * @return The error that stopped replication, or null
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Stops following the primary and hands over the engine to take live traffic: its clock
+     * switches to system time and new order ids continue after every replicated one. Fence
+     * the old primary first so it cannot accept commands the standby will never see.
+     *
+     * @return The standby's engine, now safe for concurrent callers
+     */
+    public MatchingEngine promote() throws InterruptedException {
+        synchronized (this) {
+            if (promoted) {
+                throw new ReplicationException("Standby has already been promoted");
+            }
+            promoted = true;
+        }
+        closeSocket();
+        receiver.join();
+        if (failure != null) {
+            throw new ReplicationException("Cannot promote a standby that failed to apply the stream", failure);
+        }
+        clock.goLive(EngineClock.system());
+        Order.reserveSequencesThrough(maxOrderSequence);
+        return replayEngine.getEngine();
+    }
+
+    /**
+     * Stops following the primary. No command is applied once this returns: closing the socket
+     * alone does not stop a read already blocked on it, which can still return a command the
+     * primary sends afterwards.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        closeSocket();
+    }
+
+    private void receive() {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeLong(getLastApplied());
+            out.flush();
+            while (true) {
+                Command command = CommandCodec.read(in);
+                long applied = apply(command);
+                if (applied < 0) {
+                    return;
+                }
+                // Acknowledge once per batch received rather than per command
+                if (in.available() == 0) {
+                    out.writeLong(applied);
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // End of stream: the primary closed or the connection dropped
+        } catch (RuntimeException e) {
+            failure = e;
+            closeSocket();
+        } finally {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return The sequence applied, or -1 once closed or promoted
+     */
+    private synchronized long apply(Command command) {
+        if (closed || promoted) {
+            return -1;
+        }
+        if (command.getSequence() != lastApplied + 1) {
+            throw new ReplicationException("Expected sequence " + (lastApplied + 1) + " but received "
+                    + command.getSequence());
+        }
+        replayEngine.apply(command);
+        commands.add(command);
+        if (command.getType() == CommandType.PLACE_ORDER) {
+            maxOrderSequence = Math.max(maxOrderSequence, IdUtils.orderSequence(command.getOrder().getOrderId()));
+        }
+        lastApplied = command.getSequence();
+        notifyAll();
+        return lastApplied;
+    }
+
+    private void closeSocket() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    /**
+     * Runs a standby in its own process until the primary ends the stream, then prints the
+     * last applied sequence with digests of its trades and books.
+     * <p>
+     * Options: --host (default localhost), --port
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadGenerator.parseArgs(args);
+        String port = options.get("port");
+        if (port == null) {
+            throw new IllegalArgumentException("--port is required");
+        }
+        ReplicationStandby standby = new ReplicationStandby(options.getOrDefault("host", "localhost"),
+                Integer.parseInt(port));
+        standby.awaitDisconnect();
+        if (standby.getFailure() != null) {
+            System.err.println("Error applying replicated commands: " + standby.getFailure().getMessage());
+            System.exit(1);
+        }
+        ReplayEngine replayEngine = standby.getReplayEngine();
+        System.out.println("sequence=" + standby.getLastApplied()
+                + " trades=" + ReplayEngine.tradeDigest(replayEngine.result().getTrades())
+                + " book=" + ReplayEngine.bookDigest(replayEngine.getEngine()));
+        System.exit(0);
+    }
+}
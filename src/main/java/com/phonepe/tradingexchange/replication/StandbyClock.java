@@ -0,0 +1,34 @@
+package com.phonepe.tradingexchange.replication;
+
+import com.phonepe.tradingexchange.clock.EngineClock;
+import com.phonepe.tradingexchange.clock.SimulatedClock;
+
+import java.time.LocalDateTime;
+
+/**
+ * Clock of a standby's engine: follows the times recorded with the replicated commands, then
+ * reads live time once the standby is promoted, never going back behind the last replicated
+ * time.
+ */
+final class StandbyClock extends SimulatedClock {
+    private volatile EngineClock live;
+
+    StandbyClock() {
+        super(null);
+    }
+
+    void goLive(EngineClock live) {
+        this.live = live;
+    }
+
+    @Override
+    public LocalDateTime now() {
+        LocalDateTime replicated = super.now();
+        EngineClock clock = live;
+        if (clock == null) {
+            return replicated;
+        }
+        LocalDateTime now = clock.now();
+        return replicated == null || now.isAfter(replicated) ? now : replicated;
+    }
+}
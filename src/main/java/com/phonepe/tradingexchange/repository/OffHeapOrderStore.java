@@ -0,0 +1,441 @@
+package com.phonepe.tradingexchange.repository;
+
+import com.phonepe.tradingexchange.exception.OrderException;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.OrderStatus;
+import com.phonepe.tradingexchange.model.OrderType;
+import com.phonepe.tradingexchange.model.SelfTradePrevention;
+import com.phonepe.tradingexchange.model.TimeInForce;
+import com.phonepe.tradingexchange.util.IdUtils;
+import com.phonepe.tradingexchange.util.StringDictionary;
+import com.phonepe.tradingexchange.util.TimeUtils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Order store that keeps order fields off-heap in fixed-width columns instead of as heap
+ * {@link Order} objects.
+ * <p>
+ * Orders are addressed by the numeric sequence of their ID ("ORD-42" lives in slot 42), so no
+ * hash index is needed. Slots are grouped into direct-memory chunks of {@link #CHUNK_SIZE}
+ * orders, indexed from the lowest chunk in use so IDs that start high (as in a partition's own
+ * block of IDs) cost nothing for the range below them; inside a chunk every field has its own column (struct-of-arrays). User IDs and symbols
+ * are dictionary-encoded, prices and quantities are stored as unscaled longs plus a scale byte
+ * and timestamps as epoch nanos, so an order costs {@link #BYTES_PER_ORDER} bytes.
+ * <p>
+ * {@link #findById} and {@link #updateOrder} keep the semantics of {@link OrderRepository}:
+ * lookups return a consistent snapshot and updates of unknown orders are ignored. Each slot
+ * carries a version stamp used as a seqlock, so readers never block writers.
+ */
+public class OffHeapOrderStore {
+    static final int CHUNK_SHIFT = 14;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Column offsets within a chunk; wider columns first so every value is naturally aligned
+    static final int PRICE = 0;
+    static final int QUANTITY = PRICE + Long.BYTES * CHUNK_SIZE;
+    static final int STOP_LOSS_PRICE = QUANTITY + Long.BYTES * CHUNK_SIZE;
+    static final int TAKE_PROFIT_PRICE = STOP_LOSS_PRICE + Long.BYTES * CHUNK_SIZE;
+    static final int DISPLAY_QUANTITY = TAKE_PROFIT_PRICE + Long.BYTES * CHUNK_SIZE;
+    static final int CREATED_AT = DISPLAY_QUANTITY + Long.BYTES * CHUNK_SIZE;
+    static final int UPDATED_AT = CREATED_AT + Long.BYTES * CHUNK_SIZE;
+    static final int EXPIRY_TIME = UPDATED_AT + Long.BYTES * CHUNK_SIZE;
+    static final int VERSION = EXPIRY_TIME + Long.BYTES * CHUNK_SIZE;
+    static final int USER = VERSION + Integer.BYTES * CHUNK_SIZE;
+    static final int SYMBOL = USER + Integer.BYTES * CHUNK_SIZE;
+    static final int PRICE_SCALE = SYMBOL + Integer.BYTES * CHUNK_SIZE;
+    static final int QUANTITY_SCALE = PRICE_SCALE + CHUNK_SIZE;
+    static final int STOP_LOSS_SCALE = QUANTITY_SCALE + CHUNK_SIZE;
+    static final int TAKE_PROFIT_SCALE = STOP_LOSS_SCALE + CHUNK_SIZE;
+    static final int DISPLAY_QUANTITY_SCALE = TAKE_PROFIT_SCALE + CHUNK_SIZE;
+    static final int SIDE = DISPLAY_QUANTITY_SCALE + CHUNK_SIZE;
+    static final int STATUS = SIDE + CHUNK_SIZE;
+    static final int ORDER_TYPE = STATUS + CHUNK_SIZE;
+    static final int TIME_IN_FORCE = ORDER_TYPE + CHUNK_SIZE;
+    static final int SELF_TRADE_PREVENTION = TIME_IN_FORCE + CHUNK_SIZE;
+    static final int CHUNK_BYTES = SELF_TRADE_PREVENTION + CHUNK_SIZE;
+
+    public static final int BYTES_PER_ORDER = CHUNK_BYTES / CHUNK_SIZE;
+
+    static final byte NULL_SCALE = Byte.MIN_VALUE;
+    static final byte NULL_ENUM = -1;
+    static final long NULL_TIME = Long.MIN_VALUE;
+
+    private static final VarHandle INT_VIEW =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final OrderSide[] SIDES = OrderSide.values();
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final TimeInForce[] TIMES_IN_FORCE = TimeInForce.values();
+    private static final SelfTradePrevention[] SELF_TRADE_PREVENTIONS = SelfTradePrevention.values();
+
+    private final StringDictionary users = new StringDictionary();
+    private final StringDictionary symbols = new StringDictionary();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile ChunkTable chunks = ChunkTable.EMPTY;
+    private volatile long maxSequence;
+
+    /**
+     * Stores an order, overwriting any order previously stored under the same ID.
+     *
+     * @param order Order to store; its ID must be of the form "ORD-&lt;n&gt;"
+     */
+    public void save(Order order) {
+        long sequence = requireSequence(order.getOrderId());
+        checkEncodable(order);
+        ByteBuffer chunk = chunkFor(sequence, true);
+        int slot = (int) (sequence & CHUNK_MASK);
+        synchronized (chunk) {
+            if (version(chunk, slot) == 0) {
+                size.incrementAndGet();
+            }
+            write(chunk, slot, order);
+        }
+        if (sequence > maxSequence) {
+            synchronized (this) {
+                maxSequence = Math.max(maxSequence, sequence);
+            }
+        }
+    }
+
+    /**
+     * Overwrites the stored state of an order if it is present; unknown orders are ignored.
+     *
+     * @param order Order with updated state
+     */
+    public void updateOrder(Order order) {
+        long sequence = IdUtils.orderSequence(order.getOrderId());
+        ByteBuffer chunk = sequence > 0 ? chunkFor(sequence, false) : null;
+        if (chunk == null) {
+            return;
+        }
+        checkEncodable(order);
+        int slot = (int) (sequence & CHUNK_MASK);
+        synchronized (chunk) {
+            if (version(chunk, slot) != 0) {
+                write(chunk, slot, order);
+            }
+        }
+    }
+
+    public Optional<Order> findById(String orderId) {
+        long sequence = IdUtils.orderSequence(orderId);
+        return sequence > 0 ? Optional.ofNullable(read(sequence)) : Optional.empty();
+    }
+
+    public boolean contains(String orderId) {
+        long sequence = IdUtils.orderSequence(orderId);
+        ByteBuffer chunk = sequence > 0 ? chunkFor(sequence, false) : null;
+        return chunk != null && version(chunk, (int) (sequence & CHUNK_MASK)) != 0;
+    }
+
+    public List<Order> findByUserId(String userId) {
+        List<Order> result = new ArrayList<>();
+        int userCode = users.lookup(userId);
+        if (userCode < 0) {
+            return result;
+        }
+        forEachSlot((chunk, slot, sequence) -> {
+            if (chunk.getInt(USER + slot * Integer.BYTES) == userCode) {
+                addIfPresent(result, sequence);
+            }
+        });
+        return result;
+    }
+
+    public List<Order> findAll() {
+        List<Order> result = new ArrayList<>(size.get());
+        forEachSlot((chunk, slot, sequence) -> addIfPresent(result, sequence));
+        return result;
+    }
+
+    public int count() {
+        return size.get();
+    }
+
+    /**
+     * Creates a flyweight accessor bound to this store. The accessor is not thread-safe and is
+     * meant to be reused by a single reader across many orders.
+     */
+    public OrderFlyweight flyweight() {
+        return new OrderFlyweight(this);
+    }
+
+    /**
+     * Releases all chunks. Direct memory is returned to the OS once the buffers are collected.
+     */
+    public synchronized void clear() {
+        chunks = ChunkTable.EMPTY;
+        maxSequence = 0;
+        size.set(0);
+    }
+
+    // ---- package-private accessors used by OrderFlyweight ----
+
+    ByteBuffer chunkFor(long sequence, boolean create) {
+        long index = sequence >>> CHUNK_SHIFT;
+        ByteBuffer chunk = chunks.get(index);
+        if (chunk != null || !create) {
+            return chunk;
+        }
+        synchronized (this) {
+            ChunkTable current = chunks.covering(index);
+            chunk = current.get(index);
+            if (chunk == null) {
+                chunk = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.nativeOrder());
+                current.set(index, chunk);
+            }
+            chunks = current;
+            return chunk;
+        }
+    }
+
+    static int version(ByteBuffer chunk, int slot) {
+        return (int) INT_VIEW.getAcquire(chunk, VERSION + slot * Integer.BYTES);
+    }
+
+    String user(int code) {
+        return users.decode(code);
+    }
+
+    String symbol(int code) {
+        return symbols.decode(code);
+    }
+
+    static BigDecimal decimal(ByteBuffer chunk, int column, int scaleColumn, int slot) {
+        byte scale = chunk.get(scaleColumn + slot);
+        if (scale == NULL_SCALE) {
+            return null;
+        }
+        return BigDecimal.valueOf(chunk.getLong(column + slot * Long.BYTES), scale);
+    }
+
+    static LocalDateTime time(ByteBuffer chunk, int column, int slot) {
+        long nanos = chunk.getLong(column + slot * Long.BYTES);
+        if (nanos == NULL_TIME) {
+            return null;
+        }
+        return TimeUtils.fromEpochNanos(nanos);
+    }
+
+    static <E> E enumValue(E[] values, byte ordinal) {
+        return ordinal == NULL_ENUM ? null : values[ordinal];
+    }
+
+    static OrderSide side(ByteBuffer chunk, int slot) {
+        return enumValue(SIDES, chunk.get(SIDE + slot));
+    }
+
+    static OrderStatus status(ByteBuffer chunk, int slot) {
+        return enumValue(STATUSES, chunk.get(STATUS + slot));
+    }
+
+    static OrderType orderType(ByteBuffer chunk, int slot) {
+        return enumValue(ORDER_TYPES, chunk.get(ORDER_TYPE + slot));
+    }
+
+    static TimeInForce timeInForce(ByteBuffer chunk, int slot) {
+        return enumValue(TIMES_IN_FORCE, chunk.get(TIME_IN_FORCE + slot));
+    }
+
+    static SelfTradePrevention selfTradePrevention(ByteBuffer chunk, int slot) {
+        return enumValue(SELF_TRADE_PREVENTIONS, chunk.get(SELF_TRADE_PREVENTION + slot));
+    }
+
+    // ---- internals ----
+
+    private Order read(long sequence) {
+        ByteBuffer chunk = chunkFor(sequence, false);
+        if (chunk == null) {
+            return null;
+        }
+        int slot = (int) (sequence & CHUNK_MASK);
+        while (true) {
+            int before = version(chunk, slot);
+            if (before == 0) {
+                return null;
+            }
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            Order order = Order.builder()
+                    .orderId(IdUtils.orderId(sequence))
+                    .userId(users.decode(chunk.getInt(USER + slot * Integer.BYTES)))
+                    .symbol(symbols.decode(chunk.getInt(SYMBOL + slot * Integer.BYTES)))
+                    .side(side(chunk, slot))
+                    .price(decimal(chunk, PRICE, PRICE_SCALE, slot))
+                    .quantity(decimal(chunk, QUANTITY, QUANTITY_SCALE, slot))
+                    .status(status(chunk, slot))
+                    .orderType(orderType(chunk, slot))
+                    .stopLossPrice(decimal(chunk, STOP_LOSS_PRICE, STOP_LOSS_SCALE, slot))
+                    .takeProfitPrice(decimal(chunk, TAKE_PROFIT_PRICE, TAKE_PROFIT_SCALE, slot))
+                    .displayQuantity(decimal(chunk, DISPLAY_QUANTITY, DISPLAY_QUANTITY_SCALE, slot))
+                    .createdAt(time(chunk, CREATED_AT, slot))
+                    .updatedAt(time(chunk, UPDATED_AT, slot))
+                    .expiryTime(time(chunk, EXPIRY_TIME, slot))
+                    .timeInForce(timeInForce(chunk, slot))
+                    .selfTradePrevention(selfTradePrevention(chunk, slot))
+                    .build();
+            VarHandle.loadLoadFence();
+            if (version(chunk, slot) == before) {
+                return order;
+            }
+        }
+    }
+
+    private void write(ByteBuffer chunk, int slot, Order order) {
+        int versionOffset = VERSION + slot * Integer.BYTES;
+        int version = (int) INT_VIEW.get(chunk, versionOffset);
+        // Odd version marks the slot as being written; readers retry until it turns even again
+        INT_VIEW.setOpaque(chunk, versionOffset, version + 1);
+        VarHandle.storeStoreFence();
+
+        putDecimal(chunk, PRICE, PRICE_SCALE, slot, order.getPrice());
+        putDecimal(chunk, QUANTITY, QUANTITY_SCALE, slot, order.getQuantity());
+        putDecimal(chunk, STOP_LOSS_PRICE, STOP_LOSS_SCALE, slot, order.getStopLossPrice());
+        putDecimal(chunk, TAKE_PROFIT_PRICE, TAKE_PROFIT_SCALE, slot, order.getTakeProfitPrice());
+        putDecimal(chunk, DISPLAY_QUANTITY, DISPLAY_QUANTITY_SCALE, slot, order.getDisplayQuantity());
+        putTime(chunk, CREATED_AT, slot, order.getCreatedAt());
+        putTime(chunk, UPDATED_AT, slot, order.getUpdatedAt());
+        putTime(chunk, EXPIRY_TIME, slot, order.getExpiryTime());
+        chunk.putInt(USER + slot * Integer.BYTES, users.encode(order.getUserId()));
+        chunk.putInt(SYMBOL + slot * Integer.BYTES, symbols.encode(order.getSymbol()));
+        chunk.put(SIDE + slot, ordinal(order.getSide()));
+        chunk.put(STATUS + slot, ordinal(order.getStatus()));
+        chunk.put(ORDER_TYPE + slot, ordinal(order.getOrderType()));
+        chunk.put(TIME_IN_FORCE + slot, ordinal(order.getTimeInForce()));
+        chunk.put(SELF_TRADE_PREVENTION + slot, ordinal(order.getSelfTradePrevention()));
+
+        INT_VIEW.setRelease(chunk, versionOffset, version + 2);
+    }
+
+    private void addIfPresent(List<Order> result, long sequence) {
+        Order order = read(sequence);
+        if (order != null) {
+            result.add(order);
+        }
+    }
+
+    private void forEachSlot(SlotVisitor visitor) {
+        ChunkTable current = chunks;
+        long max = maxSequence;
+        for (int index = 0; index < current.chunks.length; index++) {
+            ByteBuffer chunk = current.get(current.first + index);
+            if (chunk == null) {
+                continue;
+            }
+            long base = (current.first + index) << CHUNK_SHIFT;
+            for (int slot = 0; slot < CHUNK_SIZE && base + slot <= max; slot++) {
+                if (version(chunk, slot) != 0) {
+                    visitor.visit(chunk, slot, base + slot);
+                }
+            }
+        }
+    }
+
+    private static long requireSequence(String orderId) {
+        long sequence = IdUtils.orderSequence(orderId);
+        if (sequence <= 0) {
+            throw new OrderException("Order ID cannot be stored off-heap: " + orderId);
+        }
+        return sequence;
+    }
+
+    private static void checkEncodable(Order order) {
+        checkEncodable(order.getPrice());
+        checkEncodable(order.getQuantity());
+        checkEncodable(order.getStopLossPrice());
+        checkEncodable(order.getTakeProfitPrice());
+        checkEncodable(order.getDisplayQuantity());
+    }
+
+    private static void checkEncodable(BigDecimal value) {
+        if (value == null) {
+            return;
+        }
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() > 63 || value.scale() > Byte.MAX_VALUE || value.scale() <= NULL_SCALE) {
+            throw new OrderException("Value cannot be stored off-heap: " + value);
+        }
+    }
+
+    private static void putDecimal(ByteBuffer chunk, int column, int scaleColumn, int slot, BigDecimal value) {
+        if (value == null) {
+            chunk.putLong(column + slot * Long.BYTES, 0L);
+            chunk.put(scaleColumn + slot, NULL_SCALE);
+            return;
+        }
+        chunk.putLong(column + slot * Long.BYTES, value.unscaledValue().longValue());
+        chunk.put(scaleColumn + slot, (byte) value.scale());
+    }
+
+    private static void putTime(ByteBuffer chunk, int column, int slot, LocalDateTime time) {
+        long nanos = time == null ? NULL_TIME : TimeUtils.toEpochNanos(time);
+        chunk.putLong(column + slot * Long.BYTES, nanos);
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return value == null ? NULL_ENUM : (byte) value.ordinal();
+    }
+
+    private interface SlotVisitor {
+        void visit(ByteBuffer chunk, int slot, long sequence);
+    }
+
+    /**
+     * Chunks for a contiguous range of chunk indexes starting at {@code first}. Replaced as a
+     * whole when the range grows, so readers always see a consistent table. A chunk added to a
+     * table already published is stored with a release write and read with an acquire, so a
+     * reader that sees it also sees it allocated.
+     */
+    private static final class ChunkTable {
+        static final ChunkTable EMPTY = new ChunkTable(0, new ByteBuffer[0]);
+        private static final VarHandle CHUNK = MethodHandles.arrayElementVarHandle(ByteBuffer[].class);
+
+        final long first;
+        final ByteBuffer[] chunks;
+
+        ChunkTable(long first, ByteBuffer[] chunks) {
+            this.first = first;
+            this.chunks = chunks;
+        }
+
+        ByteBuffer get(long index) {
+            long offset = index - first;
+            return offset >= 0 && offset < chunks.length ? (ByteBuffer) CHUNK.getAcquire(chunks, (int) offset) : null;
+        }
+
+        // Only under the store's lock, with the index covered
+        void set(long index, ByteBuffer chunk) {
+            CHUNK.setRelease(chunks, (int) (index - first), chunk);
+        }
+
+        // This table if it already covers the index, otherwise a larger copy that does
+        ChunkTable covering(long index) {
+            if (chunks.length == 0) {
+                return new ChunkTable(index, new ByteBuffer[16]);
+            }
+            if (index >= first && index < first + chunks.length) {
+                return this;
+            }
+            long grownFirst = Math.min(first, index);
+            long end = Math.max(first + chunks.length, index + 1);
+            ByteBuffer[] grown = new ByteBuffer[(int) Math.max(chunks.length * 2L, end - grownFirst)];
+            System.arraycopy(chunks, 0, grown, (int) (first - grownFirst), chunks.length);
+            return new ChunkTable(grownFirst, grown);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.phonepe.tradingexchange.repository;
+
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.OrderStatus;
+import com.phonepe.tradingexchange.model.OrderType;
+import com.phonepe.tradingexchange.model.SelfTradePrevention;
+import com.phonepe.tradingexchange.model.TimeInForce;
+import com.phonepe.tradingexchange.util.IdUtils;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+
+import static com.phonepe.tradingexchange.repository.OffHeapOrderStore.CHUNK_MASK;
+
+/**
+ * Reusable, allocation-free view over a single order in an {@link OffHeapOrderStore}.
+ * <p>
+ * Primitive getters read straight from the off-heap columns. Each field read is atomic, but
+ * reads of several fields are not a consistent snapshot while the order is being updated;
+ * use {@link OffHeapOrderStore#findById} when that matters.
+ */
+public class OrderFlyweight {
+    private final OffHeapOrderStore store;
+    private ByteBuffer chunk;
+    private int slot;
+    private long sequence;
+
+    OrderFlyweight(OffHeapOrderStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Points this view at an order.
+     *
+     * @param orderId Order ID to view
+     * @return true if the order exists in the store
+     */
+    public boolean wrap(String orderId) {
+        return wrap(IdUtils.orderSequence(orderId));
+    }
+
+    public boolean wrap(long orderSequence) {
+        ByteBuffer target = orderSequence > 0 ? store.chunkFor(orderSequence, false) : null;
+        int targetSlot = (int) (orderSequence & CHUNK_MASK);
+        if (target == null || OffHeapOrderStore.version(target, targetSlot) == 0) {
+            chunk = null;
+            return false;
+        }
+        chunk = target;
+        slot = targetSlot;
+        sequence = orderSequence;
+        return true;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getOrderId() {
+        return IdUtils.orderId(sequence);
+    }
+
+    public String getUserId() {
+        return store.user(chunk.getInt(OffHeapOrderStore.USER + slot * Integer.BYTES));
+    }
+
+    public String getSymbol() {
+        return store.symbol(chunk.getInt(OffHeapOrderStore.SYMBOL + slot * Integer.BYTES));
+    }
+
+    public OrderSide getSide() {
+        return OffHeapOrderStore.side(chunk, slot);
+    }
+
+    public OrderStatus getStatus() {
+        return OffHeapOrderStore.status(chunk, slot);
+    }
+
+    public OrderType getOrderType() {
+        return OffHeapOrderStore.orderType(chunk, slot);
+    }
+
+    public TimeInForce getTimeInForce() {
+        return OffHeapOrderStore.timeInForce(chunk, slot);
+    }
+
+    public SelfTradePrevention getSelfTradePrevention() {
+        return OffHeapOrderStore.selfTradePrevention(chunk, slot);
+    }
+
+    public long getPriceUnscaled() {
+        return chunk.getLong(OffHeapOrderStore.PRICE + slot * Long.BYTES);
+    }
+
+    public int getPriceScale() {
+        return chunk.get(OffHeapOrderStore.PRICE_SCALE + slot);
+    }
+
+    public long getQuantityUnscaled() {
+        return chunk.getLong(OffHeapOrderStore.QUANTITY + slot * Long.BYTES);
+    }
+
+    public int getQuantityScale() {
+        return chunk.get(OffHeapOrderStore.QUANTITY_SCALE + slot);
+    }
+
+    public BigDecimal getPrice() {
+        return OffHeapOrderStore.decimal(chunk, OffHeapOrderStore.PRICE, OffHeapOrderStore.PRICE_SCALE, slot);
+    }
+
+    public BigDecimal getQuantity() {
+        return OffHeapOrderStore.decimal(chunk, OffHeapOrderStore.QUANTITY, OffHeapOrderStore.QUANTITY_SCALE, slot);
+    }
+
+    public BigDecimal getDisplayQuantity() {
+        return OffHeapOrderStore.decimal(chunk, OffHeapOrderStore.DISPLAY_QUANTITY,
+                OffHeapOrderStore.DISPLAY_QUANTITY_SCALE, slot);
+    }
+
+    public long getCreatedAtNanos() {
+        return chunk.getLong(OffHeapOrderStore.CREATED_AT + slot * Long.BYTES);
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return OffHeapOrderStore.time(chunk, OffHeapOrderStore.CREATED_AT, slot);
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return OffHeapOrderStore.time(chunk, OffHeapOrderStore.UPDATED_AT, slot);
+    }
+
+    public LocalDateTime getExpiryTime() {
+        return OffHeapOrderStore.time(chunk, OffHeapOrderStore.EXPIRY_TIME, slot);
+    }
+
+    public boolean isActive() {
+        return getStatus() == OrderStatus.OPEN;
+    }
+}
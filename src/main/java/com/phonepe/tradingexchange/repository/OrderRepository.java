@@ -2,15 +2,29 @@ package com.phonepe.tradingexchange.repository;
 
 import com.phonepe.tradingexchange.model.Order;
 import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.OrderStatus;
+import com.phonepe.tradingexchange.util.IdUtils;
+import com.phonepe.tradingexchange.util.TimeUtils;
 
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.ArrayList;
 
+/**
+ * Stores orders in two tiers. Open orders live in the hot map as the same heap objects the
+ * order books hold; once an order reaches a terminal status it is moved into a compact,
+ * read-only off-heap cold tier, so the hot map tracks open interest rather than cumulative
+ * volume. Lookups by ID fall back to the cold tier transparently.
+ */
 public class OrderRepository {
     private final ConcurrentHashMap<String, Order> orders = new ConcurrentHashMap<>();
+    private final OffHeapOrderStore coldOrders = new OffHeapOrderStore();
+    // Each user's order sequences, for paged queries without boxing a key per order
+    private final ConcurrentHashMap<String, SequenceIndex> userOrderIndex = new ConcurrentHashMap<>();
     private static OrderRepository INSTANCE ;
     
     private OrderRepository() {}
@@ -26,38 +40,136 @@ public class OrderRepository {
         return INSTANCE;
     }
 
+    /**
+     * Creates a repository that shares no state with the singleton, for isolated engines such
+     * as journal replay.
+     */
+    public static OrderRepository newInstance() {
+        return new OrderRepository();
+    }
+
     public static void reset() {
-        INSTANCE.orders.clear();
+        if (INSTANCE != null) {
+            INSTANCE.orders.clear();
+            INSTANCE.coldOrders.clear();
+            INSTANCE.userOrderIndex.clear();
+        }
     }
 
     public void save(Order order) {
-        orders.put(order.getOrderId(), order);
+        long sequence = IdUtils.orderSequence(order.getOrderId());
+        if (sequence > 0) {
+            LocalDateTime createdAt = order.getCreatedAt();
+            userOrderIndex.computeIfAbsent(order.getUserId(), id -> new SequenceIndex())
+                    .add(sequence, createdAt == null ? Long.MIN_VALUE : TimeUtils.toEpochNanos(createdAt));
+        }
+        if (isArchivable(order)) {
+            coldOrders.save(order);
+        } else {
+            orders.put(order.getOrderId(), order);
+        }
     }
 
     public Optional<Order> findById(String orderId) {
-        return Optional.ofNullable(orders.get(orderId));
+        Order order = orders.get(orderId);
+        if (order != null) {
+            return Optional.of(order);
+        }
+        return coldOrders.findById(orderId);
+    }
+
+    /**
+     * Looks an order up in the cold tier only, never touching the open orders the engine is
+     * still changing. Only orders that have reached a terminal status are found.
+     */
+    public Optional<Order> findArchived(String orderId) {
+        return coldOrders.findById(orderId);
     }
 
     public List<Order> findByUserId(String userId) {
-        return orders.values().stream()
+        List<Order> result = orders.values().stream()
                 .filter(order -> order.getUserId().equals(userId))
                 .collect(Collectors.toList());
+        result.addAll(coldOrders.findByUserId(userId));
+        return result;
+    }
+
+    /**
+     * Returns a page of a user's orders in placement order, reading only as many orders as the
+     * page needs: the index seeks to the first order created at or after {@code from}.
+     *
+     * @param userId User whose orders to return
+     * @param afterCursor Cursor from the previous page, or 0 to start from the first order
+     * @param limit Maximum number of orders in the page
+     * @param from Inclusive lower bound on creation time, or null
+     * @param to Exclusive upper bound on creation time, or null
+     */
+    public Page<Order> findByUserId(String userId, long afterCursor, int limit,
+                                    LocalDateTime from, LocalDateTime to) {
+        SequenceIndex sequences = userOrderIndex.get(userId);
+        if (sequences == null) {
+            return new Page<>(Collections.emptyList(), afterCursor, false);
+        }
+        return Page.collect(sequences.after(afterCursor, from == null ? Long.MIN_VALUE : TimeUtils.toEpochNanos(from))
+                        .mapToObj(sequence -> findById(IdUtils.orderId(sequence)).orElse(null))
+                        .iterator(),
+                order -> IdUtils.orderSequence(order.getOrderId()),
+                Order::getCreatedAt, from, to, limit, afterCursor);
     }
 
     public List<Order> findAll() {
+        List<Order> result = new ArrayList<>(orders.values());
+        result.addAll(coldOrders.findAll());
+        return result;
+    }
+
+    /**
+     * Returns the orders in the hot tier only, i.e. orders that have not reached a terminal status.
+     */
+    public List<Order> findOpenOrders() {
         return new ArrayList<>(orders.values());
     }
 
     public void updateOrder(Order order) {
         if (orders.containsKey(order.getOrderId())) {
-            orders.put(order.getOrderId(), order);
+            if (isArchivable(order)) {
+                archive(order);
+            } else {
+                orders.put(order.getOrderId(), order);
+            }
         }
     }
 
     public void cancelOrder(String orderId) {
-        orders.computeIfPresent(orderId, (id, order) -> {
+        Order cancelled = orders.computeIfPresent(orderId, (id, order) -> {
             order.cancel();
             return order;
         });
+        if (cancelled != null && isArchivable(cancelled)) {
+            archive(cancelled);
+        }
+    }
+
+    public int hotCount() {
+        return orders.size();
+    }
+
+    public int coldCount() {
+        return coldOrders.count();
+    }
+
+    private void archive(Order order) {
+        // Publish to the cold tier before leaving the hot map so lookups never miss the order
+        coldOrders.save(order);
+        orders.remove(order.getOrderId(), order);
+    }
+
+    /**
+     * @return Whether the order has reached a terminal status that moves it to the cold tier
+     */
+    public static boolean isArchivable(Order order) {
+        OrderStatus status = order.getStatus();
+        return (status == OrderStatus.EXECUTED || status == OrderStatus.CANCELLED)
+                && IdUtils.orderSequence(order.getOrderId()) > 0;
     }
 }
\ No newline at end of file
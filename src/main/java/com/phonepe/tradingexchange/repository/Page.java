@@ -0,0 +1,66 @@
+package com.phonepe.tradingexchange.repository;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * One page of a cursor-based query. The cursor is the sequence number of the last element
+ * returned; passing it back as the "after" cursor resumes the query where this page ended.
+ *
+ * @param <T> Element type
+ */
+@Data
+public class Page<T> {
+    private final List<T> items;
+    private final long nextCursor;
+    private final boolean hasMore;
+
+    /**
+     * Builds a page by walking elements in ascending sequence order, filtering them until the
+     * limit is reached. At most {@code limit + 1} matching elements are materialized when the
+     * elements are loaded lazily. Sequences are assigned in time order, so the walk ends at the
+     * first element at or past {@code to}; callers whose index is time-searchable should also
+     * position it at {@code from} rather than have the elements before it loaded and skipped.
+     *
+     * @param elements Elements positioned after the caller's cursor; null elements (e.g. ones
+     *                 that no longer exist) are skipped
+     * @param sequence Extracts the element's sequence number, which becomes the cursor
+     * @param timestamp Extracts the element timestamp used for the time bounds
+     * @param from Inclusive lower time bound, or null for no bound
+     * @param to Exclusive upper time bound, or null for no bound
+     * @param limit Maximum number of elements in the page
+     * @param afterCursor Cursor the query started from
+     */
+    public static <T> Page<T> collect(Iterator<T> elements, ToLongFunction<T> sequence,
+                               Function<T, LocalDateTime> timestamp,
+                               LocalDateTime from, LocalDateTime to,
+                               int limit, long afterCursor) {
+        List<T> items = new ArrayList<>(Math.min(limit, 64));
+        long cursor = afterCursor;
+        while (elements.hasNext()) {
+            T item = elements.next();
+            if (item == null) {
+                continue;
+            }
+            LocalDateTime time = timestamp.apply(item);
+            if (to != null && !time.isBefore(to)) {
+                break;
+            }
+            if (from != null && time.isBefore(from)) {
+                continue;
+            }
+            if (items.size() == limit) {
+                return new Page<>(items, cursor, true);
+            }
+            items.add(item);
+            cursor = sequence.applyAsLong(item);
+        }
+        return new Page<>(items, cursor, false);
+    }
+}
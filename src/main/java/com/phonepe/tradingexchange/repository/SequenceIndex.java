@@ -0,0 +1,107 @@
+package com.phonepe.tradingexchange.repository;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * Ascending sequence numbers with their timestamps, kept in primitive arrays instead of a set
+ * of boxed longs, e.g. one user's orders. The timestamps let a time-bounded query seek
+ * straight to its start.
+ * <p>
+ * Entries are appended in sequence order in the common case. An entry that arrives out of
+ * order (two threads creating and saving orders concurrently) is inserted into a fresh copy
+ * of the arrays, so a reader iterating a snapshot never sees entries move. Index timestamps
+ * are kept non-decreasing, like {@link TradeLog}'s: an entry is indexed no earlier than its
+ * predecessor and no later than its successor.
+ */
+public final class SequenceIndex {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private long[] sequences = new long[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private int size;
+
+    public synchronized void add(long sequence, long timestampNanos) {
+        if (size == 0 || sequences[size - 1] < sequence) {
+            if (size == sequences.length) {
+                sequences = Arrays.copyOf(sequences, size * 2);
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+            }
+            sequences[size] = sequence;
+            timestamps[size] = size == 0 ? timestampNanos : Math.max(timestampNanos, timestamps[size - 1]);
+            size++;
+            return;
+        }
+        int position = Arrays.binarySearch(sequences, 0, size, sequence);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        long timestamp = Math.min(position == 0 ? timestampNanos : Math.max(timestampNanos, timestamps[position - 1]),
+                timestamps[position]);
+        long[] newSequences = new long[Math.max(sequences.length, size + 1)];
+        long[] newTimestamps = new long[newSequences.length];
+        System.arraycopy(sequences, 0, newSequences, 0, position);
+        System.arraycopy(timestamps, 0, newTimestamps, 0, position);
+        newSequences[position] = sequence;
+        newTimestamps[position] = timestamp;
+        System.arraycopy(sequences, position, newSequences, position + 1, size - position);
+        System.arraycopy(timestamps, position, newTimestamps, position + 1, size - position);
+        sequences = newSequences;
+        timestamps = newTimestamps;
+        size++;
+    }
+
+    public synchronized boolean contains(long sequence) {
+        return Arrays.binarySearch(sequences, 0, size, sequence) >= 0;
+    }
+
+    /**
+     * Iterates the sequences after a cursor, skipping straight to the first entry indexed at
+     * or after a time.
+     *
+     * @param afterSequence Exclusive lower bound on the sequence
+     * @param fromNanos Inclusive lower bound on the index timestamp
+     */
+    public LongStream after(long afterSequence, long fromNanos) {
+        long[] snapshotSequences;
+        long[] snapshotTimestamps;
+        int snapshotSize;
+        synchronized (this) {
+            snapshotSequences = sequences;
+            snapshotTimestamps = timestamps;
+            snapshotSize = size;
+        }
+        int start = Math.max(upperBound(snapshotSequences, snapshotSize, afterSequence),
+                lowerBound(snapshotTimestamps, snapshotSize, fromNanos));
+        return Arrays.stream(snapshotSequences, start, snapshotSize);
+    }
+
+    private static int lowerBound(long[] values, int length, long key) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(long[] values, int length, long key) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
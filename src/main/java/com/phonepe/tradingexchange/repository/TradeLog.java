@@ -0,0 +1,274 @@
+package com.phonepe.tradingexchange.repository;
+
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.util.IdUtils;
+import com.phonepe.tradingexchange.util.TimeUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Append-only trade log for a single symbol, indexed by execution time.
+ * <p>
+ * Trades are appended into fixed-size chunks that keep timestamps and trade sequences in
+ * primitive arrays next to the trades themselves. A full chunk is sealed and never written
+ * again, so readers need no locks: a range query binary-searches for the first chunk, then
+ * for the first entry inside it, and streams forward from there.
+ * <p>
+ * Index timestamps are kept non-decreasing: a trade that is appended with an earlier
+ * execution time than its predecessor (possible when two threads match the same symbol) is
+ * indexed at its predecessor's time.
+ */
+public class TradeLog {
+    static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private final int chunkSize;
+    private volatile Chunk[] chunks = new Chunk[8];
+    private volatile int chunkCount;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    public TradeLog() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    TradeLog(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public synchronized void append(Trade trade) {
+        Chunk[] current = chunks;
+        int count = chunkCount;
+        Chunk tail = count == 0 ? null : current[count - 1];
+        boolean sealed = tail == null || tail.size == chunkSize;
+        if (sealed) {
+            tail = new Chunk(chunkSize);
+        }
+        lastTimestamp = Math.max(lastTimestamp, TimeUtils.toEpochNanos(trade.getExecutedAt()));
+        int index = tail.size;
+        tail.timestamps[index] = lastTimestamp;
+        tail.sequences[index] = IdUtils.tradeSequence(trade.getTradeId());
+        tail.trades[index] = trade;
+        // Publishing the new size makes the entry visible to readers
+        tail.size = index + 1;
+
+        // A new chunk is only published once it holds its first entry, so readers never
+        // binary-search over an empty chunk
+        if (sealed) {
+            if (count == current.length) {
+                current = Arrays.copyOf(current, count * 2);
+            }
+            current[count] = tail;
+            chunks = current;
+            chunkCount = count + 1;
+        }
+    }
+
+    /**
+     * Streams the trades executed in {@code [from, to)} in log order.
+     *
+     * @param from Inclusive lower bound, or null for the start of the log
+     * @param to Exclusive upper bound, or null for the end of the log
+     */
+    public Stream<Trade> between(LocalDateTime from, LocalDateTime to) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(range(from, to),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * Streams the trade sequences executed in {@code [from, to)} without touching the trades.
+     *
+     * @param from Inclusive lower bound, or null for the start of the log
+     * @param to Exclusive upper bound, or null for the end of the log
+     */
+    public LongStream sequencesBetween(LocalDateTime from, LocalDateTime to) {
+        RangeIterator range = range(from, to);
+        PrimitiveIterator.OfLong sequences = new PrimitiveIterator.OfLong() {
+            @Override
+            public boolean hasNext() {
+                return range.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                if (!range.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return range.chunk.sequences[range.entryIndex++];
+            }
+        };
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(
+                sequences, Spliterator.ORDERED | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * Iterates the trades after a trade sequence that executed at or after a time, in log
+     * order, for cursor-based paging. Both bounds are found by binary search; the cursor's
+     * relies on a symbol's trades being appended in sequence order, which holds as long as
+     * its commands are not issued concurrently.
+     *
+     * @param afterSequence Exclusive lower bound on the trade sequence
+     * @param from Inclusive lower bound on execution time, or null
+     */
+    public Iterator<Trade> after(long afterSequence, LocalDateTime from) {
+        RangeIterator range = range(from, null);
+        range.skipPast(afterSequence);
+        return range;
+    }
+
+    public long size() {
+        int count = chunkCount;
+        return count == 0 ? 0 : (long) (count - 1) * chunkSize + chunks[count - 1].size;
+    }
+
+    private RangeIterator range(LocalDateTime from, LocalDateTime to) {
+        long fromNanos = from == null ? Long.MIN_VALUE : TimeUtils.toEpochNanos(from);
+        long toNanos = to == null ? Long.MAX_VALUE : TimeUtils.toEpochNanos(to);
+        return new RangeIterator(fromNanos, toNanos);
+    }
+
+    private static final class Chunk {
+        final long[] timestamps;
+        final long[] sequences;
+        final Trade[] trades;
+        volatile int size;
+
+        Chunk(int capacity) {
+            this.timestamps = new long[capacity];
+            this.sequences = new long[capacity];
+            this.trades = new Trade[capacity];
+        }
+    }
+
+    private final class RangeIterator implements Iterator<Trade> {
+        private final long toNanos;
+        private final Chunk[] snapshot;
+        private final int snapshotCount;
+        private int chunkIndex;
+        private int entryIndex;
+        private Chunk chunk;
+        private int chunkLimit;
+
+        RangeIterator(long fromNanos, long toNanos) {
+            this.toNanos = toNanos;
+            this.snapshotCount = chunkCount;
+            this.snapshot = chunks;
+            this.chunkIndex = findChunk(fromNanos);
+            if (chunkIndex < snapshotCount) {
+                loadChunk();
+                this.entryIndex = lowerBound(chunk.timestamps, chunkLimit, fromNanos);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (chunkIndex < snapshotCount) {
+                if (entryIndex < chunkLimit) {
+                    return chunk.timestamps[entryIndex] < toNanos;
+                }
+                chunkIndex++;
+                entryIndex = 0;
+                if (chunkIndex < snapshotCount) {
+                    loadChunk();
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Trade next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return chunk.trades[entryIndex++];
+        }
+
+        /**
+         * Moves forward to the first entry whose sequence is above the given one, unless the
+         * iterator is already past it.
+         */
+        void skipPast(long sequence) {
+            if (snapshotCount == 0) {
+                return;
+            }
+            int low = 0;
+            int high = snapshotCount - 1;
+            int target = 0;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (snapshot[mid].sequences[0] <= sequence) {
+                    target = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            if (target < chunkIndex) {
+                return;
+            }
+            if (target > chunkIndex) {
+                chunkIndex = target;
+                loadChunk();
+                entryIndex = 0;
+            }
+            entryIndex = Math.max(entryIndex, upperBound(chunk.sequences, chunkLimit, sequence));
+        }
+
+        private void loadChunk() {
+            chunk = snapshot[chunkIndex];
+            chunkLimit = chunk.size;
+        }
+
+        // Last chunk whose first timestamp is below the bound; earlier chunks end before it
+        private int findChunk(long fromNanos) {
+            int low = 0;
+            int high = snapshotCount - 1;
+            int result = 0;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (snapshot[mid].timestamps[0] < fromNanos) {
+                    result = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return result;
+        }
+    }
+
+    private static int upperBound(long[] values, int length, long key) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(long[] values, int length, long key) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -1,23 +1,34 @@
 package com.phonepe.tradingexchange.repository;
 
-import com.phonepe.tradingexchange.model.Order;
 import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.util.IdUtils;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.stream.Collectors;
 
 public class TradeRepository {
     private final ConcurrentHashMap<String, Trade> trades = new ConcurrentHashMap<>();
-    
-    
+
+    // Trades keyed by trade sequence per user, for ordered and paged queries; a symbol's trades
+    // are queried from its trade log instead
+    private final ConcurrentHashMap<String, NavigableMap<Long, Trade>> userIndex = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TradeLog> tradeLogs = new ConcurrentHashMap<>();
+
     private static TradeRepository INSTANCE;
-    
+
     private TradeRepository() {
-       
+
     }
-    
+
     public static TradeRepository getInstance() {
         if (INSTANCE == null) {
             synchronized (TradeRepository.class) {
@@ -28,37 +39,133 @@ public class TradeRepository {
         }
         return INSTANCE;
     }
-    
+
+    /**
+     * Creates a repository that shares no state with the singleton, for isolated engines such
+     * as journal replay.
+     */
+    public static TradeRepository newInstance() {
+        return new TradeRepository();
+    }
+
     /**
      * Resets the repository - primarily for testing.
      */
     public static void reset() {
         INSTANCE = null;
     }
-    
+
     public void addTrade(Trade trade) {
         trades.put(trade.getTradeId(), trade);
+        tradeLogs.computeIfAbsent(trade.getSymbol(), symbol -> new TradeLog()).append(trade);
+
+        long sequence = IdUtils.tradeSequence(trade.getTradeId());
+        if (sequence > 0) {
+            index(userIndex, trade.getBuyUserId(), sequence, trade);
+            if (trade.getSellUserId() != null && !trade.getSellUserId().equals(trade.getBuyUserId())) {
+                index(userIndex, trade.getSellUserId(), sequence, trade);
+            }
+        }
     }
-    
+
     public List<Trade> findBySymbol(String symbol) {
-        return trades.values().stream()
-                .filter(trade -> trade.getSymbol().equals(symbol))
-                .collect(Collectors.toList());
+        return findBySymbol(symbol, null, null);
+    }
+
+    /**
+     * Returns a symbol's trades executed in {@code [from, to)}, using the time-indexed trade log
+     * instead of scanning all trades.
+     *
+     * @param symbol Symbol whose trades to return
+     * @param from Inclusive lower bound on execution time, or null
+     * @param to Exclusive upper bound on execution time, or null
+     */
+    public List<Trade> findBySymbol(String symbol, LocalDateTime from, LocalDateTime to) {
+        TradeLog tradeLog = tradeLogs.get(symbol);
+        return tradeLog == null ? new ArrayList<>()
+                : tradeLog.between(from, to).collect(Collectors.toList());
+    }
+
+    public Optional<TradeLog> getTradeLog(String symbol) {
+        return Optional.ofNullable(tradeLogs.get(symbol));
+    }
+
+    /**
+     * @return Every symbol that has traded, live view
+     */
+    public Set<String> getSymbols() {
+        return Collections.unmodifiableSet(tradeLogs.keySet());
     }
-    
+
     public List<Trade> findByUserId(String userId) {
-        OrderRepository orderRepo = OrderRepository.getInstance();
-        return trades.values().stream()
-                .filter(trade -> {
-                    Optional<Order> buyOrder = orderRepo.findById(trade.getBuyOrderId());
-                    Optional<Order> sellOrder = orderRepo.findById(trade.getSellOrderId());
-                    return (buyOrder.isPresent() && buyOrder.get().getUserId().equals(userId)) ||
-                            (sellOrder.isPresent() && sellOrder.get().getUserId().equals(userId));
-                })
-                .collect(Collectors.toList());
-    }
-    
+        NavigableMap<Long, Trade> userTrades = userIndex.get(userId);
+        return userTrades == null ? new ArrayList<>() : new ArrayList<>(userTrades.values());
+    }
+
+    /**
+     * Returns a page of a symbol's trades in execution order, read from its trade log, which
+     * seeks to the cursor and to {@code from} by binary search.
+     *
+     * @param symbol Symbol whose trades to return
+     * @param afterCursor Cursor from the previous page, or 0 to start from the first trade
+     * @param limit Maximum number of trades in the page
+     * @param from Inclusive lower bound on execution time, or null
+     * @param to Exclusive upper bound on execution time, or null
+     */
+    public Page<Trade> findBySymbol(String symbol, long afterCursor, int limit,
+                                    LocalDateTime from, LocalDateTime to) {
+        TradeLog tradeLog = tradeLogs.get(symbol);
+        if (tradeLog == null) {
+            return new Page<>(Collections.emptyList(), afterCursor, false);
+        }
+        return Page.collect(tradeLog.after(afterCursor, from), TradeRepository::sequence, Trade::getExecutedAt,
+                from, to, limit, afterCursor);
+    }
+
+    /**
+     * Returns a page of the trades a user took part in, on either side, in execution order.
+     *
+     * @param userId User whose trades to return
+     * @param afterCursor Cursor from the previous page, or 0 to start from the first trade
+     * @param limit Maximum number of trades in the page
+     * @param from Inclusive lower bound on execution time, or null
+     * @param to Exclusive upper bound on execution time, or null
+     */
+    public Page<Trade> findByUserId(String userId, long afterCursor, int limit,
+                                    LocalDateTime from, LocalDateTime to) {
+        return page(userIndex.get(userId), afterCursor, limit, from, to);
+    }
+
+    /**
+     * Returns all trades ordered by trade sequence.
+     */
+    public List<Trade> findAll() {
+        List<Trade> result = new ArrayList<>(trades.values());
+        result.sort(Comparator.comparingLong(trade -> IdUtils.tradeSequence(trade.getTradeId())));
+        return result;
+    }
+
     public int count() {
         return trades.size();
     }
-} 
\ No newline at end of file
+
+    private static void index(ConcurrentHashMap<String, NavigableMap<Long, Trade>> index,
+                              String key, long sequence, Trade trade) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new ConcurrentSkipListMap<>()).put(sequence, trade);
+        }
+    }
+
+    private static Page<Trade> page(NavigableMap<Long, Trade> index, long afterCursor, int limit,
+                                    LocalDateTime from, LocalDateTime to) {
+        if (index == null) {
+            return new Page<>(Collections.emptyList(), afterCursor, false);
+        }
+        return Page.collect(index.tailMap(afterCursor, false).values().iterator(), TradeRepository::sequence,
+                Trade::getExecutedAt, from, to, limit, afterCursor);
+    }
+
+    private static long sequence(Trade trade) {
+        return IdUtils.tradeSequence(trade.getTradeId());
+    }
+}
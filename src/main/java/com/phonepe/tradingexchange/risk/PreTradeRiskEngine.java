@@ -0,0 +1,299 @@
+package com.phonepe.tradingexchange.risk;
+
+import com.phonepe.tradingexchange.common.Constants;
+import com.phonepe.tradingexchange.exception.RiskLimitException;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process pre-trade risk checks. Open quantity, open notional, position and open order
+ * count are kept per user and symbol in atomic fixed-point counters, which the matching engine
+ * updates as orders are accepted, filled, modified and cancelled. Checking an order is a few
+ * map lookups and atomic adds, whatever the size of the book.
+ * <p>
+ * Exposure is reserved optimistically: an order's exposure is added first and rolled back if a
+ * limit is exceeded, so concurrent orders and modifies from one user can never overshoot a
+ * limit together; at worst one of them is rejected conservatively. Amounts are rounded up to
+ * {@link Constants#RISK_SCALE} decimal places, and every update is computed as the difference
+ * of two rounded totals so the rounding never drifts.
+ */
+public class PreTradeRiskEngine {
+    private static final BigDecimal UNIT = BigDecimal.ONE.movePointLeft(Constants.RISK_SCALE);
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, RiskAccount>> accounts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Limits> userLimits = new ConcurrentHashMap<>();
+    private volatile Limits defaultLimits = Limits.UNLIMITED;
+
+    private static PreTradeRiskEngine INSTANCE;
+
+    public PreTradeRiskEngine() {}
+
+    public static PreTradeRiskEngine getInstance() {
+        if (INSTANCE == null) {
+            synchronized (PreTradeRiskEngine.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new PreTradeRiskEngine();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Resets the risk engine - primarily for testing.
+     */
+    public static void reset() {
+        INSTANCE = null;
+    }
+
+    /**
+     * Sets the limits applied to users without limits of their own.
+     */
+    public void setDefaultLimits(RiskLimits limits) {
+        defaultLimits = Limits.of(limits);
+    }
+
+    /**
+     * Sets limits for one user, overriding the defaults; null reverts to the defaults.
+     */
+    public void setUserLimits(String userId, RiskLimits limits) {
+        if (limits == null) {
+            userLimits.remove(userId);
+        } else {
+            userLimits.put(userId, Limits.of(limits));
+        }
+    }
+
+    /**
+     * Checks an incoming order against its user's limits and reserves its exposure.
+     *
+     * @throws RiskLimitException If accepting the order would breach a limit; nothing is reserved
+     */
+    public void reserve(Order order) throws RiskLimitException {
+        Limits limits = limitsFor(order.getUserId());
+        long quantity = units(order.getQuantity());
+        long notional = units(order.getPrice().multiply(order.getQuantity()));
+        checkOrder(limits, quantity, notional);
+
+        RiskAccount account = account(order.getUserId(), order.getSymbol());
+        reserveWithin(account.openOrders, 1, limits.maxOpenOrders, "Open order limit exceeded");
+        try {
+            reserveWithin(account.openNotional, notional, limits.maxOpenNotional, "Open notional limit exceeded");
+            try {
+                reservePosition(account, order.getSide(), quantity, limits.maxPosition);
+            } catch (RiskLimitException e) {
+                account.openNotional.addAndGet(-notional);
+                throw e;
+            }
+        } catch (RiskLimitException e) {
+            account.openOrders.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks that modifying an open order would stay within its user's limits and reserves any
+     * exposure the modification adds, like {@link #reserve}. Exposure it removes is only
+     * released by {@link #replace} once the change has been made; if the modification does
+     * not go ahead, undo the reservation with {@link #releaseReplacement}. Call before
+     * changing the order.
+     *
+     * @param newPrice New price, or null if unchanged
+     * @param newQuantity New quantity, or null if unchanged
+     * @throws RiskLimitException If the modification would breach a limit; nothing is reserved
+     */
+    public void reserveReplacement(Order order, BigDecimal newPrice, BigDecimal newQuantity) throws RiskLimitException {
+        BigDecimal price = newPrice != null ? newPrice : order.getPrice();
+        BigDecimal quantity = newQuantity != null ? newQuantity : order.getQuantity();
+        Limits limits = limitsFor(order.getUserId());
+        checkOrder(limits, units(quantity), units(price.multiply(quantity)));
+
+        RiskAccount account = account(order.getUserId(), order.getSymbol());
+        long notional = Math.max(0, notionalDelta(order.getPrice(), order.getQuantity(), price, quantity));
+        long units = Math.max(0, units(quantity) - units(order.getQuantity()));
+        reserveWithin(account.openNotional, notional, limits.maxOpenNotional, "Open notional limit exceeded");
+        try {
+            reservePosition(account, order.getSide(), units, limits.maxPosition);
+        } catch (RiskLimitException e) {
+            account.openNotional.addAndGet(-notional);
+            throw e;
+        }
+    }
+
+    /**
+     * Undoes {@link #reserveReplacement} for a modification that was not made.
+     */
+    public void releaseReplacement(Order order, BigDecimal newPrice, BigDecimal newQuantity) {
+        BigDecimal price = newPrice != null ? newPrice : order.getPrice();
+        BigDecimal quantity = newQuantity != null ? newQuantity : order.getQuantity();
+        RiskAccount account = account(order.getUserId(), order.getSymbol());
+        account.openNotional.addAndGet(-Math.max(0, notionalDelta(order.getPrice(), order.getQuantity(), price, quantity)));
+        openQuantity(account, order.getSide()).addAndGet(-Math.max(0, units(quantity) - units(order.getQuantity())));
+    }
+
+    /**
+     * Completes a modification made to an open order, releasing the exposure it removed; what
+     * it added was reserved by {@link #reserveReplacement}.
+     */
+    public void replace(Order order, BigDecimal oldPrice, BigDecimal oldQuantity) {
+        RiskAccount account = account(order.getUserId(), order.getSymbol());
+        account.openNotional.addAndGet(Math.min(0,
+                notionalDelta(oldPrice, oldQuantity, order.getPrice(), order.getQuantity())));
+        openQuantity(account, order.getSide()).addAndGet(Math.min(0,
+                units(order.getQuantity()) - units(oldQuantity)));
+    }
+
+    /**
+     * Moves filled quantity from open exposure into the position. Call after the order has
+     * been filled.
+     *
+     * @param quantity Quantity just filled
+     */
+    public void onFill(Order order, BigDecimal quantity) {
+        reduce(order, quantity, BigDecimal.ZERO);
+    }
+
+    /**
+     * Takes quantity out of an open order's exposure after the order has been reduced:
+     * filled quantity moves into the position, cancelled quantity (by self-trade prevention)
+     * is simply dropped.
+     *
+     * @param filled Quantity just filled
+     * @param cancelled Quantity just cancelled while the order stays open
+     */
+    public void reduce(Order order, BigDecimal filled, BigDecimal cancelled) {
+        RiskAccount account = account(order.getUserId(), order.getSymbol());
+        BigDecimal remaining = order.getQuantity();
+        BigDecimal unfilled = remaining.add(cancelled);
+        BigDecimal before = unfilled.add(filled);
+        long filledUnits = units(before) - units(unfilled);
+        account.openNotional.addAndGet(units(order.getPrice().multiply(remaining))
+                - units(order.getPrice().multiply(before)));
+        openQuantity(account, order.getSide()).addAndGet(units(remaining) - units(before));
+        account.position.addAndGet(order.getSide() == OrderSide.BUY ? filledUnits : -filledUnits);
+        if (remaining.signum() == 0) {
+            account.openOrders.decrementAndGet();
+        }
+    }
+
+    /**
+     * Releases the exposure of an order's unfilled quantity once it is cancelled or expired.
+     */
+    public void release(Order order) {
+        RiskAccount account = account(order.getUserId(), order.getSymbol());
+        account.openNotional.addAndGet(-units(order.getPrice().multiply(order.getQuantity())));
+        openQuantity(account, order.getSide()).addAndGet(-units(order.getQuantity()));
+        account.openOrders.decrementAndGet();
+    }
+
+    public RiskExposure getExposure(String userId, String symbol) {
+        RiskAccount account = account(userId, symbol);
+        return RiskExposure.builder()
+                .userId(userId)
+                .symbol(symbol)
+                .openBuyQuantity(decimal(account.openBuyQuantity.get()))
+                .openSellQuantity(decimal(account.openSellQuantity.get()))
+                .openNotional(decimal(account.openNotional.get()))
+                .position(decimal(account.position.get()))
+                .openOrders(account.openOrders.get())
+                .build();
+    }
+
+    private Limits limitsFor(String userId) {
+        Limits limits = userLimits.get(userId);
+        return limits != null ? limits : defaultLimits;
+    }
+
+    private RiskAccount account(String userId, String symbol) {
+        ConcurrentHashMap<String, RiskAccount> bySymbol = accounts.get(userId);
+        if (bySymbol == null) {
+            bySymbol = accounts.computeIfAbsent(userId, id -> new ConcurrentHashMap<>());
+        }
+        RiskAccount account = bySymbol.get(symbol);
+        return account != null ? account : bySymbol.computeIfAbsent(symbol, s -> new RiskAccount());
+    }
+
+    private static long notionalDelta(BigDecimal oldPrice, BigDecimal oldQuantity, BigDecimal price, BigDecimal quantity) {
+        return units(price.multiply(quantity)) - units(oldPrice.multiply(oldQuantity));
+    }
+
+    private static void checkOrder(Limits limits, long quantity, long notional) {
+        if (quantity > limits.maxOrderQuantity) {
+            throw new RiskLimitException("Order quantity limit exceeded");
+        }
+        if (notional > limits.maxOrderNotional) {
+            throw new RiskLimitException("Order notional limit exceeded");
+        }
+    }
+
+    private static void reserveWithin(AtomicLong counter, long amount, long limit, String message) {
+        if (counter.addAndGet(amount) > limit) {
+            counter.addAndGet(-amount);
+            throw new RiskLimitException(message);
+        }
+    }
+
+    private static void reservePosition(RiskAccount account, OrderSide side, long quantity, long limit) {
+        AtomicLong open = openQuantity(account, side);
+        open.addAndGet(quantity);
+        if (worstPosition(account, side, 0) > limit) {
+            open.addAndGet(-quantity);
+            throw new RiskLimitException("Position limit exceeded");
+        }
+    }
+
+    // Absolute position reached if every open order on the side filled
+    private static long worstPosition(RiskAccount account, OrderSide side, long extraQuantity) {
+        long position = account.position.get();
+        return side == OrderSide.BUY
+                ? position + account.openBuyQuantity.get() + extraQuantity
+                : account.openSellQuantity.get() + extraQuantity - position;
+    }
+
+    private static AtomicLong openQuantity(RiskAccount account, OrderSide side) {
+        return side == OrderSide.BUY ? account.openBuyQuantity : account.openSellQuantity;
+    }
+
+    static long units(BigDecimal value) {
+        return value.setScale(Constants.RISK_SCALE, RoundingMode.UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal decimal(long units) {
+        return UNIT.multiply(BigDecimal.valueOf(units));
+    }
+
+    /**
+     * {@link RiskLimits} converted to fixed-point units once, so checks compare longs.
+     */
+    private static final class Limits {
+        static final Limits UNLIMITED = of(RiskLimits.unlimited());
+
+        final long maxOrderQuantity;
+        final long maxOrderNotional;
+        final long maxOpenNotional;
+        final long maxPosition;
+        final long maxOpenOrders;
+
+        private Limits(RiskLimits limits) {
+            this.maxOrderQuantity = limit(limits.getMaxOrderQuantity());
+            this.maxOrderNotional = limit(limits.getMaxOrderNotional());
+            this.maxOpenNotional = limit(limits.getMaxOpenNotional());
+            this.maxPosition = limit(limits.getMaxPosition());
+            this.maxOpenOrders = limits.getMaxOpenOrders() > 0 ? limits.getMaxOpenOrders() : Long.MAX_VALUE;
+        }
+
+        static Limits of(RiskLimits limits) {
+            return new Limits(limits);
+        }
+
+        private static long limit(BigDecimal value) {
+            return value == null ? Long.MAX_VALUE
+                    : value.setScale(Constants.RISK_SCALE, RoundingMode.DOWN).unscaledValue().longValueExact();
+        }
+    }
+}
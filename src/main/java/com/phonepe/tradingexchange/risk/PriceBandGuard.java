@@ -0,0 +1,183 @@
+package com.phonepe.tradingexchange.risk;
+
+import com.phonepe.tradingexchange.exception.PriceBandException;
+import com.phonepe.tradingexchange.model.OrderSide;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Guards symbols against fat-finger prices and runaway moves. Incoming prices are checked
+ * against a static band, a dynamic band around the last trade and one around the best opposite
+ * price; all limits are held as doubles, so the accept path is a few primitive comparisons.
+ * <p>
+ * The circuit breaker anchors each symbol's price at the start of a window. A crossing order
+ * priced further from the anchor than the breaker allows is not rejected: the engine halts
+ * the symbol into a call auction, so the move is priced by an uncross instead of a sweep
+ * through the book and the stop orders behind it. The first trade after a halt re-anchors.
+ */
+public class PriceBandGuard {
+    private final ConcurrentHashMap<String, Bands> symbolBands = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, SymbolPrices> prices = new ConcurrentHashMap<>();
+    private volatile Bands defaultBands = Bands.DISABLED;
+
+    private static PriceBandGuard INSTANCE;
+
+    public PriceBandGuard() {}
+
+    public static PriceBandGuard getInstance() {
+        if (INSTANCE == null) {
+            synchronized (PriceBandGuard.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new PriceBandGuard();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Resets the guard - primarily for testing.
+     */
+    public static void reset() {
+        INSTANCE = null;
+    }
+
+    /**
+     * Sets the policy for symbols without a policy of their own.
+     */
+    public void setDefaultPolicy(PriceBandPolicy policy) {
+        defaultBands = new Bands(policy);
+    }
+
+    /**
+     * Sets one symbol's policy, overriding the default; null reverts to the default.
+     */
+    public void setPolicy(String symbol, PriceBandPolicy policy) {
+        if (policy == null) {
+            symbolBands.remove(symbol);
+        } else {
+            symbolBands.put(symbol, new Bands(policy));
+        }
+    }
+
+    /**
+     * Checks an incoming price.
+     *
+     * @param bestOpposite Best price on the other side of the book if the order can trade on
+     *                     arrival, otherwise null; only then do the top-of-book band and the
+     *                     circuit breaker apply
+     * @param now Engine time of the check
+     * @return Whether the symbol must be halted into an auction before the order is accepted
+     * @throws PriceBandException If the price is outside a band
+     */
+    public boolean check(String symbol, OrderSide side, BigDecimal price, BigDecimal bestOpposite,
+                         LocalDateTime now) throws PriceBandException {
+        Bands bands = bandsFor(symbol);
+        if (bands == Bands.DISABLED) {
+            return false;
+        }
+        double value = price.doubleValue();
+        if (value < bands.minPrice || value > bands.maxPrice) {
+            throw new PriceBandException("Price outside the static band for " + symbol + ": " + price);
+        }
+        boolean buying = side == OrderSide.BUY;
+        SymbolPrices state = prices.get(symbol);
+        double lastTrade = state == null ? Double.NaN : state.lastTrade;
+        if (beyond(buying, value, lastTrade, bands.lastTradeBand)) {
+            throw new PriceBandException("Price too far from the last trade for " + symbol + ": " + price);
+        }
+        if (bestOpposite == null) {
+            return false;
+        }
+        double opposite = bestOpposite.doubleValue();
+        if (beyond(buying, value, opposite, bands.topOfBookBand)) {
+            throw new PriceBandException("Price too far through the top of book for " + symbol + ": " + price);
+        }
+        boolean crosses = buying ? value >= opposite : value <= opposite;
+        if (crosses && state != null && bands.breaker > 0) {
+            double anchor = nanos(now) - state.anchorNanos > bands.windowNanos ? lastTrade : state.anchor;
+            if (beyond(buying, value, anchor, bands.breaker)) {
+                state.anchor = Double.NaN;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records a trade price, moving the reference of the dynamic band and, once the window has
+     * passed or after a halt, the circuit breaker's anchor.
+     */
+    public void onTrade(String symbol, BigDecimal price, LocalDateTime at) {
+        SymbolPrices state = prices.get(symbol);
+        if (state == null) {
+            state = prices.computeIfAbsent(symbol, s -> new SymbolPrices());
+        }
+        double value = price.doubleValue();
+        long atNanos = nanos(at);
+        state.lastTrade = value;
+        if (Double.isNaN(state.anchor) || atNanos - state.anchorNanos > bandsFor(symbol).windowNanos) {
+            state.anchor = value;
+            state.anchorNanos = atNanos;
+        }
+    }
+
+    /**
+     * @return The last trade price seen for the symbol, or null if none
+     */
+    public BigDecimal getLastTradePrice(String symbol) {
+        SymbolPrices state = prices.get(symbol);
+        return state == null || Double.isNaN(state.lastTrade) ? null : BigDecimal.valueOf(state.lastTrade);
+    }
+
+    private Bands bandsFor(String symbol) {
+        Bands bands = symbolBands.get(symbol);
+        return bands != null ? bands : defaultBands;
+    }
+
+    // NaN references and disabled bands never reject
+    private static boolean beyond(boolean buying, double price, double reference, double band) {
+        if (band <= 0 || Double.isNaN(reference)) {
+            return false;
+        }
+        return buying ? price > reference * (1 + band) : price < reference * (1 - band);
+    }
+
+    private static long nanos(LocalDateTime time) {
+        return TimeUnit.SECONDS.toNanos(time.toEpochSecond(ZoneOffset.UTC)) + time.getNano();
+    }
+
+    /**
+     * A {@link PriceBandPolicy} converted to primitives once.
+     */
+    private static final class Bands {
+        static final Bands DISABLED = new Bands(PriceBandPolicy.disabled());
+
+        final double minPrice;
+        final double maxPrice;
+        final double lastTradeBand;
+        final double topOfBookBand;
+        final double breaker;
+        final long windowNanos;
+
+        private Bands(PriceBandPolicy policy) {
+            this.minPrice = policy.getMinPrice() == null ? Double.NEGATIVE_INFINITY : policy.getMinPrice().doubleValue();
+            this.maxPrice = policy.getMaxPrice() == null ? Double.POSITIVE_INFINITY : policy.getMaxPrice().doubleValue();
+            this.lastTradeBand = policy.getLastTradeBandPercent() / 100;
+            this.topOfBookBand = policy.getTopOfBookBandPercent() / 100;
+            this.breaker = policy.getCircuitBreakerPercent() / 100;
+            this.windowNanos = policy.getCircuitBreakerWindow() == null
+                    ? Long.MAX_VALUE : policy.getCircuitBreakerWindow().toNanos();
+        }
+    }
+
+    private static final class SymbolPrices {
+        private volatile double lastTrade = Double.NaN;
+        private volatile double anchor = Double.NaN;
+        private volatile long anchorNanos;
+    }
+}
@@ -0,0 +1,30 @@
+package com.phonepe.tradingexchange.risk;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Price bands and circuit breaker for a symbol. Percentages of zero, and null prices, switch
+ * the corresponding check off.
+ */
+@Data
+@Builder(toBuilder = true)
+public class PriceBandPolicy {
+    // Static band: orders priced outside [minPrice, maxPrice] are always rejected
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+    // Dynamic bands: buys priced more than this far above the reference (sells below it) are rejected
+    private final double lastTradeBandPercent;
+    private final double topOfBookBandPercent;
+    // A crossing order priced more than this far from where the price stood at the start of
+    // the window halts the symbol into a call auction instead of trading
+    private final double circuitBreakerPercent;
+    private final Duration circuitBreakerWindow;
+
+    public static PriceBandPolicy disabled() {
+        return PriceBandPolicy.builder().build();
+    }
+}
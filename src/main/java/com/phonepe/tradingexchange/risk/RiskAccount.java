@@ -0,0 +1,15 @@
+package com.phonepe.tradingexchange.risk;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Risk counters for one user and symbol, as fixed-point longs in units of
+ * 10^-{@link com.phonepe.tradingexchange.common.Constants#RISK_SCALE}.
+ */
+class RiskAccount {
+    final AtomicLong openBuyQuantity = new AtomicLong();
+    final AtomicLong openSellQuantity = new AtomicLong();
+    final AtomicLong openNotional = new AtomicLong();
+    final AtomicLong position = new AtomicLong();
+    final AtomicLong openOrders = new AtomicLong();
+}
@@ -0,0 +1,22 @@
+package com.phonepe.tradingexchange.risk;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Point-in-time view of one user's risk counters for a symbol.
+ */
+@Data
+@Builder
+public class RiskExposure {
+    private final String userId;
+    private final String symbol;
+    private final BigDecimal openBuyQuantity;
+    private final BigDecimal openSellQuantity;
+    private final BigDecimal openNotional;
+    // Net filled quantity, positive when long
+    private final BigDecimal position;
+    private final long openOrders;
+}
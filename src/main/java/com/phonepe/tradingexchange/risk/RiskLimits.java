@@ -0,0 +1,28 @@
+package com.phonepe.tradingexchange.risk;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Pre-trade limits applied per user and symbol. A null limit, or zero open orders, means
+ * no limit.
+ */
+@Data
+@Builder(toBuilder = true)
+public class RiskLimits {
+    // Largest quantity of a single order
+    private final BigDecimal maxOrderQuantity;
+    // Largest price times quantity of a single order
+    private final BigDecimal maxOrderNotional;
+    // Largest combined notional of open orders
+    private final BigDecimal maxOpenNotional;
+    // Largest absolute position the user could reach if every open order on one side filled
+    private final BigDecimal maxPosition;
+    private final int maxOpenOrders;
+
+    public static RiskLimits unlimited() {
+        return RiskLimits.builder().build();
+    }
+}
@@ -1,26 +1,47 @@
 package com.phonepe.tradingexchange.service;
 
+import com.phonepe.tradingexchange.admission.AdmissionController;
+import com.phonepe.tradingexchange.admission.AdmissionLane;
+import com.phonepe.tradingexchange.common.Constants;
 import com.phonepe.tradingexchange.engine.MatchingEngine;
 import com.phonepe.tradingexchange.engine.OrderExpiryManager;
 import com.phonepe.tradingexchange.exception.OrderException;
 import com.phonepe.tradingexchange.exception.TradingException;
+import com.phonepe.tradingexchange.journal.CommandType;
+import com.phonepe.tradingexchange.metrics.LatencyRecorder;
+import com.phonepe.tradingexchange.metrics.LatencyStage;
 import com.phonepe.tradingexchange.model.Order;
 import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.SelfTradePrevention;
+import com.phonepe.tradingexchange.model.TimeInForce;
 import com.phonepe.tradingexchange.model.Trade;
 import com.phonepe.tradingexchange.model.User;
+import com.phonepe.tradingexchange.position.Position;
+import com.phonepe.tradingexchange.position.PositionService;
+import com.phonepe.tradingexchange.readmodel.ReadModel;
+import com.phonepe.tradingexchange.readmodel.TopOfBook;
 import com.phonepe.tradingexchange.repository.OrderRepository;
+import com.phonepe.tradingexchange.repository.Page;
 import com.phonepe.tradingexchange.repository.TradeRepository;
 import com.phonepe.tradingexchange.repository.UserRepository;
+import com.phonepe.tradingexchange.throttle.MessageThrottle;
 import com.phonepe.tradingexchange.util.ValidationUtils;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public class TradingService {
     private final MatchingEngine matchingEngine;
     private final UserRepository userRepository;
     private final OrderRepository orderRepository;
     private final TradeRepository tradeRepository;
+    private final MessageThrottle throttle;
+    private final AdmissionController admission;
+    private final PositionService positions;
+    private final ReadModel readModel;
     
     private static TradingService INSTANCE;
     
@@ -29,7 +50,16 @@ public class TradingService {
         this.userRepository = UserRepository.getInstance();
         this.orderRepository = OrderRepository.getInstance();
         this.tradeRepository = TradeRepository.getInstance();       
+        this.throttle = MessageThrottle.getInstance();
+        this.admission = AdmissionController.getInstance();
+        this.positions = PositionService.getInstance();
+        this.readModel = ReadModel.getInstance();
         this.matchingEngine.setRepositories(orderRepository, tradeRepository);
+        this.matchingEngine.getMetrics().registerGauge("throttled.user", throttle::getUserThrottled);
+        this.matchingEngine.getMetrics().registerGauge("throttled.symbol", throttle::getSymbolThrottled);
+        this.matchingEngine.getMetrics().registerGauge("admission.inFlight", admission::getInFlight);
+        this.matchingEngine.getMetrics().registerGauge("admission.ordersRejected", admission::getOrdersRejected);
+        this.matchingEngine.getMetrics().registerGauge("admission.cancelsRejected", admission::getCancelsRejected);
         OrderExpiryManager.getInstance();
     }
     
@@ -54,34 +84,173 @@ public class TradingService {
             throw new TradingException("Failed to register user: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Registers a user created elsewhere under its existing id, e.g. by the router of a
+     * partitioned deployment, which registers every user with every partition.
+     */
+    public User registerUser(User user) throws TradingException {
+        try {
+            ValidationUtils.validateUserDetails(user.getName(), user.getEmail());
+            userRepository.addUser(user);
+            return user;
+        } catch (Exception e) {
+            throw new TradingException("Failed to register user: " + e.getMessage(), e);
+        }
+    }
     
     public Order placeOrder(String userId, String symbol, OrderSide side, 
                           BigDecimal price, BigDecimal quantity) throws OrderException {
+        return placeOrder(userId, symbol, side, price, quantity, TimeInForce.GTC);
+    }
+
+    /**
+     * Places an order with the given time in force. IOC and FOK orders are matched on arrival
+     * and never rest in the book; check the returned order's status and quantity for the outcome.
+     */
+    public Order placeOrder(String userId, String symbol, OrderSide side, BigDecimal price,
+                          BigDecimal quantity, TimeInForce timeInForce) throws OrderException {
+        return placeOrder(userId, symbol, side, price, quantity, timeInForce, SelfTradePrevention.NONE);
+    }
+
+    /**
+     * Places an order that will not trade against the same user's resting orders; the
+     * self-trade prevention mode decides which side is cancelled or reduced instead.
+     */
+    public Order placeOrder(String userId, String symbol, OrderSide side, BigDecimal price, BigDecimal quantity,
+                          TimeInForce timeInForce, SelfTradePrevention selfTradePrevention) throws OrderException {
+        LatencyRecorder latencies = matchingEngine.getLatencyRecorder();
+        long start = latencies.start();
+        throttle.acquire(userId, symbol);
+        admission.enter(symbol, AdmissionLane.ORDER);
         try {
             ValidationUtils.validateOrderParameters(userId, symbol, price, quantity);
-            Order order = Order.createOrder(userId, symbol, side, price, quantity);
+            Order order = Order.createOrder(userId, symbol, side, price, quantity, timeInForce);
+            order.setSelfTradePrevention(selfTradePrevention);
             matchingEngine.placeOrder(order);
+            latencies.record(symbol, CommandType.PLACE_ORDER, LatencyStage.TOTAL, start);
             return order;
         } catch (OrderException e) {
             throw e;
         } catch (Exception e) {
             throw new OrderException("Failed to place order: " + e.getMessage(), e);
+        } finally {
+            admission.exit(symbol);
+        }
+    }
+    
+    public Order placeStopLossOrder(String userId, String symbol, OrderSide side, BigDecimal price,
+                                    BigDecimal quantity, BigDecimal stopLossPrice) throws OrderException {
+        throttle.acquire(userId, symbol);
+        admission.enter(symbol, AdmissionLane.ORDER);
+        try {
+            ValidationUtils.validateOrderParameters(userId, symbol, price, quantity);
+            ValidationUtils.validatePrice(stopLossPrice);
+            Order order = Order.createStopLossOrder(userId, symbol, side, price, quantity, stopLossPrice);
+            matchingEngine.placeOrder(order);
+            return order;
+        } catch (OrderException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new OrderException("Failed to place stop-loss order: " + e.getMessage(), e);
+        } finally {
+            admission.exit(symbol);
+        }
+    }
+
+    public Order placeTakeProfitOrder(String userId, String symbol, OrderSide side, BigDecimal price,
+                                      BigDecimal quantity, BigDecimal takeProfitPrice) throws OrderException {
+        throttle.acquire(userId, symbol);
+        admission.enter(symbol, AdmissionLane.ORDER);
+        try {
+            ValidationUtils.validateOrderParameters(userId, symbol, price, quantity);
+            ValidationUtils.validatePrice(takeProfitPrice);
+            Order order = Order.createTakeProfitOrder(userId, symbol, side, price, quantity, takeProfitPrice);
+            matchingEngine.placeOrder(order);
+            return order;
+        } catch (OrderException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new OrderException("Failed to place take-profit order: " + e.getMessage(), e);
+        } finally {
+            admission.exit(symbol);
+        }
+    }
+    
+    /**
+     * Places an iceberg order that shows at most {@code displayQuantity} in the book at a time.
+     * Each filled slice is replaced from the hidden reserve at the back of its price level.
+     */
+    public Order placeIcebergOrder(String userId, String symbol, OrderSide side, BigDecimal price,
+                                   BigDecimal quantity, BigDecimal displayQuantity) throws OrderException {
+        throttle.acquire(userId, symbol);
+        admission.enter(symbol, AdmissionLane.ORDER);
+        try {
+            ValidationUtils.validateOrderParameters(userId, symbol, price, quantity);
+            ValidationUtils.validateDisplayQuantity(displayQuantity, quantity);
+            Order order = Order.createIcebergOrder(userId, symbol, side, price, quantity, displayQuantity);
+            matchingEngine.placeOrder(order);
+            return order;
+        } catch (OrderException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new OrderException("Failed to place iceberg order: " + e.getMessage(), e);
+        } finally {
+            admission.exit(symbol);
         }
     }
     
+    /**
+     * Cancels an order. Cancels are never throttled and take the admission controller's cancel
+     * lane, so they still get through while new orders are being shed.
+     */
     public void cancelOrder(String orderId) throws OrderException {
+        admission.enter(null, AdmissionLane.CANCEL);
         try {
             matchingEngine.cancelOrder(orderId);
         } catch (OrderException e) {
             throw e;
         } catch (Exception e) {
             throw new OrderException("Failed to cancel order: " + e.getMessage(), e);
+        } finally {
+            admission.exit(null);
         }
     }
     
+    /**
+     * @return The symbol an order trades, if the order exists
+     */
+    public Optional<String> getOrderSymbol(String orderId) {
+        return orderId == null ? Optional.empty() : orderRepository.findById(orderId).map(Order::getSymbol);
+    }
+
+    /**
+     * Waits until queries reflect every command completed before the call. Queries are served
+     * from the read model, which trails the engine slightly.
+     *
+     * @return Whether the read model caught up before the timeout
+     */
+    public boolean awaitReadModel(Duration timeout) {
+        return readModel.awaitProjected(timeout);
+    }
+    
     public List<Order> getUserOrders(String userId) throws TradingException {
         try {
-            return orderRepository.findByUserId(userId);
+            return readModel.findOrdersByUser(userId);
+        } catch (Exception e) {
+            throw new TradingException("Failed to get user orders: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Returns one page of a user's orders. Pass the previous page's cursor to continue,
+     * or 0 to start from the user's first order.
+     */
+    public Page<Order> getUserOrders(String userId, long afterCursor, int limit,
+                                     LocalDateTime from, LocalDateTime to) throws TradingException {
+        ValidationUtils.validatePageRequest(afterCursor, limit, from, to);
+        try {
+            return readModel.findOrdersByUser(userId, afterCursor, limit, from, to);
         } catch (Exception e) {
             throw new TradingException("Failed to get user orders: " + e.getMessage(), e);
         }
@@ -89,41 +258,136 @@ public class TradingService {
     
     public List<Trade> getUserTrades(String userId) throws TradingException {
         try {
-            return tradeRepository.findByUserId(userId);
+            return readModel.findTradesByUser(userId);
+        } catch (Exception e) {
+            throw new TradingException("Failed to get user trades: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns one page of the trades a user took part in. Pass the previous page's cursor to
+     * continue, or 0 to start from the user's first trade.
+     */
+    public Page<Trade> getUserTrades(String userId, long afterCursor, int limit,
+                                     LocalDateTime from, LocalDateTime to) throws TradingException {
+        ValidationUtils.validatePageRequest(afterCursor, limit, from, to);
+        try {
+            return readModel.findTradesByUser(userId, afterCursor, limit, from, to);
         } catch (Exception e) {
             throw new TradingException("Failed to get user trades: " + e.getMessage(), e);
         }
     }
+    
+    /**
+     * Returns the user's position and P&L in a symbol, kept up to date from the trade stream.
+     */
+    public Position getPosition(String userId, String symbol) {
+        return positions.getPosition(userId, symbol);
+    }
+
+    public List<Position> getPositions(String userId) {
+        return positions.getPositions(userId);
+    }
+    
     public List<Trade> getSymbolTrades(String symbol) throws TradingException {
         try {
-            return tradeRepository.findBySymbol(symbol);
+            return readModel.findTradesBySymbol(symbol);
+        } catch (Exception e) {
+            throw new TradingException("Failed to get symbol trades: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns one page of a symbol's trades. Pass the previous page's cursor to continue,
+     * or 0 to start from the symbol's first trade.
+     */
+    public Page<Trade> getSymbolTrades(String symbol, long afterCursor, int limit,
+                                       LocalDateTime from, LocalDateTime to) throws TradingException {
+        ValidationUtils.validatePageRequest(afterCursor, limit, from, to);
+        try {
+            return readModel.findTradesBySymbol(symbol, afterCursor, limit, from, to);
         } catch (Exception e) {
             throw new TradingException("Failed to get symbol trades: " + e.getMessage(), e);
         }
     }
+    
+    /**
+     * Returns a symbol's trades executed in {@code [from, to)}; either bound may be null.
+     */
+    public List<Trade> getSymbolTrades(String symbol, LocalDateTime from, LocalDateTime to) throws TradingException {
+        try {
+            return readModel.findTradesBySymbol(symbol, from, to);
+        } catch (Exception e) {
+            throw new TradingException("Failed to get symbol trades: " + e.getMessage(), e);
+        }
+    }
+    
     public String getMarketData(String symbol) throws TradingException {
         try {
-            var orderBook = matchingEngine.getOrderBook(symbol);
-            if (orderBook == null) {
+            TopOfBook topOfBook = readModel.getTopOfBook(symbol);
+            if (topOfBook == null) {
                 return "No orders for symbol: " + symbol;
             }
             
             return String.format("Symbol: %s, Best Bid: %s, Best Ask: %s",
                     symbol,
-                    orderBook.getBestBid(),
-                    orderBook.getBestAsk());
+                    topOfBook.getBestBid(),
+                    topOfBook.getBestAsk());
         } catch (Exception e) {
             throw new TradingException("Failed to get market data: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Modifies an order, throttled by its owner's and symbol's message rates. The owner is
+     * looked up first; callers that know the user should prefer
+     * {@link #modifyOrder(String, String, BigDecimal, BigDecimal)}, which rejects a throttled
+     * user without touching the repository and checks that the order is theirs.
+     */
     public void modifyOrder(String orderId, BigDecimal newPrice, BigDecimal newQuantity) throws OrderException {
+        Order order = orderId == null ? null : orderRepository.findById(orderId).orElse(null);
+        String symbol = order == null ? null : order.getSymbol();
+        if (order != null) {
+            throttle.acquire(order.getUserId(), symbol);
+        }
+        admission.enter(symbol, AdmissionLane.ORDER);
+        try {
+            matchingEngine.modifyOrder(orderId, newPrice, newQuantity);
+        } catch (OrderException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new OrderException("Failed to modify order: " + e.getMessage(), e);
+        } finally {
+            admission.exit(symbol);
+        }
+    }
+
+    /**
+     * Modifies an order on behalf of a user. The user's message rate is charged before the
+     * order is looked up, so a flooding user is rejected without touching the repository; the
+     * order must belong to the user, and is then throttled and admitted against its symbol.
+     */
+    public void modifyOrder(String userId, String orderId, BigDecimal newPrice, BigDecimal newQuantity)
+            throws OrderException {
+        throttle.acquire(userId, null);
+        Order order = orderId == null ? null : orderRepository.findById(orderId).orElse(null);
+        if (order == null) {
+            throw new OrderException(Constants.ERROR_ORDER_NOT_FOUND);
+        }
+        if (!order.getUserId().equals(userId)) {
+            throw new OrderException("Order does not belong to user: " + userId);
+        }
+        String symbol = order.getSymbol();
+        throttle.acquire(null, symbol);
+        admission.enter(symbol, AdmissionLane.ORDER);
         try {
             matchingEngine.modifyOrder(orderId, newPrice, newQuantity);
         } catch (OrderException e) {
             throw e;
         } catch (Exception e) {
             throw new OrderException("Failed to modify order: " + e.getMessage(), e);
+        } finally {
+            admission.exit(symbol);
         }
     }
 } 
\ No newline at end of file
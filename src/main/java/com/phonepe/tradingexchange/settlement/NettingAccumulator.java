@@ -0,0 +1,108 @@
+package com.phonepe.tradingexchange.settlement;
+
+import java.util.Arrays;
+
+/**
+ * Net quantity and cash per (user, symbol) code pair in an open-addressing table of primitive
+ * arrays, so accumulating a trade allocates nothing. Each netting partition fills its own
+ * accumulator; partitions are combined with {@link #merge}.
+ */
+final class NettingAccumulator {
+    private static final long EMPTY = -1;
+
+    private long[] keys;
+    private long[] quantities;
+    private long[] cash;
+    private int size;
+
+    NettingAccumulator(int expectedEntries) {
+        int capacity = Integer.highestOneBit(Math.max(expectedEntries, 8) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * @param quantity Signed quantity delivered to the user, negative when they deliver
+     * @param amount Signed cash received by the user, negative when they pay
+     */
+    void add(int user, int symbol, long quantity, long amount) {
+        int slot = slot(((long) user << 32) | symbol);
+        quantities[slot] += quantity;
+        cash[slot] += amount;
+    }
+
+    void merge(NettingAccumulator other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            long key = other.keys[i];
+            if (key != EMPTY) {
+                int slot = slot(key);
+                quantities[slot] += other.quantities[i];
+                cash[slot] += other.cash[i];
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            long key = keys[i];
+            if (key != EMPTY) {
+                visitor.visit((int) (key >>> 32), (int) key, quantities[i], cash[i]);
+            }
+        }
+    }
+
+    interface Visitor {
+        void visit(int user, int symbol, long quantity, long cash);
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (true) {
+            long existing = keys[slot];
+            if (existing == key) {
+                return slot;
+            }
+            if (existing == EMPTY) {
+                if ((size + 1) * 2 > keys.length) {
+                    rehash();
+                    return slot(key);
+                }
+                keys[slot] = key;
+                size++;
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        long[] oldQuantities = quantities;
+        long[] oldCash = cash;
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                quantities[slot] = oldQuantities[i];
+                cash[slot] = oldCash[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        quantities = new long[capacity];
+        cash = new long[capacity];
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
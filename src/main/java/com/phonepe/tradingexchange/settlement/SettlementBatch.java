@@ -0,0 +1,76 @@
+package com.phonepe.tradingexchange.settlement;
+
+import com.phonepe.tradingexchange.common.Constants;
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.util.StringDictionary;
+
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * Trades reduced to what netting needs, in primitive columns: dictionary-encoded symbol and
+ * user IDs, quantity in units of the maximum quantity precision and notional in units of the
+ * P&L scale. Batches built for the same job share their dictionaries, so codes are comparable
+ * across batches. A batch is filled by one thread and read-only once handed to the job.
+ */
+public class SettlementBatch {
+    private final StringDictionary symbolDictionary;
+    private final StringDictionary userDictionary;
+    int[] symbols;
+    int[] buyUsers;
+    int[] sellUsers;
+    long[] quantities;
+    long[] notionals;
+    int size;
+
+    public SettlementBatch(StringDictionary symbolDictionary, StringDictionary userDictionary, int capacity) {
+        this.symbolDictionary = symbolDictionary;
+        this.userDictionary = userDictionary;
+        int initial = Math.max(capacity, 16);
+        this.symbols = new int[initial];
+        this.buyUsers = new int[initial];
+        this.sellUsers = new int[initial];
+        this.quantities = new long[initial];
+        this.notionals = new long[initial];
+    }
+
+    public void append(Trade trade) {
+        long quantity = trade.getQuantity().movePointRight(Constants.MAX_QUANTITY_PRECISION)
+                .setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+        long notional = trade.getPrice().multiply(trade.getQuantity()).movePointRight(Constants.PNL_SCALE)
+                .setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+        append(symbolDictionary.encode(trade.getSymbol()), userDictionary.encode(trade.getBuyUserId()),
+                userDictionary.encode(trade.getSellUserId()), quantity, notional);
+    }
+
+    /**
+     * Appends an already encoded trade.
+     *
+     * @param quantity Quantity in units of {@link Constants#MAX_QUANTITY_PRECISION}
+     * @param notional Price times quantity in units of {@link Constants#PNL_SCALE}
+     */
+    public void append(int symbol, int buyUser, int sellUser, long quantity, long notional) {
+        if (size == symbols.length) {
+            grow();
+        }
+        symbols[size] = symbol;
+        buyUsers[size] = buyUser;
+        sellUsers[size] = sellUser;
+        quantities[size] = quantity;
+        notionals[size] = notional;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        int capacity = symbols.length * 2;
+        symbols = Arrays.copyOf(symbols, capacity);
+        buyUsers = Arrays.copyOf(buyUsers, capacity);
+        sellUsers = Arrays.copyOf(sellUsers, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        notionals = Arrays.copyOf(notionals, capacity);
+    }
+}
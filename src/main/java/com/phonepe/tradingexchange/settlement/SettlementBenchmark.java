@@ -0,0 +1,141 @@
+package com.phonepe.tradingexchange.settlement;
+
+import com.phonepe.tradingexchange.common.Constants;
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.repository.TradeRepository;
+import com.phonepe.tradingexchange.util.IdUtils;
+import com.phonepe.tradingexchange.util.StringDictionary;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static com.phonepe.tradingexchange.loadtest.LoadGenerator.parseArgs;
+
+/**
+ * Measures how settlement scales with cores. A synthetic day of trades is loaded into a
+ * {@link TradeRepository}, then settled end to end with {@link SettlementJob#run} using 1, 2,
+ * 4, ... up to the requested number of threads, keeping the best of several runs for each.
+ * Each result splits the run into encoding (reading the trade logs into batches), netting and
+ * building the report's obligations, so the scaling of one phase cannot hide the others.
+ * <p>
+ * Run with e.g. {@code --trades=5000000 --users=10000 --symbols=500 --threads=16 --runs=3
+ * --output=settlement.json} and a heap of at least 4 GB; every trade is held as a {@code Trade}
+ * in the repository, at roughly 500 bytes each.
+ */
+public class SettlementBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseArgs(args);
+        int trades = Integer.parseInt(options.getOrDefault("trades", "5000000"));
+        int users = Integer.parseInt(options.getOrDefault("users", "10000"));
+        int symbols = Integer.parseInt(options.getOrDefault("symbols", "500"));
+        int maxThreads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "3"));
+
+        TradeRepository tradeRepository = generateTrades(trades, users, symbols, 42);
+        StringBuilder json = new StringBuilder("{\n");
+        json.append(String.format(Locale.ROOT, "  \"trades\": %d,%n  \"users\": %d,%n  \"symbols\": %d,%n",
+                trades, users, symbols));
+        json.append("  \"results\": [\n");
+        double baseline = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            SettlementReport best = bestOf(tradeRepository, threads, runs);
+            double seconds = best.getElapsedNanos() / 1e9;
+            double encodeSeconds = best.getEncodeNanos() / 1e9;
+            double netSeconds = best.getNetNanos() / 1e9;
+            baseline = threads == 1 ? seconds : baseline;
+            json.append(String.format(Locale.ROOT,
+                    "    {\"threads\": %d, \"seconds\": %.3f, \"encodeSeconds\": %.3f, \"netSeconds\": %.3f, "
+                            + "\"reportSeconds\": %.3f, \"tradesPerSecond\": %.0f, \"speedup\": %.2f}",
+                    threads, seconds, encodeSeconds, netSeconds, seconds - encodeSeconds - netSeconds,
+                    trades / seconds, baseline / seconds));
+            if (threads >= maxThreads) {
+                json.append('\n');
+                break;
+            }
+            json.append(",\n");
+        }
+        json.append("  ]\n}\n");
+        if (options.containsKey("output")) {
+            Files.write(Paths.get(options.get("output")), json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        System.out.print(json);
+    }
+
+    static SettlementBatch generate(int trades, int users, int symbols, long seed) {
+        StringDictionary symbolDictionary = new StringDictionary();
+        StringDictionary userDictionary = new StringDictionary();
+        for (int i = 0; i < symbols; i++) {
+            symbolDictionary.encode("SYM" + i);
+        }
+        for (int i = 0; i < users; i++) {
+            userDictionary.encode("user" + i);
+        }
+        SettlementBatch batch = new SettlementBatch(symbolDictionary, userDictionary, trades);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < trades; i++) {
+            // Trades arrive symbol by symbol, as they would when read from the per-symbol logs
+            int symbol = (int) ((long) i * symbols / trades);
+            long quantity = (1 + random.nextInt(1000)) * 100_000_000L;
+            long price = 1_000_000 + random.nextInt(100_000);
+            batch.append(symbol, random.nextInt(users), random.nextInt(users), quantity,
+                    price * (quantity / 100_000_000L));
+        }
+        return batch;
+    }
+
+    /**
+     * Builds a day of trades the way the engine records them, with user and symbol names shared
+     * across trades as they would be once interned by the order path.
+     */
+    static TradeRepository generateTrades(int trades, int users, int symbols, long seed) {
+        String[] symbolNames = new String[symbols];
+        String[] userNames = new String[users];
+        for (int i = 0; i < symbols; i++) {
+            symbolNames[i] = "SYM" + i;
+        }
+        for (int i = 0; i < users; i++) {
+            userNames[i] = "user" + i;
+        }
+        TradeRepository tradeRepository = TradeRepository.newInstance();
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDateTime dayStart = LocalDate.of(2024, 1, 2).atStartOfDay();
+        long spacingNanos = Duration.ofDays(1).toNanos() / Math.max(trades, 1);
+        for (int i = 0; i < trades; i++) {
+            tradeRepository.addTrade(Trade.builder()
+                    .tradeId(IdUtils.tradeId(i + 1))
+                    .buyUserId(userNames[random.nextInt(users)])
+                    .sellUserId(userNames[random.nextInt(users)])
+                    .symbol(symbolNames[random.nextInt(symbols)])
+                    .price(BigDecimal.valueOf(1_000_000 + random.nextInt(100_000), Constants.PNL_SCALE))
+                    .quantity(BigDecimal.valueOf(1 + random.nextInt(1000)))
+                    .executedAt(dayStart.plusNanos(i * spacingNanos))
+                    .build());
+        }
+        return tradeRepository;
+    }
+
+    private static SettlementReport bestOf(TradeRepository tradeRepository, int threads, int runs) {
+        SettlementReport best = null;
+        try (SettlementJob job = new SettlementJob(threads)) {
+            job.run(tradeRepository, null, null); // warm-up
+            for (int run = 0; run < runs; run++) {
+                SettlementReport report = job.run(tradeRepository, null, null);
+                if (best == null || report.getElapsedNanos() < best.getElapsedNanos()) {
+                    best = report;
+                }
+            }
+        }
+        return best;
+    }
+}
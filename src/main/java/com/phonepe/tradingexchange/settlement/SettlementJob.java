@@ -0,0 +1,264 @@
+package com.phonepe.tradingexchange.settlement;
+
+import com.phonepe.tradingexchange.common.Constants;
+import com.phonepe.tradingexchange.repository.TradeLog;
+import com.phonepe.tradingexchange.repository.TradeRepository;
+import com.phonepe.tradingexchange.util.StringDictionary;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * End-of-day settlement: nets every user's trades into one quantity and one cash obligation
+ * per symbol.
+ * <p>
+ * The work runs on the job's own {@link ForkJoinPool}, never the common pool the engine uses
+ * for auctions. Each symbol's trades are read from its {@link TradeLog}, whose readers take no
+ * locks and see a snapshot, so live matching carries on undisturbed while the job runs. Symbols
+ * are encoded into primitive {@link SettlementBatch}es in parallel, then the batches are split
+ * into partitions along symbol boundaries, each netted into its own primitive
+ * {@link NettingAccumulator}. Partitions of different symbols never share a key, so their
+ * accumulators are simply collected; only a symbol too large for one partition is split
+ * further and merged back.
+ */
+public class SettlementJob implements AutoCloseable {
+    static final int DEFAULT_PARTITION_SIZE = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final int partitionSize;
+
+    public SettlementJob(int parallelism) {
+        this(parallelism, DEFAULT_PARTITION_SIZE);
+    }
+
+    SettlementJob(int parallelism, int partitionSize) {
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("settlement-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        this.partitionSize = partitionSize;
+    }
+
+    /**
+     * Settles the trades executed in {@code [from, to)} without blocking the caller.
+     */
+    public CompletableFuture<SettlementReport> submit(TradeRepository tradeRepository,
+                                                      LocalDateTime from, LocalDateTime to) {
+        return CompletableFuture.supplyAsync(() -> run(tradeRepository, from, to), pool);
+    }
+
+    /**
+     * Settles the trades executed in {@code [from, to)}; either bound may be null.
+     */
+    public SettlementReport run(TradeRepository tradeRepository, LocalDateTime from, LocalDateTime to) {
+        long started = System.nanoTime();
+        StringDictionary symbols = new StringDictionary();
+        StringDictionary users = new StringDictionary();
+        List<ForkJoinTask<SettlementBatch>> encodes = new ArrayList<>();
+        for (String symbol : tradeRepository.getSymbols()) {
+            Optional<TradeLog> tradeLog = tradeRepository.getTradeLog(symbol);
+            tradeLog.ifPresent(log -> encodes.add(ForkJoinTask.adapt(() -> {
+                SettlementBatch batch = new SettlementBatch(symbols, users, (int) Math.min(log.size(), 1 << 20));
+                log.between(from, to).forEach(batch::append);
+                return batch;
+            })));
+        }
+        List<SettlementBatch> batches = new ArrayList<>(encodes.size());
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(encodes)));
+        for (ForkJoinTask<SettlementBatch> encode : encodes) {
+            batches.add(encode.join());
+        }
+        long encoded = System.nanoTime();
+
+        List<NettingAccumulator> netted = net(batches);
+        long nettedAt = System.nanoTime();
+        long tradeCount = batches.stream().mapToLong(SettlementBatch::size).sum();
+        return SettlementReport.builder()
+                .from(from)
+                .to(to)
+                .tradeCount(tradeCount)
+                .obligations(obligations(netted, symbols, users))
+                .elapsedNanos(System.nanoTime() - started)
+                .encodeNanos(encoded - started)
+                .netNanos(nettedAt - encoded)
+                .build();
+    }
+
+    /**
+     * Nets already encoded batches, which must share their dictionaries.
+     *
+     * @return Accumulators whose keys never overlap
+     */
+    List<NettingAccumulator> net(List<SettlementBatch> batches) {
+        List<int[]> runs = new ArrayList<>(batches.size());
+        BitSet seen = new BitSet();
+        boolean disjoint = true;
+        for (SettlementBatch batch : batches) {
+            int[] batchRuns = symbolRuns(batch);
+            runs.add(batchRuns);
+            for (int run = 0; run < batchRuns.length - 1; run++) {
+                int symbol = batch.symbols[batchRuns[run]];
+                disjoint &= !seen.get(symbol);
+                seen.set(symbol);
+            }
+        }
+        boolean symbolsDisjoint = disjoint;
+        return pool.invoke(new RecursiveTask<List<NettingAccumulator>>() {
+            @Override
+            protected List<NettingAccumulator> compute() {
+                List<NettingTask> tasks = new ArrayList<>(batches.size());
+                for (int i = 0; i < batches.size(); i++) {
+                    SettlementBatch batch = batches.get(i);
+                    tasks.add(new NettingTask(batch, symbolsDisjoint ? runs.get(i) : null, 0, batch.size()));
+                }
+                invokeAll(tasks);
+                List<NettingAccumulator> result = new ArrayList<>();
+                for (NettingTask task : tasks) {
+                    result.addAll(task.join());
+                }
+                if (symbolsDisjoint || result.size() < 2) {
+                    return result;
+                }
+                NettingAccumulator merged = result.get(0);
+                for (int i = 1; i < result.size(); i++) {
+                    merged = merge(merged, result.get(i));
+                }
+                return Collections.singletonList(merged);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    // Merges the smaller table into the larger one
+    private static NettingAccumulator merge(NettingAccumulator first, NettingAccumulator second) {
+        if (first.size() < second.size()) {
+            second.merge(first);
+            return second;
+        }
+        first.merge(second);
+        return first;
+    }
+
+    // Start index of every run of one symbol, followed by the batch size
+    private static int[] symbolRuns(SettlementBatch batch) {
+        int[] runs = new int[16];
+        int count = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (i == 0 || batch.symbols[i] != batch.symbols[i - 1]) {
+                if (count == runs.length - 1) {
+                    runs = Arrays.copyOf(runs, runs.length * 2);
+                }
+                runs[count++] = i;
+            }
+        }
+        runs[count++] = batch.size();
+        return Arrays.copyOf(runs, count);
+    }
+
+    private static List<SettlementObligation> obligations(List<NettingAccumulator> netted,
+                                                          StringDictionary symbols, StringDictionary users) {
+        List<SettlementObligation> obligations = new ArrayList<>();
+        for (NettingAccumulator accumulator : netted) {
+            accumulator.forEach((user, symbol, quantity, cash) -> obligations.add(SettlementObligation.builder()
+                    .userId(users.decode(user))
+                    .symbol(symbols.decode(symbol))
+                    .netQuantity(BigDecimal.valueOf(quantity, Constants.MAX_QUANTITY_PRECISION).stripTrailingZeros())
+                    .netCash(BigDecimal.valueOf(cash, Constants.PNL_SCALE))
+                    .build()));
+        }
+        obligations.sort(Comparator.comparing(SettlementObligation::getUserId)
+                .thenComparing(SettlementObligation::getSymbol));
+        return obligations;
+    }
+
+    /**
+     * Nets a range of a batch. With the batch's symbol runs known, ranges are split on symbol
+     * boundaries, so the halves never share a key and their accumulators are just collected;
+     * only a range inside a single symbol (or a batch whose symbols are not grouped) is split
+     * anywhere and merged.
+     */
+    private final class NettingTask extends RecursiveTask<List<NettingAccumulator>> {
+        private final SettlementBatch batch;
+        // Start index of every symbol run plus the batch size, or null if symbols repeat
+        private final int[] runs;
+        private final int from;
+        private final int to;
+
+        NettingTask(SettlementBatch batch, int[] runs, int from, int to) {
+            this.batch = batch;
+            this.runs = runs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<NettingAccumulator> compute() {
+            if (to - from <= partitionSize) {
+                List<NettingAccumulator> result = new ArrayList<>(1);
+                result.add(accumulate());
+                return result;
+            }
+            int middle = (from + to) >>> 1;
+            int boundary = runs == null ? -1 : nearestBoundary(middle);
+            int split = boundary > 0 ? boundary : middle;
+            NettingTask left = new NettingTask(batch, runs, from, split);
+            left.fork();
+            List<NettingAccumulator> right = new NettingTask(batch, runs, split, to).compute();
+            List<NettingAccumulator> result = left.join();
+            if (boundary > 0) {
+                result.addAll(right);
+                return result;
+            }
+            // Halves split without a boundary always net down to one accumulator each
+            result.set(0, merge(result.get(0), right.get(0)));
+            return result;
+        }
+
+        // Symbol boundary strictly inside the range closest to the middle, or -1 if none
+        private int nearestBoundary(int middle) {
+            int index = Arrays.binarySearch(runs, middle);
+            int above = index >= 0 ? index : -index - 1;
+            int best = -1;
+            if (above < runs.length && runs[above] > from && runs[above] < to) {
+                best = runs[above];
+            }
+            if (above > 0 && runs[above - 1] > from && runs[above - 1] < to
+                    && (best < 0 || middle - runs[above - 1] < best - middle)) {
+                best = runs[above - 1];
+            }
+            return best;
+        }
+
+        private NettingAccumulator accumulate() {
+            NettingAccumulator accumulator = new NettingAccumulator(Math.min(to - from, 1024));
+            int[] symbols = batch.symbols;
+            int[] buyUsers = batch.buyUsers;
+            int[] sellUsers = batch.sellUsers;
+            long[] quantities = batch.quantities;
+            long[] notionals = batch.notionals;
+            for (int i = from; i < to; i++) {
+                accumulator.add(buyUsers[i], symbols[i], quantities[i], -notionals[i]);
+                accumulator.add(sellUsers[i], symbols[i], -quantities[i], notionals[i]);
+            }
+            return accumulator;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.phonepe.tradingexchange.settlement;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * What one user owes or is owed in one symbol once all their trades are netted.
+ */
+@Data
+@Builder
+public class SettlementObligation {
+    private final String userId;
+    private final String symbol;
+    // Quantity the user receives, negative when they deliver
+    private final BigDecimal netQuantity;
+    // Cash the user receives, negative when they pay
+    private final BigDecimal netCash;
+}
@@ -0,0 +1,53 @@
+package com.phonepe.tradingexchange.settlement;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Net obligations produced by a {@link SettlementJob} run, ordered by user and symbol.
+ */
+@Data
+@Builder
+public class SettlementReport {
+    // Bounds of the settled period as requested; null when open
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final long tradeCount;
+    private final long elapsedNanos;
+    // Parts of the elapsed time spent reading the trade logs into batches and netting them;
+    // the rest went into building the obligations
+    private final long encodeNanos;
+    private final long netNanos;
+    private final List<SettlementObligation> obligations;
+
+    /**
+     * Writes the obligations as CSV ({@code userId,symbol,netQuantity,netCash}), replacing any
+     * existing file.
+     */
+    public void writeTo(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("# from=" + from + " to=" + to + " trades=" + tradeCount);
+            out.newLine();
+            out.write("userId,symbol,netQuantity,netCash");
+            out.newLine();
+            for (SettlementObligation obligation : obligations) {
+                out.write(obligation.getUserId());
+                out.write(',');
+                out.write(obligation.getSymbol());
+                out.write(',');
+                out.write(obligation.getNetQuantity().toPlainString());
+                out.write(',');
+                out.write(obligation.getNetCash().toPlainString());
+                out.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.phonepe.tradingexchange.throttle;
+
+import com.phonepe.tradingexchange.exception.ThrottledException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user and per-symbol message rate limits, checked at the service entry before any
+ * validation or repository work so a flooding client cannot eat into everyone else's engine
+ * capacity. Each user and symbol gets a lock-free {@link TokenBucket}, created on first use.
+ */
+public class MessageThrottle {
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TokenBucket> symbolBuckets = new ConcurrentHashMap<>();
+    private final LongAdder userThrottled = new LongAdder();
+    private final LongAdder symbolThrottled = new LongAdder();
+    private volatile ThrottlePolicy policy = ThrottlePolicy.unlimited();
+
+    private static MessageThrottle INSTANCE;
+
+    public MessageThrottle() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock Monotonic time in nanoseconds, like {@link System#nanoTime()}
+     */
+    public MessageThrottle(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    public static MessageThrottle getInstance() {
+        if (INSTANCE == null) {
+            synchronized (MessageThrottle.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new MessageThrottle();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Resets the throttle - primarily for testing.
+     */
+    public static void reset() {
+        INSTANCE = null;
+    }
+
+    public ThrottlePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Applies a new policy. Every user and symbol starts again with a full bucket.
+     */
+    public void setPolicy(ThrottlePolicy policy) {
+        this.policy = policy;
+        userBuckets.clear();
+        symbolBuckets.clear();
+    }
+
+    /**
+     * Takes one message from the user's and then the symbol's bucket.
+     *
+     * @param userId Sending user; null skips the user limit and leaves rejection to validation
+     * @param symbol Symbol the message is for, or null if not known yet
+     * @throws ThrottledException If either bucket is empty
+     */
+    public void acquire(String userId, String symbol) throws ThrottledException {
+        ThrottlePolicy current = policy;
+        long now = nanoClock.getAsLong();
+        if (userId != null && current.getUserMessagesPerSecond() > 0
+                && !bucket(userBuckets, userId, current.getUserMessagesPerSecond(), current.getUserBurst(), now)
+                        .tryAcquire(now)) {
+            userThrottled.increment();
+            throw new ThrottledException("Message rate exceeded for user: " + userId);
+        }
+        if (symbol != null && current.getSymbolMessagesPerSecond() > 0
+                && !bucket(symbolBuckets, symbol, current.getSymbolMessagesPerSecond(), current.getSymbolBurst(), now)
+                        .tryAcquire(now)) {
+            symbolThrottled.increment();
+            throw new ThrottledException("Message rate exceeded for symbol: " + symbol);
+        }
+    }
+
+    /**
+     * @return Messages rejected because their user was over its rate
+     */
+    public long getUserThrottled() {
+        return userThrottled.sum();
+    }
+
+    /**
+     * @return Messages rejected because their symbol was over its rate
+     */
+    public long getSymbolThrottled() {
+        return symbolThrottled.sum();
+    }
+
+    private static TokenBucket bucket(ConcurrentHashMap<String, TokenBucket> buckets, String key,
+                                      long messagesPerSecond, long burst, long now) {
+        TokenBucket bucket = buckets.get(key);
+        return bucket != null ? bucket
+                : buckets.computeIfAbsent(key, k -> new TokenBucket(messagesPerSecond, burst, now));
+    }
+}
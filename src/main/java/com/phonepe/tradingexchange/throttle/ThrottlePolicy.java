@@ -0,0 +1,24 @@
+package com.phonepe.tradingexchange.throttle;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Message rates allowed at the service entry. A rate of zero means no limit; a burst of zero
+ * allows one second's worth of messages at once.
+ */
+@Data
+@Builder(toBuilder = true)
+public class ThrottlePolicy {
+    // Sustained messages per second allowed for each user
+    private final long userMessagesPerSecond;
+    // Messages a user may send back to back after being idle
+    private final long userBurst;
+    // Sustained messages per second allowed for each symbol, across all users
+    private final long symbolMessagesPerSecond;
+    private final long symbolBurst;
+
+    public static ThrottlePolicy unlimited() {
+        return ThrottlePolicy.builder().build();
+    }
+}
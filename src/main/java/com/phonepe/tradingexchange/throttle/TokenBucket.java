@@ -0,0 +1,37 @@
+package com.phonepe.tradingexchange.throttle;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket held in a single atomic long, following the generic cell rate algorithm: the
+ * long is the theoretical arrival time of the next message, each accepted message pushes it
+ * one emission interval further, and a message is accepted while that stays within the burst
+ * of now. Refill is implied by {@link System#nanoTime()} moving on, so there is no timer and
+ * no lock.
+ */
+final class TokenBucket {
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(long messagesPerSecond, long burst, long nowNanos) {
+        this.intervalNanos = Math.max(1, TimeUnit.SECONDS.toNanos(1) / messagesPerSecond);
+        this.capacityNanos = intervalNanos * (burst > 0 ? burst : messagesPerSecond);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            // Compared by difference so nanoTime wrap-around does no harm
+            long next = (arrival - nowNanos > 0 ? arrival : nowNanos) + intervalNanos;
+            if (next - nowNanos > capacityNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.phonepe.tradingexchange.util;
+
+import com.phonepe.tradingexchange.common.Constants;
+
+/**
+ * Helpers for converting between the string identifiers exposed by the API
+ * (e.g. "ORD-42") and the numeric sequences they are generated from.
+ */
+public final class IdUtils {
+    private IdUtils() {}
+
+    /**
+     * Extracts the numeric sequence from an identifier with the given prefix.
+     *
+     * @param id Identifier to parse
+     * @param prefix Expected prefix, e.g. {@link Constants#ORDER_ID_PREFIX}
+     * @return The sequence, or -1 if the identifier is not of the form prefix + positive number
+     */
+    public static long parseSequence(String id, String prefix) {
+        if (id == null || !id.startsWith(prefix) || id.length() == prefix.length()
+                || id.charAt(prefix.length()) == '0') {
+            return -1;
+        }
+        long value = 0;
+        for (int i = prefix.length(); i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9' || value > (Long.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    public static long orderSequence(String orderId) {
+        return parseSequence(orderId, Constants.ORDER_ID_PREFIX);
+    }
+
+    public static long tradeSequence(String tradeId) {
+        return parseSequence(tradeId, Constants.TRADE_ID_PREFIX);
+    }
+
+    public static String orderId(long sequence) {
+        return Constants.ORDER_ID_PREFIX + sequence;
+    }
+
+    public static String tradeId(long sequence) {
+        return Constants.TRADE_ID_PREFIX + sequence;
+    }
+}
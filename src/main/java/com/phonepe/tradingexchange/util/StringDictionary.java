@@ -0,0 +1,60 @@
+package com.phonepe.tradingexchange.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe dictionary that maps strings (user IDs, symbols) to dense int codes so they
+ * can be stored in primitive columns. Codes are assigned in first-seen order and never change.
+ */
+public class StringDictionary {
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[16];
+    private int size;
+
+    /**
+     * Returns the code for a value, assigning the next free code if the value is new.
+     *
+     * @param value Value to encode
+     * @return Dense code for the value
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            String[] current = values;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = value;
+            values = current;
+            codes.put(value, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Returns the code for a value without assigning one.
+     *
+     * @param value Value to look up
+     * @return The code, or -1 if the value has never been encoded
+     */
+    public int lookup(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    public String decode(int code) {
+        return values[code];
+    }
+
+    public int size() {
+        return codes.size();
+    }
+}
@@ -0,0 +1,23 @@
+package com.phonepe.tradingexchange.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Conversions between {@link LocalDateTime} and primitive epoch nanos, used wherever timestamps
+ * are kept in primitive columns. Times are interpreted as UTC so the round trip is exact.
+ */
+public final class TimeUtils {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private TimeUtils() {}
+
+    public static long toEpochNanos(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * NANOS_PER_SECOND + time.getNano();
+    }
+
+    public static LocalDateTime fromEpochNanos(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(nanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+}
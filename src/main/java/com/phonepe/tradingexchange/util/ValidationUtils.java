@@ -1,11 +1,16 @@
 package com.phonepe.tradingexchange.util;
 
+import com.phonepe.tradingexchange.common.Constants;
 import com.phonepe.tradingexchange.exception.OrderException;
 import com.phonepe.tradingexchange.exception.TradingException;
 import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderType;
+import com.phonepe.tradingexchange.model.SelfTradePrevention;
+import com.phonepe.tradingexchange.model.TimeInForce;
 import com.phonepe.tradingexchange.repository.UserRepository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 public class ValidationUtils {
     
@@ -62,6 +67,30 @@ public class ValidationUtils {
         }
     }
 
+    public static void validateDisplayQuantity(BigDecimal displayQuantity, BigDecimal quantity) throws OrderException {
+        if (displayQuantity == null || displayQuantity.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new OrderException("Display quantity must be positive");
+        }
+        if (displayQuantity.compareTo(quantity) > 0) {
+            throw new OrderException("Display quantity cannot exceed order quantity");
+        }
+    }
+
+    public static void validateTimeInForce(Order order) throws OrderException {
+        if (order.getTimeInForce() == null) {
+            throw new OrderException("Time in force cannot be null");
+        }
+        if (order.getTimeInForce() != TimeInForce.GTC && order.getOrderType() != OrderType.MARKET) {
+            throw new OrderException("Only market orders can be immediate-or-cancel or fill-or-kill");
+        }
+    }
+
+    public static void validateSelfTradePrevention(SelfTradePrevention selfTradePrevention) throws OrderException {
+        if (selfTradePrevention == null) {
+            throw new OrderException("Self-trade prevention mode cannot be null");
+        }
+    }
+
     public static void validateOrderSymbol(Order order, String expectedSymbol) throws OrderException {
         if (order == null) {
             throw new OrderException("Order cannot be null");
@@ -70,4 +99,17 @@ public class ValidationUtils {
             throw new OrderException("Order symbol does not match expected symbol");
         }
     }
-} 
\ No newline at end of file
+
+    public static void validatePageRequest(long afterCursor, int limit,
+                                           LocalDateTime from, LocalDateTime to) throws TradingException {
+        if (afterCursor < 0) {
+            throw new TradingException("Cursor cannot be negative");
+        }
+        if (limit <= 0 || limit > Constants.MAX_PAGE_SIZE) {
+            throw new TradingException("Limit must be between 1 and " + Constants.MAX_PAGE_SIZE);
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new TradingException("Start time must be before end time");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.phonepe.tradingexchange.admission;
+
+import com.phonepe.tradingexchange.exception.OrderException;
+import com.phonepe.tradingexchange.exception.SystemBusyException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControllerTest {
+    private static final String SYMBOL = "AAPL";
+
+    private AdmissionController admission;
+
+    @BeforeEach
+    void setUp() {
+        admission = new AdmissionController();
+        admission.setPolicy(AdmissionPolicy.builder()
+                .symbolHighWatermark(4)
+                .symbolLowWatermark(2)
+                .maxCancelsInFlight(6)
+                .build());
+    }
+
+    @Test
+    void testOrdersShedUntilSymbolDrainsToLowWatermark() {
+        for (int i = 0; i < 4; i++) {
+            admission.enter(SYMBOL, AdmissionLane.ORDER);
+        }
+        SystemBusyException busy = assertThrows(SystemBusyException.class,
+                () -> admission.enter(SYMBOL, AdmissionLane.ORDER));
+        assertTrue(busy instanceof OrderException);
+        assertEquals(4, admission.getInFlight(SYMBOL));
+        // Other symbols are unaffected
+        admission.enter("GOOGL", AdmissionLane.ORDER);
+
+        admission.exit(SYMBOL);
+        assertTrue(admission.isShedding(SYMBOL));
+        assertThrows(SystemBusyException.class, () -> admission.enter(SYMBOL, AdmissionLane.ORDER));
+
+        admission.exit(SYMBOL);
+        assertFalse(admission.isShedding(SYMBOL));
+        admission.enter(SYMBOL, AdmissionLane.ORDER);
+        assertEquals(2, admission.getOrdersRejected());
+    }
+
+    @Test
+    void testCancelsAdmittedWhileOrdersAreShed() {
+        for (int i = 0; i < 4; i++) {
+            admission.enter(SYMBOL, AdmissionLane.ORDER);
+        }
+        assertThrows(SystemBusyException.class, () -> admission.enter(SYMBOL, AdmissionLane.ORDER));
+
+        admission.enter(null, AdmissionLane.CANCEL);
+        admission.enter(null, AdmissionLane.CANCEL);
+        assertThrows(SystemBusyException.class, () -> admission.enter(null, AdmissionLane.CANCEL));
+        assertEquals(6, admission.getInFlight());
+        assertEquals(1, admission.getCancelsRejected());
+
+        admission.exit(null);
+        admission.enter(null, AdmissionLane.CANCEL);
+    }
+}
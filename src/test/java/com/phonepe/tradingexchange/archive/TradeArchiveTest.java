@@ -0,0 +1,156 @@
+package com.phonepe.tradingexchange.archive;
+
+import com.phonepe.tradingexchange.exception.TradingException;
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.repository.TradeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeArchiveTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 2, 9, 30);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRoundTrip() throws IOException {
+        List<Trade> trades = trades(100);
+        Path file = tempDir.resolve("trades.bin");
+
+        TradeArchiveWriter writer = new TradeArchiveWriter();
+        trades.forEach(writer::append);
+        long size = writer.writeTo(file);
+
+        assertEquals(Files.size(file), size);
+        try (TradeArchiveReader reader = TradeArchiveReader.open(file)) {
+            assertEquals(100, reader.getRowCount());
+            List<Trade> restored = reader.readTrades();
+            for (int i = 0; i < trades.size(); i++) {
+                Trade expected = trades.get(i);
+                Trade actual = restored.get(i);
+                assertEquals(expected.getTradeId(), actual.getTradeId());
+                assertEquals(expected.getBuyOrderId(), actual.getBuyOrderId());
+                assertEquals(expected.getSellOrderId(), actual.getSellOrderId());
+                assertEquals(expected.getBuyUserId(), actual.getBuyUserId());
+                assertEquals(expected.getSellUserId(), actual.getSellUserId());
+                assertEquals(expected.getSymbol(), actual.getSymbol());
+                assertEquals(0, expected.getPrice().compareTo(actual.getPrice()));
+                assertEquals(0, expected.getQuantity().compareTo(actual.getQuantity()));
+                assertEquals(expected.getExecutedAt(), actual.getExecutedAt());
+            }
+        }
+    }
+
+    @Test
+    void testScanSingleColumn() throws IOException {
+        List<Trade> trades = trades(50);
+        Path file = tempDir.resolve("trades.bin");
+        TradeArchiveWriter writer = new TradeArchiveWriter();
+        trades.forEach(writer::append);
+        writer.writeTo(file);
+
+        AtomicLong totalQuantity = new AtomicLong();
+        try (TradeArchiveReader reader = TradeArchiveReader.open(file)) {
+            reader.scan(TradeColumn.QUANTITY, totalQuantity::addAndGet);
+            BigDecimal expected = trades.stream().map(Trade::getQuantity).reduce(BigDecimal.ZERO, BigDecimal::add);
+            assertEquals(0, expected.compareTo(reader.toDecimal(totalQuantity.get())));
+        }
+    }
+
+    @Test
+    void testScanThroughSmallWindows() throws IOException {
+        List<Trade> trades = trades(1_000);
+        Path file = tempDir.resolve("trades.bin");
+        TradeArchiveWriter writer = new TradeArchiveWriter(tempDir);
+        trades.forEach(writer::append);
+        writer.writeTo(file);
+
+        try (TradeArchiveReader reader = TradeArchiveReader.open(file, VarInts.MAX_BYTES)) {
+            List<Trade> restored = reader.readTrades();
+            assertEquals(trades.size(), restored.size());
+            for (int i = 0; i < trades.size(); i++) {
+                assertEquals(trades.get(i).getTradeId(), restored.get(i).getTradeId());
+                assertEquals(trades.get(i).getSymbol(), restored.get(i).getSymbol());
+                assertEquals(trades.get(i).getExecutedAt(), restored.get(i).getExecutedAt());
+            }
+        }
+    }
+
+    @Test
+    void testArchiveRepositoryBySymbolAndRemovesSpillFiles() throws IOException {
+        TradeRepository tradeRepository = TradeRepository.newInstance();
+        trades(100).forEach(tradeRepository::addTrade);
+        Path file = tempDir.resolve("trades.bin");
+
+        TradeArchiveWriter.archive(tradeRepository, file);
+
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(List.of(file), files.collect(Collectors.toList()));
+        }
+        try (TradeArchiveReader reader = TradeArchiveReader.open(file)) {
+            List<Trade> restored = reader.readTrades();
+            assertEquals(100, restored.size());
+            assertEquals("AAPL", restored.get(0).getSymbol());
+            assertEquals("TRD-2", restored.get(0).getTradeId());
+            assertEquals("GOOGL", restored.get(50).getSymbol());
+            assertEquals("TRD-1", restored.get(50).getTradeId());
+        }
+    }
+
+    @Test
+    void testArchiveIsCompact() throws IOException {
+        Path file = tempDir.resolve("trades.bin");
+        TradeArchiveWriter writer = new TradeArchiveWriter();
+        trades(10_000).forEach(writer::append);
+
+        long size = writer.writeTo(file);
+
+        assertTrue(size / 10_000 < 32, "bytes per trade: " + size / 10_000);
+    }
+
+    @Test
+    void testRejectsTooPreciseValues() {
+        Trade trade = Trade.builder()
+                .tradeId("TRD-1")
+                .buyOrderId("ORD-1")
+                .sellOrderId("ORD-2")
+                .symbol("AAPL")
+                .price(new BigDecimal("1.123456789"))
+                .quantity(BigDecimal.ONE)
+                .executedAt(START)
+                .build();
+
+        assertThrows(TradingException.class, () -> new TradeArchiveWriter().append(trade));
+    }
+
+    private static List<Trade> trades(int count) {
+        List<Trade> trades = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            trades.add(Trade.builder()
+                    .tradeId("TRD-" + i)
+                    .buyOrderId("ORD-" + (2 * i))
+                    .sellOrderId("ORD-" + (2 * i + 1))
+                    .buyUserId("user" + (i % 7))
+                    .sellUserId(i % 5 == 0 ? null : "user" + (i % 3))
+                    .symbol(i % 2 == 0 ? "AAPL" : "GOOGL")
+                    .price(new BigDecimal("150.25").add(BigDecimal.valueOf(i % 10, 2)))
+                    .quantity(BigDecimal.valueOf(i % 100 + 1))
+                    .executedAt(START.plusNanos(i * 1_500_000L))
+                    .build());
+        }
+        return trades;
+    }
+}
@@ -0,0 +1,99 @@
+package com.phonepe.tradingexchange.cluster;
+
+import com.phonepe.tradingexchange.exception.ClusterException;
+import com.phonepe.tradingexchange.exception.OrderException;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.Trade;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderRouterTest {
+    private static final PartitionMap PARTITION_MAP = new PartitionMap(2, Map.of("AAPL", 0, "MSFT", 1));
+
+    private List<PartitionProcess> processes;
+    private OrderRouter router;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        processes = PartitionProcess.startAll(PARTITION_MAP, Collections.emptyList());
+        router = new OrderRouter(PARTITION_MAP, PartitionProcess.addresses(processes));
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.close();
+        processes.forEach(PartitionProcess::close);
+    }
+
+    @Test
+    void testCommandsRouteBySymbolAndUserQueriesSpanPartitions() {
+        List<Trade> trades = new CopyOnWriteArrayList<>();
+        router.addTradeListener(trades::add);
+        String buyer = router.registerUser("buyer", "buyer@example.com").getUserId();
+        String seller = router.registerUser("seller", "seller@example.com").getUserId();
+
+        Order apple = router.placeOrder(seller, "AAPL", OrderSide.SELL, new BigDecimal("150"), new BigDecimal("10"));
+        Order microsoft = router.placeOrder(seller, "MSFT", OrderSide.SELL, new BigDecimal("300"), new BigDecimal("10"));
+        assertEquals(0, PARTITION_MAP.partitionOfOrder(apple.getOrderId()));
+        assertEquals(1, PARTITION_MAP.partitionOfOrder(microsoft.getOrderId()));
+
+        Order filled = router.placeOrder(buyer, "AAPL", OrderSide.BUY, new BigDecimal("150"), new BigDecimal("10"));
+        router.placeOrder(buyer, "MSFT", OrderSide.BUY, new BigDecimal("300"), new BigDecimal("4"));
+        Order resting = router.placeOrder(buyer, "MSFT", OrderSide.BUY, new BigDecimal("290"), new BigDecimal("5"));
+        assertEquals(0, filled.getQuantity().signum());
+        // Trades are pushed ahead of the response of the order that caused them
+        assertEquals(List.of("AAPL", "MSFT"), trades.stream().map(Trade::getSymbol).collect(Collectors.toList()));
+        assertNotEquals(trades.get(0).getTradeId(), trades.get(1).getTradeId());
+
+        router.modifyOrder(microsoft.getOrderId(), null, new BigDecimal("2"));
+        router.cancelOrder(resting.getOrderId());
+        assertThrows(OrderException.class, () -> router.cancelOrder(filled.getOrderId()));
+        assertThrows(OrderException.class, () -> router.cancelOrder("ORD-unknown"));
+
+        assertEquals(3, router.getUserOrders(buyer).size());
+        assertEquals(2, router.getUserOrders(seller).size());
+        assertEquals(2, router.getUserTrades(seller).size());
+        assertEquals(1, router.getSymbolTrades("MSFT").size());
+        assertTrue(router.getMarketData("MSFT").contains("Best Ask: 300"));
+    }
+
+    @Test
+    void testLosingOnePartitionLeavesTheOthersTrading() {
+        String user = router.registerUser("user", "user@example.com").getUserId();
+        processes.get(1).close();
+
+        assertThrows(ClusterException.class,
+                () -> router.placeOrder(user, "MSFT", OrderSide.BUY, new BigDecimal("300"), BigDecimal.ONE));
+        router.placeOrder(user, "AAPL", OrderSide.BUY, new BigDecimal("150"), BigDecimal.ONE);
+        assertThrows(ClusterException.class, () -> router.getUserOrders(user));
+        assertTrue(router.getMarketData("AAPL").contains("Best Bid: 150"));
+    }
+
+    @Test
+    void testPartitionMapPinsSymbolsAndHashesTheRest() {
+        Properties properties = new Properties();
+        properties.setProperty("partitions", "3");
+        properties.setProperty("symbol.AAPL", "2");
+        PartitionMap partitionMap = PartitionMap.fromProperties(properties);
+
+        assertEquals(2, partitionMap.partitionOf("AAPL"));
+        assertEquals(partitionMap.partitionOf("GOOG"), partitionMap.partitionOf("GOOG"));
+        assertEquals(0, partitionMap.partitionOfOrder("ORD-1"));
+        assertEquals(2, partitionMap.partitionOfOrder("ORD-" + (PartitionMap.idBlockStart(2) + 1)));
+        assertEquals(-1, partitionMap.partitionOfOrder("ORD-" + (PartitionMap.idBlockStart(3) + 1)));
+        assertThrows(IllegalArgumentException.class, () -> new PartitionMap(2, Map.of("AAPL", 2)));
+    }
+}
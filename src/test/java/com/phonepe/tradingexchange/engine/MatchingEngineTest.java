@@ -3,9 +3,13 @@ package com.phonepe.tradingexchange.engine;
 import com.phonepe.tradingexchange.exception.OrderException;
 import com.phonepe.tradingexchange.model.Order;
 import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.OrderStatus;
+import com.phonepe.tradingexchange.model.SelfTradePrevention;
+import com.phonepe.tradingexchange.model.TimeInForce;
 import com.phonepe.tradingexchange.model.Trade;
 import com.phonepe.tradingexchange.repository.OrderRepository;
 import com.phonepe.tradingexchange.repository.TradeRepository;
+import com.phonepe.tradingexchange.util.IdUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,6 +17,9 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -273,4 +280,330 @@ class MatchingEngineTest {
         
         verify(tradeRepository).addTrade(any(Trade.class));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testAggressorSweepsLevelsInPriceTimeOrder() throws OrderException {
+        Order first = Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                                      BigDecimal.valueOf(100), BigDecimal.valueOf(4));
+        Order second = Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                                       BigDecimal.valueOf(100), BigDecimal.valueOf(6));
+        Order third = Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                                      BigDecimal.valueOf(101), BigDecimal.valueOf(10));
+        Order buyOrder = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                                         BigDecimal.valueOf(101), BigDecimal.valueOf(15));
+        List<Trade> trades = new ArrayList<>();
+        matchingEngine.addTradeListener(trades::add);
+
+        matchingEngine.placeOrder(first);
+        matchingEngine.placeOrder(second);
+        matchingEngine.placeOrder(third);
+        matchingEngine.placeOrder(buyOrder);
+
+        assertEquals(3, trades.size());
+        assertEquals(first.getOrderId(), trades.get(0).getSellOrderId());
+        assertEquals(second.getOrderId(), trades.get(1).getSellOrderId());
+        assertEquals(0, BigDecimal.valueOf(101).compareTo(trades.get(2).getPrice()));
+        assertEquals(0, BigDecimal.valueOf(5).compareTo(trades.get(2).getQuantity()));
+        assertEquals(OrderStatus.EXECUTED, buyOrder.getStatus());
+
+        OrderBook orderBook = (OrderBook) matchingEngine.getOrderBook(SYMBOL);
+        assertSame(third, orderBook.getNextSellOrder());
+        assertEquals(0, BigDecimal.valueOf(5).compareTo(orderBook.getBestLevel(OrderSide.SELL).getQuantity()));
+        assertEquals(1, orderBook.getTotalOrders());
+        // One update per resting fill plus one for the aggressor per level
+        verify(orderRepository, times(5)).updateOrder(any(Order.class));
+    }
+
+    @Test
+    void testImmediateOrCancelNeverRests() throws OrderException {
+        Order sellOrder = Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                                          BigDecimal.valueOf(100), BigDecimal.valueOf(5));
+        Order buyOrder = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                                         BigDecimal.valueOf(100), BigDecimal.valueOf(8), TimeInForce.IOC);
+
+        matchingEngine.placeOrder(sellOrder);
+        matchingEngine.placeOrder(buyOrder);
+
+        verify(tradeRepository).addTrade(any(Trade.class));
+        assertEquals(OrderStatus.CANCELLED, buyOrder.getStatus());
+        assertEquals(0, BigDecimal.valueOf(3).compareTo(buyOrder.getQuantity()));
+        assertEquals(0, matchingEngine.getOrderBook(SYMBOL).getTotalOrders());
+        // Stored once in its final state, never updated
+        verify(orderRepository).save(buyOrder);
+        verify(orderRepository, never()).updateOrder(buyOrder);
+    }
+
+    @Test
+    void testFillOrKillCancelledWithoutTouchingBook() throws OrderException {
+        Order first = Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                                      BigDecimal.valueOf(100), BigDecimal.valueOf(5));
+        Order second = Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                                       BigDecimal.valueOf(101), BigDecimal.valueOf(2));
+        Order buyOrder = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                                         BigDecimal.valueOf(101), BigDecimal.valueOf(8), TimeInForce.FOK);
+
+        matchingEngine.placeOrder(first);
+        matchingEngine.placeOrder(second);
+        matchingEngine.placeOrder(buyOrder);
+
+        verify(tradeRepository, never()).addTrade(any(Trade.class));
+        assertEquals(OrderStatus.CANCELLED, buyOrder.getStatus());
+        assertEquals(0, BigDecimal.valueOf(5).compareTo(first.getQuantity()));
+        assertEquals(2, matchingEngine.getOrderBook(SYMBOL).getTotalOrders());
+    }
+
+    @Test
+    void testFillOrKillFillsAcrossLevels() throws OrderException {
+        Order first = Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                                      BigDecimal.valueOf(100), BigDecimal.valueOf(5));
+        Order second = Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                                       BigDecimal.valueOf(101), BigDecimal.valueOf(5));
+        Order buyOrder = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                                         BigDecimal.valueOf(101), BigDecimal.valueOf(8), TimeInForce.FOK);
+
+        matchingEngine.placeOrder(first);
+        matchingEngine.placeOrder(second);
+        matchingEngine.placeOrder(buyOrder);
+
+        verify(tradeRepository, times(2)).addTrade(any(Trade.class));
+        assertEquals(OrderStatus.EXECUTED, buyOrder.getStatus());
+        assertEquals(0, BigDecimal.valueOf(2).compareTo(second.getQuantity()));
+    }
+
+    @Test
+    void testFillOrKillFillsFromIcebergReserve() throws OrderException {
+        Order iceberg = Order.createIcebergOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(30), BigDecimal.valueOf(10));
+        Order buyOrder = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                                         BigDecimal.valueOf(100), BigDecimal.valueOf(25), TimeInForce.FOK);
+
+        matchingEngine.placeOrder(iceberg);
+        matchingEngine.placeOrder(buyOrder);
+
+        verify(tradeRepository, times(3)).addTrade(any(Trade.class));
+        assertEquals(OrderStatus.EXECUTED, buyOrder.getStatus());
+        assertEquals(0, BigDecimal.valueOf(5).compareTo(iceberg.getQuantity()));
+        PriceLevel level = ((OrderBook) matchingEngine.getOrderBook(SYMBOL)).getBestLevel(OrderSide.SELL);
+        assertEquals(0, BigDecimal.valueOf(5).compareTo(level.getQuantity()));
+        assertEquals(0, BigDecimal.valueOf(5).compareTo(level.getTotalQuantity()));
+    }
+
+    @Test
+    void testImmediateStopLossOrderRejected() {
+        Order order = Order.createStopLossOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(10), BigDecimal.valueOf(95))
+                .toBuilder().timeInForce(TimeInForce.IOC).build();
+
+        assertThrows(OrderException.class, () -> matchingEngine.placeOrder(order));
+    }
+
+    @Test
+    void testIcebergReplenishesAtBackOfLevel() throws OrderException {
+        Order iceberg = Order.createIcebergOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(30), BigDecimal.valueOf(10));
+        Order sellOrder = Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                                          BigDecimal.valueOf(100), BigDecimal.valueOf(10));
+        Order buyOrder = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                                         BigDecimal.valueOf(100), BigDecimal.valueOf(15));
+        List<Trade> trades = new ArrayList<>();
+        matchingEngine.addTradeListener(trades::add);
+
+        matchingEngine.placeOrder(iceberg);
+        matchingEngine.placeOrder(sellOrder);
+        OrderBook orderBook = (OrderBook) matchingEngine.getOrderBook(SYMBOL);
+        assertEquals(0, BigDecimal.valueOf(20).compareTo(orderBook.getBestLevel(OrderSide.SELL).getQuantity()));
+
+        matchingEngine.placeOrder(buyOrder);
+
+        assertEquals(2, trades.size());
+        assertEquals(iceberg.getOrderId(), trades.get(0).getSellOrderId());
+        assertEquals(0, BigDecimal.valueOf(10).compareTo(trades.get(0).getQuantity()));
+        // The replenished slice queues behind the order that was already waiting
+        assertEquals(sellOrder.getOrderId(), trades.get(1).getSellOrderId());
+        assertEquals(0, BigDecimal.valueOf(20).compareTo(iceberg.getQuantity()));
+        assertEquals(0, BigDecimal.valueOf(10).compareTo(iceberg.getVisibleQuantity()));
+        assertSame(sellOrder, orderBook.getNextSellOrder());
+        assertEquals(0, BigDecimal.valueOf(15).compareTo(orderBook.getBestLevel(OrderSide.SELL).getQuantity()));
+    }
+
+    @Test
+    void testIcebergDisplayQuantityValidated() {
+        Order iceberg = Order.createIcebergOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(10), BigDecimal.valueOf(20));
+
+        assertThrows(OrderException.class, () -> matchingEngine.placeOrder(iceberg));
+    }
+
+    @Test
+    void testSelfTradeCancelOldestSkipsOwnOrders() throws OrderException {
+        Order own = Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                                    BigDecimal.valueOf(100), BigDecimal.valueOf(5));
+        Order other = Order.createOrder("user2", SYMBOL, OrderSide.SELL,
+                                      BigDecimal.valueOf(100), BigDecimal.valueOf(5));
+        Order buyOrder = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                                         BigDecimal.valueOf(100), BigDecimal.valueOf(5));
+        buyOrder.setSelfTradePrevention(SelfTradePrevention.CANCEL_OLDEST);
+        List<Trade> trades = new ArrayList<>();
+        matchingEngine.addTradeListener(trades::add);
+
+        matchingEngine.placeOrder(own);
+        matchingEngine.placeOrder(other);
+        matchingEngine.placeOrder(buyOrder);
+
+        assertEquals(1, trades.size());
+        assertEquals(other.getOrderId(), trades.get(0).getSellOrderId());
+        assertEquals(OrderStatus.CANCELLED, own.getStatus());
+        assertEquals(OrderStatus.EXECUTED, buyOrder.getStatus());
+        assertEquals(0, matchingEngine.getOrderBook(SYMBOL).getTotalOrders());
+    }
+
+    @Test
+    void testSelfTradeCancelNewestLeavesRestingOrder() throws OrderException {
+        Order other = Order.createOrder("user2", SYMBOL, OrderSide.SELL,
+                                      BigDecimal.valueOf(100), BigDecimal.valueOf(5));
+        Order own = Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                                    BigDecimal.valueOf(100), BigDecimal.valueOf(5));
+        Order buyOrder = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                                         BigDecimal.valueOf(100), BigDecimal.valueOf(8));
+        buyOrder.setSelfTradePrevention(SelfTradePrevention.CANCEL_NEWEST);
+
+        matchingEngine.placeOrder(other);
+        matchingEngine.placeOrder(own);
+        matchingEngine.placeOrder(buyOrder);
+
+        verify(tradeRepository, times(1)).addTrade(any(Trade.class));
+        assertEquals(OrderStatus.CANCELLED, buyOrder.getStatus());
+        assertEquals(0, BigDecimal.valueOf(3).compareTo(buyOrder.getQuantity()));
+        assertTrue(own.isActive());
+        assertSame(own, matchingEngine.getOrderBook(SYMBOL).getNextSellOrder());
+        verify(orderRepository, atLeastOnce()).updateOrder(buyOrder);
+    }
+
+    @Test
+    void testSelfTradeDecrementReducesLargerOrder() throws OrderException {
+        Order own = Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                                    BigDecimal.valueOf(100), BigDecimal.valueOf(10));
+        Order buyOrder = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                                         BigDecimal.valueOf(100), BigDecimal.valueOf(4));
+        buyOrder.setSelfTradePrevention(SelfTradePrevention.DECREMENT);
+
+        matchingEngine.placeOrder(own);
+        matchingEngine.placeOrder(buyOrder);
+
+        verify(tradeRepository, never()).addTrade(any(Trade.class));
+        assertEquals(OrderStatus.CANCELLED, buyOrder.getStatus());
+        assertTrue(own.isActive());
+        assertEquals(0, BigDecimal.valueOf(6).compareTo(own.getQuantity()));
+        OrderBook orderBook = (OrderBook) matchingEngine.getOrderBook(SYMBOL);
+        assertEquals(0, BigDecimal.valueOf(6).compareTo(orderBook.getBestLevel(OrderSide.SELL).getQuantity()));
+    }
+
+    @Test
+    void testFillOrKillCountsOnlyTradableQuantityWithSelfTradePrevention() throws OrderException {
+        Order other = Order.createOrder("user2", SYMBOL, OrderSide.SELL,
+                                      BigDecimal.valueOf(100), BigDecimal.valueOf(5));
+        Order own = Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                                    BigDecimal.valueOf(100), BigDecimal.valueOf(5));
+        Order buyOrder = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                                         BigDecimal.valueOf(100), BigDecimal.valueOf(8), TimeInForce.FOK);
+        buyOrder.setSelfTradePrevention(SelfTradePrevention.CANCEL_BOTH);
+
+        matchingEngine.placeOrder(other);
+        matchingEngine.placeOrder(own);
+        matchingEngine.placeOrder(buyOrder);
+
+        verify(tradeRepository, never()).addTrade(any(Trade.class));
+        assertEquals(OrderStatus.CANCELLED, buyOrder.getStatus());
+        assertTrue(own.isActive());
+        assertEquals(2, matchingEngine.getOrderBook(SYMBOL).getTotalOrders());
+    }
+
+    @Test
+    void testAuctionUncrossesAtSingleClearingPrice() throws OrderException {
+        List<Trade> trades = new ArrayList<>();
+        matchingEngine.addTradeListener(trades::add);
+        matchingEngine.startAuction(SYMBOL);
+
+        for (int price : new int[] {102, 101, 100}) {
+            matchingEngine.placeOrder(Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                    BigDecimal.valueOf(price), BigDecimal.valueOf(10)));
+        }
+        matchingEngine.placeOrder(Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                BigDecimal.valueOf(99), BigDecimal.valueOf(15)));
+        matchingEngine.placeOrder(Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                BigDecimal.valueOf(101), BigDecimal.valueOf(10)));
+        matchingEngine.placeOrder(Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                BigDecimal.valueOf(103), BigDecimal.valueOf(5)));
+        assertTrue(trades.isEmpty());
+
+        AuctionResult result = matchingEngine.uncross(SYMBOL);
+
+        assertEquals(0, BigDecimal.valueOf(101).compareTo(result.getClearingPrice()));
+        assertEquals(0, BigDecimal.valueOf(20).compareTo(result.getVolume()));
+        assertEquals(3, result.getTrades().size());
+        assertEquals(result.getTrades(), trades);
+        assertTrue(trades.stream().allMatch(trade -> trade.getPrice().compareTo(BigDecimal.valueOf(101)) == 0));
+        IOrderBook orderBook = matchingEngine.getOrderBook(SYMBOL);
+        assertFalse(orderBook.hasMatchingOrders());
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(orderBook.getBestBid()));
+        assertEquals(0, BigDecimal.valueOf(101).compareTo(orderBook.getBestAsk()));
+        assertTrue(matchingEngine.isInAuction(SYMBOL));
+    }
+
+    @Test
+    void testAuctionCountsIcebergReserve() throws OrderException {
+        matchingEngine.startAuction(SYMBOL);
+        matchingEngine.placeOrder(Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(25)));
+        matchingEngine.placeOrder(Order.createIcebergOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(30), BigDecimal.valueOf(10)));
+
+        AuctionResult result = matchingEngine.uncross(SYMBOL);
+
+        assertEquals(0, BigDecimal.valueOf(25).compareTo(result.getVolume()));
+        assertEquals(3, result.getTrades().size());
+        PriceLevel level = ((OrderBook) matchingEngine.getOrderBook(SYMBOL)).getBestLevel(OrderSide.SELL);
+        assertEquals(0, BigDecimal.valueOf(5).compareTo(level.getTotalQuantity()));
+    }
+
+    @Test
+    void testUncrossAllSettlesSymbolsInOrder() throws OrderException {
+        for (String symbol : List.of("MSFT", SYMBOL)) {
+            matchingEngine.startAuction(symbol);
+            matchingEngine.placeOrder(Order.createOrder(USER_ID, symbol, OrderSide.BUY,
+                    BigDecimal.valueOf(100), BigDecimal.valueOf(10)));
+            matchingEngine.placeOrder(Order.createOrder(USER_ID, symbol, OrderSide.SELL,
+                    BigDecimal.valueOf(100), BigDecimal.valueOf(10)));
+        }
+
+        Map<String, AuctionResult> results = matchingEngine.uncrossAll(List.of("MSFT", SYMBOL));
+
+        assertEquals(List.of(SYMBOL, "MSFT"), new ArrayList<>(results.keySet()));
+        Trade first = results.get(SYMBOL).getTrades().get(0);
+        Trade second = results.get("MSFT").getTrades().get(0);
+        assertTrue(IdUtils.tradeSequence(first.getTradeId()) < IdUtils.tradeSequence(second.getTradeId()));
+    }
+
+    @Test
+    void testImmediateOrderRejectedDuringAuction() throws OrderException {
+        matchingEngine.startAuction(SYMBOL);
+
+        assertThrows(OrderException.class, () -> matchingEngine.placeOrder(Order.createOrder(USER_ID, SYMBOL,
+                OrderSide.BUY, BigDecimal.valueOf(100), BigDecimal.valueOf(10), TimeInForce.IOC)));
+        assertThrows(OrderException.class, () -> matchingEngine.uncross("MSFT"));
+    }
+
+    @Test
+    void testEndAuctionResumesContinuousMatching() throws OrderException {
+        matchingEngine.startAuction(SYMBOL);
+        matchingEngine.placeOrder(Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(10)));
+
+        matchingEngine.endAuction(SYMBOL);
+        matchingEngine.placeOrder(Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(10)));
+
+        assertFalse(matchingEngine.isInAuction(SYMBOL));
+        verify(tradeRepository).addTrade(any(Trade.class));
+    }
+}
@@ -179,6 +179,51 @@ class OrderBookTest {
         assertEquals(order1, orderBook.getNextBuyOrder());
     }
 
+    @Test
+    void testOrderPriorityFollowsArrivalNotTimestamp() {
+        Order first = Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                                      BigDecimal.valueOf(100), BigDecimal.valueOf(10));
+        Order second = first.toBuilder()
+                .orderId("ORD-X")
+                .createdAt(first.getCreatedAt().minusSeconds(1))
+                .build();
+
+        orderBook.addOrder(first);
+        orderBook.addOrder(second);
+
+        assertSame(first, orderBook.getNextSellOrder());
+        assertTrue(first.getArrivalSequence() < second.getArrivalSequence());
+    }
+
+    @Test
+    void testReenteringOrderKeepsPriority() {
+        Order first = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                                      BigDecimal.valueOf(100), BigDecimal.valueOf(10));
+        Order second = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                                       BigDecimal.valueOf(100), BigDecimal.valueOf(5));
+        orderBook.addOrder(first);
+        orderBook.addOrder(second);
+
+        orderBook.removeOrder(first);
+        orderBook.addOrder(first);
+
+        assertSame(first, orderBook.getNextBuyOrder());
+    }
+
+    @Test
+    void testRemoveTriggeredStopLossOrder() {
+        Order stop = Order.createStopLossOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(10), BigDecimal.valueOf(105));
+        orderBook.addOrder(stop);
+        orderBook.checkStopLossAndTakeProfit(BigDecimal.valueOf(110));
+        assertSame(stop, orderBook.getNextSellOrder());
+
+        orderBook.removeOrder(stop);
+
+        assertNull(orderBook.getNextSellOrder());
+        assertEquals(0, orderBook.getTotalOrders());
+    }
+
     @Test
     void testRemoveNonExistentOrder() {
         Order order = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY, 
@@ -186,4 +231,29 @@ class OrderBookTest {
         
         assertDoesNotThrow(() -> orderBook.removeOrder(order));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testPriceLevelAggregatesQuantity() {
+        Order first = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                                      BigDecimal.valueOf(100), BigDecimal.valueOf(10));
+        Order second = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                                       BigDecimal.valueOf(100), BigDecimal.valueOf(5));
+        Order lower = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                                      BigDecimal.valueOf(99), BigDecimal.valueOf(7));
+        orderBook.addOrder(first);
+        orderBook.addOrder(second);
+        orderBook.addOrder(lower);
+
+        PriceLevel best = orderBook.getBestLevel(OrderSide.BUY);
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(best.getPrice()));
+        assertEquals(0, BigDecimal.valueOf(15).compareTo(best.getQuantity()));
+        assertEquals(2, best.size());
+
+        orderBook.removeOrder(first);
+        assertEquals(0, BigDecimal.valueOf(5).compareTo(best.getQuantity()));
+
+        orderBook.removeOrder(second);
+        assertEquals(0, BigDecimal.valueOf(99).compareTo(orderBook.getBestBid()));
+        assertEquals(1, orderBook.getBuyDepth());
+    }
+}
@@ -0,0 +1,119 @@
+package com.phonepe.tradingexchange.jfr;
+
+import com.phonepe.tradingexchange.clock.EngineClock;
+import com.phonepe.tradingexchange.engine.MatchingEngine;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.repository.OrderRepository;
+import com.phonepe.tradingexchange.repository.TradeRepository;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradingEventsTest {
+    private static final String SYMBOL = "AAPL";
+
+    @TempDir
+    Path tempDir;
+
+    private MatchingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = MatchingEngine.newIsolatedInstance(EngineClock.system(), true);
+        engine.setRepositories(OrderRepository.newInstance(), TradeRepository.newInstance());
+    }
+
+    @Test
+    void testLifecycleEventsRecordedWithZeroThreshold() throws IOException {
+        List<RecordedEvent> events = record(Duration.ZERO, () -> {
+            Order sell = Order.createOrder("user1", SYMBOL, OrderSide.SELL, BigDecimal.TEN, BigDecimal.ONE);
+            engine.placeOrder(sell);
+            engine.placeOrder(Order.createOrder("user2", SYMBOL, OrderSide.BUY, BigDecimal.TEN, BigDecimal.ONE));
+            Order resting = Order.createOrder("user1", SYMBOL, OrderSide.BUY, BigDecimal.ONE, BigDecimal.ONE);
+            engine.placeOrder(resting);
+            engine.cancelOrder(resting.getOrderId());
+        });
+
+        assertEquals(3, count(events, "OrderAccepted"));
+        assertEquals(1, count(events, "OrderMatched"));
+        assertEquals(1, count(events, "TradeCreated"));
+        assertEquals(1, count(events, "OrderCancelled"));
+
+        RecordedEvent accepted = events.stream()
+                .filter(event -> event.getEventType().getName().endsWith("OrderAccepted"))
+                .filter(event -> event.getInt("fills") == 1)
+                .findFirst().orElseThrow();
+        assertEquals(SYMBOL, accepted.getString("symbol"));
+        assertEquals("BUY", accepted.getString("side"));
+    }
+
+    @Test
+    void testStopsTriggeredDuringSweepRecorded() throws IOException {
+        Order stop = Order.createStopLossOrder("user3", SYMBOL, OrderSide.BUY, BigDecimal.ONE, BigDecimal.ONE,
+                BigDecimal.TEN);
+        engine.placeOrder(stop);
+        List<RecordedEvent> events = record(Duration.ZERO, () -> {
+            engine.placeOrder(Order.createOrder("user1", SYMBOL, OrderSide.SELL, BigDecimal.TEN, BigDecimal.ONE));
+            engine.placeOrder(Order.createOrder("user2", SYMBOL, OrderSide.BUY, BigDecimal.TEN, BigDecimal.ONE));
+        });
+
+        assertEquals(1, count(events, "StopTriggered"));
+        RecordedEvent triggered = events.stream()
+                .filter(event -> event.getEventType().getName().endsWith("StopTriggered"))
+                .findFirst().orElseThrow();
+        assertEquals(stop.getOrderId(), triggered.getString("orderIds"));
+        assertEquals(10.0, triggered.getDouble("price"));
+    }
+
+    @Test
+    void testFastOperationsSkippedByDefaultThreshold() throws IOException {
+        // Warm up both sides of the book so class loading and book creation do not push the
+        // recorded order over the threshold
+        for (int i = 0; i < 1_000; i++) {
+            engine.placeOrder(Order.createOrder("user1", SYMBOL, OrderSide.BUY, BigDecimal.ONE, BigDecimal.ONE));
+            engine.placeOrder(Order.createOrder("user1", SYMBOL, OrderSide.SELL, BigDecimal.TEN, BigDecimal.ONE));
+        }
+        List<RecordedEvent> events = record(null, () ->
+                engine.placeOrder(Order.createOrder("user1", SYMBOL, OrderSide.SELL, BigDecimal.TEN, BigDecimal.ONE)));
+
+        assertEquals(0, count(events, "OrderAccepted"));
+    }
+
+    private List<RecordedEvent> record(Duration threshold, Runnable action) throws IOException {
+        Path file = tempDir.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            for (Class<? extends jdk.jfr.Event> type : List.of(OrderAcceptedEvent.class, OrderMatchedEvent.class,
+                    TradeCreatedEvent.class, OrderCancelledEvent.class, StopTriggeredEvent.class)) {
+                if (threshold == null) {
+                    recording.enable(type);
+                } else {
+                    recording.enable(type).withThreshold(threshold);
+                }
+            }
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().startsWith("com.phonepe.tradingexchange."))
+                .collect(Collectors.toList());
+    }
+
+    private static long count(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().endsWith("." + name)).count();
+    }
+}
@@ -0,0 +1,60 @@
+package com.phonepe.tradingexchange.loadtest;
+
+import com.phonepe.tradingexchange.service.TradingService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTest {
+
+    @Test
+    void testZipfFavoursLowRanks() {
+        ZipfDistribution zipf = new ZipfDistribution(10, 1.0);
+        int[] hits = new int[10];
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            hits[zipf.sample(random)]++;
+        }
+
+        assertEquals(zipf.probability(0), hits[0] / 100_000.0, 0.01);
+        assertTrue(hits[0] > hits[1] && hits[1] > hits[9]);
+    }
+
+    @Test
+    void testShortRunProducesReport() throws InterruptedException {
+        LoadProfile profile = LoadProfile.builder()
+                .symbolCount(4)
+                .threads(2)
+                .userCount(5)
+                .targetRatePerSecond(2_000)
+                .warmup(Duration.ZERO)
+                .duration(Duration.ofSeconds(1))
+                .build();
+
+        LoadTestReport report = new LoadGenerator(TradingService.getInstance(), profile).run();
+
+        assertTrue(report.getOperations() > 1_000, "operations: " + report.getOperations());
+        assertEquals(0, report.getErrors());
+        long p50 = report.getCorrectedLatencyNanos().get("p50");
+        assertTrue(report.getCorrectedLatencyNanos().get("p99.99") >= p50);
+        assertTrue(report.getUncorrectedLatencyNanos().get("p50") <= p50);
+        String json = report.toJson();
+        assertTrue(json.contains("\"p99.99\""));
+        assertTrue(json.contains("\"throughputPerSecond\""));
+    }
+
+    @Test
+    void testParsesOptions() {
+        LoadProfile profile = LoadGenerator.profileFrom(LoadGenerator.parseArgs(
+                new String[] {"--rate=1000", "--threads=8", "--zipf=0", "--duration=60"}));
+
+        assertEquals(1000, profile.getTargetRatePerSecond());
+        assertEquals(8, profile.getThreads());
+        assertEquals(0.0, profile.getZipfExponent());
+        assertEquals(Duration.ofSeconds(60), profile.getDuration());
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.parseArgs(new String[] {"rate"}));
+    }
+}
@@ -0,0 +1,86 @@
+package com.phonepe.tradingexchange.metrics;
+
+import com.phonepe.tradingexchange.clock.EngineClock;
+import com.phonepe.tradingexchange.engine.MatchingEngine;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.repository.OrderRepository;
+import com.phonepe.tradingexchange.repository.TradeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EngineMetricsTest {
+    private static final String SYMBOL = "AAPL";
+
+    private MatchingEngine engine;
+    private EngineMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        engine = MatchingEngine.newIsolatedInstance(EngineClock.system(), true);
+        engine.setRepositories(OrderRepository.newInstance(), TradeRepository.newInstance());
+        metrics = engine.getMetrics();
+    }
+
+    @Test
+    void testCountsOrdersTradesAndCancels() {
+        engine.placeOrder(Order.createOrder("user1", SYMBOL, OrderSide.SELL, BigDecimal.TEN, BigDecimal.ONE));
+        engine.placeOrder(Order.createOrder("user2", SYMBOL, OrderSide.BUY, BigDecimal.TEN, BigDecimal.ONE));
+        Order resting = Order.createOrder("user1", SYMBOL, OrderSide.BUY, BigDecimal.ONE, BigDecimal.ONE);
+        engine.placeOrder(resting);
+        engine.cancelOrder(resting.getOrderId());
+
+        EngineMetricsSnapshot snapshot = metrics.snapshot();
+
+        assertEquals(3, snapshot.getOrdersPlaced());
+        assertEquals(1, snapshot.getTradesCreated());
+        assertEquals(1, snapshot.getOrdersCancelled());
+        assertEquals(1.0 / 3, snapshot.getCancelRatio(), 1e-9);
+        assertEquals(1.0 / 3, snapshot.getMatchIterationsPerCommand(), 1e-9);
+    }
+
+    @Test
+    void testLockCountsAreTheEngines() {
+        MatchingEngine locking = MatchingEngine.newIsolatedInstance(EngineClock.system(), false);
+        locking.setRepositories(OrderRepository.newInstance(), TradeRepository.newInstance());
+        long shared = EngineMetrics.getInstance().getLockAcquisitions();
+
+        locking.placeOrder(Order.createOrder("user1", SYMBOL, OrderSide.SELL, BigDecimal.TEN, BigDecimal.ONE));
+        locking.placeOrder(Order.createOrder("user2", SYMBOL, OrderSide.BUY, BigDecimal.TEN, BigDecimal.ONE));
+
+        assertTrue(locking.getMetrics().getLockAcquisitions() > 0);
+        assertEquals(shared, EngineMetrics.getInstance().getLockAcquisitions());
+        // The single-threaded engine takes no locks
+        engine.placeOrder(Order.createOrder("user1", SYMBOL, OrderSide.SELL, BigDecimal.TEN, BigDecimal.ONE));
+        assertEquals(0, metrics.getLockAcquisitions());
+    }
+
+    @Test
+    void testGaugesTrackBookDepthAndRepositorySizes() {
+        engine.placeOrder(Order.createOrder("user1", SYMBOL, OrderSide.BUY, BigDecimal.ONE, BigDecimal.ONE));
+        engine.placeOrder(Order.createOrder("user1", SYMBOL, OrderSide.SELL, BigDecimal.TEN, BigDecimal.ONE));
+        engine.placeOrder(Order.createOrder("user1", SYMBOL, OrderSide.SELL, BigDecimal.TEN, BigDecimal.ONE));
+
+        assertEquals(1L, metrics.getGauges().get("book.AAPL.buy"));
+        assertEquals(2L, metrics.getGauges().get("book.AAPL.sell"));
+        assertEquals(3L, metrics.getGauges().get("orders.hot"));
+        assertEquals(0L, metrics.getGauges().get("trades.stored"));
+    }
+
+    @Test
+    void testExpiryTickTimings() {
+        metrics.expiryTickCompleted(1_000, 2);
+        metrics.expiryTickCompleted(3_000, 0);
+
+        EngineMetricsSnapshot snapshot = metrics.snapshot();
+
+        assertEquals(2, snapshot.getExpiryTicks());
+        assertEquals(2_000, snapshot.getExpiryTickMeanNanos(), 1e-9);
+        assertEquals(3_000, snapshot.getExpiryTickMaxNanos());
+        assertEquals(2, snapshot.getOrdersExpired());
+    }
+}
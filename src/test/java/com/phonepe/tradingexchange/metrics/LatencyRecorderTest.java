@@ -0,0 +1,83 @@
+package com.phonepe.tradingexchange.metrics;
+
+import com.phonepe.tradingexchange.clock.EngineClock;
+import com.phonepe.tradingexchange.engine.MatchingEngine;
+import com.phonepe.tradingexchange.journal.CommandType;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.repository.OrderRepository;
+import com.phonepe.tradingexchange.repository.TradeRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyRecorderTest {
+
+    @Test
+    void testBucketBoundsAreContiguous() {
+        for (long value = 0; value < 1_000_000; value += 7) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(LatencyHistogram.bucketLowerBound(index) <= value);
+            assertTrue(LatencyHistogram.bucketLowerBound(index + 1) > value);
+        }
+    }
+
+    @Test
+    void testPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 10_000; nanos++) {
+            histogram.record(nanos * 100);
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(10_000, snapshot.getCount());
+        assertEquals(1_000_000, snapshot.getMaxNanos());
+        assertEquals(500_000, snapshot.getPercentileNanos(50), 500_000 * 0.04);
+        assertEquals(990_000, snapshot.getPercentileNanos(99), 990_000 * 0.04);
+    }
+
+    @Test
+    void testIntervalSnapshotsOnlyCountNewRecordings() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.record(200);
+        assertEquals(2, histogram.intervalSnapshot().getCount());
+
+        histogram.record(300);
+
+        assertEquals(1, histogram.intervalSnapshot().getCount());
+        assertEquals(3, histogram.snapshot().getCount());
+    }
+
+    @Test
+    void testEngineRecordsStagesPerSymbolAndCommand() {
+        MatchingEngine engine = MatchingEngine.newIsolatedInstance(EngineClock.system(), true);
+        engine.setRepositories(OrderRepository.newInstance(), TradeRepository.newInstance());
+        LatencyRecorder recorder = engine.getLatencyRecorder();
+
+        engine.placeOrder(Order.createOrder("user1", "AAPL", OrderSide.SELL, BigDecimal.TEN, BigDecimal.ONE));
+        engine.placeOrder(Order.createOrder("user2", "AAPL", OrderSide.BUY, BigDecimal.TEN, BigDecimal.ONE));
+        recorder.rollInterval();
+
+        Map<String, Long> counts = recorder.getIntervalCounts();
+        assertEquals(2L, counts.get("AAPL/PLACE_ORDER/VALIDATION"));
+        assertEquals(2L, counts.get("AAPL/PLACE_ORDER/MATCH_LOOP"));
+        assertEquals(1L, counts.get("AAPL/PLACE_ORDER/TRADE_PERSISTENCE"));
+        assertEquals(1L, counts.get("AAPL/PLACE_ORDER/ORDER_UPDATE"));
+        assertTrue(recorder.getCumulativeReport().contains("AAPL/PLACE_ORDER/REPOSITORY_SAVE"));
+    }
+
+    @Test
+    void testDisabledRecorderRecordsNothing() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.setEnabled(false);
+
+        recorder.record("AAPL", CommandType.PLACE_ORDER, LatencyStage.TOTAL, recorder.start());
+
+        assertTrue(recorder.cumulativeSnapshots().isEmpty());
+    }
+}
@@ -0,0 +1,93 @@
+package com.phonepe.tradingexchange.position;
+
+import com.phonepe.tradingexchange.clock.EngineClock;
+import com.phonepe.tradingexchange.engine.MatchingEngine;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.readmodel.ReadModel;
+import com.phonepe.tradingexchange.repository.OrderRepository;
+import com.phonepe.tradingexchange.repository.TradeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionServiceTest {
+    private static final String SYMBOL = "AAPL";
+    private static final String BUYER = "buyer";
+    private static final String SELLER = "seller";
+
+    private MatchingEngine engine;
+    private ReadModel readModel;
+    private PositionService positions;
+
+    @BeforeEach
+    void setUp() {
+        engine = MatchingEngine.newIsolatedInstance(EngineClock.system(), true);
+        OrderRepository orderRepository = OrderRepository.newInstance();
+        engine.setRepositories(orderRepository, TradeRepository.newInstance());
+        readModel = new ReadModel(engine, orderRepository);
+        positions = new PositionService(engine, readModel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        positions.close();
+        readModel.close();
+    }
+
+    @Test
+    void testPartialCloseRealizesPnlAtAverageCost() {
+        engine.placeOrder(order(SELLER, OrderSide.SELL, "100", "10"));
+        engine.placeOrder(order(BUYER, OrderSide.BUY, "100", "10"));
+        engine.placeOrder(order(SELLER, OrderSide.SELL, "110", "10"));
+        engine.placeOrder(order(BUYER, OrderSide.BUY, "110", "10"));
+
+        engine.placeOrder(order("other", OrderSide.BUY, "120", "5"));
+        engine.placeOrder(order(BUYER, OrderSide.SELL, "120", "5"));
+
+        Position buyer = positions.getPosition(BUYER, SYMBOL);
+        assertEquals(0, new BigDecimal("15").compareTo(buyer.getQuantity()));
+        assertEquals(0, new BigDecimal("105").compareTo(buyer.getAveragePrice()));
+        assertEquals(0, new BigDecimal("75").compareTo(buyer.getRealizedPnl()));
+
+        Position seller = positions.getPosition(SELLER, SYMBOL);
+        assertEquals(0, new BigDecimal("-20").compareTo(seller.getQuantity()));
+        assertEquals(0, new BigDecimal("105").compareTo(seller.getAveragePrice()));
+        assertEquals(0, seller.getRealizedPnl().signum());
+    }
+
+    @Test
+    void testFlipAndMarkToBook() {
+        engine.placeOrder(order(SELLER, OrderSide.SELL, "100", "10"));
+        engine.placeOrder(order(BUYER, OrderSide.BUY, "100", "10"));
+        engine.placeOrder(order("other", OrderSide.BUY, "90", "15"));
+        engine.placeOrder(order(BUYER, OrderSide.SELL, "90", "15"));
+        assertTrue(readModel.awaitProjected(Duration.ofSeconds(5)));
+
+        Position buyer = positions.getPosition(BUYER, SYMBOL);
+        assertEquals(0, new BigDecimal("-5").compareTo(buyer.getQuantity()));
+        assertEquals(0, new BigDecimal("90").compareTo(buyer.getAveragePrice()));
+        assertEquals(0, new BigDecimal("-100").compareTo(buyer.getRealizedPnl()));
+        assertNull(buyer.getUnrealizedPnl());
+
+        // A short is marked at the best ask
+        engine.placeOrder(order(SELLER, OrderSide.SELL, "94", "1"));
+        assertTrue(readModel.awaitProjected(Duration.ofSeconds(5)));
+        buyer = positions.getPosition(BUYER, SYMBOL);
+        assertEquals(0, new BigDecimal("94").compareTo(buyer.getMarkPrice()));
+        assertEquals(0, new BigDecimal("-20").compareTo(buyer.getUnrealizedPnl()));
+
+        assertEquals(0, positions.getPosition("nobody", SYMBOL).getQuantity().signum());
+        assertEquals(3, positions.getPositions(SELLER).size() + positions.getPositions("other").size()
+                + positions.getPositions(BUYER).size());
+    }
+
+    private static Order order(String userId, OrderSide side, String price, String quantity) {
+        return Order.createOrder(userId, SYMBOL, side, new BigDecimal(price), new BigDecimal(quantity));
+    }
+}
@@ -0,0 +1,132 @@
+package com.phonepe.tradingexchange.readmodel;
+
+import com.phonepe.tradingexchange.clock.EngineClock;
+import com.phonepe.tradingexchange.engine.MatchingEngine;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.OrderStatus;
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.repository.OrderRepository;
+import com.phonepe.tradingexchange.repository.Page;
+import com.phonepe.tradingexchange.repository.TradeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadModelTest {
+    private static final String SYMBOL = "AAPL";
+
+    private MatchingEngine engine;
+    private ReadModel readModel;
+
+    @BeforeEach
+    void setUp() {
+        engine = MatchingEngine.newIsolatedInstance(EngineClock.system(), true);
+        OrderRepository orderRepository = OrderRepository.newInstance();
+        engine.setRepositories(orderRepository, TradeRepository.newInstance());
+        readModel = new ReadModel(engine, orderRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        readModel.close();
+    }
+
+    @Test
+    void testProjectsOrdersTradesAndTopOfBook() {
+        Order sell = order("seller", OrderSide.SELL, "101", "10");
+        Order buy = order("buyer", OrderSide.BUY, "101", "4");
+        Order bid = order("buyer", OrderSide.BUY, "99", "5");
+        engine.placeOrder(sell);
+        engine.placeOrder(buy);
+        engine.placeOrder(bid);
+        assertTrue(readModel.awaitProjected(Duration.ofSeconds(5)));
+
+        List<Order> buyerOrders = readModel.findOrdersByUser("buyer");
+        assertEquals(2, buyerOrders.size());
+        assertEquals(buy.getOrderId(), buyerOrders.get(0).getOrderId());
+        assertEquals(OrderStatus.EXECUTED, buyerOrders.get(0).getStatus());
+        Order projectedSell = readModel.findOrder(sell.getOrderId()).orElseThrow();
+        assertNotSame(sell, projectedSell);
+        assertEquals(0, new BigDecimal("6").compareTo(projectedSell.getQuantity()));
+
+        List<Trade> trades = readModel.findTradesBySymbol(SYMBOL);
+        assertEquals(1, trades.size());
+        assertEquals(trades, readModel.findTradesByUser("seller"));
+        assertEquals(trades, readModel.findTradesBySymbol(SYMBOL, null, null));
+        TopOfBook top = readModel.getTopOfBook(SYMBOL);
+        assertEquals(0, new BigDecimal("99").compareTo(top.getBestBid()));
+        assertEquals(0, new BigDecimal("101").compareTo(top.getBestAsk()));
+
+        engine.cancelOrder(sell.getOrderId());
+        assertTrue(readModel.awaitProjected(Duration.ofSeconds(5)));
+        assertEquals(OrderStatus.CANCELLED, readModel.findOrder(sell.getOrderId()).orElseThrow().getStatus());
+        assertEquals(0, readModel.getTopOfBook(SYMBOL).getBestAsk().signum());
+    }
+
+    @Test
+    void testFinishedOrdersReadFromColdTier() {
+        Order sell = order("seller", OrderSide.SELL, "100", "10");
+        Order resting = order("buyer", OrderSide.BUY, "99", "1");
+        engine.placeOrder(sell);
+        engine.placeOrder(resting);
+        engine.placeOrder(order("buyer", OrderSide.BUY, "100", "10"));
+        engine.cancelOrder(resting.getOrderId());
+        assertTrue(readModel.awaitProjected(Duration.ofSeconds(5)));
+
+        assertEquals(0, readModel.openOrderCount());
+        assertEquals(OrderStatus.EXECUTED, readModel.findOrder(sell.getOrderId()).orElseThrow().getStatus());
+        List<Order> buyerOrders = readModel.findOrdersByUser("buyer");
+        assertEquals(2, buyerOrders.size());
+        assertEquals(OrderStatus.CANCELLED, buyerOrders.get(0).getStatus());
+        assertEquals(OrderStatus.EXECUTED, buyerOrders.get(1).getStatus());
+        Page<Trade> trades = readModel.findTradesByUser("buyer", 0, 10, null, null);
+        assertEquals(1, trades.getItems().size());
+        assertEquals(trades.getItems(), readModel.findTradesBySymbol(SYMBOL, 0, 10, null, null).getItems());
+    }
+
+    @Test
+    void testStaleSnapshotsDropped() {
+        Order order = order("user", OrderSide.BUY, "100", "10");
+        order.fill(new BigDecimal("4"), LocalDateTime.now());
+        Order partial = order.toBuilder().build();
+        order.updatePrice(new BigDecimal("101"), LocalDateTime.now());
+        readModel.onOrder(order);
+        readModel.onOrder(partial);
+        assertTrue(readModel.awaitProjected(Duration.ofSeconds(5)));
+        assertEquals(0, new BigDecimal("101").compareTo(readModel.findOrder(order.getOrderId()).orElseThrow().getPrice()));
+
+        order.cancel(LocalDateTime.now());
+        readModel.onOrder(order);
+        readModel.onOrder(partial);
+        assertTrue(readModel.awaitProjected(Duration.ofSeconds(5)));
+        assertEquals(0, readModel.openOrderCount());
+    }
+
+    @Test
+    void testPagesFollowPlacementOrder() {
+        for (int i = 0; i < 5; i++) {
+            engine.placeOrder(order("user", OrderSide.BUY, String.valueOf(90 + i), "1"));
+        }
+        assertTrue(readModel.awaitProjected(Duration.ofSeconds(5)));
+
+        Page<Order> first = readModel.findOrdersByUser("user", 0, 3, null, null);
+        assertEquals(3, first.getItems().size());
+        assertTrue(first.isHasMore());
+        Page<Order> second = readModel.findOrdersByUser("user", first.getNextCursor(), 3, null, null);
+        assertEquals(2, second.getItems().size());
+        assertFalse(second.isHasMore());
+        assertEquals(0, new BigDecimal("94").compareTo(second.getItems().get(1).getPrice()));
+    }
+
+    private static Order order(String userId, OrderSide side, String price, String quantity) {
+        return Order.createOrder(userId, SYMBOL, side, new BigDecimal(price), new BigDecimal(quantity));
+    }
+}
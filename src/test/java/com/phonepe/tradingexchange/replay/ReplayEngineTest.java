@@ -0,0 +1,231 @@
+package com.phonepe.tradingexchange.replay;
+
+import com.phonepe.tradingexchange.clock.EngineClock;
+import com.phonepe.tradingexchange.engine.MatchingEngine;
+import com.phonepe.tradingexchange.exception.OrderException;
+import com.phonepe.tradingexchange.journal.Command;
+import com.phonepe.tradingexchange.journal.CommandJournalReader;
+import com.phonepe.tradingexchange.journal.CommandJournalWriter;
+import com.phonepe.tradingexchange.journal.CommandType;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.repository.OrderRepository;
+import com.phonepe.tradingexchange.repository.TradeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayEngineTest {
+    private static final String SYMBOL = "AAPL";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testReplayReproducesLiveTrades() throws IOException {
+        Path journal = tempDir.resolve("commands.journal");
+        List<Trade> liveTrades = runLiveSession(journal, 500);
+
+        ReplayResult result = ReplayEngine.replay(journal);
+
+        assertFalse(liveTrades.isEmpty());
+        assertEquals(liveTrades, result.getTrades());
+    }
+
+    @Test
+    void testReplayIsByteIdentical() throws IOException {
+        Path journal = tempDir.resolve("commands.journal");
+        runLiveSession(journal, 500);
+
+        ReplayResult first = ReplayEngine.replay(journal);
+        ReplayResult second = ReplayEngine.replay(CommandJournalReader.readAll(journal));
+
+        assertArrayEquals(first.getTradeStream(), second.getTradeStream());
+        assertEquals(first.getDigest(), second.getDigest());
+        assertEquals(first.getCommandsApplied(), second.getCommandsApplied());
+    }
+
+    @Test
+    void testRejectedCommandsAreCountedNotFatal() {
+        Order order = Order.createOrder("user1", SYMBOL, OrderSide.BUY, BigDecimal.TEN, BigDecimal.ONE);
+        List<Command> commands = List.of(
+                Command.placeOrder(order, order.getCreatedAt()),
+                Command.cancelOrder(order.getOrderId(), order.getCreatedAt()),
+                Command.cancelOrder(order.getOrderId(), order.getCreatedAt()));
+
+        ReplayResult result = ReplayEngine.replay(commands);
+
+        assertEquals(2, result.getCommandsApplied());
+        assertEquals(1, result.getCommandsRejected());
+    }
+
+    @Test
+    void testRejectedCancelsAreNotJournaled() throws OrderException {
+        MatchingEngine engine = MatchingEngine.newIsolatedInstance(EngineClock.system(), false);
+        engine.setRepositories(OrderRepository.newInstance(), TradeRepository.newInstance());
+        List<Command> journal = new ArrayList<>();
+        engine.setJournal(command -> {
+            journal.add(command);
+            return command;
+        });
+        Order order = Order.createOrder("user1", SYMBOL, OrderSide.BUY, BigDecimal.TEN, BigDecimal.ONE);
+        engine.placeOrder(order);
+
+        engine.cancelOrder(order.getOrderId());
+        assertThrows(OrderException.class, () -> engine.cancelOrder(order.getOrderId()));
+        assertThrows(OrderException.class, () -> engine.cancelOrder("ORD-0"));
+
+        assertEquals(2, journal.size());
+        assertEquals(CommandType.CANCEL_ORDER, journal.get(1).getType());
+    }
+
+    @Test
+    void testOnlyTriggeringPricesAreJournaled() {
+        MatchingEngine engine = MatchingEngine.newIsolatedInstance(EngineClock.system(), false);
+        engine.setRepositories(OrderRepository.newInstance(), TradeRepository.newInstance());
+        List<Command> journal = new ArrayList<>();
+        engine.setJournal(command -> {
+            journal.add(command);
+            return command;
+        });
+        engine.placeOrder(Order.createStopLossOrder("user1", SYMBOL, OrderSide.SELL,
+                BigDecimal.valueOf(100), BigDecimal.TEN, BigDecimal.valueOf(105)));
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(engine.onMarketPrice(SYMBOL, BigDecimal.valueOf(100)).isEmpty());
+        }
+        assertEquals(1, engine.onMarketPrice(SYMBOL, BigDecimal.valueOf(110)).size());
+        assertTrue(engine.onMarketPrice(SYMBOL, BigDecimal.valueOf(110)).isEmpty());
+
+        assertEquals(List.of(CommandType.PLACE_ORDER, CommandType.MARKET_PRICE),
+                journal.stream().map(Command::getType).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testModifyLosingToCancelIsNotJournaled() throws Exception {
+        MatchingEngine engine = MatchingEngine.newIsolatedInstance(EngineClock.system(), false);
+        engine.setRepositories(OrderRepository.newInstance(), TradeRepository.newInstance());
+        List<Command> journal = new CopyOnWriteArrayList<>();
+        CountDownLatch cancelling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        engine.setJournal(command -> {
+            journal.add(command);
+            if (command.getType() == CommandType.CANCEL_ORDER) {
+                // Hold the order's lock until the modify is waiting for it
+                cancelling.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return command;
+        });
+        Order order = Order.createOrder("user1", SYMBOL, OrderSide.BUY, BigDecimal.TEN, BigDecimal.ONE);
+        engine.placeOrder(order);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> cancel = executor.submit(() -> engine.cancelOrder(order.getOrderId()));
+            cancelling.await();
+            AtomicReference<Thread> modifier = new AtomicReference<>();
+            Future<?> modify = executor.submit(() -> {
+                modifier.set(Thread.currentThread());
+                engine.modifyOrder(order.getOrderId(), new BigDecimal("11"), null);
+                return null;
+            });
+            while (modifier.get() == null || modifier.get().getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            cancel.get();
+            ExecutionException rejected = assertThrows(ExecutionException.class, modify::get);
+            assertInstanceOf(OrderException.class, rejected.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(List.of(CommandType.PLACE_ORDER, CommandType.CANCEL_ORDER),
+                journal.stream().map(Command::getType).collect(Collectors.toList()));
+        assertEquals(0, ReplayEngine.replay(journal).getCommandsRejected());
+    }
+
+    @Test
+    void testReplayReproducesParallelAuctions() throws IOException {
+        Path journal = tempDir.resolve("auctions.journal");
+        MatchingEngine engine = MatchingEngine.newIsolatedInstance(EngineClock.system(), false);
+        engine.setRepositories(OrderRepository.newInstance(), TradeRepository.newInstance());
+        List<Trade> liveTrades = new ArrayList<>();
+        engine.addTradeListener(liveTrades::add);
+        List<String> symbols = List.of("AAPL", "GOOG", "MSFT");
+
+        Random random = new Random(7);
+        try (CommandJournalWriter writer = CommandJournalWriter.open(journal)) {
+            engine.setJournal(writer);
+            symbols.forEach(engine::startAuction);
+            for (int i = 0; i < 300; i++) {
+                OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+                engine.placeOrder(Order.createOrder("user" + random.nextInt(5), symbols.get(random.nextInt(3)), side,
+                        BigDecimal.valueOf(95 + random.nextInt(10)), BigDecimal.valueOf(1 + random.nextInt(20))));
+            }
+            engine.uncrossAll(symbols);
+            symbols.forEach(engine::endAuction);
+        }
+
+        ReplayResult result = ReplayEngine.replay(journal);
+
+        assertFalse(liveTrades.isEmpty());
+        assertEquals(liveTrades, result.getTrades());
+    }
+
+    private static List<Trade> runLiveSession(Path journal, int orders) throws IOException {
+        MatchingEngine engine = MatchingEngine.newIsolatedInstance(EngineClock.system(), false);
+        engine.setRepositories(OrderRepository.newInstance(), TradeRepository.newInstance());
+        List<Trade> trades = new ArrayList<>();
+        engine.addTradeListener(trades::add);
+
+        Random random = new Random(42);
+        List<String> placed = new ArrayList<>();
+        try (CommandJournalWriter writer = CommandJournalWriter.open(journal)) {
+            engine.setJournal(writer);
+            for (int i = 0; i < orders; i++) {
+                try {
+                    int action = random.nextInt(10);
+                    if (action < 7 || placed.isEmpty()) {
+                        OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+                        Order order = Order.createOrder("user" + random.nextInt(5), SYMBOL, side,
+                                BigDecimal.valueOf(95 + random.nextInt(10)),
+                                BigDecimal.valueOf(1 + random.nextInt(20)));
+                        engine.placeOrder(order);
+                        placed.add(order.getOrderId());
+                    } else if (action < 9) {
+                        engine.cancelOrder(placed.get(random.nextInt(placed.size())));
+                    } else {
+                        engine.modifyOrder(placed.get(random.nextInt(placed.size())),
+                                BigDecimal.valueOf(95 + random.nextInt(10)), null);
+                    }
+                } catch (OrderException e) {
+                    // Cancelling or modifying a filled order is expected in a random session
+                }
+            }
+        }
+        return trades;
+    }
+}
@@ -0,0 +1,164 @@
+package com.phonepe.tradingexchange.replication;
+
+import com.phonepe.tradingexchange.clock.EngineClock;
+import com.phonepe.tradingexchange.engine.MatchingEngine;
+import com.phonepe.tradingexchange.exception.OrderException;
+import com.phonepe.tradingexchange.exception.ReplicationException;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.replay.ReplayEngine;
+import com.phonepe.tradingexchange.risk.RiskExposure;
+import com.phonepe.tradingexchange.repository.OrderRepository;
+import com.phonepe.tradingexchange.repository.TradeRepository;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicationTest {
+    private static final String SYMBOL = "AAPL";
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @Test
+    void testStandbyProcessMatchesPrimary() throws Exception {
+        MatchingEngine engine = MatchingEngine.newIsolatedInstance(EngineClock.system(), false);
+        engine.setRepositories(OrderRepository.newInstance(), TradeRepository.newInstance());
+        List<Trade> trades = new ArrayList<>();
+        engine.addTradeListener(trades::add);
+
+        ReplicationPrimary primary = new ReplicationPrimary(0,
+                ReplicationPolicy.quorum(1).toBuilder().ackTimeout(TIMEOUT).build());
+        Process standby = new ProcessBuilder(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-cp", System.getProperty("java.class.path"),
+                ReplicationStandby.class.getName(), "--host=localhost", "--port=" + primary.getPort())
+                .redirectErrorStream(true)
+                .start();
+        try {
+            assertTrue(primary.awaitStandbys(1, TIMEOUT));
+            engine.setJournal(primary);
+            runSession(engine, new Random(42), 500);
+            primary.close();
+
+            String output;
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(standby.getInputStream(), StandardCharsets.UTF_8))) {
+                output = reader.lines().collect(Collectors.joining("\n"));
+            }
+            assertTrue(standby.waitFor(TIMEOUT.getSeconds(), TimeUnit.SECONDS));
+            assertEquals(0, standby.exitValue(), output);
+
+            assertFalse(trades.isEmpty());
+            assertEquals("sequence=" + primary.getLastSequence()
+                    + " trades=" + ReplayEngine.tradeDigest(trades)
+                    + " book=" + ReplayEngine.bookDigest(engine), output.trim());
+        } finally {
+            standby.destroyForcibly();
+        }
+    }
+
+    @Test
+    void testQuorumTimeoutFencesPrimaryAndStandbyTakesOver() throws Exception {
+        MatchingEngine engine = MatchingEngine.newIsolatedInstance(EngineClock.system(), false);
+        engine.setRepositories(OrderRepository.newInstance(), TradeRepository.newInstance());
+        ReplicationPrimary primary = new ReplicationPrimary(0,
+                ReplicationPolicy.quorum(1).toBuilder().ackTimeout(Duration.ofSeconds(2)).build());
+        ReplicationStandby standby = new ReplicationStandby("localhost", primary.getPort());
+        assertTrue(primary.awaitStandbys(1, TIMEOUT));
+        engine.setJournal(primary);
+        runSession(engine, new Random(7), 200);
+
+        // Losing the only standby leaves the next command without its quorum
+        standby.close();
+        Order lost = order(OrderSide.BUY, "100", "1");
+        RiskExposure exposure = engine.getRiskEngine().getExposure(lost.getUserId(), SYMBOL);
+        assertThrows(ReplicationException.class, () -> engine.placeOrder(lost));
+        assertEquals(exposure, engine.getRiskEngine().getExposure(lost.getUserId(), SYMBOL));
+        assertTrue(primary.isFenced());
+        assertThrows(ReplicationException.class, () -> engine.placeOrder(order(OrderSide.BUY, "100", "1")));
+        primary.close();
+        // Nothing the primary sent after the standby closed may have been applied
+        assertEquals(primary.getLastSequence() - 1, standby.getLastApplied());
+
+        MatchingEngine promoted = standby.promote();
+        assertEquals(ReplayEngine.bookDigest(engine), ReplayEngine.bookDigest(promoted));
+        ReplicationPrimary newPrimary = new ReplicationPrimary(0, ReplicationPolicy.async(), standby.getCommands());
+        promoted.setJournal(newPrimary);
+        ReplicationStandby newStandby = new ReplicationStandby("localhost", newPrimary.getPort());
+        try {
+            runSession(promoted, new Random(11), 200);
+            Order next = order(OrderSide.SELL, "100", "1");
+            promoted.placeOrder(next);
+            assertNotEquals(lost.getOrderId(), next.getOrderId());
+
+            assertTrue(newStandby.awaitSequence(newPrimary.getLastSequence(), TIMEOUT));
+            ReplayEngine follower = newStandby.getReplayEngine();
+            assertEquals(ReplayEngine.bookDigest(promoted), ReplayEngine.bookDigest(follower.getEngine()));
+            assertEquals(ReplayEngine.tradeDigest(standby.getReplayEngine().result().getTrades()),
+                    ReplayEngine.tradeDigest(follower.result().getTrades()));
+        } finally {
+            newStandby.close();
+            newPrimary.close();
+        }
+    }
+
+    @Test
+    void testStandbyBehindHistoryIsRefused() throws Exception {
+        MatchingEngine engine = MatchingEngine.newIsolatedInstance(EngineClock.system(), false);
+        engine.setRepositories(OrderRepository.newInstance(), TradeRepository.newInstance());
+        ReplicationPrimary primary = new ReplicationPrimary(0,
+                ReplicationPolicy.async().toBuilder().historyLimit(3).build());
+        try {
+            engine.setJournal(primary);
+            for (int i = 0; i < 5; i++) {
+                engine.placeOrder(order(OrderSide.BUY, "100", "1"));
+            }
+
+            ReplicationStandby standby = new ReplicationStandby("localhost", primary.getPort());
+            standby.awaitDisconnect();
+            assertEquals(0, standby.getLastApplied());
+            assertEquals(0, primary.getStandbyCount());
+            standby.close();
+        } finally {
+            primary.close();
+        }
+    }
+
+    private static void runSession(MatchingEngine engine, Random random, int commands) {
+        List<String> placed = new ArrayList<>();
+        for (int i = 0; i < commands; i++) {
+            try {
+                int action = random.nextInt(10);
+                if (action < 7 || placed.isEmpty()) {
+                    Order order = order(random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL,
+                            String.valueOf(95 + random.nextInt(10)), String.valueOf(1 + random.nextInt(20)));
+                    engine.placeOrder(order);
+                    placed.add(order.getOrderId());
+                } else if (action < 9) {
+                    engine.cancelOrder(placed.get(random.nextInt(placed.size())));
+                } else {
+                    engine.modifyOrder(placed.get(random.nextInt(placed.size())),
+                            BigDecimal.valueOf(95 + random.nextInt(10)), null);
+                }
+            } catch (OrderException e) {
+                // Cancelling or modifying a filled order is expected in a random session
+            }
+        }
+    }
+
+    private static Order order(OrderSide side, String price, String quantity) {
+        return Order.createOrder("user" + side.ordinal(), SYMBOL, side, new BigDecimal(price), new BigDecimal(quantity));
+    }
+}
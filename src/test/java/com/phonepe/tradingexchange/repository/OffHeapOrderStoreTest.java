@@ -0,0 +1,130 @@
+package com.phonepe.tradingexchange.repository;
+
+import com.phonepe.tradingexchange.exception.OrderException;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapOrderStoreTest {
+    private OffHeapOrderStore store;
+    private static final String SYMBOL = "AAPL";
+    private static final String USER_ID = "user1";
+
+    @BeforeEach
+    void setUp() {
+        store = new OffHeapOrderStore();
+    }
+
+    @Test
+    void testSaveAndFindById() {
+        Order order = Order.createStopLossOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                new BigDecimal("150.25"), new BigDecimal("10"), new BigDecimal("149.50"));
+
+        store.save(order);
+
+        assertEquals(Optional.of(order), store.findById(order.getOrderId()));
+        assertEquals(1, store.count());
+    }
+
+    @Test
+    void testFindByIdWithUnknownOrder() {
+        assertFalse(store.findById("ORD-999999").isPresent());
+        assertFalse(store.findById("not-an-order").isPresent());
+    }
+
+    @Test
+    void testUpdateOrder() {
+        Order order = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(10));
+        store.save(order);
+
+        order.updateQuantity(BigDecimal.ZERO);
+        store.updateOrder(order);
+
+        Order stored = store.findById(order.getOrderId()).orElseThrow();
+        assertEquals(OrderStatus.EXECUTED, stored.getStatus());
+        assertEquals(BigDecimal.ZERO, stored.getQuantity());
+    }
+
+    @Test
+    void testUpdateUnknownOrderIsIgnored() {
+        Order order = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(10));
+
+        store.updateOrder(order);
+
+        assertFalse(store.findById(order.getOrderId()).isPresent());
+        assertEquals(0, store.count());
+    }
+
+    @Test
+    void testFindByUserId() {
+        Order order1 = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(10));
+        Order order2 = Order.createOrder("user2", SYMBOL, OrderSide.SELL,
+                BigDecimal.valueOf(101), BigDecimal.valueOf(5));
+        store.save(order1);
+        store.save(order2);
+
+        assertEquals(1, store.findByUserId(USER_ID).size());
+        assertEquals(order2, store.findByUserId("user2").get(0));
+        assertTrue(store.findByUserId("unknown").isEmpty());
+        assertEquals(2, store.findAll().size());
+    }
+
+    @Test
+    void testFlyweightReadsColumns() {
+        Order order = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                new BigDecimal("99.50"), BigDecimal.valueOf(7));
+        store.save(order);
+
+        OrderFlyweight view = store.flyweight();
+        assertTrue(view.wrap(order.getOrderId()));
+        assertEquals(9950L, view.getPriceUnscaled());
+        assertEquals(2, view.getPriceScale());
+        assertEquals(USER_ID, view.getUserId());
+        assertEquals(SYMBOL, view.getSymbol());
+        assertEquals(OrderSide.BUY, view.getSide());
+        assertTrue(view.isActive());
+        assertFalse(view.wrap("ORD-999999"));
+    }
+
+    @Test
+    void testRejectsValuesThatDoNotFit() {
+        Order order = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                new BigDecimal("1e30").setScale(2), BigDecimal.valueOf(1));
+
+        assertThrows(OrderException.class, () -> store.save(order));
+    }
+
+    @Test
+    void testHighOrderIdsOnlyAllocateTheirOwnChunks() {
+        long start = 5L << 40;
+        Order high = order(start + 1);
+        Order lower = order(start - OffHeapOrderStore.CHUNK_SIZE * 3L);
+        store.save(high);
+        store.save(lower);
+
+        assertEquals(Optional.of(high), store.findById(high.getOrderId()));
+        assertEquals(Optional.of(lower), store.findById(lower.getOrderId()));
+        assertFalse(store.findById("ORD-" + start).isPresent());
+        assertEquals(2, store.findAll().size());
+    }
+
+    @Test
+    void testBytesPerOrder() {
+        assertTrue(OffHeapOrderStore.BYTES_PER_ORDER < 100);
+    }
+
+    private static Order order(long sequence) {
+        return Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY, BigDecimal.valueOf(100), BigDecimal.ONE)
+                .toBuilder().orderId("ORD-" + sequence).build();
+    }
+}
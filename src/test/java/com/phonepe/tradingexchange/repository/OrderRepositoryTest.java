@@ -0,0 +1,144 @@
+package com.phonepe.tradingexchange.repository;
+
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.OrderStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderRepositoryTest {
+    private OrderRepository orderRepository;
+    private static final String SYMBOL = "AAPL";
+    private static final String USER_ID = "user1";
+
+    @BeforeEach
+    void setUp() {
+        OrderRepository.reset();
+        orderRepository = OrderRepository.getInstance();
+    }
+
+    @AfterEach
+    void tearDown() {
+        OrderRepository.reset();
+    }
+
+    @Test
+    void testOpenOrderStaysHot() {
+        Order order = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(10));
+
+        orderRepository.save(order);
+
+        assertSame(order, orderRepository.findById(order.getOrderId()).orElseThrow());
+        assertEquals(1, orderRepository.hotCount());
+        assertEquals(0, orderRepository.coldCount());
+    }
+
+    @Test
+    void testExecutedOrderMovesToColdTier() {
+        Order order = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(10));
+        orderRepository.save(order);
+
+        order.updateQuantity(BigDecimal.ZERO);
+        orderRepository.updateOrder(order);
+
+        assertEquals(0, orderRepository.hotCount());
+        assertEquals(1, orderRepository.coldCount());
+        assertTrue(orderRepository.findOpenOrders().isEmpty());
+        assertEquals(OrderStatus.EXECUTED,
+                orderRepository.findById(order.getOrderId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void testCancelledOrderMovesToColdTier() {
+        Order order = Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(10));
+        orderRepository.save(order);
+
+        orderRepository.cancelOrder(order.getOrderId());
+
+        assertEquals(0, orderRepository.hotCount());
+        assertEquals(OrderStatus.CANCELLED,
+                orderRepository.findById(order.getOrderId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void testQueriesSpanBothTiers() {
+        Order open = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(10));
+        Order executed = Order.createOrder(USER_ID, SYMBOL, OrderSide.SELL,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(10));
+        orderRepository.save(open);
+        orderRepository.save(executed);
+        executed.updateQuantity(BigDecimal.ZERO);
+        orderRepository.updateOrder(executed);
+
+        assertEquals(2, orderRepository.findByUserId(USER_ID).size());
+        assertEquals(2, orderRepository.findAll().size());
+        assertEquals(1, orderRepository.findOpenOrders().size());
+    }
+
+    @Test
+    void testFindByUserIdPaged() {
+        for (int i = 0; i < 5; i++) {
+            orderRepository.save(Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                    BigDecimal.valueOf(100 + i), BigDecimal.valueOf(10)));
+        }
+        orderRepository.save(Order.createOrder("user2", SYMBOL, OrderSide.BUY,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(10)));
+
+        Page<Order> first = orderRepository.findByUserId(USER_ID, 0, 3, null, null);
+        assertEquals(3, first.getItems().size());
+        assertTrue(first.isHasMore());
+        assertEquals(BigDecimal.valueOf(100), first.getItems().get(0).getPrice());
+
+        Page<Order> second = orderRepository.findByUserId(USER_ID, first.getNextCursor(), 3, null, null);
+        assertEquals(2, second.getItems().size());
+        assertFalse(second.isHasMore());
+        assertEquals(BigDecimal.valueOf(104), second.getItems().get(1).getPrice());
+    }
+
+    @Test
+    void testFindByUserIdPagedKeepsPlacementOrderForOutOfOrderSaves() {
+        Order first = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY, BigDecimal.valueOf(100), BigDecimal.TEN);
+        Order second = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY, BigDecimal.valueOf(101), BigDecimal.TEN);
+        Order third = Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY, BigDecimal.valueOf(102), BigDecimal.TEN);
+        orderRepository.save(third);
+        orderRepository.save(first);
+        orderRepository.save(second);
+        orderRepository.save(second);
+
+        Page<Order> firstPage = orderRepository.findByUserId(USER_ID, 0, 2, null, null);
+        assertEquals(2, firstPage.getItems().size());
+        assertSame(first, firstPage.getItems().get(0));
+        assertSame(second, firstPage.getItems().get(1));
+
+        Page<Order> secondPage = orderRepository.findByUserId(USER_ID, firstPage.getNextCursor(), 2, null, null);
+        assertEquals(1, secondPage.getItems().size());
+        assertSame(third, secondPage.getItems().get(0));
+        assertFalse(secondPage.isHasMore());
+    }
+
+    @Test
+    void testFindByUserIdPagedWithinTimeBounds() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 2, 9, 0);
+        for (int i = 0; i < 5; i++) {
+            orderRepository.save(Order.createOrder(USER_ID, SYMBOL, OrderSide.BUY,
+                    BigDecimal.valueOf(100 + i), BigDecimal.TEN).toBuilder().createdAt(start.plusMinutes(i)).build());
+        }
+
+        Page<Order> page = orderRepository.findByUserId(USER_ID, 0, 10,
+                start.plusMinutes(1), start.plusMinutes(3));
+        assertEquals(2, page.getItems().size());
+        assertEquals(BigDecimal.valueOf(101), page.getItems().get(0).getPrice());
+        assertEquals(BigDecimal.valueOf(102), page.getItems().get(1).getPrice());
+        assertFalse(page.isHasMore());
+    }
+}
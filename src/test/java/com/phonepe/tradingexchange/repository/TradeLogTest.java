@@ -0,0 +1,95 @@
+package com.phonepe.tradingexchange.repository;
+
+import com.phonepe.tradingexchange.model.Trade;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeLogTest {
+    private static final String SYMBOL = "AAPL";
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 2, 9, 30);
+
+    private TradeLog tradeLog;
+
+    @BeforeEach
+    void setUp() {
+        tradeLog = new TradeLog(4);
+        for (int i = 1; i <= 10; i++) {
+            tradeLog.append(trade(i, START.plusSeconds(i)));
+        }
+    }
+
+    @Test
+    void testRangeSpanningChunks() {
+        List<String> ids = tradeLog.between(START.plusSeconds(3), START.plusSeconds(8))
+                .map(Trade::getTradeId)
+                .collect(Collectors.toList());
+
+        assertEquals(List.of("TRD-3", "TRD-4", "TRD-5", "TRD-6", "TRD-7"), ids);
+    }
+
+    @Test
+    void testOpenBounds() {
+        assertEquals(10, tradeLog.between(null, null).count());
+        assertEquals(2, tradeLog.between(START.plusSeconds(9), null).count());
+        assertEquals(4, tradeLog.between(null, START.plusSeconds(5)).count());
+    }
+
+    @Test
+    void testEmptyRange() {
+        assertEquals(0, tradeLog.between(START.plusSeconds(20), null).count());
+        assertEquals(0, tradeLog.between(null, START).count());
+        assertEquals(0, new TradeLog().between(null, null).count());
+    }
+
+    @Test
+    void testSequencesBetween() {
+        assertArrayEquals(new long[] {5, 6},
+                tradeLog.sequencesBetween(START.plusSeconds(5), START.plusSeconds(7)).toArray());
+    }
+
+    @Test
+    void testOutOfOrderTimestampIsIndexedAtPredecessorTime() {
+        tradeLog.append(trade(11, START));
+
+        assertEquals(1, tradeLog.between(START.plusSeconds(10), null)
+                .filter(trade -> trade.getTradeId().equals("TRD-11"))
+                .count());
+        assertEquals(11, tradeLog.size());
+    }
+
+    @Test
+    void testAfterSeeksToCursorAndStartTime() {
+        assertEquals(List.of("TRD-6", "TRD-7", "TRD-8", "TRD-9", "TRD-10"), ids(tradeLog.after(5, null)));
+        assertEquals(List.of("TRD-8", "TRD-9", "TRD-10"), ids(tradeLog.after(2, START.plusSeconds(8))));
+        assertEquals(List.of("TRD-9", "TRD-10"), ids(tradeLog.after(8, START.plusSeconds(3))));
+        assertEquals(List.of(), ids(tradeLog.after(10, null)));
+        assertEquals(List.of(), ids(new TradeLog().after(0, null)));
+    }
+
+    private static List<String> ids(Iterator<Trade> trades) {
+        List<String> ids = new ArrayList<>();
+        trades.forEachRemaining(trade -> ids.add(trade.getTradeId()));
+        return ids;
+    }
+
+    private static Trade trade(long sequence, LocalDateTime executedAt) {
+        return Trade.builder()
+                .tradeId("TRD-" + sequence)
+                .buyOrderId("ORD-1")
+                .sellOrderId("ORD-2")
+                .symbol(SYMBOL)
+                .price(BigDecimal.valueOf(100))
+                .quantity(BigDecimal.ONE)
+                .executedAt(executedAt)
+                .build();
+    }
+}
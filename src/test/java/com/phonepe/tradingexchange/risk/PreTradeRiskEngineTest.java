@@ -0,0 +1,137 @@
+package com.phonepe.tradingexchange.risk;
+
+import com.phonepe.tradingexchange.clock.EngineClock;
+import com.phonepe.tradingexchange.engine.MatchingEngine;
+import com.phonepe.tradingexchange.exception.RiskLimitException;
+import com.phonepe.tradingexchange.journal.Command;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.repository.OrderRepository;
+import com.phonepe.tradingexchange.repository.TradeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreTradeRiskEngineTest {
+    private static final String SYMBOL = "AAPL";
+    private static final String BUYER = "buyer";
+    private static final String SELLER = "seller";
+
+    private MatchingEngine engine;
+    private PreTradeRiskEngine risk;
+
+    @BeforeEach
+    void setUp() {
+        engine = MatchingEngine.newIsolatedInstance(EngineClock.system(), true);
+        engine.setRepositories(OrderRepository.newInstance(), TradeRepository.newInstance());
+        risk = engine.getRiskEngine();
+    }
+
+    @Test
+    void testOrderLimitsRejectBeforeJournaling() {
+        List<Command> journal = new ArrayList<>();
+        engine.setJournal(command -> {
+            journal.add(command);
+            return command;
+        });
+        risk.setDefaultLimits(RiskLimits.builder()
+                .maxOrderQuantity(new BigDecimal("100"))
+                .maxOrderNotional(new BigDecimal("5000"))
+                .build());
+
+        assertThrows(RiskLimitException.class, () -> engine.placeOrder(order(BUYER, OrderSide.BUY, "10", "101")));
+        assertThrows(RiskLimitException.class, () -> engine.placeOrder(order(BUYER, OrderSide.BUY, "51", "100")));
+        engine.placeOrder(order(BUYER, OrderSide.BUY, "50", "100"));
+
+        assertEquals(1, journal.size());
+        assertEquals(1, risk.getExposure(BUYER, SYMBOL).getOpenOrders());
+    }
+
+    @Test
+    void testFillsMoveExposureIntoPosition() {
+        engine.placeOrder(order(SELLER, OrderSide.SELL, "100", "30"));
+        engine.placeOrder(order(BUYER, OrderSide.BUY, "101", "20"));
+
+        RiskExposure buyer = risk.getExposure(BUYER, SYMBOL);
+        assertEquals(0, buyer.getOpenOrders());
+        assertEquals(0, buyer.getOpenBuyQuantity().signum());
+        assertEquals(0, buyer.getOpenNotional().signum());
+        assertEquals(0, new BigDecimal("20").compareTo(buyer.getPosition()));
+
+        RiskExposure seller = risk.getExposure(SELLER, SYMBOL);
+        assertEquals(1, seller.getOpenOrders());
+        assertEquals(0, new BigDecimal("10").compareTo(seller.getOpenSellQuantity()));
+        assertEquals(0, new BigDecimal("1000").compareTo(seller.getOpenNotional()));
+        assertEquals(0, new BigDecimal("-20").compareTo(seller.getPosition()));
+    }
+
+    @Test
+    void testCancelAndModifyAdjustOpenExposure() {
+        risk.setUserLimits(BUYER, RiskLimits.builder().maxOpenNotional(new BigDecimal("3000")).build());
+        Order first = order(BUYER, OrderSide.BUY, "100", "20");
+        engine.placeOrder(first);
+        assertThrows(RiskLimitException.class, () -> engine.placeOrder(order(BUYER, OrderSide.BUY, "100", "11")));
+        assertThrows(RiskLimitException.class,
+                () -> engine.modifyOrder(first.getOrderId(), new BigDecimal("151"), null));
+
+        engine.modifyOrder(first.getOrderId(), null, new BigDecimal("10"));
+        assertEquals(0, new BigDecimal("1000").compareTo(risk.getExposure(BUYER, SYMBOL).getOpenNotional()));
+        engine.placeOrder(order(BUYER, OrderSide.BUY, "100", "20"));
+
+        engine.cancelOrder(first.getOrderId());
+        RiskExposure exposure = risk.getExposure(BUYER, SYMBOL);
+        assertEquals(1, exposure.getOpenOrders());
+        assertEquals(0, new BigDecimal("20").compareTo(exposure.getOpenBuyQuantity()));
+    }
+
+    @Test
+    void testPendingModifyReservesAddedExposure() {
+        risk.setUserLimits(BUYER, RiskLimits.builder()
+                .maxOpenNotional(new BigDecimal("3000"))
+                .maxPosition(new BigDecimal("30"))
+                .build());
+        Order first = order(BUYER, OrderSide.BUY, "100", "10");
+        Order second = order(BUYER, OrderSide.BUY, "100", "10");
+        engine.placeOrder(first);
+        engine.placeOrder(second);
+
+        // Two modifies in flight at once can't both take the remaining headroom
+        risk.reserveReplacement(first, null, new BigDecimal("20"));
+        assertThrows(RiskLimitException.class, () -> risk.reserveReplacement(second, null, new BigDecimal("20")));
+        RiskExposure exposure = risk.getExposure(BUYER, SYMBOL);
+        assertEquals(0, new BigDecimal("3000").compareTo(exposure.getOpenNotional()));
+        assertEquals(0, new BigDecimal("30").compareTo(exposure.getOpenBuyQuantity()));
+
+        risk.releaseReplacement(first, null, new BigDecimal("20"));
+        engine.modifyOrder(second.getOrderId(), null, new BigDecimal("20"));
+        exposure = risk.getExposure(BUYER, SYMBOL);
+        assertEquals(0, new BigDecimal("3000").compareTo(exposure.getOpenNotional()));
+        assertEquals(0, new BigDecimal("30").compareTo(exposure.getOpenBuyQuantity()));
+        engine.modifyOrder(second.getOrderId(), new BigDecimal("50"), new BigDecimal("5"));
+        exposure = risk.getExposure(BUYER, SYMBOL);
+        assertEquals(0, new BigDecimal("1250").compareTo(exposure.getOpenNotional()));
+        assertEquals(0, new BigDecimal("15").compareTo(exposure.getOpenBuyQuantity()));
+    }
+
+    @Test
+    void testPositionLimitCountsOpenOrdersOnTheSameSide() {
+        risk.setDefaultLimits(RiskLimits.builder().maxPosition(new BigDecimal("50")).build());
+        engine.placeOrder(order(SELLER, OrderSide.SELL, "100", "30"));
+        engine.placeOrder(order(BUYER, OrderSide.BUY, "100", "30"));
+        engine.placeOrder(order(BUYER, OrderSide.BUY, "99", "20"));
+
+        assertThrows(RiskLimitException.class, () -> engine.placeOrder(order(BUYER, OrderSide.BUY, "99", "1")));
+        // Sells are netted against the long position before the limit applies
+        engine.placeOrder(order(BUYER, OrderSide.SELL, "105", "50"));
+        assertThrows(RiskLimitException.class, () -> engine.placeOrder(order(BUYER, OrderSide.SELL, "105", "31")));
+    }
+
+    private static Order order(String userId, OrderSide side, String price, String quantity) {
+        return Order.createOrder(userId, SYMBOL, side, new BigDecimal(price), new BigDecimal(quantity));
+    }
+}
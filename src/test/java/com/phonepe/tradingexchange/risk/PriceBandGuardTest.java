@@ -0,0 +1,102 @@
+package com.phonepe.tradingexchange.risk;
+
+import com.phonepe.tradingexchange.clock.EngineClock;
+import com.phonepe.tradingexchange.engine.AuctionResult;
+import com.phonepe.tradingexchange.engine.MatchingEngine;
+import com.phonepe.tradingexchange.exception.PriceBandException;
+import com.phonepe.tradingexchange.journal.Command;
+import com.phonepe.tradingexchange.journal.CommandType;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.model.Trade;
+import com.phonepe.tradingexchange.repository.OrderRepository;
+import com.phonepe.tradingexchange.repository.TradeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceBandGuardTest {
+    private static final String SYMBOL = "AAPL";
+
+    private MatchingEngine engine;
+    private PriceBandGuard guard;
+    private final List<Trade> trades = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        engine = MatchingEngine.newIsolatedInstance(EngineClock.system(), true);
+        engine.setRepositories(OrderRepository.newInstance(), TradeRepository.newInstance());
+        engine.addTradeListener(trades::add);
+        guard = engine.getPriceBands();
+    }
+
+    @Test
+    void testStaticAndDynamicBandsRejectFatFingers() {
+        guard.setDefaultPolicy(PriceBandPolicy.builder()
+                .minPrice(new BigDecimal("1"))
+                .maxPrice(new BigDecimal("1000"))
+                .lastTradeBandPercent(10)
+                .topOfBookBandPercent(5)
+                .build());
+
+        assertThrows(PriceBandException.class, () -> engine.placeOrder(order(OrderSide.BUY, "1001")));
+        trade("100");
+        assertEquals(0, new BigDecimal("100").compareTo(guard.getLastTradePrice(SYMBOL)));
+
+        assertThrows(PriceBandException.class, () -> engine.placeOrder(order(OrderSide.BUY, "111")));
+        assertThrows(PriceBandException.class, () -> engine.placeOrder(order(OrderSide.SELL, "89")));
+        // Passive prices away from the market are harmless
+        engine.placeOrder(order(OrderSide.SELL, "104"));
+        engine.placeOrder(order(OrderSide.BUY, "50"));
+        // Within the last-trade band but too far through the best ask
+        assertThrows(PriceBandException.class, () -> engine.placeOrder(order(OrderSide.BUY, "110")));
+        engine.placeOrder(order(OrderSide.BUY, "105"));
+        assertEquals(2, trades.size());
+    }
+
+    @Test
+    void testCircuitBreakerHaltsIntoAuction() {
+        guard.setDefaultPolicy(PriceBandPolicy.builder()
+                .circuitBreakerPercent(5)
+                .circuitBreakerWindow(Duration.ofMinutes(1))
+                .build());
+        trade("100");
+        List<Command> journal = new ArrayList<>();
+        engine.setJournal(command -> {
+            journal.add(command);
+            return command;
+        });
+
+        engine.placeOrder(order(OrderSide.SELL, "104"));
+        engine.placeOrder(order(OrderSide.SELL, "108"));
+        engine.placeOrder(order(OrderSide.BUY, "104"));
+        assertFalse(engine.isInAuction(SYMBOL));
+
+        engine.placeOrder(order(OrderSide.BUY, "108"));
+        assertTrue(engine.isInAuction(SYMBOL));
+        assertEquals(2, trades.size());
+        assertEquals(1, engine.getMetrics().getCircuitBreakerTrips());
+        // The halt is journaled ahead of the order that caused it
+        assertEquals(CommandType.AUCTION_START, journal.get(journal.size() - 2).getType());
+        assertEquals(CommandType.PLACE_ORDER, journal.get(journal.size() - 1).getType());
+
+        AuctionResult result = engine.endAuction(SYMBOL);
+        assertEquals(0, new BigDecimal("108").compareTo(result.getClearingPrice()));
+        assertEquals(0, new BigDecimal("108").compareTo(guard.getLastTradePrice(SYMBOL)));
+    }
+
+    private void trade(String price) {
+        engine.placeOrder(order(OrderSide.SELL, price));
+        engine.placeOrder(order(OrderSide.BUY, price));
+    }
+
+    private static Order order(OrderSide side, String price) {
+        return Order.createOrder("user1", SYMBOL, side, new BigDecimal(price), BigDecimal.ONE);
+    }
+}
@@ -0,0 +1,99 @@
+package com.phonepe.tradingexchange.settlement;
+
+import com.phonepe.tradingexchange.clock.EngineClock;
+import com.phonepe.tradingexchange.engine.MatchingEngine;
+import com.phonepe.tradingexchange.model.Order;
+import com.phonepe.tradingexchange.model.OrderSide;
+import com.phonepe.tradingexchange.repository.OrderRepository;
+import com.phonepe.tradingexchange.repository.TradeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SettlementJobTest {
+
+    @Test
+    void testNetsTradesPerUserAndSymbol(@TempDir Path directory) throws Exception {
+        MatchingEngine engine = MatchingEngine.newIsolatedInstance(EngineClock.system(), true);
+        TradeRepository trades = TradeRepository.newInstance();
+        engine.setRepositories(OrderRepository.newInstance(), trades);
+        engine.placeOrder(order("alice", "AAPL", OrderSide.SELL, "100", "10"));
+        engine.placeOrder(order("bob", "AAPL", OrderSide.BUY, "100", "6"));
+        engine.placeOrder(order("carol", "AAPL", OrderSide.BUY, "100", "4"));
+        engine.placeOrder(order("bob", "AAPL", OrderSide.SELL, "101.5", "2"));
+        engine.placeOrder(order("carol", "AAPL", OrderSide.BUY, "102", "2"));
+        engine.placeOrder(order("alice", "MSFT", OrderSide.BUY, "50", "3"));
+        engine.placeOrder(order("bob", "MSFT", OrderSide.SELL, "50", "3"));
+
+        SettlementReport report;
+        try (SettlementJob job = new SettlementJob(2)) {
+            report = job.submit(trades, null, null).get();
+        }
+
+        assertEquals(4, report.getTradeCount());
+        assertTrue(report.getEncodeNanos() > 0 && report.getEncodeNanos() <= report.getElapsedNanos());
+        List<SettlementObligation> obligations = report.getObligations();
+        assertEquals(5, obligations.size());
+        assertObligation(obligations.get(0), "alice", "AAPL", "-10", "1000");
+        assertObligation(obligations.get(1), "alice", "MSFT", "3", "-150");
+        assertObligation(obligations.get(2), "bob", "AAPL", "4", "-397");
+        assertObligation(obligations.get(3), "bob", "MSFT", "-3", "150");
+        assertObligation(obligations.get(4), "carol", "AAPL", "6", "-603");
+
+        Path file = directory.resolve("settlement.csv");
+        report.writeTo(file);
+        List<String> lines = Files.readAllLines(file);
+        assertEquals("userId,symbol,netQuantity,netCash", lines.get(1));
+        assertEquals("bob,AAPL,4,-397.0000", lines.get(4));
+    }
+
+    @Test
+    void testParallelNettingMatchesSequential() {
+        SettlementBatch batch = SettlementBenchmark.generate(50_000, 40, 7, 7);
+        List<NettingAccumulator> parallel;
+        try (SettlementJob job = new SettlementJob(4, 1000)) {
+            parallel = job.net(Collections.singletonList(batch));
+        }
+        // 7 symbols over 50k trades: most partitions sit inside one symbol and get merged
+        assertEquals(7, parallel.size());
+
+        Map<Long, long[]> expected = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            add(expected, batch.buyUsers[i], batch.symbols[i], batch.quantities[i], -batch.notionals[i]);
+            add(expected, batch.sellUsers[i], batch.symbols[i], -batch.quantities[i], batch.notionals[i]);
+        }
+        assertEquals(expected.size(), parallel.stream().mapToInt(NettingAccumulator::size).sum());
+        parallel.forEach(accumulator -> accumulator.forEach((user, symbol, quantity, cash) -> {
+            long[] totals = expected.get(((long) user << 32) | symbol);
+            assertEquals(totals[0], quantity);
+            assertEquals(totals[1], cash);
+        }));
+    }
+
+    private static void add(Map<Long, long[]> totals, int user, int symbol, long quantity, long cash) {
+        long[] entry = totals.computeIfAbsent(((long) user << 32) | symbol, key -> new long[2]);
+        entry[0] += quantity;
+        entry[1] += cash;
+    }
+
+    private static void assertObligation(SettlementObligation obligation, String userId, String symbol,
+                                         String quantity, String cash) {
+        assertEquals(userId, obligation.getUserId());
+        assertEquals(symbol, obligation.getSymbol());
+        assertEquals(0, new BigDecimal(quantity).compareTo(obligation.getNetQuantity()));
+        assertEquals(0, new BigDecimal(cash).compareTo(obligation.getNetCash()));
+    }
+
+    private static Order order(String userId, String symbol, OrderSide side, String price, String quantity) {
+        return Order.createOrder(userId, symbol, side, new BigDecimal(price), new BigDecimal(quantity));
+    }
+}
@@ -0,0 +1,63 @@
+package com.phonepe.tradingexchange.throttle;
+
+import com.phonepe.tradingexchange.exception.ThrottledException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageThrottleTest {
+    private final AtomicLong nanos = new AtomicLong(Long.MAX_VALUE - TimeUnit.SECONDS.toNanos(1));
+    private MessageThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        throttle = new MessageThrottle(nanos::get);
+    }
+
+    @Test
+    void testUnlimitedByDefault() {
+        for (int i = 0; i < 10_000; i++) {
+            throttle.acquire("user1", "AAPL");
+        }
+        assertEquals(0, throttle.getUserThrottled());
+    }
+
+    @Test
+    void testUserBurstThenSustainedRate() {
+        throttle.setPolicy(ThrottlePolicy.builder().userMessagesPerSecond(10).userBurst(3).build());
+
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("user1", "AAPL");
+        }
+        assertThrows(ThrottledException.class, () -> throttle.acquire("user1", "AAPL"));
+        // Other users have their own bucket
+        throttle.acquire("user2", "AAPL");
+
+        // One emission interval later exactly one more message fits; the clock wraps on the way
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        throttle.acquire("user1", "AAPL");
+        assertThrows(ThrottledException.class, () -> throttle.acquire("user1", "AAPL"));
+        assertEquals(2, throttle.getUserThrottled());
+        assertEquals(0, throttle.getSymbolThrottled());
+    }
+
+    @Test
+    void testSymbolLimitAppliesAcrossUsers() {
+        throttle.setPolicy(ThrottlePolicy.builder().symbolMessagesPerSecond(2).build());
+
+        throttle.acquire("user1", "AAPL");
+        throttle.acquire("user2", "AAPL");
+        assertThrows(ThrottledException.class, () -> throttle.acquire("user3", "AAPL"));
+        throttle.acquire("user3", "GOOGL");
+        // Messages without a known symbol are only checked against the user limit
+        throttle.acquire("user3", null);
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        throttle.acquire("user3", "AAPL");
+        assertEquals(1, throttle.getSymbolThrottled());
+    }
+}